@@ -71,6 +71,49 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_munmap0
     return munmap((void *) address, (size_t) len);
 }
 
+JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_dup0
+        (JNIEnv *e, jclass cl, jlong fd) {
+    return dup((int) fd);
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_msync
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jboolean async) {
+    return msync((void *) address, (size_t) len, async ? MS_ASYNC : MS_SYNC);
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    int adv;
+    switch (advice) {
+        case com_questdb_std_Files_MADV_SEQUENTIAL:
+            adv = MADV_SEQUENTIAL;
+            break;
+        case com_questdb_std_Files_MADV_WILLNEED:
+            adv = MADV_WILLNEED;
+            break;
+        case com_questdb_std_Files_MADV_DONTNEED:
+            adv = MADV_DONTNEED;
+            break;
+#ifdef MADV_HUGEPAGE
+        case com_questdb_std_Files_MADV_HUGEPAGE:
+            adv = MADV_HUGEPAGE;
+            break;
+#endif
+        default:
+            return 0;
+    }
+    return madvise((void *) address, (size_t) len, adv);
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fsync
+        (JNIEnv *e, jclass cl, jlong fd) {
+#ifdef __APPLE__
+    return fsync((int) fd);
+#else
+    return fdatasync((int) fd);
+#endif
+}
+
 JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_append
         (JNIEnv *e, jclass cl,
          jlong fd,
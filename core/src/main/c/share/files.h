@@ -29,6 +29,14 @@ extern "C" {
 #define com_questdb_std_Files_MAP_RO 1L
 #undef com_questdb_std_Files_MAP_RW
 #define com_questdb_std_Files_MAP_RW 2L
+#undef com_questdb_std_Files_MADV_SEQUENTIAL
+#define com_questdb_std_Files_MADV_SEQUENTIAL 1L
+#undef com_questdb_std_Files_MADV_WILLNEED
+#define com_questdb_std_Files_MADV_WILLNEED 2L
+#undef com_questdb_std_Files_MADV_DONTNEED
+#define com_questdb_std_Files_MADV_DONTNEED 3L
+#undef com_questdb_std_Files_MADV_HUGEPAGE
+#define com_questdb_std_Files_MADV_HUGEPAGE 4L
 /*
  * Class:     com_questdb_std_Files
  * Method:    append
@@ -133,6 +141,38 @@ JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_write
 JNIEXPORT jint JNICALL Java_io_questdb_std_Files_close0
         (JNIEnv *, jclass, jlong);
 
+/*
+ * Class:     com_questdb_std_Files
+ * Method:    dup0
+ * Signature: (J)J
+ */
+JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_dup0
+        (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     com_questdb_std_Files
+ * Method:    msync
+ * Signature: (JJZ)I
+ */
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_msync
+        (JNIEnv *, jclass, jlong, jlong, jboolean);
+
+/*
+ * Class:     com_questdb_std_Files
+ * Method:    madvise
+ * Signature: (JJI)I
+ */
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise
+        (JNIEnv *, jclass, jlong, jlong, jint);
+
+/*
+ * Class:     com_questdb_std_Files
+ * Method:    fsync
+ * Signature: (J)I
+ */
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fsync
+        (JNIEnv *, jclass, jlong);
+
 /*
  * Class:     com_questdb_std_Files
  * Method:    munmap0
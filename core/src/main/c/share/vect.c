@@ -0,0 +1,331 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+#include <math.h>
+#include <stdint.h>
+#include "vect.h"
+
+/*
+ * Aggregation kernels over contiguous column memory. Null values follow Java conventions:
+ * NaN for double, Integer.MIN_VALUE for int and Long.MIN_VALUE for long.
+ *
+ * Double sum is accumulated in 16 partial sums which are combined in fixed order, both by AVX2 and
+ * scalar implementations, so that result does not depend on instruction set available at runtime.
+ */
+
+#define INT_NULL ((int32_t) 0x80000000)
+#define LONG_NULL ((int64_t) 0x8000000000000000LL)
+#define LANES 16
+
+#define INSTRUCTION_SET_SCALAR 0
+#define INSTRUCTION_SET_AVX2 1
+
+static double sum_double_tail(const double *partial, const double *p, int64_t i, int64_t count) {
+    double t[4];
+    for (int k = 0; k < 4; k++) {
+        t[k] = ((partial[k] + partial[k + 4]) + partial[k + 8]) + partial[k + 12];
+    }
+    double sum = (t[0] + t[1]) + (t[2] + t[3]);
+    for (; i < count; i++) {
+        sum += p[i];
+    }
+    return sum;
+}
+
+static double sum_double_scalar(const double *p, int64_t count) {
+    double partial[LANES] = {0};
+    int64_t i = 0;
+    for (; i + LANES <= count; i += LANES) {
+        for (int k = 0; k < LANES; k++) {
+            partial[k] += p[i + k];
+        }
+    }
+    return sum_double_tail(partial, p, i, count);
+}
+
+static double min_double_scalar(const double *p, int64_t count) {
+    double min = NAN;
+    for (int64_t i = 0; i < count; i++) {
+        const double v = p[i];
+        if (v < min || isnan(min)) {
+            min = v;
+        }
+    }
+    return min;
+}
+
+static double max_double_scalar(const double *p, int64_t count) {
+    double max = NAN;
+    for (int64_t i = 0; i < count; i++) {
+        const double v = p[i];
+        if (v > max || isnan(max)) {
+            max = v;
+        }
+    }
+    return max;
+}
+
+static int32_t sum_int_scalar(const int32_t *p, int64_t count) {
+    uint32_t sum = 0;
+    for (int64_t i = 0; i < count; i++) {
+        sum += (uint32_t) p[i];
+    }
+    return (int32_t) sum;
+}
+
+static int32_t min_int_scalar(const int32_t *p, int64_t count) {
+    int32_t min = INT_NULL;
+    for (int64_t i = 0; i < count; i++) {
+        const int32_t v = p[i];
+        if (v != INT_NULL && (v < min || min == INT_NULL)) {
+            min = v;
+        }
+    }
+    return min;
+}
+
+static int64_t sum_long_scalar(const int64_t *p, int64_t count) {
+    uint64_t sum = 0;
+    for (int64_t i = 0; i < count; i++) {
+        sum += (uint64_t) p[i];
+    }
+    return (int64_t) sum;
+}
+
+static int64_t min_long_scalar(const int64_t *p, int64_t count) {
+    int64_t min = LONG_NULL;
+    for (int64_t i = 0; i < count; i++) {
+        const int64_t v = p[i];
+        if (v != LONG_NULL && (v < min || min == LONG_NULL)) {
+            min = v;
+        }
+    }
+    return min;
+}
+
+#if (defined(__GNUC__) || defined(__clang__)) && (defined(__x86_64__) || defined(_M_X64))
+
+#include <immintrin.h>
+
+#define AVX2 __attribute__((target("avx2")))
+
+AVX2 static double sum_double_avx2(const double *p, int64_t count) {
+    __m256d acc0 = _mm256_setzero_pd();
+    __m256d acc1 = _mm256_setzero_pd();
+    __m256d acc2 = _mm256_setzero_pd();
+    __m256d acc3 = _mm256_setzero_pd();
+    int64_t i = 0;
+    for (; i + LANES <= count; i += LANES) {
+        acc0 = _mm256_add_pd(acc0, _mm256_loadu_pd(p + i));
+        acc1 = _mm256_add_pd(acc1, _mm256_loadu_pd(p + i + 4));
+        acc2 = _mm256_add_pd(acc2, _mm256_loadu_pd(p + i + 8));
+        acc3 = _mm256_add_pd(acc3, _mm256_loadu_pd(p + i + 12));
+    }
+    double partial[LANES];
+    _mm256_storeu_pd(partial, acc0);
+    _mm256_storeu_pd(partial + 4, acc1);
+    _mm256_storeu_pd(partial + 8, acc2);
+    _mm256_storeu_pd(partial + 12, acc3);
+    return sum_double_tail(partial, p, i, count);
+}
+
+// NaN lanes are replaced with identity value of the operation, "seen" tracks whether
+// any lane has ever held a non-null value
+#define MINMAX_DOUBLE_AVX2(name, op, identity, scalar)                          \
+AVX2 static double name(const double *p, int64_t count) {                       \
+    const __m256d id = _mm256_set1_pd(identity);                                \
+    __m256d acc = id;                                                           \
+    __m256d seen = _mm256_setzero_pd();                                         \
+    int64_t i = 0;                                                              \
+    for (; i + 4 <= count; i += 4) {                                            \
+        const __m256d v = _mm256_loadu_pd(p + i);                               \
+        const __m256d ordered = _mm256_cmp_pd(v, v, _CMP_ORD_Q);                \
+        acc = op(acc, _mm256_blendv_pd(id, v, ordered));                        \
+        seen = _mm256_or_pd(seen, ordered);                                     \
+    }                                                                           \
+    double lanes[4];                                                            \
+    _mm256_storeu_pd(lanes, acc);                                               \
+    double result = NAN;                                                        \
+    if (_mm256_movemask_pd(seen) != 0) {                                        \
+        result = scalar(lanes, 4);                                              \
+    }                                                                           \
+    const double tail = scalar(p + i, count - i);                               \
+    if (isnan(result)) {                                                        \
+        return tail;                                                            \
+    }                                                                           \
+    if (isnan(tail)) {                                                          \
+        return result;                                                          \
+    }                                                                           \
+    return scalar((double[]) {result, tail}, 2);                                \
+}
+
+MINMAX_DOUBLE_AVX2(min_double_avx2, _mm256_min_pd, INFINITY, min_double_scalar)
+
+MINMAX_DOUBLE_AVX2(max_double_avx2, _mm256_max_pd, -INFINITY, max_double_scalar)
+
+AVX2 static int32_t sum_int_avx2(const int32_t *p, int64_t count) {
+    __m256i acc0 = _mm256_setzero_si256();
+    __m256i acc1 = _mm256_setzero_si256();
+    int64_t i = 0;
+    for (; i + 16 <= count; i += 16) {
+        acc0 = _mm256_add_epi32(acc0, _mm256_loadu_si256((const __m256i *) (p + i)));
+        acc1 = _mm256_add_epi32(acc1, _mm256_loadu_si256((const __m256i *) (p + i + 8)));
+    }
+    int32_t lanes[8];
+    _mm256_storeu_si256((__m256i *) lanes, _mm256_add_epi32(acc0, acc1));
+    return (int32_t) ((uint32_t) sum_int_scalar(lanes, 8) + (uint32_t) sum_int_scalar(p + i, count - i));
+}
+
+AVX2 static int32_t min_int_avx2(const int32_t *p, int64_t count) {
+    const __m256i null = _mm256_set1_epi32(INT_NULL);
+    const __m256i id = _mm256_set1_epi32(INT32_MAX);
+    __m256i acc = id;
+    __m256i nulls = _mm256_set1_epi32(-1);
+    int64_t i = 0;
+    for (; i + 8 <= count; i += 8) {
+        const __m256i v = _mm256_loadu_si256((const __m256i *) (p + i));
+        const __m256i isNull = _mm256_cmpeq_epi32(v, null);
+        acc = _mm256_min_epi32(acc, _mm256_blendv_epi8(v, id, isNull));
+        nulls = _mm256_and_si256(nulls, isNull);
+    }
+    int32_t result = INT_NULL;
+    if (i > 0 && _mm256_movemask_epi8(nulls) != -1) {
+        int32_t lanes[8];
+        _mm256_storeu_si256((__m256i *) lanes, acc);
+        result = min_int_scalar(lanes, 8);
+    }
+    const int32_t tail = min_int_scalar(p + i, count - i);
+    if (result == INT_NULL || (tail != INT_NULL && tail < result)) {
+        return tail == INT_NULL ? result : tail;
+    }
+    return result;
+}
+
+AVX2 static int64_t sum_long_avx2(const int64_t *p, int64_t count) {
+    __m256i acc0 = _mm256_setzero_si256();
+    __m256i acc1 = _mm256_setzero_si256();
+    int64_t i = 0;
+    for (; i + 8 <= count; i += 8) {
+        acc0 = _mm256_add_epi64(acc0, _mm256_loadu_si256((const __m256i *) (p + i)));
+        acc1 = _mm256_add_epi64(acc1, _mm256_loadu_si256((const __m256i *) (p + i + 4)));
+    }
+    int64_t lanes[4];
+    _mm256_storeu_si256((__m256i *) lanes, _mm256_add_epi64(acc0, acc1));
+    return (int64_t) ((uint64_t) sum_long_scalar(lanes, 4) + (uint64_t) sum_long_scalar(p + i, count - i));
+}
+
+AVX2 static int64_t min_long_avx2(const int64_t *p, int64_t count) {
+    const __m256i null = _mm256_set1_epi64x(LONG_NULL);
+    const __m256i id = _mm256_set1_epi64x(INT64_MAX);
+    __m256i acc = id;
+    __m256i nulls = _mm256_set1_epi64x(-1);
+    int64_t i = 0;
+    for (; i + 4 <= count; i += 4) {
+        const __m256i v = _mm256_loadu_si256((const __m256i *) (p + i));
+        const __m256i isNull = _mm256_cmpeq_epi64(v, null);
+        const __m256i value = _mm256_blendv_epi8(v, id, isNull);
+        acc = _mm256_blendv_epi8(acc, value, _mm256_cmpgt_epi64(acc, value));
+        nulls = _mm256_and_si256(nulls, isNull);
+    }
+    int64_t result = LONG_NULL;
+    if (i > 0 && _mm256_movemask_epi8(nulls) != -1) {
+        int64_t lanes[4];
+        _mm256_storeu_si256((__m256i *) lanes, acc);
+        result = min_long_scalar(lanes, 4);
+    }
+    const int64_t tail = min_long_scalar(p + i, count - i);
+    if (result == LONG_NULL || (tail != LONG_NULL && tail < result)) {
+        return tail == LONG_NULL ? result : tail;
+    }
+    return result;
+}
+
+static int detect_instruction_set() {
+    __builtin_cpu_init();
+    return __builtin_cpu_supports("avx2") ? INSTRUCTION_SET_AVX2 : INSTRUCTION_SET_SCALAR;
+}
+
+#else
+
+static int detect_instruction_set() {
+    return INSTRUCTION_SET_SCALAR;
+}
+
+#endif
+
+static int instruction_set = -1;
+
+static inline int get_instruction_set() {
+    if (instruction_set == -1) {
+        // benign race, all threads arrive at the same value
+        instruction_set = detect_instruction_set();
+    }
+    return instruction_set;
+}
+
+#if (defined(__GNUC__) || defined(__clang__)) && (defined(__x86_64__) || defined(_M_X64))
+#define DISPATCH(avx2, scalar, ...) (get_instruction_set() == INSTRUCTION_SET_AVX2 ? avx2(__VA_ARGS__) : scalar(__VA_ARGS__))
+#else
+#define DISPATCH(avx2, scalar, ...) scalar(__VA_ARGS__)
+#endif
+
+JNIEXPORT jdouble JNICALL Java_io_questdb_std_Vect_sumDouble
+        (JNIEnv *e, jclass cl, jlong pDouble, jlong count) {
+    return DISPATCH(sum_double_avx2, sum_double_scalar, (const double *) pDouble, count);
+}
+
+JNIEXPORT jdouble JNICALL Java_io_questdb_std_Vect_minDouble
+        (JNIEnv *e, jclass cl, jlong pDouble, jlong count) {
+    return DISPATCH(min_double_avx2, min_double_scalar, (const double *) pDouble, count);
+}
+
+JNIEXPORT jdouble JNICALL Java_io_questdb_std_Vect_maxDouble
+        (JNIEnv *e, jclass cl, jlong pDouble, jlong count) {
+    return DISPATCH(max_double_avx2, max_double_scalar, (const double *) pDouble, count);
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Vect_sumInt
+        (JNIEnv *e, jclass cl, jlong pInt, jlong count) {
+    return DISPATCH(sum_int_avx2, sum_int_scalar, (const int32_t *) pInt, count);
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Vect_minInt
+        (JNIEnv *e, jclass cl, jlong pInt, jlong count) {
+    return DISPATCH(min_int_avx2, min_int_scalar, (const int32_t *) pInt, count);
+}
+
+JNIEXPORT jlong JNICALL Java_io_questdb_std_Vect_sumLong
+        (JNIEnv *e, jclass cl, jlong pLong, jlong count) {
+    return DISPATCH(sum_long_avx2, sum_long_scalar, (const int64_t *) pLong, count);
+}
+
+JNIEXPORT jlong JNICALL Java_io_questdb_std_Vect_minLong
+        (JNIEnv *e, jclass cl, jlong pLong, jlong count) {
+    return DISPATCH(min_long_avx2, min_long_scalar, (const int64_t *) pLong, count);
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Vect_getSupportedInstructionSet
+        (JNIEnv *e, jclass cl) {
+    return get_instruction_set();
+}
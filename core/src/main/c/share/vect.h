@@ -0,0 +1,100 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+#include <jni.h>
+
+#ifndef _Included_io_questdb_std_Vect
+#define _Included_io_questdb_std_Vect
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+/*
+ * Class:     io_questdb_std_Vect
+ * Method:    sumDouble
+ * Signature: (JJ)D
+ */
+JNIEXPORT jdouble JNICALL Java_io_questdb_std_Vect_sumDouble
+        (JNIEnv *, jclass, jlong, jlong);
+
+/*
+ * Class:     io_questdb_std_Vect
+ * Method:    minDouble
+ * Signature: (JJ)D
+ */
+JNIEXPORT jdouble JNICALL Java_io_questdb_std_Vect_minDouble
+        (JNIEnv *, jclass, jlong, jlong);
+
+/*
+ * Class:     io_questdb_std_Vect
+ * Method:    maxDouble
+ * Signature: (JJ)D
+ */
+JNIEXPORT jdouble JNICALL Java_io_questdb_std_Vect_maxDouble
+        (JNIEnv *, jclass, jlong, jlong);
+
+/*
+ * Class:     io_questdb_std_Vect
+ * Method:    sumInt
+ * Signature: (JJ)I
+ */
+JNIEXPORT jint JNICALL Java_io_questdb_std_Vect_sumInt
+        (JNIEnv *, jclass, jlong, jlong);
+
+/*
+ * Class:     io_questdb_std_Vect
+ * Method:    minInt
+ * Signature: (JJ)I
+ */
+JNIEXPORT jint JNICALL Java_io_questdb_std_Vect_minInt
+        (JNIEnv *, jclass, jlong, jlong);
+
+/*
+ * Class:     io_questdb_std_Vect
+ * Method:    sumLong
+ * Signature: (JJ)J
+ */
+JNIEXPORT jlong JNICALL Java_io_questdb_std_Vect_sumLong
+        (JNIEnv *, jclass, jlong, jlong);
+
+/*
+ * Class:     io_questdb_std_Vect
+ * Method:    minLong
+ * Signature: (JJ)J
+ */
+JNIEXPORT jlong JNICALL Java_io_questdb_std_Vect_minLong
+        (JNIEnv *, jclass, jlong, jlong);
+
+/*
+ * Class:     io_questdb_std_Vect
+ * Method:    getSupportedInstructionSet
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL Java_io_questdb_std_Vect_getSupportedInstructionSet
+        (JNIEnv *, jclass);
+
+#ifdef __cplusplus
+}
+#endif
+#endif
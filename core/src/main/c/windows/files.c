@@ -295,6 +295,41 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_munmap0
     }
 }
 
+JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_dup0
+        (JNIEnv *e, jclass cl, jlong handle) {
+    HANDLE process = GetCurrentProcess();
+    HANDLE result;
+    if (DuplicateHandle(process, (HANDLE) handle, process, &result, 0, FALSE, DUPLICATE_SAME_ACCESS)) {
+        return (jlong) result;
+    }
+    SaveLastError();
+    return -1;
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_msync
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jboolean async) {
+    if (FlushViewOfFile((LPCVOID) address, (SIZE_T) len) == 0) {
+        SaveLastError();
+        return -1;
+    }
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    // advice is a hint, views of file are managed by memory manager on their own
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fsync
+        (JNIEnv *e, jclass cl, jlong handle) {
+    if (FlushFileBuffers((HANDLE) handle) == 0) {
+        SaveLastError();
+        return -1;
+    }
+    return 0;
+}
+
 JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_mmap0
         (JNIEnv *e, jclass cl, jlong fd, jlong len, jlong offset, jint flags) {
     jlong maxsize = offset + len;
@@ -25,6 +25,7 @@
 package io.questdb;
 
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CommitMode;
 import io.questdb.cutlass.http.HttpServerConfiguration;
 import io.questdb.cutlass.http.MimeTypesCache;
 import io.questdb.cutlass.http.processors.JsonQueryProcessorConfiguration;
@@ -32,6 +33,7 @@ import io.questdb.cutlass.http.processors.StaticContentProcessorConfiguration;
 import io.questdb.cutlass.http.processors.TextImportProcessorConfiguration;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.cutlass.json.JsonLexer;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
 import io.questdb.cutlass.line.udp.LineUdpReceiverConfiguration;
 import io.questdb.cutlass.pgwire.DefaultPGWireConfiguration;
 import io.questdb.cutlass.pgwire.PGWireConfiguration;
@@ -63,6 +65,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final TextConfiguration textConfiguration = new PropTextConfiguration();
     private final CairoConfiguration cairoConfiguration = new PropCairoConfiguration();
     private final LineUdpReceiverConfiguration lineUdpReceiverConfiguration = new PropLineUdpReceiverConfiguration();
+    private final IODispatcherConfiguration lineTcpIODispatcherConfiguration = new LineTcpIODispatcherConfiguration();
+    private final LineTcpReceiverConfiguration lineTcpReceiverConfiguration = new PropLineTcpReceiverConfiguration();
     private final JsonQueryProcessorConfiguration jsonQueryProcessorConfiguration = new PropJsonQueryProcessorConfiguration();
     private final boolean httpServerEnabled;
     private final int createAsSelectRetryCount;
@@ -75,6 +79,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long inactiveWriterTTL;
     private final int indexValueBlockSize;
     private final int maxSwapFileCount;
+    private final long matViewRefreshInterval;
     private final int mkdirMode;
     private final int parallelIndexThreshold;
     private final int readerPoolMaxSegments;
@@ -99,14 +104,56 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long sqlLatestByRowCount;
     private final int sqlHashJoinLightValuePageSize;
     private final int sqlSortValuePageSize;
+    private final long sqlSortSpillThreshold;
+    private final long sqlHashJoinSpillThreshold;
+    private final int sqlAnalyticStorePageSize;
     private final long workStealTimeoutNanos;
     private final boolean parallelIndexingEnabled;
+    private final boolean o3Enabled;
+    private final long o3StagingPageSize;
+    private final int commitMode;
+    private final int indexerQueueCapacity;
+    private final int fileSyncQueueCapacity;
+    private final boolean sqlParallelFilterEnabled;
+    private final boolean sqlScanReadAheadEnabled;
+    private final boolean sqlFilterCompilerEnabled;
+    private final boolean hugePagesEnabled;
+    private final long sqlParallelFilterFrameRowCount;
+    private final int sqlParallelFilterQueueCapacity;
+    private final boolean sqlParallelGroupByEnabled;
+    private final long sqlParallelGroupByFrameRowCount;
+    private final int sqlParallelGroupByQueueCapacity;
+    private final long sqlResultCacheMaxSize;
+    private final int sqlResultCachePageSize;
+    private final int compressionBlockCacheSize;
+    private final int compressionBlockSize;
+    private final long compressionCheckInterval;
+    private final long compressionPartitionAge;
+    private final boolean partitionStatsEnabled;
+    private final int partitionStatsBlockRowCount;
+    private final int partitionStatsBloomMaxSize;
     private final int sqlJoinMetadataPageSize;
+    private final boolean lineTcpEnabled;
+    private final int lineTcpActiveConnectionLimit;
+    private final long lineTcpIdleConnectionTimeout;
+    private final int lineTcpCommitRate;
+    private final long lineTcpCommitSize;
+    private final long lineTcpCommitInterval;
+    private final int lineTcpMsgBufferSize;
+    private final int lineTcpWriterQueueCapacity;
+    private final int lineTcpWorkerCount;
+    private final int[] lineTcpWorkerAffinity;
+    private final boolean lineTcpWorkerHaltOnError;
     private final int lineUdpCommitRate;
+    private final long lineUdpCommitSize;
+    private final long lineUdpCommitInterval;
     private final int lineUdpGroupIPv4Address;
     private final int lineUdpMsgBufferSize;
     private final int lineUdpMsgCount;
     private final int lineUdpReceiveBufferSize;
+    private final int lineUdpReceiverCount;
+    private final int lineUdpWriterQueueCapacity;
+    private final boolean lineUdpEnabled;
     private final int[] sharedWorkerAffinity;
     private final int sharedWorkerCount;
     private final boolean shareWorkerHaltOnError;
@@ -158,6 +205,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private String keepAliveHeader;
     private int bindIPv4Address;
     private int bindPort;
+    private int lineTcpBindIPv4Address;
+    private int lineTcpBindPort;
     private int lineUdpBindIPV4Address;
     private int lineUdpPort;
     private int jsonQueryFloatScale;
@@ -266,6 +315,7 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.inactiveWriterTTL = getLong(properties, "cairo.inactive.writer.ttl", -10000);
         this.indexValueBlockSize = Numbers.ceilPow2(getIntSize(properties, "cairo.index.value.block.size", 256));
         this.maxSwapFileCount = getInt(properties, "cairo.max.swap.file.count", 30);
+        this.matViewRefreshInterval = getLong(properties, "cairo.mat.view.refresh.interval", 0);
         this.mkdirMode = getInt(properties, "cairo.mkdir.mode", 509);
         this.parallelIndexThreshold = getInt(properties, "cairo.parallel.index.threshold", 100000);
         this.readerPoolMaxSegments = getInt(properties, "cairo.reader.pool.max.segments", 5);
@@ -288,9 +338,35 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.sqlHashJoinValuePageSize = getIntSize(properties, "cairo.sql.hash.join.value.page.size", 16777216);
         this.sqlLatestByRowCount = getInt(properties, "cairo.sql.latest.by.row.count", 1000);
         this.sqlHashJoinLightValuePageSize = getIntSize(properties, "cairo.sql.hash.join.light.value.page.size", 1048576);
+        this.sqlHashJoinSpillThreshold = getLongSize(properties, "cairo.sql.hash.join.spill.threshold", 1073741824L);
         this.sqlSortValuePageSize = getIntSize(properties, "cairo.sql.sort.value.page.size", 16777216);
+        this.sqlSortSpillThreshold = getLongSize(properties, "cairo.sql.sort.spill.threshold", 1073741824L);
+        this.sqlAnalyticStorePageSize = getIntSize(properties, "cairo.sql.analytic.store.page.size", 1048576);
         this.workStealTimeoutNanos = getLong(properties, "cairo.work.steal.timeout.nanos", 10_000);
         this.parallelIndexingEnabled = getBoolean(properties, "cairo.parallel.indexing.enabled", true);
+        this.o3Enabled = getBoolean(properties, "cairo.o3.enabled", false);
+        this.o3StagingPageSize = getIntSize(properties, "cairo.o3.staging.page.size", 64 * 1024);
+        this.commitMode = getCommitMode(properties, "cairo.commit.mode", "nosync");
+        this.indexerQueueCapacity = Numbers.ceilPow2(getInt(properties, "cairo.indexer.queue.capacity", 1024));
+        this.fileSyncQueueCapacity = Numbers.ceilPow2(getInt(properties, "cairo.file.sync.queue.capacity", 1024));
+        this.sqlParallelFilterEnabled = getBoolean(properties, "cairo.sql.parallel.filter.enabled", true);
+        this.sqlParallelFilterFrameRowCount = getLong(properties, "cairo.sql.parallel.filter.frame.row.count", 100_000);
+        this.sqlParallelFilterQueueCapacity = Numbers.ceilPow2(getInt(properties, "cairo.sql.parallel.filter.queue.capacity", 1024));
+        this.sqlParallelGroupByEnabled = getBoolean(properties, "cairo.sql.parallel.groupby.enabled", true);
+        this.sqlParallelGroupByFrameRowCount = getLong(properties, "cairo.sql.parallel.groupby.frame.row.count", 100_000);
+        this.sqlParallelGroupByQueueCapacity = Numbers.ceilPow2(getInt(properties, "cairo.sql.parallel.groupby.queue.capacity", 1024));
+        this.sqlResultCacheMaxSize = getLongSize(properties, "cairo.sql.result.cache.max.size", 0);
+        this.sqlResultCachePageSize = Numbers.ceilPow2(getIntSize(properties, "cairo.sql.result.cache.page.size", 64 * 1024));
+        this.sqlScanReadAheadEnabled = getBoolean(properties, "cairo.sql.scan.read.ahead.enabled", false);
+        this.sqlFilterCompilerEnabled = getBoolean(properties, "cairo.sql.filter.compiler.enabled", true);
+        this.hugePagesEnabled = getBoolean(properties, "cairo.huge.pages.enabled", false);
+        this.compressionBlockCacheSize = getInt(properties, "cairo.compression.block.cache.size", 64);
+        this.compressionBlockSize = Numbers.ceilPow2(getIntSize(properties, "cairo.compression.block.size", 64 * 1024));
+        this.compressionCheckInterval = getLong(properties, "cairo.compression.check.interval", 60_000);
+        this.compressionPartitionAge = getLong(properties, "cairo.compression.partition.age", 0);
+        this.partitionStatsEnabled = getBoolean(properties, "cairo.partition.stats.enabled", false);
+        this.partitionStatsBlockRowCount = Numbers.ceilPow2(getInt(properties, "cairo.partition.stats.block.row.count", 64 * 1024));
+        this.partitionStatsBloomMaxSize = getIntSize(properties, "cairo.partition.stats.bloom.max.size", 64 * 1024);
         this.sqlJoinMetadataPageSize = getIntSize(properties, "cairo.sql.join.metadata.page.size", 16384);
         this.sqlAnalyticColumnPoolCapacity = getInt(properties, "cairo.sql.analytic.column.pool.capacity", 64);
         this.sqlCreateTableModelPoolCapacity = getInt(properties, "cairo.sql.create.table.model.pool.capacity", 16);
@@ -321,9 +397,30 @@ public class PropServerConfiguration implements ServerConfiguration {
 
         this.lineUdpGroupIPv4Address = getIPv4Address(properties, "line.udp.join", "232.1.2.3");
         this.lineUdpCommitRate = getInt(properties, "line.udp.commit.rate", 10_000);
+        this.lineUdpCommitSize = getLongSize(properties, "line.udp.commit.size", 4 * 1024 * 1024);
+        this.lineUdpCommitInterval = getLong(properties, "line.udp.commit.interval", 1000);
         this.lineUdpMsgBufferSize = getIntSize(properties, "line.udp.msg.buffer.size", 1024 * 1024);
         this.lineUdpMsgCount = getInt(properties, "line.udp.msg.count", 10_000);
         this.lineUdpReceiveBufferSize = getIntSize(properties, "line.udp.receive.buffer.size", 2048);
+        this.lineUdpReceiverCount = getInt(properties, "line.udp.receiver.count", 1);
+        this.lineUdpWriterQueueCapacity = Numbers.ceilPow2(getInt(properties, "line.udp.writer.queue.capacity", 1024));
+        this.lineUdpEnabled = getBoolean(properties, "line.udp.enabled", false);
+
+        this.lineTcpEnabled = getBoolean(properties, "line.tcp.enabled", true);
+        parseBindTo(properties, "line.tcp.bind.to", "0.0.0.0:9009", (a, p) -> {
+            this.lineTcpBindIPv4Address = a;
+            this.lineTcpBindPort = p;
+        });
+        this.lineTcpActiveConnectionLimit = getInt(properties, "line.tcp.net.active.connection.limit", 10);
+        this.lineTcpIdleConnectionTimeout = getLong(properties, "line.tcp.net.idle.connection.timeout", 5 * 60 * 1000L);
+        this.lineTcpCommitRate = getInt(properties, "line.tcp.commit.rate", 10_000);
+        this.lineTcpCommitSize = getLongSize(properties, "line.tcp.commit.size", 4 * 1024 * 1024);
+        this.lineTcpCommitInterval = getLong(properties, "line.tcp.commit.interval", 1000);
+        this.lineTcpMsgBufferSize = getIntSize(properties, "line.tcp.msg.buffer.size", 32 * 1024);
+        this.lineTcpWriterQueueCapacity = Numbers.ceilPow2(getInt(properties, "line.tcp.writer.queue.capacity", 1024));
+        this.lineTcpWorkerCount = getInt(properties, "line.tcp.worker.count", 0);
+        this.lineTcpWorkerAffinity = getAffinity(properties, "line.tcp.worker.affinity", lineTcpWorkerCount);
+        this.lineTcpWorkerHaltOnError = getBoolean(properties, "line.tcp.worker.haltOnError", false);
     }
 
     @Override
@@ -336,6 +433,11 @@ public class PropServerConfiguration implements ServerConfiguration {
         return httpServerConfiguration;
     }
 
+    @Override
+    public LineTcpReceiverConfiguration getLineTcpReceiverConfiguration() {
+        return lineTcpReceiverConfiguration;
+    }
+
     @Override
     public LineUdpReceiverConfiguration getLineUdpReceiverConfiguration() {
         return lineUdpReceiverConfiguration;
@@ -377,6 +479,15 @@ public class PropServerConfiguration implements ServerConfiguration {
         return value == null ? defaultValue : Boolean.parseBoolean(value);
     }
 
+    private int getCommitMode(Properties properties, String key, String defaultValue) throws ServerConfigurationException {
+        final String value = getString(properties, key, defaultValue);
+        final int commitMode = CommitMode.fromString(value);
+        if (commitMode == -1) {
+            throw new ServerConfigurationException(key, value);
+        }
+        return commitMode;
+    }
+
     private double getDouble(Properties properties, String key, double defaultValue) throws ServerConfigurationException {
         final String value = properties.getProperty(key);
         try {
@@ -423,6 +534,15 @@ public class PropServerConfiguration implements ServerConfiguration {
         }
     }
 
+    private long getLongSize(Properties properties, String key, long defaultValue) throws ServerConfigurationException {
+        final String value = properties.getProperty(key);
+        try {
+            return value != null ? Numbers.parseLongSize(value) : defaultValue;
+        } catch (NumericException e) {
+            throw new ServerConfigurationException(key, value);
+        }
+    }
+
     private String getString(Properties properties, String key, String defaultValue) {
         String value = properties.getProperty(key);
         if (value == null) {
@@ -792,6 +912,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return fileOperationRetryCount;
         }
 
+        @Override
+        public int getFileSyncQueueCapacity() {
+            return fileSyncQueueCapacity;
+        }
+
         @Override
         public FilesFacade getFilesFacade() {
             return FilesFacadeImpl.INSTANCE;
@@ -802,6 +927,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return idleCheckInterval;
         }
 
+        @Override
+        public int getIndexerQueueCapacity() {
+            return indexerQueueCapacity;
+        }
+
         @Override
         public long getInactiveReaderTTL() {
             return inactiveReaderTTL;
@@ -817,6 +947,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return indexValueBlockSize;
         }
 
+        @Override
+        public long getMatViewRefreshInterval() {
+            return matViewRefreshInterval;
+        }
+
         @Override
         public int getMaxSwapFileCount() {
             return maxSwapFileCount;
@@ -922,6 +1057,36 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlModelPoolCapacity;
         }
 
+        @Override
+        public long getSqlParallelFilterFrameRowCount() {
+            return sqlParallelFilterFrameRowCount;
+        }
+
+        @Override
+        public int getSqlParallelFilterQueueCapacity() {
+            return sqlParallelFilterQueueCapacity;
+        }
+
+        @Override
+        public long getSqlParallelGroupByFrameRowCount() {
+            return sqlParallelGroupByFrameRowCount;
+        }
+
+        @Override
+        public int getSqlParallelGroupByQueueCapacity() {
+            return sqlParallelGroupByQueueCapacity;
+        }
+
+        @Override
+        public long getSqlResultCacheMaxSize() {
+            return sqlResultCacheMaxSize;
+        }
+
+        @Override
+        public int getSqlResultCachePageSize() {
+            return sqlResultCachePageSize;
+        }
+
         @Override
         public int getSqlSortKeyPageSize() {
             return sqlSortKeyPageSize;
@@ -947,11 +1112,26 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlHashJoinLightValuePageSize;
         }
 
+        @Override
+        public long getSqlHashJoinSpillThreshold() {
+            return sqlHashJoinSpillThreshold;
+        }
+
+        @Override
+        public long getSqlSortSpillThreshold() {
+            return sqlSortSpillThreshold;
+        }
+
         @Override
         public int getSqlSortValuePageSize() {
             return sqlSortValuePageSize;
         }
 
+        @Override
+        public int getSqlAnalyticStorePageSize() {
+            return sqlAnalyticStorePageSize;
+        }
+
         @Override
         public TextConfiguration getTextConfiguration() {
             return textConfiguration;
@@ -967,6 +1147,81 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isSqlFilterCompilerEnabled() {
+            return sqlFilterCompilerEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelFilterEnabled() {
+            return sqlParallelFilterEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelGroupByEnabled() {
+            return sqlParallelGroupByEnabled;
+        }
+
+        @Override
+        public boolean isSqlScanReadAheadEnabled() {
+            return sqlScanReadAheadEnabled;
+        }
+
+        @Override
+        public boolean isHugePagesEnabled() {
+            return hugePagesEnabled;
+        }
+
+        @Override
+        public boolean isO3Enabled() {
+            return o3Enabled;
+        }
+
+        @Override
+        public long getO3StagingPageSize() {
+            return o3StagingPageSize;
+        }
+
+        @Override
+        public int getCommitMode() {
+            return commitMode;
+        }
+
+        @Override
+        public int getCompressionBlockCacheSize() {
+            return compressionBlockCacheSize;
+        }
+
+        @Override
+        public int getCompressionBlockSize() {
+            return compressionBlockSize;
+        }
+
+        @Override
+        public long getCompressionCheckInterval() {
+            return compressionCheckInterval;
+        }
+
+        @Override
+        public long getCompressionPartitionAge() {
+            return compressionPartitionAge;
+        }
+
+        @Override
+        public int getPartitionStatsBlockRowCount() {
+            return partitionStatsBlockRowCount;
+        }
+
+        @Override
+        public int getPartitionStatsBloomMaxSize() {
+            return partitionStatsBloomMaxSize;
+        }
+
+        @Override
+        public boolean isPartitionStatsEnabled() {
+            return partitionStatsEnabled;
+        }
+
         @Override
         public int getSqlJoinMetadataPageSize() {
             return sqlJoinMetadataPageSize;
@@ -1003,17 +1258,116 @@ public class PropServerConfiguration implements ServerConfiguration {
         }
     }
 
+    private class LineTcpIODispatcherConfiguration extends DefaultIODispatcherConfiguration {
+        @Override
+        public int getActiveConnectionLimit() {
+            return lineTcpActiveConnectionLimit;
+        }
+
+        @Override
+        public int getBindIPv4Address() {
+            return lineTcpBindIPv4Address;
+        }
+
+        @Override
+        public int getBindPort() {
+            return lineTcpBindPort;
+        }
+
+        @Override
+        public String getDispatcherLogName() {
+            return "line-tcp";
+        }
+
+        @Override
+        public long getIdleConnectionTimeout() {
+            return lineTcpIdleConnectionTimeout;
+        }
+    }
+
+    private class PropLineTcpReceiverConfiguration implements LineTcpReceiverConfiguration {
+        @Override
+        public long getCommitInterval() {
+            return lineTcpCommitInterval;
+        }
+
+        @Override
+        public int getCommitRate() {
+            return lineTcpCommitRate;
+        }
+
+        @Override
+        public long getCommitSize() {
+            return lineTcpCommitSize;
+        }
+
+        @Override
+        public int getConnectionPoolInitialCapacity() {
+            return 16;
+        }
+
+        @Override
+        public IODispatcherConfiguration getDispatcherConfiguration() {
+            return lineTcpIODispatcherConfiguration;
+        }
+
+        @Override
+        public int getMsgBufferSize() {
+            return lineTcpMsgBufferSize;
+        }
+
+        @Override
+        public NetworkFacade getNetworkFacade() {
+            return NetworkFacadeImpl.INSTANCE;
+        }
+
+        @Override
+        public int[] getWorkerAffinity() {
+            return lineTcpWorkerAffinity;
+        }
+
+        @Override
+        public int getWorkerCount() {
+            return lineTcpWorkerCount;
+        }
+
+        @Override
+        public int getWriterQueueCapacity() {
+            return lineTcpWriterQueueCapacity;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return lineTcpEnabled;
+        }
+
+        @Override
+        public boolean workerHaltOnError() {
+            return lineTcpWorkerHaltOnError;
+        }
+    }
+
     private class PropLineUdpReceiverConfiguration implements LineUdpReceiverConfiguration {
         @Override
         public int getBindIPv4Address() {
             return lineUdpBindIPV4Address;
         }
 
+        @Override
+        public long getCommitInterval() {
+            return lineUdpCommitInterval;
+        }
+
         @Override
         public int getCommitRate() {
             return lineUdpCommitRate;
         }
 
+        @Override
+        public long getCommitSize() {
+            return lineUdpCommitSize;
+        }
+
         @Override
         public int getGroupIPv4Address() {
             return lineUdpGroupIPv4Address;
@@ -1043,6 +1397,21 @@ public class PropServerConfiguration implements ServerConfiguration {
         public int getReceiveBufferSize() {
             return lineUdpReceiveBufferSize;
         }
+
+        @Override
+        public int getReceiverCount() {
+            return lineUdpReceiverCount;
+        }
+
+        @Override
+        public int getWriterQueueCapacity() {
+            return lineUdpWriterQueueCapacity;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return lineUdpEnabled;
+        }
     }
 
     private class PropJsonQueryProcessorConfiguration implements JsonQueryProcessorConfiguration {
@@ -25,7 +25,10 @@
 package io.questdb;
 
 import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoWorkSchedulerImpl;
 import io.questdb.cutlass.http.HttpServer;
+import io.questdb.cutlass.line.tcp.LineTcpServer;
+import io.questdb.cutlass.line.udp.LineUdpServer;
 import io.questdb.cutlass.pgwire.PGWireServer;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -121,9 +124,14 @@ public class ServerMain {
         final WorkerPool workerPool = new WorkerPool(configuration.getWorkerPoolConfiguration());
         LogFactory.configureFromSystemProperties(workerPool);
         final Log log = LogFactory.getLog("server-main");
-        final CairoEngine cairoEngine = new CairoEngine(configuration.getCairoConfiguration());
+        final CairoEngine cairoEngine = new CairoEngine(
+                configuration.getCairoConfiguration(),
+                new CairoWorkSchedulerImpl(configuration.getCairoConfiguration(), workerPool)
+        );
         final HttpServer httpServer = HttpServer.create(configuration.getHttpServerConfiguration(), workerPool, log, cairoEngine);
         final PGWireServer pgWireServer = PGWireServer.create(configuration.getPGWireConfiguration(), workerPool, log, cairoEngine);
+        final LineTcpServer lineTcpServer = LineTcpServer.create(configuration.getLineTcpReceiverConfiguration(), workerPool, log, cairoEngine);
+        final LineUdpServer lineUdpServer = LineUdpServer.create(configuration.getLineUdpReceiverConfiguration(), workerPool, cairoEngine);
 
         workerPool.start(log);
 
@@ -136,6 +144,8 @@ public class ServerMain {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.err.println(new Date() + " QuestDB is shutting down");
             workerPool.halt();
+            Misc.free(lineUdpServer);
+            Misc.free(lineTcpServer);
             Misc.free(pgWireServer);
             Misc.free(httpServer);
             Misc.free(cairoEngine);
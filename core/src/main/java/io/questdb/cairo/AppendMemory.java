@@ -35,6 +35,7 @@ public class AppendMemory extends VirtualMemory {
     private FilesFacade ff;
     private long fd = -1;
     private long pageAddress = 0;
+    private boolean hugePages = false;
 
     public AppendMemory(FilesFacade ff, LPSZ name, long pageSize) {
         of(ff, name, pageSize);
@@ -77,6 +78,31 @@ public class AppendMemory extends VirtualMemory {
         jumpTo(size);
     }
 
+    /**
+     * Flushes appended data to disk. Asynchronous sync only schedules write-back of currently mapped page,
+     * synchronous sync waits for it and then flushes the file, which also covers pages released earlier.
+     *
+     * @param async when true method does not wait for disk write to complete
+     */
+    public void sync(boolean async) {
+        if (pageAddress != 0 && ff.msync(pageAddress, getMapPageSize(), async) != 0) {
+            throw CairoException.instance(ff.errno()).put("Could not msync fd=").put(fd);
+        }
+        if (!async && fd != -1 && ff.fsync(fd) != 0) {
+            throw CairoException.instance(ff.errno()).put("Could not fsync fd=").put(fd);
+        }
+    }
+
+    /**
+     * When enabled pages of at least {@link Files#HUGE_PAGE_SIZE} are advised to be backed by transparent huge pages.
+     * Setting sticks with memory instance across calls to of().
+     *
+     * @param hugePages true to advise huge pages
+     */
+    public void setHugePages(boolean hugePages) {
+        this.hugePages = hugePages;
+    }
+
     public void truncate() {
         if (fd == -1) {
             // are we closed ?
@@ -144,6 +170,9 @@ public class AppendMemory extends VirtualMemory {
         if (address == -1) {
             throw CairoException.instance(ff.errno()).put("Cannot mmap append fd=").put(fd).put(", offset=").put(offset).put(", size=").put(getMapPageSize());
         }
+        if (hugePages && getMapPageSize() >= Files.HUGE_PAGE_SIZE) {
+            ff.madvise(address, getMapPageSize(), Files.MADV_HUGEPAGE);
+        }
         return address;
     }
 
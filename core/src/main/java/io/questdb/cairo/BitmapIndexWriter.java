@@ -238,6 +238,11 @@ public class BitmapIndexWriter implements Closeable {
         updateValueMemSize();
     }
 
+    public void sync(boolean async) {
+        keyMem.sync(async);
+        valueMem.sync(async);
+    }
+
     private void addValueBlockAndStoreValue(long offset, long valueBlockOffset, long valueCount, long value) {
         long newValueBlockOffset = allocateValueBlockAndStore(value);
 
@@ -33,6 +33,28 @@ public interface CairoConfiguration {
 
     int getSqlCopyBufferSize();
 
+    int getCommitMode();
+
+    /**
+     * Compressed column files are read in blocks. Each table reader keeps this many
+     * decompressed blocks in memory, shared between all of its columns.
+     *
+     * @return number of decompressed blocks cached by table reader
+     */
+    int getCompressionBlockCacheSize();
+
+    int getCompressionBlockSize();
+
+    long getCompressionCheckInterval();
+
+    /**
+     * Partitions older than this are compressed by background job. Age is measured
+     * from table max timestamp to the end of partition interval.
+     *
+     * @return partition age in milliseconds, 0 disables background compression
+     */
+    long getCompressionPartitionAge();
+
     int getCopyPoolCapacity();
 
     int getCreateAsSelectRetryCount();
@@ -45,16 +67,29 @@ public interface CairoConfiguration {
 
     int getFileOperationRetryCount();
 
+    int getFileSyncQueueCapacity();
+
     FilesFacade getFilesFacade();
 
     long getIdleCheckInterval();
 
+    int getIndexerQueueCapacity();
+
     long getInactiveReaderTTL();
 
     long getInactiveWriterTTL();
 
     int getIndexValueBlockSize();
 
+    /**
+     * Interval at which background job looks for new commits to base tables of materialized views.
+     * Job lists tables of the whole database every interval, therefore it is off by default and
+     * should be enabled only when materialized views are used.
+     *
+     * @return interval in milliseconds, 0 disables refresh job
+     */
+    long getMatViewRefreshInterval();
+
     int getMaxSwapFileCount();
 
     MicrosecondClock getMicrosecondClock();
@@ -63,14 +98,47 @@ public interface CairoConfiguration {
 
     int getMkDirMode();
 
+    /**
+     * Out-of-order rows are staged in memory until commit. Staging memory is allocated
+     * in pages of this size for every column.
+     *
+     * @return staging memory page size
+     */
+    long getO3StagingPageSize();
+
     int getParallelIndexThreshold();
 
+    /**
+     * Partition column statistics are kept for blocks of this many rows, so that filters
+     * can skip parts of partition as well as whole partitions.
+     *
+     * @return number of rows in statistics block, power of 2
+     */
+    int getPartitionStatsBlockRowCount();
+
+    /**
+     * Equality filters on INT, LONG and SYMBOL columns are checked against per-partition
+     * bloom filter, which is sized by number of rows in partition but not larger than this.
+     *
+     * @return maximum size of bloom filter in bytes, 0 disables bloom filters
+     */
+    int getPartitionStatsBloomMaxSize();
+
     int getReaderPoolMaxSegments();
 
     CharSequence getRoot();
 
     long getSpinLockTimeoutUs();
 
+    /**
+     * Page size of native memory where analytic functions keep per-partition state that does
+     * not fit map value, such as lag() history and moving frames. Single partition's lag()
+     * history and rows frame have to fit one page, range frames span pages.
+     *
+     * @return page size in bytes
+     */
+    int getSqlAnalyticStorePageSize();
+
     int getSqlCacheBlocks();
 
     int getSqlCacheRows();
@@ -97,6 +165,37 @@ public interface CairoConfiguration {
 
     int getSqlModelPoolCapacity();
 
+    /**
+     * Parallel filter splits data frames into sub-frames of at most this many rows. Each
+     * sub-frame is filtered by one thread.
+     *
+     * @return maximum number of rows in sub-frame
+     */
+    long getSqlParallelFilterFrameRowCount();
+
+    int getSqlParallelFilterQueueCapacity();
+
+    /**
+     * Parallel group by splits data frames into sub-frames of at most this many rows. Each
+     * sub-frame is aggregated by one thread into map of that thread.
+     *
+     * @return maximum number of rows in sub-frame
+     */
+    long getSqlParallelGroupByFrameRowCount();
+
+    int getSqlParallelGroupByQueueCapacity();
+
+    /**
+     * Results of queries are kept in memory and served again while tables they read from have
+     * no new commits. Cached results of all queries share this budget, least recently used results
+     * are evicted to make room for new ones.
+     *
+     * @return maximum number of bytes taken by cached query results, 0 disables cache
+     */
+    long getSqlResultCacheMaxSize();
+
+    int getSqlResultCachePageSize();
+
     int getSqlSortKeyPageSize();
 
     int getSqlSortLightValuePageSize();
@@ -107,14 +206,83 @@ public interface CairoConfiguration {
 
     int getSqlHashJoinLightValuePageSize();
 
+    /**
+     * Amount of memory hash join may use for hash table of slave (build) side. When the table
+     * outgrows it, both sides of join are split into partitions by key hash, row ids of
+     * partitions are written to temporary files under database root and partitions are
+     * joined one at a time. Partition that still does not fit is split further in memory,
+     * join fails when rows of a single key do not fit.
+     *
+     * @return memory budget of a single hash join in bytes
+     */
+    long getSqlHashJoinSpillThreshold();
+
+    /**
+     * Amount of memory "order by" may use to keep rows it sorts. When sorted rows exceed this
+     * amount they are written out to a temporary file under the database root as a sorted run and
+     * runs are merged when all rows are read.
+     *
+     * @return memory budget of a single sort in bytes
+     */
+    long getSqlSortSpillThreshold();
+
     int getSqlSortValuePageSize();
 
     TextConfiguration getTextConfiguration();
 
     long getWorkStealTimeoutNanos();
 
+    /**
+     * When enabled column pages of at least 2MB are advised to be backed by transparent huge pages,
+     * which reduces TLB misses on scans. Whether advice has effect depends on OS and file system.
+     *
+     * @return true when huge page advice is enabled
+     */
+    boolean isHugePagesEnabled();
+
+    boolean isO3Enabled();
+
     boolean isParallelIndexingEnabled();
 
+    /**
+     * When enabled table writer stores min, max and null count of fixed-size numeric and
+     * symbol columns of partition when partition is closed. Table scans with filters on such
+     * columns skip partitions and blocks that cannot match.
+     *
+     * @return true when writer keeps partition statistics
+     */
+    boolean isPartitionStatsEnabled();
+
+    /**
+     * When enabled filters made of arithmetic, comparison and boolean functions over fixed-width
+     * columns are compiled into byte code instead of being evaluated as function tree.
+     *
+     * @return true when filter compiler is enabled
+     */
+    boolean isSqlFilterCompilerEnabled();
+
+    boolean isSqlParallelFilterEnabled();
+
+    /**
+     * When enabled keyed group by over table scan is aggregated by worker threads, each
+     * into its own map, and maps are merged when all rows are aggregated. Sample by over
+     * table scan is pre-aggregated by worker threads too, before it fills gaps. Both fall
+     * back to single thread when any of their functions cannot merge partial aggregates.
+     *
+     * @return true when parallel group by is enabled
+     */
+    boolean isSqlParallelGroupByEnabled();
+
+    /**
+     * When enabled forward table scans advise OS to read columns of the next partition ahead
+     * and to release pages of partitions scan moved away from. Read-ahead covers every column of
+     * the whole next partition, including columns query does not read, which is why it is off
+     * by default. It pays off for cold scans of narrow tables reading most of their columns.
+     *
+     * @return true when read-ahead is enabled
+     */
+    boolean isSqlScanReadAheadEnabled();
+
     /**
      * This holds table metadata, which is usually quite small. 16K page should be adequate.
      *
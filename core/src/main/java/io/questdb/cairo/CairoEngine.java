@@ -27,15 +27,19 @@ package io.questdb.cairo;
 import io.questdb.cairo.pool.PoolListener;
 import io.questdb.cairo.pool.ReaderPool;
 import io.questdb.cairo.pool.WriterPool;
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
+import io.questdb.griffin.MaterializedViewRefreshJob;
+import io.questdb.griffin.engine.QueryResultCache;
+import io.questdb.griffin.engine.groupby.ParallelGroupByJob;
+import io.questdb.griffin.engine.table.ParallelFilterJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.SynchronizedJob;
-import io.questdb.std.Files;
-import io.questdb.std.FilesFacade;
-import io.questdb.std.Misc;
+import io.questdb.std.*;
 import io.questdb.std.Transient;
 import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
 import io.questdb.std.str.Path;
 import org.jetbrains.annotations.Nullable;
 
@@ -47,6 +51,10 @@ public class CairoEngine implements Closeable {
     private final WriterPool writerPool;
     private final ReaderPool readerPool;
     private final CairoConfiguration configuration;
+    private final CairoWorkScheduler workScheduler;
+    private final PartitionCompressionJob compressionJob;
+    private final MaterializedViewRefreshJob matViewRefreshJob;
+    private final QueryResultCache queryResultCache;
 
     public CairoEngine(CairoConfiguration configuration) {
         this(configuration, null);
@@ -54,11 +62,29 @@ public class CairoEngine implements Closeable {
 
     public CairoEngine(CairoConfiguration configuration, CairoWorkScheduler workScheduler) {
         this.configuration = configuration;
+        this.workScheduler = workScheduler;
         this.writerPool = new WriterPool(configuration, workScheduler);
         this.readerPool = new ReaderPool(configuration);
+        this.queryResultCache = configuration.getSqlResultCacheMaxSize() > 0 ? new QueryResultCache(configuration.getSqlResultCacheMaxSize()) : null;
         if (workScheduler != null) {
             workScheduler.addJob(new WriterMaintenanceJob(configuration));
             workScheduler.addJob(new ColumnIndexerJob(workScheduler));
+            workScheduler.addJob(new FileSyncJob(workScheduler, configuration.getFilesFacade()));
+            workScheduler.addJob(new ParallelFilterJob(workScheduler));
+            workScheduler.addJob(new ParallelGroupByJob(workScheduler));
+            if (configuration.getCompressionPartitionAge() > 0) {
+                workScheduler.addJob(compressionJob = new PartitionCompressionJob(configuration));
+            } else {
+                compressionJob = null;
+            }
+            if (configuration.getMatViewRefreshInterval() > 0) {
+                workScheduler.addJob(matViewRefreshJob = new MaterializedViewRefreshJob(this));
+            } else {
+                matViewRefreshJob = null;
+            }
+        } else {
+            compressionJob = null;
+            matViewRefreshJob = null;
         }
     }
 
@@ -66,6 +92,9 @@ public class CairoEngine implements Closeable {
     public void close() {
         Misc.free(writerPool);
         Misc.free(readerPool);
+        Misc.free(compressionJob);
+        Misc.free(matViewRefreshJob);
+        Misc.free(queryResultCache);
     }
 
     public void creatTable(
@@ -96,6 +125,11 @@ public class CairoEngine implements Closeable {
         return configuration;
     }
 
+    @Nullable
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
     public PoolListener getPoolListener() {
         return this.writerPool.getPoolListener();
     }
@@ -143,6 +177,11 @@ public class CairoEngine implements Closeable {
         return getStatus(securityContext, path, tableName, 0, tableName.length());
     }
 
+    @Nullable
+    public CairoWorkScheduler getWorkScheduler() {
+        return workScheduler;
+    }
+
     public TableWriter getWriter(
             CairoSecurityContext securityContext,
             CharSequence tableName
@@ -187,6 +226,7 @@ public class CairoEngine implements Closeable {
     ) {
         if (lock(securityContext, tableName)) {
             try {
+                clearQueryResultCache();
                 path.of(configuration.getRoot()).concat(tableName).$();
                 if (!configuration.getFilesFacade().rmdir(path)) {
                     int error = configuration.getFilesFacade().errno();
@@ -216,6 +256,7 @@ public class CairoEngine implements Closeable {
     ) {
         if (lock(securityContext, tableName)) {
             try {
+                clearQueryResultCache();
                 rename0(path, tableName, otherPath, newName);
             } finally {
                 unlock(securityContext, tableName, null);
@@ -235,6 +276,13 @@ public class CairoEngine implements Closeable {
         writerPool.unlock(tableName, writer);
     }
 
+    private void clearQueryResultCache() {
+        // table of the same name may be created again and its transactions would start over
+        if (queryResultCache != null) {
+            queryResultCache.clear();
+        }
+    }
+
     private void rename0(Path path, CharSequence tableName, Path otherPath, CharSequence to) {
         final FilesFacade ff = configuration.getFilesFacade();
         final CharSequence root = configuration.getRoot();
@@ -259,6 +307,72 @@ public class CairoEngine implements Closeable {
         }
     }
 
+    private class PartitionCompressionJob extends SynchronizedJob implements Closeable {
+        private final MicrosecondClock clock;
+        private final FilesFacade ff;
+        private final CharSequence root;
+        private final long checkInterval;
+        private final long age;
+        private final Path path = new Path();
+        private final Path tablePath = new Path();
+        private final NativeLPSZ tableName = new NativeLPSZ();
+        private final FindVisitor compressTableFunc = this::compressTable;
+        private long last = 0;
+        private boolean compressed = false;
+
+        public PartitionCompressionJob(CairoConfiguration configuration) {
+            this.clock = configuration.getMicrosecondClock();
+            this.ff = configuration.getFilesFacade();
+            this.root = configuration.getRoot();
+            this.checkInterval = configuration.getCompressionCheckInterval() * 1000;
+            this.age = configuration.getCompressionPartitionAge() * 1000;
+        }
+
+        @Override
+        public void close() {
+            Misc.free(path);
+            Misc.free(tablePath);
+        }
+
+        @Override
+        protected boolean runSerially() {
+            long t = clock.getTicks();
+            // keep going while there is backlog, otherwise wait for next check
+            if (compressed || last + checkInterval < t) {
+                last = t;
+                compressed = false;
+                ff.iterateDir(path.of(root).$(), compressTableFunc);
+                return compressed;
+            }
+            return false;
+        }
+
+        private void compressTable(long name, int type) {
+            if (type != Files.DT_DIR) {
+                return;
+            }
+            tableName.of(name);
+            if (Chars.equals(tableName, '.') || Chars.equals(tableName, "..")) {
+                return;
+            }
+
+            if (TableUtils.exists(ff, tablePath, root, tableName) != TableUtils.TABLE_EXISTS) {
+                return;
+            }
+
+            try (TableWriter writer = writerPool.get(tableName)) {
+                final long maxTimestamp = writer.getMaxTimestamp();
+                if (maxTimestamp != Long.MIN_VALUE && writer.compressPartitionBefore(maxTimestamp - age)) {
+                    compressed = true;
+                }
+            } catch (EntryUnavailableException ignore) {
+                // writer is busy, we will try again next time
+            } catch (CairoException e) {
+                LOG.error().$("could not compress partition [table=").$(tableName).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+            }
+        }
+    }
+
     private class WriterMaintenanceJob extends SynchronizedJob {
 
         private final MicrosecondClock clock;
@@ -24,6 +24,8 @@
 
 package io.questdb.cairo;
 
+import io.questdb.griffin.engine.groupby.ParallelGroupByEntry;
+import io.questdb.griffin.engine.table.ParallelFilterEntry;
 import io.questdb.mp.Job;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.Sequence;
@@ -31,9 +33,35 @@ import io.questdb.mp.Sequence;
 public interface CairoWorkScheduler {
     void addJob(Job job);
 
+    Sequence getFilterPubSequence();
+
+    RingQueue<ParallelFilterEntry> getFilterQueue();
+
+    Sequence getFilterSubSequence();
+
+    Sequence getGroupByPubSequence();
+
+    RingQueue<ParallelGroupByEntry> getGroupByQueue();
+
+    Sequence getGroupBySubSequence();
+
     Sequence getIndexerPubSequence();
 
     RingQueue<ColumnIndexerEntry> getIndexerQueue();
 
     Sequence getIndexerSubSequence();
+
+    Sequence getSyncPubSequence();
+
+    RingQueue<FileSyncEntry> getSyncQueue();
+
+    Sequence getSyncSubSequence();
+
+    /**
+     * Number of threads running jobs added to this scheduler. Work is never handed to
+     * the scheduler when there are no workers.
+     *
+     * @return worker count
+     */
+    int getWorkerCount();
 }
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.griffin.engine.groupby.ParallelGroupByEntry;
+import io.questdb.griffin.engine.table.ParallelFilterEntry;
+import io.questdb.mp.*;
+
+/**
+ * Work scheduler backed by shared worker pool. Jobs must be added before pool is started.
+ */
+public class CairoWorkSchedulerImpl implements CairoWorkScheduler {
+    private final WorkerPool workerPool;
+    private final RingQueue<ColumnIndexerEntry> indexerQueue;
+    private final MPSequence indexerPubSeq;
+    private final MCSequence indexerSubSeq;
+    private final RingQueue<FileSyncEntry> syncQueue;
+    private final MPSequence syncPubSeq;
+    private final MCSequence syncSubSeq;
+    private final RingQueue<ParallelFilterEntry> filterQueue;
+    private final MPSequence filterPubSeq;
+    private final MCSequence filterSubSeq;
+    private final RingQueue<ParallelGroupByEntry> groupByQueue;
+    private final MPSequence groupByPubSeq;
+    private final MCSequence groupBySubSeq;
+
+    public CairoWorkSchedulerImpl(CairoConfiguration configuration, WorkerPool workerPool) {
+        this.workerPool = workerPool;
+
+        this.indexerQueue = new RingQueue<>(ColumnIndexerEntry::new, configuration.getIndexerQueueCapacity());
+        this.indexerPubSeq = new MPSequence(indexerQueue.getCapacity());
+        this.indexerSubSeq = new MCSequence(indexerQueue.getCapacity());
+        indexerPubSeq.then(indexerSubSeq).then(indexerPubSeq);
+
+        this.syncQueue = new RingQueue<>(FileSyncEntry::new, configuration.getFileSyncQueueCapacity());
+        this.syncPubSeq = new MPSequence(syncQueue.getCapacity());
+        this.syncSubSeq = new MCSequence(syncQueue.getCapacity());
+        syncPubSeq.then(syncSubSeq).then(syncPubSeq);
+
+        this.filterQueue = new RingQueue<>(ParallelFilterEntry::new, configuration.getSqlParallelFilterQueueCapacity());
+        this.filterPubSeq = new MPSequence(filterQueue.getCapacity());
+        this.filterSubSeq = new MCSequence(filterQueue.getCapacity());
+        filterPubSeq.then(filterSubSeq).then(filterPubSeq);
+
+        this.groupByQueue = new RingQueue<>(ParallelGroupByEntry::new, configuration.getSqlParallelGroupByQueueCapacity());
+        this.groupByPubSeq = new MPSequence(groupByQueue.getCapacity());
+        this.groupBySubSeq = new MCSequence(groupByQueue.getCapacity());
+        groupByPubSeq.then(groupBySubSeq).then(groupByPubSeq);
+    }
+
+    @Override
+    public void addJob(Job job) {
+        workerPool.assign(job);
+    }
+
+    @Override
+    public Sequence getFilterPubSequence() {
+        return filterPubSeq;
+    }
+
+    @Override
+    public RingQueue<ParallelFilterEntry> getFilterQueue() {
+        return filterQueue;
+    }
+
+    @Override
+    public Sequence getFilterSubSequence() {
+        return filterSubSeq;
+    }
+
+    @Override
+    public Sequence getGroupByPubSequence() {
+        return groupByPubSeq;
+    }
+
+    @Override
+    public RingQueue<ParallelGroupByEntry> getGroupByQueue() {
+        return groupByQueue;
+    }
+
+    @Override
+    public Sequence getGroupBySubSequence() {
+        return groupBySubSeq;
+    }
+
+    @Override
+    public Sequence getIndexerPubSequence() {
+        return indexerPubSeq;
+    }
+
+    @Override
+    public RingQueue<ColumnIndexerEntry> getIndexerQueue() {
+        return indexerQueue;
+    }
+
+    @Override
+    public Sequence getIndexerSubSequence() {
+        return indexerSubSeq;
+    }
+
+    @Override
+    public Sequence getSyncPubSequence() {
+        return syncPubSeq;
+    }
+
+    @Override
+    public RingQueue<FileSyncEntry> getSyncQueue() {
+        return syncQueue;
+    }
+
+    @Override
+    public Sequence getSyncSubSequence() {
+        return syncSubSeq;
+    }
+
+    @Override
+    public int getWorkerCount() {
+        return workerPool.getWorkerCount();
+    }
+}
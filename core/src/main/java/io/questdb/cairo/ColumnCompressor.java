@@ -0,0 +1,304 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Rewrites fixed-size column files into block-compressed ".dz" files and back. Compressed
+ * file consists of deflated blocks followed by block index and footer:
+ * <pre>
+ *     block 0 .. block N-1
+ *     N+1 block offsets, 8 bytes each, the last one is offset of index itself
+ *     uncompressed size, 8 bytes
+ *     block size bits, 4 bytes
+ *     codec, 4 bytes
+ *     index offset, 8 bytes
+ * </pre>
+ * Before blocks are deflated, 8-byte integers are delta-encoded and doubles are XOR-ed with
+ * previous value. This turns timestamps and slowly changing series into runs of small numbers,
+ * which deflate compresses well. Symbol column files hold dictionary keys already and are
+ * deflated as they are.
+ */
+class ColumnCompressor implements Closeable {
+    static final int CODEC_PLAIN = 0;
+    static final int CODEC_DELTA = 1;
+    static final int CODEC_XOR = 2;
+    static final int FOOTER_SIZE = 24;
+    private static final Log LOG = LogFactory.getLog(ColumnCompressor.class);
+    private static final int Z_STREAM_END = 1;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private final FilesFacade ff;
+    private final int blockBits;
+    private final long blockSize;
+    private final long outCapacity;
+    private final ReadOnlyMemory src = new ReadOnlyMemory();
+    private final CompressedReadOnlyMemory compressedSrc = new CompressedReadOnlyMemory();
+    private final CompressedBlockCache blockCache = new CompressedBlockCache(2);
+    private final AppendMemory dst = new AppendMemory();
+    private final LongList blockOffsets = new LongList();
+    private final Path other = new Path();
+    private long inBuf;
+    private long outBuf;
+    private long z;
+
+    ColumnCompressor(FilesFacade ff, int blockSize) {
+        this.ff = ff;
+        this.blockSize = Numbers.ceilPow2(blockSize);
+        this.blockBits = Numbers.msb(this.blockSize);
+        // deflate adds at most 5 bytes per 16K of input that does not compress
+        this.outCapacity = this.blockSize + (this.blockSize >> 3) + 64;
+        this.inBuf = Unsafe.malloc(this.blockSize);
+        this.outBuf = Unsafe.malloc(outCapacity);
+        this.z = Zip.deflateInit();
+        if (z < 0) {
+            close();
+            throw CairoException.instance(0).put("Cannot initialize deflate stream [ret=").put(z).put(']');
+        }
+    }
+
+    static int codecOf(int columnType) {
+        switch (columnType) {
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return CODEC_DELTA;
+            case ColumnType.DOUBLE:
+                return CODEC_XOR;
+            default:
+                return CODEC_PLAIN;
+        }
+    }
+
+    static boolean isCompressible(int columnType) {
+        return columnType != ColumnType.STRING && columnType != ColumnType.BINARY;
+    }
+
+    /**
+     * Inflates block and reverses codec transformation.
+     *
+     * @param z       inflate stream
+     * @param src     address of deflated block
+     * @param srcLen  length of deflated block
+     * @param dst     address of buffer for inflated block
+     * @param dstLen  exact length of inflated block
+     * @param codec   codec block has been encoded with
+     */
+    static void inflate(long z, long src, long srcLen, long dst, long dstLen, int codec) {
+        Zip.inflateReset(z);
+        Zip.setInput(z, src, (int) srcLen);
+        final int n = Zip.inflate(z, dst, (int) dstLen, true);
+        if (n != dstLen) {
+            throw CairoException.instance(0).put("Corrupt compressed block [ret=").put(n).put(", expected=").put(dstLen).put(']');
+        }
+
+        switch (codec) {
+            case CODEC_DELTA:
+                long value = 0;
+                for (long p = dst, hi = dst + dstLen; p < hi; p += 8) {
+                    value += Unsafe.getUnsafe().getLong(p);
+                    Unsafe.getUnsafe().putLong(p, value);
+                }
+                break;
+            case CODEC_XOR:
+                long bits = 0;
+                for (long p = dst, hi = dst + dstLen; p < hi; p += 8) {
+                    bits ^= Unsafe.getUnsafe().getLong(p);
+                    Unsafe.getUnsafe().putLong(p, bits);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void encode(int codec, long address, long len) {
+        switch (codec) {
+            case CODEC_DELTA:
+                long prev = 0;
+                for (long p = address, hi = address + len; p < hi; p += 8) {
+                    final long value = Unsafe.getUnsafe().getLong(p);
+                    Unsafe.getUnsafe().putLong(p, value - prev);
+                    prev = value;
+                }
+                break;
+            case CODEC_XOR:
+                long prevBits = 0;
+                for (long p = address, hi = address + len; p < hi; p += 8) {
+                    final long bits = Unsafe.getUnsafe().getLong(p);
+                    Unsafe.getUnsafe().putLong(p, bits ^ prevBits);
+                    prevBits = bits;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void close() {
+        src.close();
+        compressedSrc.close();
+        dst.close();
+        blockCache.close();
+        other.close();
+        if (inBuf != 0) {
+            Unsafe.free(inBuf, blockSize);
+            inBuf = 0;
+        }
+        if (outBuf != 0) {
+            Unsafe.free(outBuf, outCapacity);
+            outBuf = 0;
+        }
+        if (z > 0) {
+            Zip.deflateEnd(z);
+            z = 0;
+        }
+    }
+
+    /**
+     * Replaces column ".d" file with compressed ".dz" file. Compressed file is written under
+     * temporary name first, it becomes visible to readers fully written. Original file is removed last,
+     * readers that still have it open are unaffected.
+     *
+     * @param path       partition path, trimmed to plen on exit
+     * @param plen       length of partition path
+     * @param columnName name of column
+     * @param columnType type of column, must be fixed size
+     * @param size       size of column data in bytes
+     * @param sync       when true compressed file is flushed to disk before original is removed
+     */
+    void compress(Path path, int plen, CharSequence columnName, int columnType, long size, boolean sync) {
+        assert isCompressible(columnType);
+        final int codec = codecOf(columnType);
+        try {
+            src.of(ff, TableUtils.dFile(path.trimTo(plen), columnName), ff.getMapPageSize(), size);
+            dst.of(ff, path.trimTo(plen).concat(columnName).put(".dz").put(TEMP_FILE_SUFFIX).$(), ff.getMapPageSize());
+
+            blockOffsets.clear();
+            for (long lo = 0; lo < size; lo += blockSize) {
+                final long len = Math.min(blockSize, size - lo);
+                long p = inBuf;
+                for (long o = lo, hi = lo + len; o < hi; ) {
+                    final long n = Math.min(hi - o, src.pageRemaining(o));
+                    Unsafe.getUnsafe().copyMemory(src.addressOf(o), p, n);
+                    p += n;
+                    o += n;
+                }
+                encode(codec, inBuf, len);
+
+                Zip.deflateReset(z);
+                Zip.setInput(z, inBuf, (int) len);
+                final int ret = Zip.deflate(z, outBuf, (int) outCapacity, true);
+                if (ret != Z_STREAM_END) {
+                    throw CairoException.instance(0).put("Cannot deflate block [ret=").put(ret).put(", file=").put(path).put(']');
+                }
+                blockOffsets.add(dst.getAppendOffset());
+                dst.putBlockOfBytes(outBuf, outCapacity - Zip.availOut(z));
+            }
+
+            final long indexOffset = dst.getAppendOffset();
+            blockOffsets.add(indexOffset);
+            for (int i = 0, n = blockOffsets.size(); i < n; i++) {
+                dst.putLong(blockOffsets.getQuick(i));
+            }
+            dst.putLong(size);
+            dst.putInt(blockBits);
+            dst.putInt(codec);
+            dst.putLong(indexOffset);
+            if (sync) {
+                dst.sync(false);
+            }
+            LOG.info().$("compressed [file=").$(path).$(", size=").$(size).$(", compressedSize=").$(dst.getAppendOffset()).$(']').$();
+        } finally {
+            dst.close(true);
+            src.close();
+            path.trimTo(plen);
+        }
+
+        replace(path, plen, columnName, ".dz", ".d");
+    }
+
+    /**
+     * Restores column ".d" file from compressed ".dz" file.
+     *
+     * @param path       partition path, trimmed to plen on exit
+     * @param plen       length of partition path
+     * @param columnName name of column
+     * @param sync       when true restored file is flushed to disk before compressed file is removed
+     */
+    void decompress(Path path, int plen, CharSequence columnName, boolean sync) {
+        try {
+            compressedSrc.of(ff, TableUtils.dzFile(path.trimTo(plen), columnName), blockCache);
+            dst.of(ff, path.trimTo(plen).concat(columnName).put(".d").put(TEMP_FILE_SUFFIX).$(), ff.getMapPageSize());
+            for (long lo = 0, size = compressedSrc.size(); lo < size; ) {
+                final long len = Math.min(size - lo, compressedSrc.pageRemaining(lo));
+                dst.putBlockOfBytes(compressedSrc.addressOf(lo), len);
+                lo += len;
+            }
+            if (sync) {
+                dst.sync(false);
+            }
+            LOG.info().$("decompressed [file=").$(path).$(", size=").$(compressedSrc.size()).$(']').$();
+        } finally {
+            dst.close(true);
+            compressedSrc.close();
+            path.trimTo(plen);
+        }
+
+        replace(path, plen, columnName, ".d", ".dz");
+    }
+
+    long readLong(LPSZ name, long offset) {
+        try {
+            compressedSrc.of(ff, name, blockCache);
+            return compressedSrc.getLong(offset);
+        } finally {
+            compressedSrc.close();
+        }
+    }
+
+    private void replace(Path path, int plen, CharSequence columnName, CharSequence extension, CharSequence replacedExtension) {
+        try {
+            other.of(path.trimTo(plen)).concat(columnName).put(extension).$();
+            path.concat(columnName).put(extension).put(TEMP_FILE_SUFFIX).$();
+            if (!ff.rename(path, other)) {
+                throw CairoException.instance(ff.errno()).put("Cannot rename ").put(path).put(" to ").put(other);
+            }
+            path.trimTo(plen).concat(columnName).put(replacedExtension).$();
+            if (!ff.remove(path)) {
+                throw CairoException.instance(ff.errno()).put("Cannot remove ").put(path);
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+}
@@ -41,5 +41,7 @@ interface ColumnIndexer {
 
     void rollback(long maxRow);
 
+    void sync(boolean async);
+
     boolean tryLock(long expectedSequence);
 }
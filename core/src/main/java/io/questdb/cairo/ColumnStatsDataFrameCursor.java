@@ -0,0 +1,225 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Narrows data frames of base cursor down to runs of blocks, which column statistics cannot rule
+ * out. Frames of partitions without statistics are passed through as they are.
+ */
+public class ColumnStatsDataFrameCursor implements DataFrameCursor {
+    private final ColumnStatsFilter filter;
+    private final ObjList<ColumnStatsReader> statsReaders = new ObjList<>();
+    private final boolean[] statsAvailable;
+    private final ColumnStatsDataFrame frame = new ColumnStatsDataFrame();
+    private DataFrameCursor base;
+    private DataFrame baseFrame;
+    private long rowLo;
+    private long rowHi;
+    private boolean anyStatsAvailable;
+
+    public ColumnStatsDataFrameCursor(ColumnStatsFilter filter) {
+        this.filter = filter;
+        final int n = filter.size();
+        for (int i = 0; i < n; i++) {
+            statsReaders.add(new ColumnStatsReader());
+        }
+        this.statsAvailable = new boolean[n];
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = statsReaders.size(); i < n; i++) {
+            statsReaders.getQuick(i).close();
+        }
+        base = Misc.free(base);
+        baseFrame = null;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public TableReader getTableReader() {
+        return base.getTableReader();
+    }
+
+    @Override
+    public boolean reload() {
+        final boolean moreData = base.reload();
+        filter.of(base.getTableReader());
+        baseFrame = null;
+        return moreData;
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        base.toTop();
+        baseFrame = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (baseFrame != null && rowLo < rowHi) {
+                if (!anyStatsAvailable) {
+                    frame.of(rowLo, rowHi);
+                    rowLo = rowHi;
+                    return true;
+                }
+
+                long lo = rowLo;
+                long next;
+                while (lo < rowHi && (next = skipBlock(lo)) > lo) {
+                    lo = next;
+                }
+
+                if (lo < rowHi) {
+                    long hi = lo;
+                    while (hi < rowHi && skipBlock(hi) == hi) {
+                        hi = nextBlock(hi);
+                    }
+                    hi = Math.min(hi, rowHi);
+                    frame.of(lo, hi);
+                    rowLo = hi;
+                    return true;
+                }
+                rowLo = rowHi;
+            }
+
+            if (!base.hasNext()) {
+                return false;
+            }
+            baseFrame = base.next();
+            rowLo = baseFrame.getRowLo();
+            rowHi = baseFrame.getRowHi();
+            if (!openStats(baseFrame.getPartitionIndex())) {
+                // partition cannot have rows that match filter
+                rowLo = rowHi;
+            }
+        }
+    }
+
+    @Override
+    public DataFrame next() {
+        return frame;
+    }
+
+    public ColumnStatsDataFrameCursor of(DataFrameCursor base) {
+        this.base = base;
+        this.baseFrame = null;
+        filter.of(base.getTableReader());
+        return this;
+    }
+
+    private long nextBlock(long row) {
+        long next = Long.MAX_VALUE;
+        for (int i = 0, n = statsReaders.size(); i < n; i++) {
+            if (statsAvailable[i]) {
+                final long blockRowCount = statsReaders.getQuick(i).getBlockRowCount();
+                next = Math.min(next, (row / blockRowCount + 1) * blockRowCount);
+            }
+        }
+        return next;
+    }
+
+    private boolean openStats(int partitionIndex) {
+        final TableReader reader = base.getTableReader();
+        anyStatsAvailable = false;
+        for (int i = 0, n = statsReaders.size(); i < n; i++) {
+            final ColumnStatsReader statsReader = statsReaders.getQuick(i);
+            statsAvailable[i] = reader.readColumnStats(partitionIndex, filter.getColumnIndex(i), statsReader);
+            if (statsAvailable[i]) {
+                if (!filter.partitionMayMatch(i, statsReader)) {
+                    return false;
+                }
+                anyStatsAvailable = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds block of a predicate, which rules out given row.
+     *
+     * @param row row in partition
+     * @return row after the end of first block that cannot match, or given row when all predicates may match it
+     */
+    private long skipBlock(long row) {
+        for (int i = 0, n = statsReaders.size(); i < n; i++) {
+            if (statsAvailable[i]) {
+                final ColumnStatsReader statsReader = statsReaders.getQuick(i);
+                final long block = row / statsReader.getBlockRowCount();
+                if (!filter.mayMatch(i, statsReader, block)) {
+                    return (block + 1) * statsReader.getBlockRowCount();
+                }
+            }
+        }
+        return row;
+    }
+
+    private class ColumnStatsDataFrame implements DataFrame {
+        private long rowLo;
+        private long rowHi;
+
+        @Override
+        public BitmapIndexReader getBitmapIndexReader(int columnIndex, int direction) {
+            return baseFrame.getBitmapIndexReader(columnIndex, direction);
+        }
+
+        @Override
+        public int getPartitionIndex() {
+            return baseFrame.getPartitionIndex();
+        }
+
+        @Override
+        public long getRowHi() {
+            return rowHi;
+        }
+
+        @Override
+        public long getRowLo() {
+            return rowLo;
+        }
+
+        private void of(long rowLo, long rowHi) {
+            this.rowLo = rowLo;
+            this.rowHi = rowHi;
+        }
+    }
+}
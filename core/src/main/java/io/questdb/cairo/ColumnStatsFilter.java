@@ -0,0 +1,209 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Chars;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+
+/**
+ * Conjunction of simple column predicates, which is checked against column statistics
+ * to find blocks of rows that cannot satisfy query filter. Filter itself is still applied
+ * to rows of remaining blocks, so predicates only have to be conservative: block is skipped
+ * when none of its rows can match.
+ * <p>
+ * Numeric predicates compare values the way SQL functions do, in double domain. Column nulls
+ * take part in comparisons as their raw values, which is what column functions return for them.
+ */
+public class ColumnStatsFilter implements Mutable {
+    public static final int OP_EQ = 0;
+    public static final int OP_LT = 1;
+    public static final int OP_GT = 2;
+    // equality of doubles is approximate, see EqDoubleFunctionFactory
+    private static final double EPSILON = 0.000000001;
+    // integer values below this magnitude convert to double exactly and bloom filter can be trusted
+    private static final double MAX_EXACT_LONG = 1L << 52;
+    private final IntList columnIndexes = new IntList();
+    private final IntList columnTypes = new IntList();
+    private final IntList ops = new IntList();
+    private final LongList values = new LongList();
+    private final ObjList<String> symbols = new ObjList<>();
+    private final LongList symbolKeys = new LongList();
+
+    public void addNumeric(int columnIndex, int columnType, int op, double value) {
+        assert columnType != ColumnType.SYMBOL && ColumnStatsWriter.isSupported(columnType);
+        add(columnIndex, columnType, op, Double.doubleToRawLongBits(value), null);
+    }
+
+    /**
+     * Adds symbol equality predicate. Symbol is resolved to its key when cursor is opened.
+     *
+     * @param columnIndex index of symbol column
+     * @param symbol      symbol value, null matches null values
+     */
+    public void addSymbol(int columnIndex, CharSequence symbol) {
+        add(columnIndex, ColumnType.SYMBOL, OP_EQ, 0, Chars.toString(symbol));
+    }
+
+    @Override
+    public void clear() {
+        columnIndexes.clear();
+        columnTypes.clear();
+        ops.clear();
+        values.clear();
+        symbols.clear();
+        symbolKeys.clear();
+    }
+
+    public int getColumnIndex(int index) {
+        return columnIndexes.getQuick(index);
+    }
+
+    public boolean isEmpty() {
+        return columnIndexes.size() == 0;
+    }
+
+    public int size() {
+        return columnIndexes.size();
+    }
+
+    /**
+     * Checks whether block of partition can contain rows matching predicate.
+     *
+     * @param index  predicate index
+     * @param reader statistics of predicate column
+     * @param block  index of block in statistics
+     * @return false when no row of block matches predicate
+     */
+    boolean mayMatch(int index, ColumnStatsReader reader, long block) {
+        final int columnType = columnTypes.getQuick(index);
+        final long nullCount = reader.getNullCount(block);
+        if (columnType == ColumnType.SYMBOL) {
+            final long key = symbolKeys.getQuick(index);
+            if (key == SymbolTable.VALUE_IS_NULL) {
+                return nullCount > 0;
+            }
+            return reader.getMin(block) <= key && key <= reader.getMax(block);
+        }
+
+        final int op = ops.getQuick(index);
+        final double value = Double.longBitsToDouble(values.getQuick(index));
+        if (value != value) {
+            // only "= NaN" is allowed to have NaN operand, it matches nulls
+            return nullCount > 0;
+        }
+
+        final double min;
+        final double max;
+        final double nullValue;
+        switch (columnType) {
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                min = Double.longBitsToDouble(reader.getMin(block));
+                max = Double.longBitsToDouble(reader.getMax(block));
+                nullValue = Double.NaN;
+                break;
+            case ColumnType.INT:
+                min = reader.getMin(block);
+                max = reader.getMax(block);
+                nullValue = Numbers.INT_NaN;
+                break;
+            default:
+                min = reader.getMin(block);
+                max = reader.getMax(block);
+                nullValue = Numbers.LONG_NaN;
+                break;
+        }
+        return (min <= max && rangeMayMatch(op, value, min, max)) || (nullCount > 0 && rangeMayMatch(op, value, nullValue, nullValue));
+    }
+
+    /**
+     * Resolves symbol values to keys of symbol tables reader is going to scan.
+     *
+     * @param reader table reader of data frame cursor
+     */
+    void of(TableReader reader) {
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            if (columnTypes.getQuick(i) == ColumnType.SYMBOL) {
+                symbolKeys.setQuick(i, reader.getSymbolMapReader(columnIndexes.getQuick(i)).getQuick(symbols.getQuick(i)));
+            }
+        }
+    }
+
+    /**
+     * Checks whether partition can contain rows matching predicate at all. Bloom filter is consulted for
+     * equality with values that have exact representation.
+     *
+     * @param index  predicate index
+     * @param reader statistics of predicate column
+     * @return false when no row of partition matches predicate
+     */
+    boolean partitionMayMatch(int index, ColumnStatsReader reader) {
+        if (ops.getQuick(index) != OP_EQ) {
+            return true;
+        }
+        switch (columnTypes.getQuick(index)) {
+            case ColumnType.SYMBOL:
+                final long key = symbolKeys.getQuick(index);
+                return key != SymbolTable.VALUE_NOT_FOUND && (key == SymbolTable.VALUE_IS_NULL || reader.mayContain(key));
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                final double value = Double.longBitsToDouble(values.getQuick(index));
+                if (value == Math.rint(value) && Math.abs(value) < MAX_EXACT_LONG) {
+                    // nulls are not in bloom filter, they are checked per block
+                    final long nullValue = columnTypes.getQuick(index) == ColumnType.INT ? Numbers.INT_NaN : Numbers.LONG_NaN;
+                    return (long) value == nullValue || reader.mayContain((long) value);
+                }
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    private static boolean rangeMayMatch(int op, double value, double min, double max) {
+        switch (op) {
+            case OP_LT:
+                return min < value;
+            case OP_GT:
+                return max > value;
+            default:
+                return min - EPSILON < value && value < max + EPSILON;
+        }
+    }
+
+    private void add(int columnIndex, int columnType, int op, long value, String symbol) {
+        columnIndexes.add(columnIndex);
+        columnTypes.add(columnType);
+        ops.add(op);
+        values.add(value);
+        symbols.add(symbol);
+        symbolKeys.add(SymbolTable.VALUE_NOT_FOUND);
+    }
+}
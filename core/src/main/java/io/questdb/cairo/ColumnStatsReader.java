@@ -0,0 +1,133 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Reads column statistics written by {@link ColumnStatsWriter}.
+ */
+class ColumnStatsReader implements Closeable {
+    private final ReadOnlyMemory mem = new ReadOnlyMemory();
+    private long rowCount;
+    private long blockRowCount;
+    private long blockCount;
+    private long bloomOffset;
+    private long bloomMask;
+
+    @Override
+    public void close() {
+        mem.close();
+        blockCount = 0;
+    }
+
+    long getBlockCount() {
+        return blockCount;
+    }
+
+    long getBlockRowCount() {
+        return blockRowCount;
+    }
+
+    long getMax(long block) {
+        return mem.getLong(ColumnStatsWriter.HEADER_SIZE + block * ColumnStatsWriter.BLOCK_ENTRY_SIZE + 8);
+    }
+
+    long getMin(long block) {
+        return mem.getLong(ColumnStatsWriter.HEADER_SIZE + block * ColumnStatsWriter.BLOCK_ENTRY_SIZE);
+    }
+
+    long getNullCount(long block) {
+        return mem.getLong(ColumnStatsWriter.HEADER_SIZE + block * ColumnStatsWriter.BLOCK_ENTRY_SIZE + 16);
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Checks bloom filter of partition. Filter has no false negatives, so false means
+     * value is not present in any block.
+     *
+     * @param value integer or symbol key value, not null
+     * @return false when value is definitely absent, true otherwise
+     */
+    boolean mayContain(long value) {
+        if (bloomMask == 0) {
+            return true;
+        }
+        final long h = ColumnStatsWriter.hash(value);
+        final long step = (h >>> 32) | 1;
+        for (int i = 0; i < ColumnStatsWriter.BLOOM_PROBE_COUNT; i++) {
+            final long bit = (h + i * step) & bloomMask;
+            if ((mem.getLong(bloomOffset + (bit >>> 6) * Long.BYTES) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Opens statistics file. Statistics are ignored when they describe different number of rows than
+     * partition reader is about to scan, that is when partition changed after statistics were written.
+     *
+     * @param ff       files facade
+     * @param name     path to ".st" file
+     * @param rowCount number of rows in partition
+     * @return true when statistics are present and describe given number of rows
+     */
+    boolean of(FilesFacade ff, LPSZ name, long rowCount) {
+        close();
+        if (!ff.exists(name)) {
+            return false;
+        }
+        final long size = ff.length(name);
+        if (size < ColumnStatsWriter.HEADER_SIZE) {
+            return false;
+        }
+        try {
+            mem.of(ff, name, ff.getPageSize(), size);
+        } catch (CairoException e) {
+            // writer might have removed statistics in the meantime
+            return false;
+        }
+        this.rowCount = mem.getLong(0);
+        this.blockRowCount = mem.getLong(8);
+        final long blockCount = mem.getLong(16);
+        final long bloomWords = mem.getLong(24);
+        this.bloomOffset = ColumnStatsWriter.HEADER_SIZE + blockCount * ColumnStatsWriter.BLOCK_ENTRY_SIZE;
+        this.bloomMask = bloomWords == 0 ? 0 : bloomWords * 64 - 1;
+        if (this.rowCount != rowCount || blockRowCount < 1 || size != bloomOffset + bloomWords * Long.BYTES) {
+            mem.close();
+            return false;
+        }
+        this.blockCount = blockCount;
+        return true;
+    }
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Writes per-partition column statistics, which let data frame cursors skip blocks of rows
+ * that cannot satisfy a filter. Statistics file is a sequence of 8-byte values:
+ * <pre>
+ *     row count, block row count, block count, bloom filter word count
+ *     min, max and null count of each block
+ *     bloom filter words
+ * </pre>
+ * Min and max of floating point columns are stored as raw double bits. Nulls are excluded from
+ * min and max, block that consists of nulls only has min greater than max. Rows above column
+ * top are counted as nulls, except for byte and short columns, which read them as 0. Bloom
+ * filter is kept for integer and symbol columns only, it contains values of the whole partition.
+ */
+class ColumnStatsWriter implements Closeable {
+    static final int HEADER_SIZE = 32;
+    static final int BLOCK_ENTRY_SIZE = 24;
+    static final int BLOOM_PROBE_COUNT = 3;
+    private static final Log LOG = LogFactory.getLog(ColumnStatsWriter.class);
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private final FilesFacade ff;
+    private final long blockRowCount;
+    private final long bloomMaxBits;
+    private final ReadOnlyMemory src = new ReadOnlyMemory();
+    private final AppendMemory dst = new AppendMemory();
+    private final Path other = new Path();
+    private long bloom;
+    private long bloomSize;
+
+    ColumnStatsWriter(FilesFacade ff, int blockRowCount, int bloomMaxSize) {
+        this.ff = ff;
+        this.blockRowCount = Numbers.ceilPow2(blockRowCount);
+        // bloom filter is made of whole 8-byte words
+        this.bloomMaxBits = bloomMaxSize < Long.BYTES ? 0 : Numbers.ceilPow2(bloomMaxSize) * 8L;
+    }
+
+    static long hash(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    static boolean isSupported(int columnType) {
+        switch (columnType) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.SYMBOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (bloom != 0) {
+            Unsafe.free(bloom, bloomSize);
+            bloom = 0;
+            bloomSize = 0;
+        }
+        Misc.free(src);
+        Misc.free(dst);
+        Misc.free(other);
+    }
+
+    /**
+     * Computes statistics of column in partition and writes them to ".st" file. File is written under
+     * temporary name and renamed when complete, so that readers never see partially written statistics.
+     *
+     * @param path       partition path, trimmed to plen on exit
+     * @param plen       length of partition path
+     * @param columnName name of column
+     * @param columnType type of column, see {@link #isSupported(int)}
+     * @param columnTop  number of rows in partition before column was added
+     * @param rowCount   number of rows in partition
+     * @param sync       when true statistics file is flushed to disk before rename
+     */
+    void write(Path path, int plen, CharSequence columnName, int columnType, long columnTop, long rowCount, boolean sync) {
+        assert isSupported(columnType);
+        final int shl = ColumnType.pow2SizeOf(columnType);
+        final long bloomBits = bloomBits(columnType, rowCount);
+        final long bloomWords = bloomBits >>> 6;
+        try {
+            if (bloomBits > 0) {
+                ensureBloom(bloomWords * Long.BYTES);
+                Unsafe.getUnsafe().setMemory(bloom, bloomWords * Long.BYTES, (byte) 0);
+            }
+            if (rowCount > columnTop) {
+                src.of(ff, TableUtils.dFile(path.trimTo(plen), columnName), ff.getMapPageSize(), (rowCount - columnTop) << shl);
+            }
+            dst.of(ff, path.trimTo(plen).concat(columnName).put(".st").put(TEMP_FILE_SUFFIX).$(), ff.getMapPageSize());
+
+            final long blockCount = (rowCount + blockRowCount - 1) / blockRowCount;
+            dst.putLong(rowCount);
+            dst.putLong(blockRowCount);
+            dst.putLong(blockCount);
+            dst.putLong(bloomWords);
+
+            for (long lo = 0; lo < rowCount; lo += blockRowCount) {
+                final long hi = Math.min(lo + blockRowCount, rowCount);
+                final long dataLo = Math.max(lo, columnTop) - columnTop;
+                final long dataHi = Math.max(hi, columnTop) - columnTop;
+                final long nulls = Math.min(hi, columnTop) - Math.min(lo, columnTop);
+                if (columnType == ColumnType.FLOAT || columnType == ColumnType.DOUBLE) {
+                    writeDoubleBlock(columnType, dataLo, dataHi, nulls);
+                } else {
+                    writeLongBlock(columnType, dataLo, dataHi, nulls, bloomBits);
+                }
+            }
+
+            for (long i = 0; i < bloomWords; i++) {
+                dst.putLong(Unsafe.getUnsafe().getLong(bloom + i * Long.BYTES));
+            }
+
+            if (sync) {
+                dst.sync(false);
+            }
+        } finally {
+            dst.close(true);
+            src.close();
+            path.trimTo(plen);
+        }
+
+        try {
+            other.of(path).concat(columnName).put(".st").$();
+            path.concat(columnName).put(".st").put(TEMP_FILE_SUFFIX).$();
+            if (!ff.rename(path, other)) {
+                throw CairoException.instance(ff.errno()).put("Cannot rename ").put(path).put(" to ").put(other);
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+        LOG.debug().$("column stats [file=").$(other).$(", rows=").$(rowCount).$(", blocks=").$((rowCount + blockRowCount - 1) / blockRowCount).$(']').$();
+    }
+
+    private long bloomBits(int columnType, long rowCount) {
+        switch (columnType) {
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.SYMBOL:
+                if (bloomMaxBits == 0 || rowCount == 0) {
+                    return 0;
+                }
+                // ten bits per value keep false positive rate near one percent with three probes
+                return Math.min(bloomMaxBits, Math.max(64, Numbers.ceilPow2(rowCount * 10)));
+            default:
+                return 0;
+        }
+    }
+
+    private void ensureBloom(long size) {
+        if (size > bloomSize) {
+            if (bloom != 0) {
+                Unsafe.free(bloom, bloomSize);
+            }
+            bloom = Unsafe.malloc(size);
+            bloomSize = size;
+        }
+    }
+
+    private long readLong(int columnType, long row) {
+        switch (columnType) {
+            case ColumnType.BYTE:
+                return src.getByte(row);
+            case ColumnType.SHORT:
+                return src.getShort(row << 1);
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+                final int v = src.getInt(row << 2);
+                return v == Numbers.INT_NaN ? Numbers.LONG_NaN : v;
+            default:
+                return src.getLong(row << 3);
+        }
+    }
+
+    private void writeDoubleBlock(int columnType, long lo, long hi, long nulls) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (long row = lo; row < hi; row++) {
+            final double v = columnType == ColumnType.FLOAT ? src.getFloat(row << 2) : src.getDouble(row << 3);
+            if (Double.isNaN(v)) {
+                nulls++;
+            } else {
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+        }
+        dst.putLong(Double.doubleToRawLongBits(min));
+        dst.putLong(Double.doubleToRawLongBits(max));
+        dst.putLong(nulls);
+    }
+
+    private void writeLongBlock(int columnType, long lo, long hi, long nulls, long bloomBits) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        if (nulls > 0 && (columnType == ColumnType.BYTE || columnType == ColumnType.SHORT)) {
+            // byte and short columns have no null value, rows above column top read as 0
+            min = 0;
+            max = 0;
+            nulls = 0;
+        }
+        final long mask = bloomBits - 1;
+        for (long row = lo; row < hi; row++) {
+            final long v = readLong(columnType, row);
+            // byte and short columns have no null value
+            if (v == Numbers.LONG_NaN && columnType != ColumnType.BYTE && columnType != ColumnType.SHORT) {
+                nulls++;
+                continue;
+            }
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+            if (bloomBits > 0) {
+                final long h = hash(v);
+                final long step = (h >>> 32) | 1;
+                for (int i = 0; i < BLOOM_PROBE_COUNT; i++) {
+                    final long bit = (h + i * step) & mask;
+                    final long p = bloom + (bit >>> 6) * Long.BYTES;
+                    Unsafe.getUnsafe().putLong(p, Unsafe.getUnsafe().getLong(p) | (1L << (bit & 63)));
+                }
+            }
+        }
+        dst.putLong(min);
+        dst.putLong(max);
+        dst.putLong(nulls);
+    }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.CharSequenceIntHashMap;
+
+/**
+ * Durability level of {@link TableWriter#commit()}, set by {@link TableWriter#setCommitMode(int)}.
+ */
+public final class CommitMode {
+    /**
+     * Commit does not flush anything, data reaches disk when OS decides to write back dirty pages.
+     */
+    public static final int NOSYNC = 0;
+    /**
+     * Commit schedules write-back of mapped pages without waiting for it. When work scheduler is available
+     * files are also flushed to disk by background job.
+     */
+    public static final int ASYNC = 1;
+    /**
+     * Commit returns after column data and then transaction file have been flushed to disk.
+     */
+    public static final int SYNC = 2;
+    private final static CharSequenceIntHashMap nameToIndexMap = new CharSequenceIntHashMap();
+
+    static {
+        nameToIndexMap.put("nosync", NOSYNC);
+        nameToIndexMap.put("async", ASYNC);
+        nameToIndexMap.put("sync", SYNC);
+    }
+
+    private CommitMode() {
+    }
+
+    public static int fromString(CharSequence name) {
+        return nameToIndexMap.get(name);
+    }
+
+    public static String toString(int commitMode) {
+        switch (commitMode) {
+            case NOSYNC:
+                return "nosync";
+            case ASYNC:
+                return "async";
+            case SYNC:
+                return "sync";
+            default:
+                return "UNKNOWN";
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Fixed number of buffers for inflated blocks of compressed columns. Buffers are handed out
+ * in round-robin order, previous owner of buffer is told to forget the block it held.
+ * Cache is not thread-safe, it is meant to be shared by columns of one table reader.
+ */
+class CompressedBlockCache implements Closeable {
+    private final long[] addresses;
+    private final long[] sizes;
+    private final CompressedReadOnlyMemory[] owners;
+    private final int[] pages;
+    private int next = 0;
+
+    CompressedBlockCache(int capacity) {
+        // value may straddle two blocks, both of them have to be in memory at the same time
+        capacity = Math.max(2, capacity);
+        this.addresses = new long[capacity];
+        this.sizes = new long[capacity];
+        this.owners = new CompressedReadOnlyMemory[capacity];
+        this.pages = new int[capacity];
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = addresses.length; i < n; i++) {
+            if (owners[i] != null) {
+                owners[i].evict(pages[i]);
+                owners[i] = null;
+            }
+            if (addresses[i] != 0) {
+                Unsafe.free(addresses[i], sizes[i]);
+                addresses[i] = 0;
+                sizes[i] = 0;
+            }
+        }
+    }
+
+    long acquire(CompressedReadOnlyMemory owner, int page, long size) {
+        final int index = next;
+        next = (index + 1) % addresses.length;
+
+        if (owners[index] != null) {
+            owners[index].evict(pages[index]);
+        }
+
+        if (sizes[index] < size) {
+            addresses[index] = addresses[index] == 0 ? Unsafe.malloc(size) : Unsafe.realloc(addresses[index], sizes[index], size);
+            sizes[index] = size;
+        }
+
+        owners[index] = owner;
+        pages[index] = page;
+        return addresses[index];
+    }
+
+    void release(CompressedReadOnlyMemory owner) {
+        for (int i = 0, n = owners.length; i < n; i++) {
+            if (owners[i] == owner) {
+                owners[i] = null;
+            }
+        }
+    }
+}
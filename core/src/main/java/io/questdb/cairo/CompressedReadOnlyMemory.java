@@ -0,0 +1,186 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Zip;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Read-only view of column compressed by {@link ColumnCompressor}. Memory pages are blocks of
+ * compressed file, they are inflated on first access into buffers of block cache.
+ */
+public class CompressedReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
+    private static final Log LOG = LogFactory.getLog(CompressedReadOnlyMemory.class);
+    private FilesFacade ff;
+    private CompressedBlockCache blockCache;
+    private long fd = -1;
+    private long fileAddress = 0;
+    private long fileSize = 0;
+    private long indexAddress;
+    private long size = 0;
+    private int blockCount = 0;
+    private int codec;
+    private long z = 0;
+
+    @Override
+    public void advise(int advice) {
+        // blocks are decompressed from file mapping, advice applies to compressed data
+        if (fileAddress != 0) {
+            ff.madvise(fileAddress, fileSize, advice);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (blockCache != null) {
+            blockCache.release(this);
+            blockCache = null;
+        }
+        super.close();
+        if (fileAddress != 0) {
+            ff.munmap(fileAddress, fileSize);
+            fileAddress = 0;
+        }
+        if (fd != -1) {
+            ff.close(fd);
+            LOG.info().$("closed [fd=").$(fd).$(']').$();
+            fd = -1;
+        }
+        if (z > 0) {
+            Zip.inflateEnd(z);
+            z = 0;
+        }
+        size = 0;
+        blockCount = 0;
+    }
+
+    @Override
+    protected long getPageAddress(int page) {
+        if (page < pages.size()) {
+            long address = pages.getQuick(page);
+            if (address != 0) {
+                return address;
+            }
+        }
+        return cachePageAddress(page, inflateBlock(page));
+    }
+
+    @Override
+    protected long getPageSize(int page) {
+        return page == blockCount - 1 ? size - pageOffset(page) : getMapPageSize();
+    }
+
+    @Override
+    protected long mapWritePage(int page) {
+        throw new UnsupportedOperationException("Cannot write compressed memory");
+    }
+
+    @Override
+    protected void release(int page, long address) {
+        // blocks are owned by cache
+    }
+
+    @Override
+    public long getFd() {
+        return fd;
+    }
+
+    @Override
+    public void grow(long size) {
+        // compressed partitions do not grow
+        assert size <= this.size;
+    }
+
+    @Override
+    public boolean isDeleted() {
+        return !ff.exists(fd);
+    }
+
+    public void of(FilesFacade ff, LPSZ name, CompressedBlockCache blockCache) {
+        close();
+        this.ff = ff;
+        fd = ff.openRO(name);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot open file: ").put(name);
+        }
+
+        fileSize = ff.length(fd);
+        if (fileSize < ColumnCompressor.FOOTER_SIZE) {
+            close();
+            throw CairoException.instance(0).put("Compressed file is too short: ").put(name);
+        }
+
+        fileAddress = ff.mmap(fd, fileSize, 0, Files.MAP_RO);
+        if (fileAddress == -1) {
+            fileAddress = 0;
+            close();
+            throw CairoException.instance(ff.errno()).put("Cannot mmap compressed file: ").put(name);
+        }
+
+        final long footer = fileAddress + fileSize - ColumnCompressor.FOOTER_SIZE;
+        this.size = Unsafe.getUnsafe().getLong(footer);
+        final int blockBits = Unsafe.getUnsafe().getInt(footer + 8);
+        this.codec = Unsafe.getUnsafe().getInt(footer + 12);
+        this.indexAddress = fileAddress + Unsafe.getUnsafe().getLong(footer + 16);
+        setPageSize(1L << blockBits);
+        this.blockCount = size > 0 ? pageIndex(size - 1) + 1 : 0;
+        ensurePagesListCapacity(size);
+
+        z = Zip.inflateInit(true);
+        if (z < 0) {
+            close();
+            throw CairoException.instance(0).put("Cannot initialize inflate stream: ").put(name);
+        }
+        this.blockCache = blockCache;
+        LOG.info().$("open ").$(name).$(" [fd=").$(fd).$(", size=").$(size).$(", blocks=").$(blockCount).$(']').$();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    void evict(int page) {
+        if (page < pages.size()) {
+            pages.setQuick(page, 0);
+        }
+        clearHotPage();
+    }
+
+    private long inflateBlock(int page) {
+        if (page >= blockCount) {
+            throw CairoException.instance(0).put("Trying to read compressed block outside of file boundary. fd=").put(fd).put(", page=").put(page).put(", blockCount=").put(blockCount);
+        }
+        final long lo = Unsafe.getUnsafe().getLong(indexAddress + page * 8L);
+        final long hi = Unsafe.getUnsafe().getLong(indexAddress + page * 8L + 8);
+        final long address = blockCache.acquire(this, page, getMapPageSize());
+        ColumnCompressor.inflate(z, fileAddress + lo, hi - lo, address, getPageSize(page), codec);
+        return address;
+    }
+}
@@ -44,6 +44,31 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         this.root = Chars.stringOf(root);
     }
 
+    @Override
+    public int getCommitMode() {
+        return CommitMode.NOSYNC;
+    }
+
+    @Override
+    public int getCompressionBlockCacheSize() {
+        return 64;
+    }
+
+    @Override
+    public int getCompressionBlockSize() {
+        return 64 * 1024;
+    }
+
+    @Override
+    public long getCompressionCheckInterval() {
+        return 60_000;
+    }
+
+    @Override
+    public long getCompressionPartitionAge() {
+        return 0;
+    }
+
     @Override
     public int getCreateAsSelectRetryCount() {
         return 5;
@@ -69,6 +94,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 30;
     }
 
+    @Override
+    public int getFileSyncQueueCapacity() {
+        return 1024;
+    }
+
     @Override
     public FilesFacade getFilesFacade() {
         return FilesFacadeImpl.INSTANCE;
@@ -79,6 +109,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 100;
     }
 
+    @Override
+    public int getIndexerQueueCapacity() {
+        return 1024;
+    }
+
     @Override
     public long getInactiveReaderTTL() {
         return -10000;
@@ -94,6 +129,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 256;
     }
 
+    @Override
+    public long getMatViewRefreshInterval() {
+        return 0;
+    }
+
     @Override
     public int getMaxSwapFileCount() {
         return 30;
@@ -114,11 +154,26 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 509;
     }
 
+    @Override
+    public long getO3StagingPageSize() {
+        return 64 * 1024;
+    }
+
     @Override
     public int getParallelIndexThreshold() {
         return 100000;
     }
 
+    @Override
+    public int getPartitionStatsBlockRowCount() {
+        return 64 * 1024;
+    }
+
+    @Override
+    public int getPartitionStatsBloomMaxSize() {
+        return 64 * 1024;
+    }
+
     @Override
     public int getReaderPoolMaxSegments() {
         return 5;
@@ -134,6 +189,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1000000;
     }
 
+    @Override
+    public int getSqlAnalyticStorePageSize() {
+        return Numbers.SIZE_1MB;
+    }
+
     @Override
     public int getSqlCacheBlocks() {
         return 4;
@@ -201,6 +261,36 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024;
     }
 
+    @Override
+    public long getSqlParallelFilterFrameRowCount() {
+        return 100_000;
+    }
+
+    @Override
+    public int getSqlParallelFilterQueueCapacity() {
+        return 1024;
+    }
+
+    @Override
+    public long getSqlParallelGroupByFrameRowCount() {
+        return 100_000;
+    }
+
+    @Override
+    public int getSqlParallelGroupByQueueCapacity() {
+        return 1024;
+    }
+
+    @Override
+    public long getSqlResultCacheMaxSize() {
+        return 0;
+    }
+
+    @Override
+    public int getSqlResultCachePageSize() {
+        return 64 * 1024;
+    }
+
     @Override
     public int getSqlSortKeyPageSize() {
         return 4 * Numbers.SIZE_1MB;
@@ -226,6 +316,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return Numbers.SIZE_1MB;
     }
 
+    @Override
+    public long getSqlHashJoinSpillThreshold() {
+        return Numbers.SIZE_1MB * 1024L;
+    }
+
+    @Override
+    public long getSqlSortSpillThreshold() {
+        return Numbers.SIZE_1MB * 1024L;
+    }
+
     @Override
     public int getSqlSortValuePageSize() {
         return Numbers.SIZE_1MB * 16;
@@ -236,11 +336,46 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 10000;
     }
 
+    @Override
+    public boolean isHugePagesEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isO3Enabled() {
+        return false;
+    }
+
     @Override
     public boolean isParallelIndexingEnabled() {
         return true;
     }
 
+    @Override
+    public boolean isPartitionStatsEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlFilterCompilerEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelFilterEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlScanReadAheadEnabled() {
+        return false;
+    }
+
     @Override
     public int getSqlJoinMetadataPageSize() {
         return 16 * 1024;
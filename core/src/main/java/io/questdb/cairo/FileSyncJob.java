@@ -0,0 +1,72 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.Job;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.FilesFacade;
+
+/**
+ * Flushes files of tables committed with {@link CommitMode#ASYNC} to disk. Writers publish duplicates
+ * of their file descriptors, which this job closes once flushed.
+ */
+class FileSyncJob implements Job {
+    private static final Log LOG = LogFactory.getLog(FileSyncJob.class);
+    private final RingQueue<FileSyncEntry> queue;
+    private final Sequence sequence;
+    private final FilesFacade ff;
+
+    public FileSyncJob(CairoWorkScheduler workScheduler, FilesFacade ff) {
+        this.queue = workScheduler.getSyncQueue();
+        this.sequence = workScheduler.getSyncSubSequence();
+        this.ff = ff;
+    }
+
+    @Override
+    public boolean run() {
+        long cursor = sequence.next();
+        if (cursor < 0) {
+            return false;
+        }
+
+        FileSyncEntry queueItem = queue.get(cursor);
+        // copy values and release queue item
+        final long fd = queueItem.fd;
+        final SOCountDownLatch latch = queueItem.countDownLatch;
+        sequence.done(cursor);
+
+        if (fd != -1) {
+            if (ff.fsync(fd) != 0) {
+                LOG.error().$("could not fsync [fd=").$(fd).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            ff.close(fd);
+        }
+        latch.countDown();
+        return true;
+    }
+}
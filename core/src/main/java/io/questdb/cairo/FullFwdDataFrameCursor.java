@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
+    private int prevPartitionIndex = -1;
 
     @Override
     public boolean hasNext() {
@@ -36,6 +37,8 @@ public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
             } else {
                 frame.partitionIndex = partitionIndex;
                 frame.rowHi = hi;
+                reader.adviseScan(prevPartitionIndex, partitionIndex, partitionIndex + 1 < partitionHi ? partitionIndex + 1 : -1);
+                prevPartitionIndex = partitionIndex;
                 partitionIndex++;
                 return true;
 
@@ -52,5 +55,6 @@ public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
     @Override
     public void toTop() {
         this.partitionIndex = 0;
+        this.prevPartitionIndex = -1;
     }
 }
@@ -27,6 +27,7 @@ package io.questdb.cairo;
 import io.questdb.std.LongList;
 
 public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor {
+    private int prevPartitionIndex = -1;
 
     /**
      * Cursor for data frames that chronologically intersect collection of intervals.
@@ -90,6 +91,12 @@ public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor
                     dataFrame.rowLo = lo;
                     dataFrame.rowHi = hi;
 
+                    // when interval continues past the end of partition next partition is likely to be read too
+                    if (partitionLo != prevPartitionIndex || hi == rowCount) {
+                        reader.adviseScan(prevPartitionIndex, partitionLo, hi == rowCount && partitionLo + 1 < partitionHi ? partitionLo + 1 : -1);
+                        prevPartitionIndex = partitionLo;
+                    }
+
                     // we do have whole partition of fragment?
                     if (hi == rowCount) {
                         // whole partition, will need to skip to next one
@@ -123,5 +130,6 @@ public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor
     public void toTop() {
         super.toTop();
         partitionLimit = 0;
+        prevPartitionIndex = -1;
     }
 }
@@ -42,6 +42,10 @@ public class NullColumn implements ReadOnlyColumn {
         NULL_LONG_256.setLong3(Numbers.LONG_NaN);
     }
 
+    @Override
+    public void advise(int advice) {
+    }
+
     @Override
     public void close() {
     }
@@ -32,6 +32,13 @@ import java.io.Closeable;
 
 public interface ReadOnlyColumn extends Closeable {
 
+    /**
+     * Advises OS how mapped pages of column are going to be accessed.
+     *
+     * @param advice one of Files.MADV_* constants
+     */
+    void advise(int advice);
+
     @Override
     void close();
 
@@ -28,6 +28,7 @@ import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.Files;
 import io.questdb.std.FilesFacade;
+import io.questdb.std.Numbers;
 import io.questdb.std.str.LPSZ;
 
 public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
@@ -39,6 +40,7 @@ public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
     private int lastPageIndex;
     private long pageSize;
     private long userSize = 0;
+    private boolean hugePages = false;
 
     public ReadOnlyMemory(FilesFacade ff, LPSZ name, long pageSize, long size) {
         of(ff, name, pageSize, size);
@@ -47,6 +49,24 @@ public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
     public ReadOnlyMemory() {
     }
 
+    @Override
+    public void advise(int advice) {
+        if (advice == Files.MADV_DONTNEED) {
+            // only pages we have mapped can be released
+            for (int i = 0, n = pages.size(); i < n; i++) {
+                final long address = pages.getQuick(i);
+                if (address != 0) {
+                    ff.madvise(address, getPageSize(i), advice);
+                }
+            }
+        } else if (size > 0) {
+            // pages are mapped on first access, map them now so that OS can act on advice
+            for (int i = 0, n = pageIndex(size - 1) + 1; i < n; i++) {
+                ff.madvise(getPageAddress(i), getPageSize(i), advice);
+            }
+        }
+    }
+
     @Override
     public void close() {
         super.close();
@@ -134,15 +154,27 @@ public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
         LOG.info().$("open ").$(name).$(" [fd=").$(fd).$(", size=").$(this.size).$(']').$();
     }
 
+    /**
+     * When enabled pages of at least {@link Files#HUGE_PAGE_SIZE} are advised to be backed by transparent huge pages.
+     * Setting sticks with memory instance across calls to of().
+     *
+     * @param hugePages true to advise huge pages
+     */
+    public void setHugePages(boolean hugePages) {
+        this.hugePages = hugePages;
+    }
+
     public long size() {
         return size;
     }
 
     private long computePageSize(long memorySize) {
+        // page size is rounded up to power of two when set, round it here too
+        // for it to be comparable with current page size
         if (memorySize < pageSize) {
-            return Math.max(ff.getPageSize(), (memorySize / ff.getPageSize()) * ff.getPageSize());
+            return Numbers.ceilPow2(Math.max(ff.getPageSize(), (memorySize / ff.getPageSize()) * ff.getPageSize()));
         }
-        return pageSize;
+        return Numbers.ceilPow2(pageSize);
     }
 
     private void grow0(final long size) {
@@ -150,7 +182,9 @@ public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
         if (targetPageSize != getMapPageSize()) {
             setPageSize(targetPageSize);
             ensurePagesListCapacity(size);
-            this.lastPageSize = Math.min(targetPageSize, size);
+            // pages are gone, size of last page observed before is no longer valid
+            this.lastPageIndex = 0;
+            this.lastPageSize = Math.min(getMapPageSize(), size);
         } else {
             ensurePagesListCapacity(size);
             if (lastPageSize < getMapPageSize()) {
@@ -184,7 +218,13 @@ public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
             }
 
             address = ff.mmap(fd, sz, offset, Files.MAP_RO);
-            return address == -1L ? recoverPageMapOrFail(page, offset, sz) : cachePageAddress(page, address);
+            if (address == -1L) {
+                return recoverPageMapOrFail(page, offset, sz);
+            }
+            if (hugePages && sz >= Files.HUGE_PAGE_SIZE) {
+                ff.madvise(address, sz, Files.MADV_HUGEPAGE);
+            }
+            return cachePageAddress(page, address);
         }
         throw CairoException.instance(ff.errno()).put("Trying to map read-only page outside of file boundary. fd=").put(fd).put(", offset=").put(offset).put(", size=").put(this.size).put(", page=").put(sz);
     }
@@ -91,6 +91,15 @@ public class ReadWriteMemory extends VirtualMemory {
         return fd != -1;
     }
 
+    public void sync(boolean async) {
+        for (int i = 0, n = pages.size(); i < n; i++) {
+            long address = pages.getQuick(i);
+            if (address != 0 && ff.msync(address, getPageSize(i), async) != 0) {
+                throw CairoException.instance(ff.errno()).put("Could not msync fd=").put(fd);
+            }
+        }
+    }
+
     public final void of(FilesFacade ff, LPSZ name, long pageSize) {
         close();
         this.ff = ff;
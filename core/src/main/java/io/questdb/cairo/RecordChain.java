@@ -102,6 +102,21 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         varAppendOffset = 0L;
     }
 
+    /**
+     * @return number of bytes of native memory pages chain holds, chain takes at least one page
+     */
+    public long getAllocatedMemorySize() {
+        final long pageSize = mem.getMapPageSize();
+        return Math.max(1, (varAppendOffset + pageSize - 1) / pageSize) * pageSize;
+    }
+
+    /**
+     * @return number of bytes taken by records put into chain since it was last cleared
+     */
+    public long getMemorySize() {
+        return varAppendOffset;
+    }
+
     @Override
     public Record getRecord() {
         return record;
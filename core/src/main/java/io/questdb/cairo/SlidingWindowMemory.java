@@ -76,7 +76,11 @@ public class SlidingWindowMemory extends VirtualMemory {
     }
 
     public void updateSize() {
-        this.size = pageOffset(pageIndex(parent.getAppendOffset())) + getMapPageSize();
+        updateSize(parent.getAppendOffset());
+    }
+
+    public void updateSize(long appendOffset) {
+        this.size = pageOffset(pageIndex(appendOffset)) + getMapPageSize();
     }
 
     private void closeFile() {
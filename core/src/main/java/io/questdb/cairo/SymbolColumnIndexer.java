@@ -68,10 +68,13 @@ class SymbolColumnIndexer implements ColumnIndexer, Closeable {
 
     @Override
     public void index(long loRow, long hiRow) {
-        mem.updateSize();
+        final long hi = hiRow - columnTop;
+        // writer may be appending to the column while we index it on worker thread,
+        // size memory by the rows we are about to read rather than by column append offset
+        mem.updateSize(hi * Integer.BYTES);
         // while we may have to read column starting with zero offset
         // index values have to be adjusted to partition-level row id
-        for (long lo = loRow - columnTop; lo < hiRow; lo++) {
+        for (long lo = loRow - columnTop; lo < hi; lo++) {
             writer.add(TableUtils.toIndexKey(mem.getInt(lo * 4)), lo + columnTop);
         }
     }
@@ -98,6 +101,11 @@ class SymbolColumnIndexer implements ColumnIndexer, Closeable {
         this.writer.rollbackValues(maxRow);
     }
 
+    @Override
+    public void sync(boolean async) {
+        this.writer.sync(async);
+    }
+
     @Override
     public boolean tryLock(long expectedSequence) {
         return Unsafe.cas(this, SEQUENCE_OFFSET, expectedSequence, expectedSequence + 1);
@@ -174,6 +174,12 @@ public class SymbolMapWriter implements Closeable {
         }
     }
 
+    public void sync(boolean async) {
+        charMem.sync(async);
+        offsetMem.sync(async);
+        indexWriter.sync(async);
+    }
+
     boolean isCached() {
         return cache != null;
     }
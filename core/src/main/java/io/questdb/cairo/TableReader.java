@@ -42,6 +42,8 @@ public class TableReader implements Closeable {
     private static final PartitionPathGenerator YEAR_GEN = TableReader::pathGenYear;
     private static final PartitionPathGenerator MONTH_GEN = TableReader::pathGenMonth;
     private static final PartitionPathGenerator DAY_GEN = TableReader::pathGenDay;
+    private static final PartitionPathGenerator HOUR_GEN = TableReader::pathGenHour;
+    private static final PartitionPathGenerator WEEK_GEN = TableReader::pathGenWeek;
     private static final PartitionPathGenerator DEFAULT_GEN = (reader, partitionIndex) -> reader.pathGenDefault();
     private static final ReloadMethod NON_PARTITIONED_RELOAD_METHOD = TableReader::reloadNonPartitioned;
     private static final ReloadMethod FIRST_TIME_NON_PARTITIONED_RELOAD_METHOD = TableReader::reloadInitialNonPartitioned;
@@ -65,6 +67,8 @@ public class TableReader implements Closeable {
     private final CairoConfiguration configuration;
     private final IntList symbolCountSnapshot = new IntList();
     private final LongHashSet removedPartitions = new LongHashSet();
+    private final boolean readAheadEnabled;
+    private CompressedBlockCache blockCache;
     private LongList columnTops;
     private ObjList<ReadOnlyColumn> columns;
     private ObjList<BitmapIndexReader> bitmapIndexes;
@@ -89,6 +93,7 @@ public class TableReader implements Closeable {
         LOG.info().$("open '").utf8(tableName).$('\'').$();
         this.configuration = configuration;
         this.ff = configuration.getFilesFacade();
+        this.readAheadEnabled = configuration.isSqlScanReadAheadEnabled();
         this.tableName = Chars.stringOf(tableName);
         this.path = new Path().of(configuration.getRoot()).concat(tableName);
         this.rootLen = path.length();
@@ -120,6 +125,20 @@ public class TableReader implements Closeable {
                     intervalLengthMethod = Timestamps::getYearsBetween;
                     partitionTimestampCalculatorMethod = Timestamps::addYear;
                     break;
+                case PartitionBy.HOUR:
+                    partitionPathGenerator = HOUR_GEN;
+                    reloadMethod = FIRST_TIME_PARTITIONED_RELOAD_METHOD;
+                    timestampFloorMethod = Timestamps::floorHH;
+                    intervalLengthMethod = Timestamps::getHoursBetween;
+                    partitionTimestampCalculatorMethod = Timestamps::addHours;
+                    break;
+                case PartitionBy.WEEK:
+                    partitionPathGenerator = WEEK_GEN;
+                    reloadMethod = FIRST_TIME_PARTITIONED_RELOAD_METHOD;
+                    timestampFloorMethod = Timestamps::floorWW;
+                    intervalLengthMethod = Timestamps::getWeeksBetween;
+                    partitionTimestampCalculatorMethod = Timestamps::addWeeks;
+                    break;
                 default:
                     partitionPathGenerator = DEFAULT_GEN;
                     reloadMethod = FIRST_TIME_NON_PARTITIONED_RELOAD_METHOD;
@@ -157,7 +176,7 @@ public class TableReader implements Closeable {
         return Numbers.msb(Numbers.ceilPow2(columnCount) * 2);
     }
 
-    static int getPrimaryColumnIndex(int base, int index) {
+    public static int getPrimaryColumnIndex(int base, int index) {
         return base + index * 2;
     }
 
@@ -218,6 +237,7 @@ public class TableReader implements Closeable {
             Misc.free(metadata);
             Misc.free(txMem);
             freeColumns();
+            blockCache = Misc.free(blockCache);
             freeTempMem();
             LOG.info().$("closed '").utf8(tableName).$('\'').$();
         }
@@ -393,24 +413,31 @@ public class TableReader implements Closeable {
         return rowCount;
     }
 
+    /**
+     * Closes all open partitions after data version change. Data version changes either when table is truncated
+     * or when writer replaces column files while merging out-of-order rows. In both cases partition files we have
+     * open are stale. Partition index is relative to min timestamp, which could also have changed, so partitions
+     * are re-opened lazily rather than in place.
+     */
     private void applyTruncate() {
-        LOG.info().$("truncate detected").$();
+        LOG.info().$("data version change detected").$();
         for (int i = 0, n = partitionCount; i < n; i++) {
-            long size = openPartition0(i);
-            if (size == -1) {
-                int base = getColumnBase(i);
-                for (int k = 0; k < columnCount; k++) {
-                    final int index = getPrimaryColumnIndex(base, k);
-                    Misc.free(columns.getAndSetQuick(index, null));
-                    Misc.free(columns.getAndSetQuick(index + 1, null));
-                    Misc.free(bitmapIndexes.getAndSetQuick(index, null));
-                    Misc.free(bitmapIndexes.getAndSetQuick(index + 1, null));
-                }
-                partitionRowCounts.setQuick(i, -1);
+            int base = getColumnBase(i);
+            for (int k = 0; k < columnCount; k++) {
+                final int index = getPrimaryColumnIndex(base, k);
+                Misc.free(columns.getAndSetQuick(index, null));
+                Misc.free(columns.getAndSetQuick(index + 1, null));
+                Misc.free(bitmapIndexes.getAndSetQuick(index, null));
+                Misc.free(bitmapIndexes.getAndSetQuick(index + 1, null));
             }
+            partitionRowCounts.setQuick(i, -1);
         }
         reloadSymbolMapCounts();
-        partitionCount = calculatePartitionCount();
+        if (partitionTimestampCalculatorMethod == null) {
+            checkDefaultPartitionExistsAndUpdatePartitionCount();
+        } else {
+            partitionCount = calculatePartitionCount();
+        }
         if (partitionCount > 0) {
             updateCapacities();
         }
@@ -483,7 +510,7 @@ public class TableReader implements Closeable {
 
     private void copyColumnsTo(ObjList<ReadOnlyColumn> columns, LongList columnTops, ObjList<BitmapIndexReader> indexReaders, int columnBase, int columnIndex, long partitionRowCount) {
         ReadOnlyColumn mem1 = tempCopyStruct.mem1;
-        final boolean reload = (mem1 instanceof ReadOnlyMemory || mem1 instanceof ForceNullColumn) && mem1.isDeleted();
+        final boolean reload = (mem1 instanceof ReadOnlyMemory || mem1 instanceof CompressedReadOnlyMemory || mem1 instanceof ForceNullColumn) && mem1.isDeleted();
         final int index = getPrimaryColumnIndex(columnBase, columnIndex);
         tempCopyStruct.mem1 = columns.getAndSetQuick(index, mem1);
         tempCopyStruct.mem2 = columns.getAndSetQuick(index + 1, tempCopyStruct.mem2);
@@ -534,6 +561,13 @@ public class TableReader implements Closeable {
         return reader;
     }
 
+    private CompressedBlockCache getBlockCache() {
+        if (blockCache == null) {
+            blockCache = new CompressedBlockCache(configuration.getCompressionBlockCacheSize());
+        }
+        return blockCache;
+    }
+
     private void createNewColumnList(int columnCount, long pTransitionIndex, int columnBits) {
         int capacity = partitionCount << columnBits;
         final ObjList<ReadOnlyColumn> columns = new ObjList<>(capacity);
@@ -618,11 +652,47 @@ public class TableReader implements Closeable {
         }
     }
 
-    ReadOnlyColumn getColumn(int absoluteIndex) {
+    /**
+     * Forward scans call this when they move onto partition. Pages of partition scan moved away from are released
+     * and columns of partition scan is going to read next are requested ahead of time, so that cold scans
+     * do not fault pages in one by one.
+     *
+     * @param prevPartitionIndex partition scan moved away from, -1 when scan has just started
+     * @param partitionIndex     partition scan is about to read, it must be open
+     * @param nextPartitionIndex partition scan is likely to read next, -1 when there is none
+     */
+    void adviseScan(int prevPartitionIndex, int partitionIndex, int nextPartitionIndex) {
+        if (readAheadEnabled) {
+            if (prevPartitionIndex > -1 && prevPartitionIndex != partitionIndex && getPartitionRowCount(prevPartitionIndex) > 0) {
+                advisePartition(prevPartitionIndex, Files.MADV_DONTNEED);
+            }
+            advisePartition(partitionIndex, Files.MADV_SEQUENTIAL);
+            if (nextPartitionIndex > -1 && nextPartitionIndex < partitionCount && openPartition(nextPartitionIndex) > 0) {
+                advisePartition(nextPartitionIndex, Files.MADV_WILLNEED);
+            }
+        }
+    }
+
+    private void advisePartition(int partitionIndex, int advice) {
+        final int base = getColumnBase(partitionIndex);
+        for (int i = 0; i < columnCount; i++) {
+            final int index = getPrimaryColumnIndex(base, i);
+            ReadOnlyColumn column = columns.getQuick(index);
+            if (column != null) {
+                column.advise(advice);
+            }
+            column = columns.getQuick(index + 1);
+            if (column != null) {
+                column.advise(advice);
+            }
+        }
+    }
+
+    public ReadOnlyColumn getColumn(int absoluteIndex) {
         return columns.getQuick(absoluteIndex);
     }
 
-    int getColumnBase(int partitionIndex) {
+    public int getColumnBase(int partitionIndex) {
         return partitionIndex << columnCountBits;
     }
 
@@ -630,7 +700,7 @@ public class TableReader implements Closeable {
         return columnCount;
     }
 
-    long getColumnTop(int base, int columnIndex) {
+    public long getColumnTop(int base, int columnIndex) {
         return this.columnTops.getQuick(base / 2 + columnIndex);
     }
 
@@ -643,11 +713,37 @@ public class TableReader implements Closeable {
         return partitionRowCounts.getQuick(partitionIndex);
     }
 
+    /**
+     * Opens statistics of column in partition. Statistics of the last partition are never used because
+     * writer keeps appending to it.
+     *
+     * @param partitionIndex index of open partition
+     * @param columnIndex    index of column
+     * @param statsReader    reader to open
+     * @return true when statistics describe all rows of partition visible to this reader
+     */
+    boolean readColumnStats(int partitionIndex, int columnIndex, ColumnStatsReader statsReader) {
+        if (partitionIndex >= partitionCount - 1) {
+            return false;
+        }
+        final long rowCount = getPartitionRowCount(partitionIndex);
+        if (rowCount < 1) {
+            return false;
+        }
+        try {
+            Path path = partitionPathGenerator.generate(this, partitionIndex);
+            path.chopZ();
+            return statsReader.of(ff, TableUtils.stFile(path, metadata.getColumnName(columnIndex)), rowCount);
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     long getTransientRowCount() {
         return transientRowCount;
     }
 
-    long getTxn() {
+    public long getTxn() {
         return txn;
     }
 
@@ -669,7 +765,7 @@ public class TableReader implements Closeable {
         }
     }
 
-    long openPartition(int partitionIndex) {
+    public long openPartition(int partitionIndex) {
         final long size = getPartitionRowCount(partitionIndex);
         if (size != -1) {
             return size;
@@ -727,6 +823,12 @@ public class TableReader implements Closeable {
         }
     }
 
+    private ReadOnlyMemory newColumnMemory(Path path, long pageSize) {
+        final ReadOnlyMemory mem = new ReadOnlyMemory(ff, path, pageSize, 0);
+        mem.setHugePages(configuration.isHugePagesEnabled());
+        return mem;
+    }
+
     private void openPartitionColumns(Path path, int columnBase, long partitionRowCount) {
         for (int i = 0; i < columnCount; i++) {
             reloadColumnAt(path, this.columns, this.columnTops, this.bitmapIndexes, columnBase, i, partitionRowCount);
@@ -767,6 +869,16 @@ public class TableReader implements Closeable {
         return path.concat(TableUtils.DEFAULT_PARTITION_NAME).$();
     }
 
+    private Path pathGenHour(int partitionIndex) {
+        TableUtils.fmtHour.format(
+                Timestamps.addHours(minTimestamp, partitionIndex),
+                TimestampLocaleFactory.INSTANCE.getDefaultTimestampLocale(),
+                null,
+                path.put(Files.SEPARATOR)
+        );
+        return path.$();
+    }
+
     private Path pathGenMonth(int partitionIndex) {
         TableUtils.fmtMonth.format(
                 Timestamps.addMonths(minTimestamp, partitionIndex),
@@ -777,6 +889,16 @@ public class TableReader implements Closeable {
         return path.$();
     }
 
+    private Path pathGenWeek(int partitionIndex) {
+        TableUtils.fmtDay.format(
+                Timestamps.addWeeks(minTimestamp, partitionIndex),
+                TimestampLocaleFactory.INSTANCE.getDefaultTimestampLocale(),
+                null,
+                path.put(Files.SEPARATOR)
+        );
+        return path.$();
+    }
+
     private Path pathGenYear(int partitionIndex) {
         TableUtils.fmtYear.format(
                 Timestamps.addYear(minTimestamp, partitionIndex),
@@ -883,17 +1005,32 @@ public class TableReader implements Closeable {
             ReadOnlyColumn mem1 = columns.getQuick(primaryIndex);
             ReadOnlyColumn mem2 = columns.getQuick(secondaryIndex);
 
+            final int type = metadata.getColumnType(columnIndex);
+            final boolean exists;
             if (ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
-
+                exists = true;
                 if (mem1 instanceof ReadOnlyMemory) {
-                    ((ReadOnlyMemory) mem1).of(ff, path, ff.getMapPageSize(), 0);
+                    ((ReadOnlyMemory) mem1).of(ff, path, TableUtils.getColumnPageSize(ff, type), 0);
                 } else {
-                    mem1 = new ReadOnlyMemory(ff, path, ff.getMapPageSize(), 0);
+                    Misc.free(mem1);
+                    mem1 = newColumnMemory(path, TableUtils.getColumnPageSize(ff, type));
+                    columns.setQuick(primaryIndex, mem1);
+                }
+            } else if (ff.exists(TableUtils.dzFile(path.trimTo(plen), name))) {
+                // partition has been compressed, data file is replaced with block-compressed one
+                exists = true;
+                if (!(mem1 instanceof CompressedReadOnlyMemory)) {
+                    Misc.free(mem1);
+                    mem1 = new CompressedReadOnlyMemory();
                     columns.setQuick(primaryIndex, mem1);
                 }
+                ((CompressedReadOnlyMemory) mem1).of(ff, path, getBlockCache());
+            } else {
+                exists = false;
+            }
 
+            if (exists) {
                 final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), name, plen, tempMem8b);
-                final int type = metadata.getColumnType(columnIndex);
 
                 switch (type) {
                     case ColumnType.BINARY:
@@ -902,7 +1039,7 @@ public class TableReader implements Closeable {
                         if (mem2 instanceof ReadOnlyMemory) {
                             ((ReadOnlyMemory) mem2).of(ff, path, ff.getMapPageSize(), 0);
                         } else {
-                            mem2 = new ReadOnlyMemory(ff, path, ff.getMapPageSize(), 0);
+                            mem2 = newColumnMemory(path, ff.getMapPageSize());
                             columns.setQuick(secondaryIndex, mem2);
                         }
                         growColumn(mem1, mem2, type, partitionRowCount - columnTop);
@@ -1004,10 +1141,22 @@ public class TableReader implements Closeable {
     }
 
     private boolean reloadNonPartitioned() {
+        final long dataVersion = this.dataVersion;
         // calling readTxn will set "rowCount" member variable
         if (readTxn()) {
             reloadStruct();
-            reloadPartition(0, rowCount);
+            if (this.dataVersion != dataVersion) {
+                applyTruncate();
+                if (partitionCount == 0 || openPartition0(0) < 1) {
+                    reloadMethod = FIRST_TIME_NON_PARTITIONED_RELOAD_METHOD;
+                }
+                return true;
+            }
+            // partition columns are opened lazily, there is nothing to grow
+            // until cursor has opened them
+            if (partitionRowCounts.getQuick(0) > -1) {
+                reloadPartition(0, rowCount);
+            }
             return true;
         }
         return false;
@@ -1144,7 +1293,7 @@ public class TableReader implements Closeable {
                             //    instance and the column from disk
                             // 3. Column hasn't been altered and we can skip to next column.
                             ReadOnlyColumn col = columns.getQuick(getPrimaryColumnIndex(base, i));
-                            if ((col instanceof ReadOnlyMemory && col.isDeleted()) || col instanceof ForceNullColumn) {
+                            if (((col instanceof ReadOnlyMemory || col instanceof CompressedReadOnlyMemory) && col.isDeleted()) || col instanceof ForceNullColumn) {
                                 reloadColumnAt(path, columns, columnTops, bitmapIndexes, base, i, partitionRowCount);
                             }
                             continue;
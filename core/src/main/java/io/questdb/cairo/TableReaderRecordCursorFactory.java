@@ -24,12 +24,14 @@
 
 package io.questdb.cairo;
 
+import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.SqlExecutionContext;
 
 public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory {
     private final TableReaderRecordCursor cursor = new TableReaderRecordCursor();
+    private final FullFwdDataFrameCursor dataFrameCursor = new FullFwdDataFrameCursor();
     private final CairoEngine engine;
     private final String tableName;
     private final long tableVersion;
@@ -47,8 +49,18 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
         return cursor;
     }
 
+    @Override
+    public DataFrameCursor getDataFrameCursor(SqlExecutionContext executionContext) {
+        return dataFrameCursor.of(engine.getReader(executionContext.getCairoSecurityContext(), tableName, tableVersion));
+    }
+
     @Override
     public boolean isRandomAccessCursor() {
         return true;
     }
+
+    @Override
+    public boolean supportsDataFrameCursor() {
+        return true;
+    }
 }
@@ -51,6 +51,7 @@ public final class TableUtils {
     static final TimestampFormat fmtDay;
     static final TimestampFormat fmtMonth;
     static final TimestampFormat fmtYear;
+    static final TimestampFormat fmtHour;
     static final String ARCHIVE_FILE_NAME = "_archive";
     static final String DEFAULT_PARTITION_NAME = "default";
     // transaction file structure
@@ -100,6 +101,7 @@ public final class TableUtils {
         fmtDay = compiler.compile("yyyy-MM-dd");
         fmtMonth = compiler.compile("yyyy-MM");
         fmtYear = compiler.compile("yyyy");
+        fmtHour = compiler.compile("yyyy-MM-ddTHH");
     }
 
     public static void createTable(
@@ -174,6 +176,23 @@ public final class TableUtils {
         }
     }
 
+    /**
+     * Page size for mapping data file of column. Pages of fixed-size columns hold the same number of rows
+     * regardless of column width, narrow columns do not reserve more address space than they need and
+     * wide columns are mapped with fewer calls. Variable-length columns use default map page size.
+     *
+     * @param ff         files facade, which provides default map page size for 8-byte columns
+     * @param columnType column type
+     * @return map page size, never smaller than OS page size
+     */
+    public static long getColumnPageSize(FilesFacade ff, int columnType) {
+        final int size = ColumnType.sizeOf(columnType);
+        if (size < 1) {
+            return ff.getMapPageSize();
+        }
+        return Math.max(ff.getPageSize(), ff.getMapPageSize() / Long.BYTES * size);
+    }
+
     public static long getColumnNameOffset(int columnCount) {
         return META_OFFSET_COLUMN_TYPES + columnCount * META_COLUMN_DATA_SIZE;
     }
@@ -214,6 +233,47 @@ public final class TableUtils {
         path.put(".lock").$();
     }
 
+    /**
+     * Reads transaction number and structure version of table without opening table reader. Values
+     * are consistent only when writer does not commit while they are being read, in which case
+     * nothing is written to the buffer.
+     *
+     * @param ff         files facade
+     * @param path       path to table directory, it is restored before method returns
+     * @param tempMem16b buffer that receives transaction number followed by structure version
+     * @return true when consistent values have been read
+     */
+    public static boolean readTxnState(FilesFacade ff, Path path, long tempMem16b) {
+        final int plen = path.length();
+        try {
+            final long fd = ff.openRO(path.concat(TXN_FILE_NAME).$());
+            if (fd == -1) {
+                throw CairoException.instance(Os.errno()).put("Cannot open: ").put(path);
+            }
+
+            try {
+                final long txn = readLong(ff, fd, TX_OFFSET_TXN, path, tempMem16b);
+                if (txn != readLong(ff, fd, TX_OFFSET_TXN_CHECK, path, tempMem16b)) {
+                    return false;
+                }
+
+                final long structVersion = readLong(ff, fd, TX_OFFSET_STRUCT_VERSION, path, tempMem16b);
+                // writer has not started next transaction while we were reading
+                if (txn != readLong(ff, fd, TX_OFFSET_TXN, path, tempMem16b)) {
+                    return false;
+                }
+
+                Unsafe.getUnsafe().putLong(tempMem16b, txn);
+                Unsafe.getUnsafe().putLong(tempMem16b + 8, structVersion);
+                return true;
+            } finally {
+                ff.close(fd);
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
     public static void resetTxn(VirtualMemory txMem, int symbolMapCount, long txn, long dataVersion) {
         // txn to let readers know table is being reset
         txMem.putLong(TX_OFFSET_TXN, txn);
@@ -364,6 +424,14 @@ public final class TableUtils {
         return path.concat(columnName).put(".d").$();
     }
 
+    static LPSZ dzFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(".dz").$();
+    }
+
+    static LPSZ stFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(".st").$();
+    }
+
     static LPSZ topFile(Path path, CharSequence columnName) {
         return path.concat(columnName).put(".top").$();
     }
@@ -439,11 +507,22 @@ public final class TableUtils {
                 return Timestamps.floorMM(timestampA) == Timestamps.floorMM(timestampB);
             case PartitionBy.YEAR:
                 return Timestamps.floorYYYY(timestampA) == Timestamps.floorYYYY(timestampB);
+            case PartitionBy.HOUR:
+                return Timestamps.floorHH(timestampA) == Timestamps.floorHH(timestampB);
+            case PartitionBy.WEEK:
+                return Timestamps.floorWW(timestampA) == Timestamps.floorWW(timestampB);
             default:
                 throw CairoException.instance(0).put("Cannot compare timestamps for unsupported partition type: [").put(partitionBy).put(']');
         }
     }
 
+    private static long readLong(FilesFacade ff, long fd, long offset, Path path, long tempMem8b) {
+        if (ff.read(fd, tempMem8b, 8, offset) != 8) {
+            throw CairoException.instance(Os.errno()).put("Cannot read: ").put(path);
+        }
+        return Unsafe.getUnsafe().getLong(tempMem8b);
+    }
+
     static long readPartitionSize(FilesFacade ff, Path path, long tempMem8b) {
         int plen = path.length();
         try {
@@ -36,9 +36,11 @@ import io.questdb.std.microtime.DateFormatUtils;
 import io.questdb.std.microtime.TimestampFormat;
 import io.questdb.std.microtime.TimestampLocaleFactory;
 import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.DirectCharSequence;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.NativeLPSZ;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Closeable;
@@ -50,6 +52,7 @@ public class TableWriter implements Closeable {
 
     private static final Log LOG = LogFactory.getLog(TableWriter.class);
     private static final CharSequenceHashSet IGNORED_FILES = new CharSequenceHashSet();
+    private static final String O3_FILE_SUFFIX = ".o3";
     private static final Runnable NOOP = () -> {
     };
     private final static RemoveFileLambda REMOVE_OR_LOG = TableWriter::removeFileAndOrLog;
@@ -72,6 +75,7 @@ public class TableWriter implements Closeable {
     private final Path other;
     private final LongList refs = new LongList();
     private final Row row = new Row();
+    private final Block block = new Block();
     private final int rootLen;
     private final ReadWriteMemory txMem;
     private final ReadOnlyMemory metaMem;
@@ -96,14 +100,36 @@ public class TableWriter implements Closeable {
     private final LongList indexSequences = new LongList();
     private final CairoWorkScheduler workScheduler;
     private final boolean parallelIndexerEnabled;
+    private final long indexPublishThreshold;
     private final LongHashSet removedPartitions = new LongHashSet();
     private final TableReader.TimestampFloorMethod timestampFloorMethod;
     private final TableReader.PartitionTimestampCalculatorMethod nextTimestampMethod;
+    private final ObjList<VirtualMemory> o3Columns;
+    private final ObjList<Runnable> o3Nullers;
+    private final ObjList<Runnable> o3DstNullers;
+    private final LongList o3Index = new LongList();
+    private final LongList o3SortBuffer = new LongList();
+    private final LongList o3MergePlan = new LongList();
+    private final AppendMemory o3DstMem1 = new AppendMemory();
+    private final AppendMemory o3DstMem2 = new AppendMemory();
+    private final ReadOnlyMemory o3SrcMem1 = new ReadOnlyMemory();
+    private final ReadOnlyMemory o3SrcMem2 = new ReadOnlyMemory();
+    private final BitmapIndexWriter o3IndexWriter = new BitmapIndexWriter();
+    private final StringSink o3TempName = new StringSink();
+    private final SOCountDownLatch syncLatch = new SOCountDownLatch();
+    private final LongList syncFds = new LongList();
     private int txPartitionCount = 0;
     private long lockFd;
     private LongConsumer timestampSetter;
+    private LongConsumer o3TimestampSetter;
     private int columnCount;
     private ObjList<Runnable> nullers;
+    private ObjList<? extends VirtualMemory> rowColumns;
+    private ObjList<Runnable> rowNullers;
+    private boolean o3Enabled;
+    private final boolean partitionStatsEnabled;
+    private int commitMode;
+    private long o3RowCount = 0;
     private long fixedRowCount = 0;
     private long txn;
     private long structureVersion;
@@ -116,6 +142,12 @@ public class TableWriter implements Closeable {
     private long prevMinTimestamp;
     private long partitionHi;
     private long transientRowCount = 0;
+    // rows of active partition below indexHi are either indexed or being indexed by workers
+    private long indexHi = 0;
+    // row range of index work on the queue
+    private long indexTaskLo = 0;
+    private long indexTaskHi = 0;
+    private boolean indexInFlight = false;
     private long masterRef = 0;
     private boolean removeDirOnCancelRow = true;
     private long tempMem8b = Unsafe.malloc(8);
@@ -129,6 +161,8 @@ public class TableWriter implements Closeable {
     private boolean performRecovery;
     private boolean distressed = false;
     private LifecycleManager lifecycleManager;
+    private ColumnCompressor compressor;
+    private ColumnStatsWriter statsWriter;
 
     public TableWriter(CairoConfiguration configuration, CharSequence name) {
         this(configuration, name, null);
@@ -144,6 +178,7 @@ public class TableWriter implements Closeable {
         this.workScheduler = workScheduler;
         this.lifecycleManager = lifecycleManager;
         this.parallelIndexerEnabled = workScheduler != null && configuration.isParallelIndexingEnabled();
+        this.indexPublishThreshold = parallelIndexerEnabled ? Math.max(1, configuration.getParallelIndexThreshold()) : Long.MAX_VALUE;
         this.ff = configuration.getFilesFacade();
         this.mkDirMode = configuration.getMkDirMode();
         this.fileOperationRetryCount = configuration.getFileOperationRetryCount();
@@ -191,6 +226,14 @@ public class TableWriter implements Closeable {
             this.indexers = new ObjList<>(columnCount);
             this.denseSymbolMapWriters = new ObjList<>(metadata.getSymbolMapCount());
             this.nullers = new ObjList<>(columnCount);
+            this.o3Columns = new ObjList<>(columnCount * 2);
+            this.o3Nullers = new ObjList<>(columnCount);
+            this.o3DstNullers = new ObjList<>(columnCount);
+            this.rowColumns = columns;
+            this.rowNullers = nullers;
+            this.o3Enabled = configuration.isO3Enabled() && metadata.getTimestampIndex() != -1;
+            this.partitionStatsEnabled = configuration.isPartitionStatsEnabled() && partitionBy != PartitionBy.NONE;
+            this.commitMode = configuration.getCommitMode();
             this.columnTops = new LongList(columnCount);
             switch (partitionBy) {
                 case PartitionBy.DAY:
@@ -209,6 +252,16 @@ public class TableWriter implements Closeable {
                     nextTimestampMethod = Timestamps::addYear;
                     partitionDirFmt = fmtYear;
                     break;
+                case PartitionBy.HOUR:
+                    timestampFloorMethod = Timestamps::floorHH;
+                    nextTimestampMethod = Timestamps::addHours;
+                    partitionDirFmt = fmtHour;
+                    break;
+                case PartitionBy.WEEK:
+                    timestampFloorMethod = Timestamps::floorWW;
+                    nextTimestampMethod = Timestamps::addWeeks;
+                    partitionDirFmt = fmtDay;
+                    break;
                 default:
                     timestampFloorMethod = null;
                     nextTimestampMethod = null;
@@ -236,6 +289,10 @@ public class TableWriter implements Closeable {
                 return fmtMonth;
             case PartitionBy.YEAR:
                 return fmtYear;
+            case PartitionBy.HOUR:
+                return fmtHour;
+            case PartitionBy.WEEK:
+                return fmtDay;
             default:
                 return null;
         }
@@ -301,6 +358,31 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private static void copyBytes(VirtualMemory src, long lo, long hi, VirtualMemory dst) {
+        while (lo < hi) {
+            final long len = Math.min(hi - lo, src.pageRemaining(lo));
+            dst.putBlockOfBytes(src.addressOf(lo), len);
+            lo += len;
+        }
+    }
+
+    /**
+     * Calculates offset of the end of variable length value, which starts at given offset.
+     *
+     * @param type   either STRING or BINARY
+     * @param mem    data memory of the column
+     * @param offset offset of value in data memory
+     * @return offset of first byte after the value
+     */
+    private static long getVarValueEnd(int type, VirtualMemory mem, long offset) {
+        if (type == ColumnType.STRING) {
+            final int len = mem.getInt(offset);
+            return offset + 4 + (len > 0 ? len * 2L : 0);
+        }
+        final long len = mem.getLong(offset);
+        return offset + 8 + (len > 0 ? len : 0);
+    }
+
     /**
      * This an O(n) method to find if column by the same name already exists. The benefit of poor performance
      * is that we don't keep column name strings on heap. We only use this method when adding new column, where
@@ -446,7 +528,7 @@ public class TableWriter implements Closeable {
         // create column files
         if (transientRowCount > 0 || partitionBy == PartitionBy.NONE) {
             try {
-                openNewColumnFiles(name, indexFlag, indexValueBlockCapacity);
+                openNewColumnFiles(name, type, indexFlag, indexValueBlockCapacity);
             } catch (CairoException e) {
                 runFragile(RECOVER_FROM_COLUMN_OPEN_FAILURE, name, e);
             }
@@ -482,6 +564,15 @@ public class TableWriter implements Closeable {
      * <p>
      * <b>Pending rows</b>
      * <p>This method will cancel pending rows by calling {@link #cancelRow()}. Data in partially appended row will be lost.</p>
+     * <p>
+     * <b>Out-of-order rows</b>
+     * <p>When rows have been staged out of order, they are sorted and merged into partitions they belong to before
+     * transaction is committed. Affected partitions are rewritten into new files, which replace originals. Data version
+     * is incremented to let readers know they have to re-open partitions.</p>
+     * <p>
+     * <b>Durability</b>
+     * <p>Depending on {@link #getCommitMode()} column files are flushed to disk before transaction file is updated
+     * and transaction file is flushed after that. See {@link CommitMode} for available levels.</p>
      */
     public void commit() {
 
@@ -495,6 +586,22 @@ public class TableWriter implements Closeable {
 
             updateIndexes();
 
+            final boolean o3 = o3RowCount > 0;
+            if (o3) {
+                // merge reads sizes of partitions closed by this transaction
+                // from disk, make sure they are there
+                if (txPartitionCount > 1) {
+                    commitPendingPartitions();
+                    txPendingPartitionSizes.jumpTo(0);
+                    txPartitionCount = 1;
+                }
+                mergeO3();
+            }
+
+            if (commitMode != CommitMode.NOSYNC) {
+                syncColumns(commitMode);
+            }
+
             txMem.putLong(TX_OFFSET_TXN, ++txn);
             Unsafe.getUnsafe().storeFence();
 
@@ -505,9 +612,15 @@ public class TableWriter implements Closeable {
                 txMem.putLong(TX_OFFSET_FIXED_ROW_COUNT, fixedRowCount);
                 txPendingPartitionSizes.jumpTo(0);
                 txPartitionCount = 1;
+            } else if (o3) {
+                txMem.putLong(TX_OFFSET_FIXED_ROW_COUNT, fixedRowCount);
+            }
+
+            if (o3) {
+                txMem.putLong(TX_OFFSET_DATA_VERSION, ++dataVersion);
             }
 
-            if (prevMinTimestamp == Long.MAX_VALUE) {
+            if (prevMinTimestamp != minTimestamp) {
                 txMem.putLong(TX_OFFSET_MIN_TIMESTAMP, minTimestamp);
                 prevMinTimestamp = minTimestamp;
             }
@@ -521,7 +634,106 @@ public class TableWriter implements Closeable {
             Unsafe.getUnsafe().storeFence();
             txMem.putLong(TX_OFFSET_TXN_CHECK, txn);
             txPrevTransientRowCount = transientRowCount;
+
+            if (commitMode != CommitMode.NOSYNC) {
+                txMem.sync(commitMode == CommitMode.ASYNC);
+                if (commitMode == CommitMode.ASYNC && workScheduler != null) {
+                    publishSyncTasks();
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces fixed-size column files of partition with block-compressed files. Readers decompress
+     * blocks on demand. Active partition cannot be compressed, neither can partitions while writer
+     * has uncommitted rows. Partition that receives out-of-order rows is decompressed before merge.
+     *
+     * @param timestamp timestamp within partition
+     * @return true if partition has been compressed
+     */
+    public boolean compressPartition(long timestamp) {
+        if (partitionBy == PartitionBy.NONE || timestamp < timestampFloorMethod.floor(minTimestamp) || timestamp > maxTimestamp) {
+            return false;
+        }
+
+        final long partitionTimestamp = timestampFloorMethod.floor(timestamp);
+        if (partitionTimestamp == timestampFloorMethod.floor(maxTimestamp)) {
+            LOG.error()
+                    .$("cannot compress active partition [path=").$(path)
+                    .$(", maxTimestamp=").$ts(maxTimestamp)
+                    .$(']').$();
+            return false;
+        }
+
+        if (inTransaction()) {
+            LOG.error().$("cannot compress partition with uncommitted rows [path=").$(path).$(']').$();
+            return false;
+        }
+
+        if (removedPartitions.contains(partitionTimestamp)) {
+            LOG.error().$("cannot compress partition marked for delete [path=").$(path).$(']').$();
+            return false;
+        }
+
+        try {
+            setStateForTimestamp(partitionTimestamp, false);
+            final int plen = path.length();
+            if (!ff.exists(path.$())) {
+                LOG.error().$("cannot compress missing partition [path=").$(path).$(']').$();
+                return false;
+            }
+            if (ff.exists(dzFile(path.trimTo(plen), metadata.getColumnName(metadata.getTimestampIndex())))) {
+                LOG.error().$("partition is already compressed [path=").$(path.trimTo(plen).$()).$(']').$();
+                return false;
+            }
+            compressPartitionColumns(plen, readPartitionSize(ff, path.trimTo(plen), tempMem8b));
+            return true;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Compresses oldest partition, which is not yet compressed and ends before given timestamp.
+     *
+     * @param timestamp upper bound of partition interval
+     * @return true if partition has been compressed
+     */
+    public boolean compressPartitionBefore(long timestamp) {
+        if (partitionBy == PartitionBy.NONE || maxTimestamp == Long.MIN_VALUE || inTransaction()) {
+            return false;
+        }
+
+        final long activePartitionTimestamp = timestampFloorMethod.floor(maxTimestamp);
+        final CharSequence timestampColumnName = metadata.getColumnName(metadata.getTimestampIndex());
+        long partitionTimestamp = timestampFloorMethod.floor(minTimestamp);
+        while (partitionTimestamp < activePartitionTimestamp) {
+            final long nextPartitionTimestamp = nextTimestampMethod.calculate(partitionTimestamp, 1);
+            if (nextPartitionTimestamp > timestamp) {
+                break;
+            }
+
+            if (!removedPartitions.contains(partitionTimestamp)) {
+                try {
+                    setStateForTimestamp(partitionTimestamp, false);
+                    final int plen = path.length();
+                    // timestamp column is compressed last, compressed timestamp means the whole partition is
+                    if (ff.exists(path.$()) && !ff.exists(dzFile(path.trimTo(plen), timestampColumnName))) {
+                        compressPartitionColumns(plen, readPartitionSize(ff, path.trimTo(plen), tempMem8b));
+                        return true;
+                    }
+                } finally {
+                    path.trimTo(rootLen);
+                }
+            }
+            partitionTimestamp = nextPartitionTimestamp;
         }
+        return false;
+    }
+
+    public int getCommitMode() {
+        return commitMode;
     }
 
     public int getColumnIndex(CharSequence name) {
@@ -549,7 +761,7 @@ public class TableWriter implements Closeable {
     }
 
     public boolean inTransaction() {
-        return txPartitionCount > 1 || transientRowCount != txPrevTransientRowCount;
+        return txPartitionCount > 1 || transientRowCount != txPrevTransientRowCount || o3RowCount > 0;
     }
 
     public boolean isOpen() {
@@ -564,6 +776,18 @@ public class TableWriter implements Closeable {
         return newRow(0L);
     }
 
+    /**
+     * Starts columnar append of a block of rows. Unlike {@link Row}, which copies values one at a time,
+     * block copies caller supplied column buffers directly into column files. Rows become visible
+     * to readers on {@link #commit()}, same as rows appended via {@link Row}.
+     *
+     * @return block instance, which is reused between calls
+     */
+    public Block newBlock() {
+        block.clear();
+        return block;
+    }
+
     public void removeColumn(CharSequence name) {
 
         checkDistressed();
@@ -612,6 +836,8 @@ public class TableWriter implements Closeable {
             minTimestamp = prevMinTimestamp = Long.MAX_VALUE;
             timestampSetter = value -> {
             };
+            o3TimestampSetter = timestampSetter;
+            o3Enabled = false;
         }
 
         try {
@@ -730,6 +956,9 @@ public class TableWriter implements Closeable {
         checkDistressed();
         if (inTransaction()) {
             LOG.info().$("tx rollback [name=").$(name).$(']').$();
+            awaitIndexes();
+            indexHi = 0;
+            resetO3();
             freeColumns(false);
             txPendingPartitionSizes.jumpTo(0);
             configureAppendPosition();
@@ -739,12 +968,22 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Sets durability level of subsequent commits. Initial value comes from {@link CairoConfiguration#getCommitMode()}
+     * and setting sticks with writer instance for as long as it is open.
+     *
+     * @param commitMode one of {@link CommitMode} constants
+     */
+    public void setCommitMode(int commitMode) {
+        this.commitMode = commitMode;
+    }
+
     public void setLifecycleManager(LifecycleManager lifecycleManager) {
         this.lifecycleManager = lifecycleManager;
     }
 
     public long size() {
-        return fixedRowCount + transientRowCount;
+        return fixedRowCount + transientRowCount + o3RowCount;
     }
 
     @Override
@@ -770,7 +1009,10 @@ public class TableWriter implements Closeable {
             return;
         }
 
+        awaitIndexes();
+        indexHi = 0;
         writeTodo(TODO_TRUNCATE);
+        resetO3();
         for (int i = 0; i < columnCount; i++) {
             getPrimaryColumn(i).truncate();
             AppendMemory mem = getSecondaryColumn(i);
@@ -899,6 +1141,16 @@ public class TableWriter implements Closeable {
             return;
         }
 
+        if (rowColumns != columns) {
+            // row went to out-of-order staging area, which readers cannot see,
+            // we only need to discard partially written values
+            setO3AppendPosition(o3RowCount);
+            rowColumns = columns;
+            rowNullers = nullers;
+            refs.fill(0, columnCount, --masterRef);
+            return;
+        }
+
         if (transientRowCount == 0) {
             if (partitionBy != PartitionBy.NONE) {
                 // we have to undo creation of partition
@@ -994,6 +1246,9 @@ public class TableWriter implements Closeable {
                         len -= l;
                         o += l;
                     }
+                    if (commitMode == CommitMode.SYNC && ff.fsync(fd) != 0) {
+                        throw CairoException.instance(ff.errno()).put("Commit failed, could not fsync file=").put(path);
+                    }
                 } finally {
                     ff.close(fd);
                 }
@@ -1030,10 +1285,12 @@ public class TableWriter implements Closeable {
     private void configureColumn(int type, boolean indexFlag) {
         final AppendMemory primary = new AppendMemory();
         final AppendMemory secondary;
+        primary.setHugePages(configuration.isHugePagesEnabled());
         switch (type) {
             case ColumnType.BINARY:
             case ColumnType.STRING:
                 secondary = new AppendMemory();
+                secondary.setHugePages(configuration.isHugePagesEnabled());
                 break;
             default:
                 secondary = null;
@@ -1041,7 +1298,16 @@ public class TableWriter implements Closeable {
         }
         columns.add(primary);
         columns.add(secondary);
-        configureNuller(type, primary, secondary);
+        configureNuller(nullers, type, primary, secondary);
+
+        // out-of-order staging area mirrors column layout, memory is allocated on first write
+        final long o3PageSize = configuration.getO3StagingPageSize();
+        final VirtualMemory o3Primary = new VirtualMemory(o3PageSize);
+        final VirtualMemory o3Secondary = secondary != null ? new VirtualMemory(o3PageSize) : null;
+        o3Columns.add(o3Primary);
+        o3Columns.add(o3Secondary);
+        configureNuller(o3Nullers, type, o3Primary, o3Secondary);
+        configureNuller(o3DstNullers, type, o3DstMem1, o3DstMem2);
         if (indexFlag) {
             indexers.extendAndSet((columns.size() - 1) / 2, new SymbolColumnIndexer());
             populateDenseIndexerList();
@@ -1073,7 +1339,7 @@ public class TableWriter implements Closeable {
         populateDenseIndexerList();
     }
 
-    private void configureNuller(int type, AppendMemory mem1, AppendMemory mem2) {
+    private static void configureNuller(ObjList<Runnable> nullers, int type, VirtualMemory mem1, VirtualMemory mem2) {
         switch (type) {
             case ColumnType.BOOLEAN:
             case ColumnType.BYTE:
@@ -1123,6 +1389,8 @@ public class TableWriter implements Closeable {
             };
         } else {
             nullers.setQuick(index, NOOP);
+            o3Nullers.setQuick(index, NOOP);
+            o3TimestampSetter = o3Columns.getQuick(getPrimaryColumnIndex(index))::putLong;
             return getPrimaryColumn(index)::putLong;
         }
     }
@@ -1170,11 +1438,61 @@ public class TableWriter implements Closeable {
         symbolMapWriters.extendAndSet(columnCount, w);
     }
 
+    private void compressPartitionColumns(int plen, long partitionSize) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        for (int i = 0; i < columnCount; i++) {
+            if (i != timestampIndex) {
+                compressColumn(i, plen, partitionSize);
+            }
+        }
+        compressColumn(timestampIndex, plen, partitionSize);
+        LOG.info().$("compressed partition [path=").$(path.trimTo(plen).$()).$(']').$();
+    }
+
+    private void compressColumn(int columnIndex, int plen, long partitionSize) {
+        final int type = metadata.getColumnType(columnIndex);
+        if (!ColumnCompressor.isCompressible(type)) {
+            return;
+        }
+
+        final CharSequence columnName = metadata.getColumnName(columnIndex);
+        try {
+            // column file is either missing or compressed already
+            if (!ff.exists(dFile(path.trimTo(plen), columnName))) {
+                return;
+            }
+
+            final long columnTop = readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b);
+            final long size = (partitionSize - columnTop) << ColumnType.pow2SizeOf(type);
+            if (size > 0) {
+                getCompressor().compress(path, plen, columnName, type, size, commitMode == CommitMode.SYNC);
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    private void decompressPartitionColumns(int plen) {
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                final CharSequence columnName = metadata.getColumnName(i);
+                if (ff.exists(dzFile(path.trimTo(plen), columnName))) {
+                    getCompressor().decompress(path, plen, columnName, commitMode == CommitMode.SYNC);
+                }
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
     private void doClose(boolean truncate) {
         boolean tx = inTransaction();
         freeColumns(truncate);
+        freeO3();
         freeSymbolMapWriters();
         freeIndexers();
+        compressor = Misc.free(compressor);
+        statsWriter = Misc.free(statsWriter);
         try {
             freeTxMem();
         } finally {
@@ -1193,6 +1511,8 @@ public class TableWriter implements Closeable {
     }
 
     private void freeColumns(boolean truncate) {
+        // indexers read column files, they must be done before files are closed
+        awaitIndexes();
         if (columns != null) {
             for (int i = 0, n = columns.size(); i < n; i++) {
                 AppendMemory m = columns.getQuick(i);
@@ -1213,6 +1533,15 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void freeO3() {
+        Misc.freeObjList(o3Columns);
+        Misc.free(o3DstMem1);
+        Misc.free(o3DstMem2);
+        Misc.free(o3SrcMem1);
+        Misc.free(o3SrcMem2);
+        Misc.free(o3IndexWriter);
+    }
+
     private void freeSymbolMapWriters() {
         if (denseSymbolMapWriters != null) {
             for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
@@ -1252,7 +1581,13 @@ public class TableWriter implements Closeable {
             long nextTimestamp = timestampFloorMethod.floor(nextTimestampMethod.calculate(nextMinTimestamp, 1));
             setStateForTimestamp(nextTimestamp, false);
             try {
-                dFile(path, metadata.getColumnName(metadata.getTimestampIndex()));
+                final int plen = path.length();
+                final CharSequence timestampColumnName = metadata.getColumnName(metadata.getTimestampIndex());
+                if (ff.exists(dzFile(path, timestampColumnName))) {
+                    nextMinTimestamp = getCompressor().readLong(path, 0);
+                    break;
+                }
+                dFile(path.trimTo(plen), timestampColumnName);
                 if (ff.exists(path)) {
                     // read min timestamp value
                     long fd = ff.openRO(path);
@@ -1285,6 +1620,20 @@ public class TableWriter implements Closeable {
         return nextMinTimestamp;
     }
 
+    private ColumnCompressor getCompressor() {
+        if (compressor == null) {
+            compressor = new ColumnCompressor(ff, configuration.getCompressionBlockSize());
+        }
+        return compressor;
+    }
+
+    private ColumnStatsWriter getStatsWriter() {
+        if (statsWriter == null) {
+            statsWriter = new ColumnStatsWriter(ff, configuration.getPartitionStatsBlockRowCount(), configuration.getPartitionStatsBloomMaxSize());
+        }
+        return statsWriter;
+    }
+
     private AppendMemory getPrimaryColumn(int column) {
         assert column < columnCount : "Column index is out of bounds: " + column + " >= " + columnCount;
         return columns.getQuick(getPrimaryColumnIndex(column));
@@ -1336,6 +1685,321 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Merges rows from out-of-order staging area into partitions. Staged rows are sorted by timestamp
+     * with stable sort, so that rows with the same timestamp retain the order they were added in. Rows are
+     * then grouped by partition and each affected partition is rewritten into temporary files, which replace
+     * original column files once all columns have been merged. Rows with timestamps equal to existing
+     * rows are placed after them.
+     */
+    private void mergeO3() {
+        final int timestampIndex = metadata.getTimestampIndex();
+        final VirtualMemory timestamps = o3Columns.getQuick(getPrimaryColumnIndex(timestampIndex));
+        final int n = (int) o3RowCount;
+
+        o3Index.clear();
+        for (int i = 0; i < n; i++) {
+            o3Index.add(timestamps.getLong((long) i * 8));
+            o3Index.add(i);
+        }
+        sortO3Index(n);
+
+        final long o3MinTimestamp = o3Index.getQuick(0);
+        final long activePartitionTimestamp = partitionBy == PartitionBy.NONE ? 0 : timestampFloorMethod.floor(maxTimestamp);
+        boolean activePartitionMerged = false;
+
+        int lo = 0;
+        while (lo < n) {
+            final long partitionTimestamp;
+            int hi;
+            if (partitionBy == PartitionBy.NONE) {
+                partitionTimestamp = 0;
+                hi = n;
+            } else {
+                partitionTimestamp = timestampFloorMethod.floor(o3Index.getQuick(lo * 2));
+                final long partitionHi = nextTimestampMethod.calculate(partitionTimestamp, 1);
+                hi = lo + 1;
+                while (hi < n && o3Index.getQuick(hi * 2) < partitionHi) {
+                    hi++;
+                }
+            }
+
+            final boolean active = partitionTimestamp == activePartitionTimestamp;
+            mergeO3Partition(partitionTimestamp, lo, hi, active);
+            activePartitionMerged |= active;
+            lo = hi;
+        }
+
+        if (o3MinTimestamp < minTimestamp) {
+            minTimestamp = o3MinTimestamp;
+        }
+
+        resetO3();
+
+        if (activePartitionMerged) {
+            // column files of active partition have been replaced, we have to append to new ones
+            openPartition(maxTimestamp);
+            setAppendPosition(transientRowCount);
+        }
+    }
+
+    private long mergeO3CopySource(
+            int type,
+            int shl,
+            boolean indexed,
+            Runnable nuller,
+            long columnTop,
+            long srcSize,
+            long srcLo,
+            long srcHi,
+            long dstRow
+    ) {
+        // rows before column top do not exist in source files
+        for (long topHi = Math.min(srcHi, columnTop); srcLo < topHi; srcLo++) {
+            nuller.run();
+            if (indexed) {
+                o3IndexWriter.add(TableUtils.toIndexKey(SymbolTable.VALUE_IS_NULL), dstRow);
+            }
+            dstRow++;
+        }
+
+        if (srcLo < srcHi) {
+            final long lo = srcLo - columnTop;
+            final long hi = srcHi - columnTop;
+            switch (type) {
+                case ColumnType.STRING:
+                case ColumnType.BINARY:
+                    final long dataLo = o3SrcMem2.getLong(lo * 8);
+                    final long dataHi;
+                    if (hi < srcSize - columnTop) {
+                        dataHi = o3SrcMem2.getLong(hi * 8);
+                    } else {
+                        dataHi = getVarValueEnd(type, o3SrcMem1, o3SrcMem2.getLong((hi - 1) * 8));
+                    }
+                    final long shift = o3DstMem1.getAppendOffset() - dataLo;
+                    for (long r = lo; r < hi; r++) {
+                        o3DstMem2.putLong(o3SrcMem2.getLong(r * 8) + shift);
+                    }
+                    copyBytes(o3SrcMem1, dataLo, dataHi, o3DstMem1);
+                    break;
+                default:
+                    copyBytes(o3SrcMem1, lo << shl, hi << shl, o3DstMem1);
+                    if (indexed) {
+                        for (long r = lo; r < hi; r++) {
+                            o3IndexWriter.add(TableUtils.toIndexKey(o3SrcMem1.getInt(r * 4)), dstRow + r - lo);
+                        }
+                    }
+                    break;
+            }
+            dstRow += hi - lo;
+        }
+        return dstRow;
+    }
+
+    private void mergeO3CopyStaged(int type, int shl, boolean indexed, VirtualMemory mem1, VirtualMemory mem2, long row, long dstRow) {
+        switch (type) {
+            case ColumnType.STRING:
+                o3DstMem2.putLong(o3DstMem1.putStr(mem1.getStr(mem2.getLong(row * 8))));
+                break;
+            case ColumnType.BINARY:
+                o3DstMem2.putLong(o3DstMem1.putBin(mem1.getBin(mem2.getLong(row * 8))));
+                break;
+            default:
+                copyBytes(mem1, row << shl, (row + 1) << shl, o3DstMem1);
+                if (indexed) {
+                    o3IndexWriter.add(TableUtils.toIndexKey(mem1.getInt(row * 4)), dstRow);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Writes merged content of column into temporary files next to original column files. Source
+     * rows are copied in blocks, staged rows are interleaved at positions calculated in merge plan.
+     *
+     * @param columnIndex index of column to merge
+     * @param plen        length of partition path
+     * @param srcSize     number of rows in partition before merge
+     * @param lo          index of first staged row in sorted o3 index
+     * @param hi          index of staged row after the last one in sorted o3 index
+     */
+    private void mergeO3Column(int columnIndex, int plen, long srcSize, int lo, int hi) {
+        final CharSequence columnName = metadata.getColumnName(columnIndex);
+        final int type = metadata.getColumnType(columnIndex);
+        final boolean indexed = metadata.isColumnIndexed(columnIndex);
+        final boolean varSize = type == ColumnType.STRING || type == ColumnType.BINARY;
+        final int shl = varSize ? 0 : ColumnType.pow2SizeOf(type);
+        final VirtualMemory mem1 = o3Columns.getQuick(getPrimaryColumnIndex(columnIndex));
+        final VirtualMemory mem2 = o3Columns.getQuick(getSecondaryColumnIndex(columnIndex));
+        final Runnable nuller = o3DstNullers.getQuick(columnIndex);
+
+        o3TempName.clear();
+        o3TempName.put(columnName).put(O3_FILE_SUFFIX);
+
+        try {
+            // column may have been added after partition had been written
+            final long columnTop;
+            if (srcSize > 0 && ff.exists(dFile(path.trimTo(plen), columnName))) {
+                columnTop = readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b);
+            } else {
+                columnTop = srcSize;
+            }
+
+            if (columnTop < srcSize) {
+                final long count = srcSize - columnTop;
+                if (varSize) {
+                    o3SrcMem2.of(ff, iFile(path.trimTo(plen), columnName), ff.getMapPageSize(), count * 8);
+                    final long dataSize = ff.length(dFile(path.trimTo(plen), columnName));
+                    o3SrcMem1.of(ff, path, ff.getMapPageSize(), dataSize);
+                } else {
+                    o3SrcMem1.of(ff, dFile(path.trimTo(plen), columnName), ff.getMapPageSize(), count << shl);
+                }
+            }
+
+            if (indexed) {
+                // create empty index files, they are populated as rows are written
+                BitmapIndexUtils.keyFileName(path.trimTo(plen), o3TempName);
+                o3DstMem2.of(ff, path, ff.getPageSize());
+                BitmapIndexWriter.initKeyMemory(o3DstMem2, metadata.getIndexValueBlockCapacity(columnIndex));
+                o3DstMem2.close();
+                ff.touch(BitmapIndexUtils.valueFileName(path.trimTo(plen), o3TempName));
+                o3IndexWriter.of(configuration, path.trimTo(plen), o3TempName);
+            }
+
+            o3DstMem1.of(ff, dFile(path.trimTo(plen), o3TempName), ff.getMapPageSize());
+            if (varSize) {
+                o3DstMem2.of(ff, iFile(path.trimTo(plen), o3TempName), ff.getMapPageSize());
+            }
+
+            long srcRow = 0;
+            long dstRow = 0;
+            for (int k = lo; k < hi; k++) {
+                final long srcHi = o3MergePlan.getQuick(k - lo);
+                dstRow = mergeO3CopySource(type, shl, indexed, nuller, columnTop, srcSize, srcRow, srcHi, dstRow);
+                srcRow = srcHi;
+                mergeO3CopyStaged(type, shl, indexed, mem1, mem2, o3Index.getQuick(k * 2 + 1), dstRow++);
+            }
+            mergeO3CopySource(type, shl, indexed, nuller, columnTop, srcSize, srcRow, srcSize, dstRow);
+
+            if (commitMode == CommitMode.SYNC) {
+                // merged files replace originals, they have to be on disk before transaction is committed
+                o3DstMem1.sync(false);
+                o3DstMem2.sync(false);
+                if (indexed) {
+                    o3IndexWriter.sync(false);
+                }
+            }
+        } finally {
+            o3DstMem1.close(true);
+            o3DstMem2.close(true);
+            o3SrcMem1.close();
+            o3SrcMem2.close();
+            o3IndexWriter.close();
+            path.trimTo(plen);
+        }
+    }
+
+    private void mergeO3Partition(long partitionTimestamp, int lo, int hi, boolean active) {
+        try {
+            setStateForTimestamp(partitionTimestamp, false);
+            final int plen = path.length();
+
+            final long srcSize;
+            if (active) {
+                srcSize = transientRowCount;
+            } else if (ff.exists(path.$())) {
+                srcSize = readPartitionSize(ff, path.trimTo(plen), tempMem8b);
+                // merge rewrites column files, compressed partition is restored first
+                decompressPartitionColumns(plen);
+                removePartitionStats(plen);
+            } else {
+                if (ff.mkdirs(path.trimTo(plen).put(Files.SEPARATOR).$(), mkDirMode) != 0) {
+                    throw CairoException.instance(ff.errno()).put("Cannot create directory: ").put(path);
+                }
+                srcSize = 0;
+            }
+            path.trimTo(plen);
+
+            // merge plan is position in partition before which each of staged rows is inserted
+            o3MergePlan.clear();
+            if (srcSize > 0) {
+                o3SrcMem1.of(ff, dFile(path, metadata.getColumnName(metadata.getTimestampIndex())), ff.getMapPageSize(), srcSize * 8);
+                try {
+                    long pos = 0;
+                    for (int k = lo; k < hi; k++) {
+                        pos = searchTimestampUpperBound(o3SrcMem1, o3Index.getQuick(k * 2), pos, srcSize);
+                        o3MergePlan.add(pos);
+                    }
+                } finally {
+                    o3SrcMem1.close();
+                    path.trimTo(plen);
+                }
+            } else {
+                o3MergePlan.seed(hi - lo, 0);
+            }
+
+            for (int i = 0; i < columnCount; i++) {
+                mergeO3Column(i, plen, srcSize, lo, hi);
+            }
+
+            // replacing column files cannot be undone, failure leaves table in inconsistent state
+            try {
+                other.of(path);
+                for (int i = 0; i < columnCount; i++) {
+                    final CharSequence columnName = metadata.getColumnName(i);
+                    final int type = metadata.getColumnType(i);
+                    renameO3File(plen, columnName, ".d");
+                    if (type == ColumnType.STRING || type == ColumnType.BINARY) {
+                        renameO3File(plen, columnName, ".i");
+                    }
+                    if (metadata.isColumnIndexed(i)) {
+                        renameO3File(plen, columnName, ".k");
+                        renameO3File(plen, columnName, ".v");
+                    }
+                    // merged column files contain all rows
+                    if (ff.exists(topFile(path.trimTo(plen), columnName)) && !ff.remove(path)) {
+                        throw CairoException.instance(ff.errno()).put("Cannot remove ").put(path);
+                    }
+                }
+            } catch (CairoException e) {
+                throwDistressException(e);
+            } finally {
+                other.trimTo(rootLen);
+            }
+
+            final long rowCount = hi - lo;
+            if (active) {
+                transientRowCount += rowCount;
+            } else {
+                writePartitionSize(plen, srcSize + rowCount);
+                fixedRowCount += rowCount;
+                if (partitionStatsEnabled) {
+                    // merged column files contain all rows, column tops are gone
+                    writePartitionStats(plen, srcSize + rowCount, false);
+                }
+            }
+
+            LOG.info().$("merged out-of-order rows [path=").$(path.trimTo(plen).$()).$(", rows=").$(rowCount).$(']').$();
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    private Row newO3Row(long timestamp) {
+        if (!o3Enabled) {
+            throw CairoException.instance(ff.errno()).put("Cannot insert rows out of order. Table=").put(path);
+        }
+
+        if (partitionBy != PartitionBy.NONE && removedPartitions.contains(timestampFloorMethod.floor(timestamp))) {
+            throw CairoException.instance(0).put("Cannot insert rows into removed partition [table=").put(name).put(", timestamp=").put(timestamp).put(']');
+        }
+
+        rowColumns = o3Columns;
+        rowNullers = o3Nullers;
+        o3TimestampSetter.accept(timestamp);
+        return row;
+    }
+
     private long openAppend(LPSZ name) {
         long fd = ff.openAppend(name);
         if (fd == -1) {
@@ -1344,11 +2008,11 @@ public class TableWriter implements Closeable {
         return fd;
     }
 
-    private void openColumnFiles(CharSequence name, int i, int plen) {
+    private void openColumnFiles(CharSequence name, int i, int type, int plen) {
         AppendMemory mem1 = getPrimaryColumn(i);
         AppendMemory mem2 = getSecondaryColumn(i);
 
-        mem1.of(ff, dFile(path.trimTo(plen), name), ff.getMapPageSize());
+        mem1.of(ff, dFile(path.trimTo(plen), name), TableUtils.getColumnPageSize(ff, type));
 
         if (mem2 != null) {
             mem2.of(ff, iFile(path.trimTo(plen), name), ff.getMapPageSize());
@@ -1375,7 +2039,7 @@ public class TableWriter implements Closeable {
         }
     }
 
-    private void openNewColumnFiles(CharSequence name, boolean indexFlag, int indexValueBlockCapacity) {
+    private void openNewColumnFiles(CharSequence name, int type, boolean indexFlag, int indexValueBlockCapacity) {
         try {
             // open column files
             setStateForTimestamp(maxTimestamp, false);
@@ -1388,7 +2052,7 @@ public class TableWriter implements Closeable {
                 createIndexFiles(name, columnIndex, indexValueBlockCapacity, plen, true);
             }
 
-            openColumnFiles(name, columnIndex, plen);
+            openColumnFiles(name, columnIndex, type, plen);
             if (transientRowCount > 0) {
                 // write .top file
                 writeColumnTop(name);
@@ -1427,7 +2091,12 @@ public class TableWriter implements Closeable {
                     createIndexFiles(name, i, metadata.getIndexValueBlockCapacity(i), plen, transientRowCount < 1);
                 }
 
-                openColumnFiles(name, i, plen);
+                // partition is about to receive rows, its statistics would become stale
+                if (ff.exists(stFile(path.trimTo(plen), name)) && !ff.remove(path)) {
+                    throw CairoException.instance(ff.errno()).put("Cannot remove ").put(path);
+                }
+
+                openColumnFiles(name, i, metadata.getColumnType(i), plen);
                 columnTop = readColumnTop(ff, path, name, plen, tempMem8b);
                 columnTops.extendAndSet(i, columnTop);
 
@@ -1472,6 +2141,55 @@ public class TableWriter implements Closeable {
         indexCount = denseIndexers.size();
     }
 
+    /**
+     * Hands file descriptors of columns and transaction file over to background sync job. Descriptors are
+     * duplicated so that job is not affected by writer closing files. There is at most one batch of tasks
+     * in flight per writer, commits made while it is in progress are flushed by next batch.
+     */
+    private void publishSyncTasks() {
+        if (syncLatch.getCount() > 0) {
+            return;
+        }
+
+        syncFds.clear();
+        for (int i = 0; i < columnCount; i++) {
+            syncFds.add(getPrimaryColumn(i).getFd());
+            AppendMemory mem = getSecondaryColumn(i);
+            if (mem != null) {
+                syncFds.add(mem.getFd());
+            }
+        }
+        syncFds.add(txMem.getFd());
+
+        final int n = syncFds.size();
+        final Sequence syncPubSequence = workScheduler.getSyncPubSequence();
+        final RingQueue<FileSyncEntry> syncQueue = workScheduler.getSyncQueue();
+        syncLatch.setCount(n);
+
+        for (int i = 0; i < n; i++) {
+            long cursor;
+            do {
+                cursor = syncPubSequence.next();
+            } while (cursor == -2);
+
+            if (cursor == -1) {
+                // queue is full, pages have been scheduled for write-back anyway
+                syncLatch.countDown();
+                continue;
+            }
+
+            // job skips failed duplicate and only counts latch down
+            final long fd = ff.dup(syncFds.getQuick(i));
+            if (fd == -1) {
+                LOG.error().$("could not dup [fd=").$(syncFds.getQuick(i)).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            final FileSyncEntry queueItem = syncQueue.get(cursor);
+            queueItem.fd = fd;
+            queueItem.countDownLatch = syncLatch;
+            syncPubSequence.done(cursor);
+        }
+    }
+
     private void purgeUnusedPartitions() {
         if (partitionBy != PartitionBy.NONE) {
             removePartitionDirsNewerThan(maxTimestamp);
@@ -1550,6 +2268,12 @@ public class TableWriter implements Closeable {
         columns.remove(getPrimaryColumnIndex(columnIndex));
         columnTops.removeIndex(columnIndex);
         nullers.remove(columnIndex);
+        Misc.free(o3Columns.getQuick(getPrimaryColumnIndex(columnIndex)));
+        Misc.free(o3Columns.getQuick(getSecondaryColumnIndex(columnIndex)));
+        o3Columns.remove(getSecondaryColumnIndex(columnIndex));
+        o3Columns.remove(getPrimaryColumnIndex(columnIndex));
+        o3Nullers.remove(columnIndex);
+        o3DstNullers.remove(columnIndex);
         if (columnIndex < indexers.size()) {
             Misc.free(indexers.getQuick(columnIndex));
             indexers.remove(columnIndex);
@@ -1557,6 +2281,18 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void removePartitionStats(int plen) {
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                if (ff.exists(stFile(path.trimTo(plen), metadata.getColumnName(i))) && !ff.remove(path)) {
+                    throw CairoException.instance(ff.errno()).put("Cannot remove ").put(path);
+                }
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
     private void removeColumnFiles(CharSequence columnName, int columnType, RemoveFileLambda removeLambda) {
         try {
             ff.iterateDir(path.$(), (file, type) -> {
@@ -1566,8 +2302,10 @@ public class TableWriter implements Closeable {
                     path.concat(nativeLPSZ);
                     int plen = path.length();
                     removeLambda.remove(ff, dFile(path, columnName));
+                    removeLambda.remove(ff, dzFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, stFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
                 }
@@ -1808,6 +2546,23 @@ public class TableWriter implements Closeable {
         removeTodoFile();
     }
 
+    private void renameO3File(int plen, CharSequence columnName, CharSequence extension) {
+        other.trimTo(plen).concat(columnName).put(extension).$();
+        path.trimTo(plen).concat(columnName).put(O3_FILE_SUFFIX).put(extension).$();
+        if (!ff.rename(path, other)) {
+            throw CairoException.instance(ff.errno()).put("Cannot rename ").put(path).put(" to ").put(other);
+        }
+    }
+
+    private void resetO3() {
+        if (o3RowCount > 0 || rowColumns != columns) {
+            setO3AppendPosition(0);
+            o3RowCount = 0;
+        }
+        rowColumns = columns;
+        rowNullers = nullers;
+    }
+
     private void restoreMetaFrom(CharSequence fromBase, int fromIndex) {
         try {
             path.concat(fromBase);
@@ -1858,6 +2613,23 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void setO3AppendPosition(long position) {
+        for (int i = 0; i < columnCount; i++) {
+            final VirtualMemory mem1 = o3Columns.getQuick(getPrimaryColumnIndex(i));
+            final VirtualMemory mem2 = o3Columns.getQuick(getSecondaryColumnIndex(i));
+            final int type = getColumnType(metaMem, i);
+            if (mem2 == null) {
+                mem1.jumpTo(position << ColumnType.pow2SizeOf(type));
+            } else if (position > 0) {
+                mem1.jumpTo(getVarValueEnd(type, mem1, mem2.getLong((position - 1) * 8)));
+                mem2.jumpTo(position * 8);
+            } else {
+                mem1.jumpTo(0);
+                mem2.jumpTo(0);
+            }
+        }
+    }
+
     /**
      * Sets path member variable to partition directory for the given timestamp and
      * partitionLo and partitionHi to partition interval in millis. These values are
@@ -1918,6 +2690,14 @@ public class TableWriter implements Closeable {
                     partitionHi = Timestamps.addYear(Timestamps.yearMicros(y, leap), 1);
                 }
                 break;
+            case PartitionBy.HOUR:
+            case PartitionBy.WEEK:
+                final long partitionTimestamp = timestampFloorMethod.floor(timestamp);
+                partitionDirFmt.format(partitionTimestamp, TimestampLocaleFactory.INSTANCE.getDefaultTimestampLocale(), null, path);
+                if (updatePartitionInterval) {
+                    partitionHi = nextTimestampMethod.calculate(partitionTimestamp, 1);
+                }
+                break;
             default:
                 path.put(DEFAULT_PARTITION_NAME);
                 partitionHi = Long.MAX_VALUE;
@@ -1925,12 +2705,84 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private static long searchTimestampUpperBound(VirtualMemory timestamps, long timestamp, long lo, long hi) {
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            if (timestamps.getLong(mid * 8) > timestamp) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Sorts (timestamp, row) pairs in o3Index by timestamp. Sort is stable to retain order of rows
+     * with the same timestamp. Rows are often staged nearly in order, so sort is skipped entirely
+     * when index is already ordered.
+     *
+     * @param n number of pairs in index
+     */
+    private void sortO3Index(int n) {
+        boolean sorted = true;
+        for (int i = 1; i < n; i++) {
+            if (o3Index.getQuick(i * 2) < o3Index.getQuick(i * 2 - 2)) {
+                sorted = false;
+                break;
+            }
+        }
+
+        if (sorted) {
+            return;
+        }
+
+        o3SortBuffer.setPos(n * 2);
+        LongList src = o3Index;
+        LongList dst = o3SortBuffer;
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                final int mid = Math.min(lo + width, n);
+                final int hi = Math.min(lo + 2 * width, n);
+                int i = lo;
+                int j = mid;
+                for (int k = lo; k < hi; k++) {
+                    final int from;
+                    if (i < mid && (j >= hi || src.getQuick(i * 2) <= src.getQuick(j * 2))) {
+                        from = i++;
+                    } else {
+                        from = j++;
+                    }
+                    dst.setQuick(k * 2, src.getQuick(from * 2));
+                    dst.setQuick(k * 2 + 1, src.getQuick(from * 2 + 1));
+                }
+            }
+            LongList tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+
+        if (src != o3Index) {
+            o3Index.clear();
+            o3Index.add(src);
+        }
+    }
+
     private void switchPartition(long timestamp) {
         // Before partition can be switched we need to index records
         // added so far. Index writers will start point to different
         // files after switch.
         updateIndexes();
 
+        if (partitionStatsEnabled && transientRowCount > 0) {
+            try {
+                setStateForTimestamp(maxTimestamp, false);
+                writePartitionStats(path.length(), transientRowCount, true);
+            } finally {
+                path.trimTo(rootLen);
+            }
+        }
+
         // We need to store reference on partition so that archive
         // file can be created in appropriate directory.
         // For simplicity use partitionLo, which can be
@@ -1941,10 +2793,33 @@ public class TableWriter implements Closeable {
         fixedRowCount += transientRowCount;
         txPrevTransientRowCount = transientRowCount;
         transientRowCount = 0;
+        if (commitMode == CommitMode.SYNC) {
+            // files of current partition are about to be closed, commit would not be able to reach them
+            syncColumns(commitMode);
+        }
         openPartition(timestamp);
         setAppendPosition(0);
     }
 
+    private void syncColumns(int commitMode) {
+        final boolean async = commitMode == CommitMode.ASYNC;
+        for (int i = 0; i < columnCount; i++) {
+            getPrimaryColumn(i).sync(async);
+            AppendMemory mem = getSecondaryColumn(i);
+            if (mem != null) {
+                mem.sync(async);
+            }
+        }
+
+        for (int i = 0, n = denseIndexers.size(); i < n; i++) {
+            denseIndexers.getQuick(i).sync(async);
+        }
+
+        for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
+            denseSymbolMapWriters.getQuick(i).sync(async);
+        }
+    }
+
     private void throwDistressException(Throwable cause) {
         this.distressed = true;
         throw new CairoError(cause);
@@ -1952,49 +2827,96 @@ public class TableWriter implements Closeable {
 
     private void updateIndexes() {
         if (indexCount > 0) {
-            final long lo = txPartitionCount == 1 ? txPrevTransientRowCount : 0;
+            // rows published while appending have to be indexed before transaction becomes visible to readers
+            if (awaitIndexes()) {
+                throwDistressException(null);
+            }
+            final long lo = Math.max(txPartitionCount == 1 ? txPrevTransientRowCount : 0, indexHi);
             final long hi = transientRowCount;
+            indexHi = 0;
             if (indexCount > 1 && parallelIndexerEnabled && hi - lo > configuration.getParallelIndexThreshold()) {
                 updateIndexesParallel(lo, hi);
             } else {
                 updateIndexesSerially(lo, hi);
             }
+        } else {
+            indexHi = 0;
         }
     }
 
     private void updateIndexesParallel(long lo, long hi) {
+        // we are going to index last column in this thread while other columns are on the queue
+        publishIndexes(lo, hi, indexCount - 1);
+
+        // index last column while other columns are brewing on the queue
+        indexAndCountDown(denseIndexers.getQuick(indexCount - 1), lo, hi, indexLatch);
+
+        if (awaitIndexes()) {
+            throwDistressException(null);
+        }
+    }
+
+    /**
+     * Called when enough rows have been appended to active partition since they were last indexed. Rows are
+     * handed over to indexer queue and writer carries on appending without waiting for workers. When workers
+     * are still busy with previous batch the call is a no-op and rows are picked up by the next call or by commit.
+     */
+    private void publishIndexesAsync() {
+        final long lo = Math.max(txPartitionCount == 1 ? txPrevTransientRowCount : 0, indexHi);
+        final long hi = transientRowCount;
+        if (indexCount == 0) {
+            indexHi = hi;
+            return;
+        }
+
+        if (hi - lo < indexPublishThreshold) {
+            // rows below lo are committed and indexed already
+            indexHi = lo;
+            return;
+        }
+
+        if (indexInFlight) {
+            if (indexLatch.getCount() > 0) {
+                return;
+            }
+            if (awaitIndexes()) {
+                throwDistressException(null);
+            }
+        }
+        publishIndexes(lo, hi, indexCount);
+        indexHi = hi;
+    }
 
+    /**
+     * Publishes first indexCount indexers to indexer queue to index rows [lo, hi). Indexers that do not fit
+     * the queue are processed in the current thread. Latch is set for all indexers, caller is responsible for
+     * indexing and counting down remaining ones. Completion is awaited by {@link #awaitIndexes()}.
+     */
+    private void publishIndexes(long lo, long hi, int indexCount) {
         indexSequences.clear();
-        indexLatch.setCount(indexCount);
-        final int nParallelIndexes = indexCount - 1;
+        indexLatch.setCount(this.indexCount);
+        indexTaskLo = lo;
+        indexTaskHi = hi;
+        indexInFlight = true;
         final Sequence indexPubSequence = this.workScheduler.getIndexerPubSequence();
         final RingQueue<ColumnIndexerEntry> indexerQueue = this.workScheduler.getIndexerQueue();
 
-        // we are going to index last column in this thread while other columns are on the queue
-        OUT:
-        for (int i = 0; i < nParallelIndexes; i++) {
+        for (int i = 0; i < indexCount; i++) {
+            final ColumnIndexer indexer = denseIndexers.getQuick(i);
+            long cursor;
+            do {
+                // -2 is CAS issue, retry
+                cursor = indexPubSequence.next();
+            } while (cursor == -2);
 
-            long cursor = indexPubSequence.next();
             if (cursor == -1) {
                 // queue is full, process index in the current thread
-                indexAndCountDown(denseIndexers.getQuick(i), lo, hi, indexLatch);
+                indexSequences.add(-1);
+                indexAndCountDown(indexer, lo, hi, indexLatch);
                 continue;
             }
 
-            if (cursor == -2) {
-                // CAS issue, retry
-                do {
-                    cursor = indexPubSequence.next();
-                    if (cursor == -1) {
-                        indexAndCountDown(denseIndexers.getQuick(i), lo, hi, indexLatch);
-                        continue OUT;
-                    }
-
-                } while (cursor < 0);
-            }
-
             final ColumnIndexerEntry queueItem = indexerQueue.get(cursor);
-            final ColumnIndexer indexer = denseIndexers.getQuick(i);
             final long sequence = indexer.getSequence();
             queueItem.indexer = indexer;
             queueItem.lo = lo;
@@ -2004,35 +2926,39 @@ public class TableWriter implements Closeable {
             indexSequences.add(sequence);
             indexPubSequence.done(cursor);
         }
+    }
 
-        // index last column while other columns are brewing on the queue
-        indexAndCountDown(denseIndexers.getQuick(indexCount - 1), lo, hi, indexLatch);
+    /**
+     * Waits for indexers published by {@link #publishIndexes(long, long, int)}. If things are flowing nicely
+     * all columns should have been done by other threads. Instead of actually waiting we gracefully check latch
+     * count and steal work that has not been picked up yet.
+     *
+     * @return true when any of indexers is distressed
+     */
+    private boolean awaitIndexes() {
+        if (!indexInFlight) {
+            return false;
+        }
+        indexInFlight = false;
 
-        // At this point we have re-indexed our column and if things are flowing nicely
-        // all other columns should have been done by other threads. Instead of actually
-        // waiting we gracefully check latch count.
         if (!indexLatch.await(configuration.getWorkStealTimeoutNanos())) {
             // other columns are still in-flight, we must attempt to steal work from other threads
-            for (int i = 0; i < nParallelIndexes; i++) {
-                ColumnIndexer indexer = denseIndexers.getQuick(i);
-                if (indexer.tryLock(indexSequences.getQuick(i))) {
-                    indexAndCountDown(indexer, lo, hi, indexLatch);
+            for (int i = 0, n = indexSequences.size(); i < n; i++) {
+                final long sequence = indexSequences.getQuick(i);
+                final ColumnIndexer indexer = denseIndexers.getQuick(i);
+                if (sequence > -1 && indexer.tryLock(sequence)) {
+                    indexAndCountDown(indexer, indexTaskLo, indexTaskHi, indexLatch);
                 }
             }
             // wait for the ones we cannot steal
             indexLatch.await();
         }
 
-        // reset lock on completed indexers
         boolean distressed = false;
         for (int i = 0; i < indexCount; i++) {
-            ColumnIndexer indexer = denseIndexers.getQuick(i);
-            distressed = distressed | indexer.isDistressed();
-        }
-
-        if (distressed) {
-            throwDistressException(null);
+            distressed = distressed | denseIndexers.getQuick(i).isDistressed();
         }
+        return distressed;
     }
 
     private void updateIndexesSerially(long lo, long hi) {
@@ -2091,6 +3017,45 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void writePartitionSize(int plen, long size) {
+        long fd = ff.openRW(path.trimTo(plen).concat(ARCHIVE_FILE_NAME).$());
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot open: ").put(path);
+        }
+        try {
+            Unsafe.getUnsafe().putLong(tempMem8b, size);
+            if (ff.write(fd, tempMem8b, 8, 0) != 8) {
+                throw CairoException.instance(ff.errno()).put("Commit failed, file=").put(path);
+            }
+        } finally {
+            ff.close(fd);
+            path.trimTo(plen);
+        }
+    }
+
+    /**
+     * Writes statistics of partition columns. Statistics only speed up filtered scans, failure to
+     * write them is logged and partition is left without statistics.
+     *
+     * @param plen           length of partition path
+     * @param rowCount       number of rows in partition
+     * @param withColumnTops true when column tops of current partition apply, false when all columns start at row 0
+     */
+    private void writePartitionStats(int plen, long rowCount, boolean withColumnTops) {
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metadata.getColumnType(i);
+            if (ColumnStatsWriter.isSupported(type)) {
+                final CharSequence columnName = metadata.getColumnName(i);
+                try {
+                    getStatsWriter().write(path, plen, columnName, type, withColumnTops ? columnTops.getQuick(i) : 0, rowCount, commitMode == CommitMode.SYNC);
+                } catch (CairoException e) {
+                    LOG.error().$("could not write column stats [path=").$(path.trimTo(plen).$()).$(", column=").$(columnName).$(", error=").$((Sinkable) e).$(']').$();
+                    path.trimTo(plen);
+                }
+            }
+        }
+    }
+
     private void writeRestoreMetaTodo(CharSequence columnName) {
         try {
             writeTodo(((long) metaPrevIndex << 8) | TODO_RESTORE_META);
@@ -2141,7 +3106,7 @@ public class TableWriter implements Closeable {
         public Row newRow(long timestamp) {
             bumpMasterRef();
             if (timestamp < maxTimestamp) {
-                throw CairoException.instance(ff.errno()).put("Cannot insert rows out of order. Table=").put(path);
+                return newO3Row(timestamp);
             }
             updateMaxTimestamp(timestamp);
             return row;
@@ -2163,7 +3128,7 @@ public class TableWriter implements Closeable {
         @NotNull
         private Row newRow0(long timestamp) {
             if (timestamp < maxTimestamp) {
-                throw CairoException.instance(ff.errno()).put("Cannot insert rows out of order. Table=").put(path);
+                return newO3Row(timestamp);
             }
 
             if (timestamp >= partitionHi && partitionBy != PartitionBy.NONE) {
@@ -2175,6 +3140,231 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Block of rows supplied column by column as native buffers. Fixed-size columns take values back
+     * to back in column file format. STRING and BINARY columns take values in the format of
+     * {@link VirtualMemory#putStr(CharSequence)} and {@link VirtualMemory#putBin(BinarySequence)}
+     * along with a buffer of long offsets, one per row, relative to the start of value buffer. SYMBOL
+     * columns take values in STRING format and are resolved to symbol keys. Columns that are not
+     * supplied are filled with nulls.
+     * <p>
+     * Block rows must be in timestamp order and must not be older than max timestamp of the table.
+     * Block may span multiple partitions.
+     */
+    public class Block {
+        // address, size and offset buffer address for each column
+        private final LongList buffers = new LongList();
+        private final DirectCharSequence symbolValue = new DirectCharSequence();
+
+        public void append(long rowCount) {
+            checkDistressed();
+            if (rowCount < 1) {
+                return;
+            }
+
+            if ((masterRef & 1) != 0) {
+                cancelRow();
+            }
+
+            final int timestampIndex = metadata.getTimestampIndex();
+            final long timestampAddress = timestampIndex == -1 ? 0 : buffers.getQuick(timestampIndex * 3);
+            validate(rowCount, timestampIndex, timestampAddress);
+
+            try {
+                long lo = 0;
+                while (lo < rowCount) {
+                    final long timestamp = timestampAddress == 0 ? 0 : Unsafe.getUnsafe().getLong(timestampAddress + lo * Long.BYTES);
+                    if (rowFunction == openPartitionFunction) {
+                        minTimestamp = timestamp;
+                        openFirstPartition(timestamp);
+                        rowFunction = switchPartitionFunction;
+                    } else if (timestamp >= partitionHi && partitionBy != PartitionBy.NONE) {
+                        switchPartition(timestamp);
+                    }
+
+                    final long hi = timestampAddress == 0 ? rowCount : searchPartitionHi(timestampAddress, lo, rowCount);
+                    for (int i = 0; i < columnCount; i++) {
+                        appendColumn(i, lo, hi, rowCount);
+                    }
+
+                    transientRowCount += hi - lo;
+                    prevMaxTimestamp = maxTimestamp;
+                    maxTimestamp = timestampAddress == 0 ? 0 : Unsafe.getUnsafe().getLong(timestampAddress + (hi - 1) * Long.BYTES);
+                    if (transientRowCount - indexHi >= indexPublishThreshold) {
+                        publishIndexesAsync();
+                    }
+                    lo = hi;
+                }
+            } catch (CairoException e) {
+                // columns are partially appended, there is no going back
+                throwDistressException(e);
+            }
+        }
+
+        public Block putColumn(int columnIndex, long address, long size) {
+            switch (getColumnType(columnIndex)) {
+                case ColumnType.STRING:
+                case ColumnType.BINARY:
+                case ColumnType.SYMBOL:
+                    throw CairoException.instance(0).put("column requires value offsets [column=").put(metadata.getColumnName(columnIndex)).put(']');
+                default:
+                    putBuffers(columnIndex, address, size, 0);
+                    return this;
+            }
+        }
+
+        public Block putVarColumn(int columnIndex, long address, long size, long offsetsAddress) {
+            switch (getColumnType(columnIndex)) {
+                case ColumnType.STRING:
+                case ColumnType.BINARY:
+                case ColumnType.SYMBOL:
+                    putBuffers(columnIndex, address, size, offsetsAddress);
+                    return this;
+                default:
+                    throw CairoException.instance(0).put("column is fixed size [column=").put(metadata.getColumnName(columnIndex)).put(']');
+            }
+        }
+
+        private void appendColumn(int columnIndex, long lo, long hi, long rowCount) {
+            final int base = columnIndex * 3;
+            final long address = buffers.getQuick(base);
+            if (address == 0) {
+                final Runnable nuller = nullers.getQuick(columnIndex);
+                for (long r = lo; r < hi; r++) {
+                    nuller.run();
+                }
+                return;
+            }
+
+            final int type = metadata.getColumnType(columnIndex);
+            final AppendMemory primary = getPrimaryColumn(columnIndex);
+            final long offsets = buffers.getQuick(base + 2);
+            switch (type) {
+                case ColumnType.STRING:
+                case ColumnType.BINARY:
+                    final long dataLo = Unsafe.getUnsafe().getLong(offsets + lo * Long.BYTES);
+                    // caller's buffer can be larger than values, last value is measured
+                    final long dataHi = hi < rowCount ? Unsafe.getUnsafe().getLong(offsets + hi * Long.BYTES) : getValueEnd(type, address, Unsafe.getUnsafe().getLong(offsets + (hi - 1) * Long.BYTES));
+                    final long shift = primary.getAppendOffset() - dataLo;
+                    primary.putBlockOfBytes(address + dataLo, dataHi - dataLo);
+                    final AppendMemory secondary = getSecondaryColumn(columnIndex);
+                    for (long r = lo; r < hi; r++) {
+                        secondary.putLong(Unsafe.getUnsafe().getLong(offsets + r * Long.BYTES) + shift);
+                    }
+                    break;
+                case ColumnType.SYMBOL:
+                    final SymbolMapWriter symbolMapWriter = symbolMapWriters.getQuick(columnIndex);
+                    for (long r = lo; r < hi; r++) {
+                        final long p = address + Unsafe.getUnsafe().getLong(offsets + r * Long.BYTES);
+                        final int len = Unsafe.getUnsafe().getInt(p);
+                        if (len < 0) {
+                            primary.putInt(SymbolTable.VALUE_IS_NULL);
+                        } else {
+                            primary.putInt(symbolMapWriter.put(symbolValue.of(p + Integer.BYTES, p + Integer.BYTES + len * 2L)));
+                        }
+                    }
+                    break;
+                default:
+                    final int shl = ColumnType.pow2SizeOf(type);
+                    primary.putBlockOfBytes(address + (lo << shl), (hi - lo) << shl);
+                    break;
+            }
+        }
+
+        private void clear() {
+            buffers.seed(columnCount * 3, 0);
+        }
+
+        private int getColumnType(int columnIndex) {
+            if (columnIndex < 0 || columnIndex >= columnCount) {
+                throw CairoException.instance(0).put("invalid column index [index=").put(columnIndex).put(']');
+            }
+            return metadata.getColumnType(columnIndex);
+        }
+
+        /**
+         * @return offset past STRING or BINARY value, SYMBOL values are in STRING format
+         */
+        private long getValueEnd(int type, long address, long offset) {
+            if (type == ColumnType.BINARY) {
+                final long len = Unsafe.getUnsafe().getLong(address + offset);
+                return offset + Long.BYTES + Math.max(len, 0);
+            }
+            final int len = Unsafe.getUnsafe().getInt(address + offset);
+            return offset + Integer.BYTES + Math.max(len, 0) * 2L;
+        }
+
+        private void putBuffers(int columnIndex, long address, long size, long offsetsAddress) {
+            final int base = columnIndex * 3;
+            // columns could have been added since block was started
+            if (buffers.size() < columnCount * 3) {
+                buffers.seed(buffers.size(), columnCount * 3 - buffers.size(), 0);
+            }
+            buffers.setQuick(base, address);
+            buffers.setQuick(base + 1, size);
+            buffers.setQuick(base + 2, offsetsAddress);
+        }
+
+        private long searchPartitionHi(long timestampAddress, long lo, long hi) {
+            if (partitionBy == PartitionBy.NONE || Unsafe.getUnsafe().getLong(timestampAddress + (hi - 1) * Long.BYTES) < partitionHi) {
+                return hi;
+            }
+            // first row, which belongs to next partition
+            while (lo < hi) {
+                final long mid = (lo + hi) >>> 1;
+                if (Unsafe.getUnsafe().getLong(timestampAddress + mid * Long.BYTES) < partitionHi) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private void validate(long rowCount, int timestampIndex, long timestampAddress) {
+            if (buffers.size() < columnCount * 3) {
+                buffers.seed(buffers.size(), columnCount * 3 - buffers.size(), 0);
+            }
+
+            for (int i = 0; i < columnCount; i++) {
+                final int base = i * 3;
+                if (buffers.getQuick(base) == 0) {
+                    continue;
+                }
+
+                final long size = buffers.getQuick(base + 1);
+                final long offsets = buffers.getQuick(base + 2);
+                final int type = metadata.getColumnType(i);
+                if (offsets == 0) {
+                    if (size < rowCount << ColumnType.pow2SizeOf(type)) {
+                        throw CairoException.instance(0).put("not enough values in block [column=").put(metadata.getColumnName(i)).put(", size=").put(size).put(", rowCount=").put(rowCount).put(']');
+                    }
+                } else {
+                    final long offset = Unsafe.getUnsafe().getLong(offsets + (rowCount - 1) * Long.BYTES);
+                    final int lenBytes = type == ColumnType.BINARY ? Long.BYTES : Integer.BYTES;
+                    if (offset < 0 || offset + lenBytes > size || getValueEnd(type, buffers.getQuick(base), offset) > size) {
+                        throw CairoException.instance(0).put("value offset is out of bounds [column=").put(metadata.getColumnName(i)).put(']');
+                    }
+                }
+            }
+
+            if (timestampIndex != -1) {
+                if (timestampAddress == 0) {
+                    throw CairoException.instance(0).put("timestamp column is required [column=").put(metadata.getColumnName(timestampIndex)).put(']');
+                }
+
+                long prev = maxTimestamp;
+                for (long r = 0; r < rowCount; r++) {
+                    final long timestamp = Unsafe.getUnsafe().getLong(timestampAddress + r * Long.BYTES);
+                    if (timestamp < prev) {
+                        throw CairoException.instance(0).put("block is out of order [row=").put(r).put(", timestamp=").put(timestamp).put(", prev=").put(prev).put(']');
+                    }
+                    prev = timestamp;
+                }
+            }
+        }
+    }
+
     public class Row {
         public void append() {
             if ((masterRef & 1) == 0) {
@@ -2183,10 +3373,19 @@ public class TableWriter implements Closeable {
 
             for (int i = 0; i < columnCount; i++) {
                 if (refs.getQuick(i) < masterRef) {
-                    nullers.getQuick(i).run();
+                    rowNullers.getQuick(i).run();
                 }
             }
-            transientRowCount++;
+
+            if (rowColumns == columns) {
+                if (++transientRowCount - indexHi >= indexPublishThreshold) {
+                    publishIndexesAsync();
+                }
+            } else {
+                o3RowCount++;
+                rowColumns = columns;
+                rowNullers = nullers;
+            }
             masterRef++;
         }
 
@@ -2195,27 +3394,27 @@ public class TableWriter implements Closeable {
         }
 
         public void putBin(int index, long address, long len) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(address, len));
+            rowSecondary(index).putLong(rowPrimary(index).putBin(address, len));
             notNull(index);
         }
 
         public void putBin(int index, BinarySequence sequence) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(sequence));
+            rowSecondary(index).putLong(rowPrimary(index).putBin(sequence));
             notNull(index);
         }
 
         public void putBool(int index, boolean value) {
-            getPrimaryColumn(index).putBool(value);
+            rowPrimary(index).putBool(value);
             notNull(index);
         }
 
         public void putByte(int index, byte value) {
-            getPrimaryColumn(index).putByte(value);
+            rowPrimary(index).putByte(value);
             notNull(index);
         }
 
         public void putChar(int index, char value) {
-            getPrimaryColumn(index).putChar(value);
+            rowPrimary(index).putChar(value);
             notNull(index);
         }
 
@@ -2224,62 +3423,62 @@ public class TableWriter implements Closeable {
         }
 
         public void putDouble(int index, double value) {
-            getPrimaryColumn(index).putDouble(value);
+            rowPrimary(index).putDouble(value);
             notNull(index);
         }
 
         public void putFloat(int index, float value) {
-            getPrimaryColumn(index).putFloat(value);
+            rowPrimary(index).putFloat(value);
             notNull(index);
         }
 
         public void putInt(int index, int value) {
-            getPrimaryColumn(index).putInt(value);
+            rowPrimary(index).putInt(value);
             notNull(index);
         }
 
         public void putLong256(int index, long l0, long l1, long l2, long l3) {
-            getPrimaryColumn(index).putLong256(l0, l1, l2, l3);
+            rowPrimary(index).putLong256(l0, l1, l2, l3);
             notNull(index);
         }
 
         public void putLong256(int index, Long256 value) {
-            getPrimaryColumn(index).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+            rowPrimary(index).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
             notNull(index);
         }
 
         public void putLong256(int index, CharSequence hexString) {
-            getPrimaryColumn(index).putLong256(hexString);
+            rowPrimary(index).putLong256(hexString);
             notNull(index);
         }
 
         public void putLong(int index, long value) {
-            getPrimaryColumn(index).putLong(value);
+            rowPrimary(index).putLong(value);
             notNull(index);
         }
 
         public void putShort(int index, short value) {
-            getPrimaryColumn(index).putShort(value);
+            rowPrimary(index).putShort(value);
             notNull(index);
         }
 
         public void putStr(int index, CharSequence value) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            rowSecondary(index).putLong(rowPrimary(index).putStr(value));
             notNull(index);
         }
 
         public void putStr(int index, char value) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            rowSecondary(index).putLong(rowPrimary(index).putStr(value));
             notNull(index);
         }
 
         public void putStr(int index, CharSequence value, int pos, int len) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value, pos, len));
+            rowSecondary(index).putLong(rowPrimary(index).putStr(value, pos, len));
             notNull(index);
         }
 
         public void putSym(int index, CharSequence value) {
-            getPrimaryColumn(index).putInt(symbolMapWriters.getQuick(index).put(value));
+            rowPrimary(index).putInt(symbolMapWriters.getQuick(index).put(value));
             notNull(index);
         }
 
@@ -2290,5 +3489,13 @@ public class TableWriter implements Closeable {
         private void notNull(int index) {
             refs.setQuick(index, masterRef);
         }
+
+        private VirtualMemory rowPrimary(int index) {
+            return rowColumns.getQuick(getPrimaryColumnIndex(index));
+        }
+
+        private VirtualMemory rowSecondary(int index) {
+            return rowColumns.getQuick(getSecondaryColumnIndex(index));
+        }
     }
 }
@@ -292,14 +292,25 @@ public class VirtualMemory implements Closeable {
             return offset;
         }
 
+        putBlockOfBytes(from, len);
+        return offset;
+    }
+
+    /**
+     * Appends raw bytes without length prefix. Unlike putBin() this method does not
+     * change representation of the data, which makes it suitable for copying
+     * column data between memory instances.
+     *
+     * @param from address of first byte to copy
+     * @param len  number of bytes to copy
+     */
+    public final void putBlockOfBytes(long from, long len) {
         if (len < pageHi - appendPointer) {
             Unsafe.getUnsafe().copyMemory(from, appendPointer, len);
             appendPointer += len;
         } else {
             putBinSlit(from, len);
         }
-
-        return offset;
     }
 
     public void putBool(boolean value) {
@@ -128,6 +128,7 @@ public class CompactMap implements Map {
     private final long entryKeyOffset;
     private final int valueColumnCount;
     private final CompactMapRecord record;
+    private final long initialKeyCapacity;
     private long currentEntryOffset;
     private long currentEntrySize = 0;
     private long keyCapacity;
@@ -147,7 +148,7 @@ public class CompactMap implements Map {
             this.valueColumnCount = valueTypes.getColumnCount();
             this.entryFixedSize = calcColumnOffsets(keyTypes, calcColumnOffsets(valueTypes, ENTRY_HEADER_SIZE, 0), this.valueColumnCount);
             this.entryKeyOffset = columnOffsets[valueColumnCount];
-            this.keyCapacity = Math.max(keyCapacity, 16);
+            this.keyCapacity = this.initialKeyCapacity = Math.max(keyCapacity, 16);
             this.hashFunction = hashFunction;
             configureCapacity();
             this.value = new CompactMapValue(entries, columnOffsets);
@@ -180,11 +181,23 @@ public class CompactMap implements Map {
         return cursor;
     }
 
+    @Override
+    public long getMemorySize() {
+        return currentEntryOffset + currentEntrySize + (mask + 1) * 8;
+    }
+
     @Override
     public MapRecord getRecord() {
         return record;
     }
 
+    @Override
+    public void restoreInitialCapacity() {
+        keyCapacity = initialKeyCapacity;
+        configureCapacity();
+        clear();
+    }
+
     public long size() {
         return size;
     }
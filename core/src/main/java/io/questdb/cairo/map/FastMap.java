@@ -42,6 +42,8 @@ public class FastMap implements Map {
     private final FastMapRecord record;
     private final int valueColumnCount;
     private final HashFunction hashFunction;
+    private final int initialPageSize;
+    private final int initialKeyCapacity;
     private long capacity;
     private int keyBlockOffset;
     private int keyDataOffset;
@@ -85,9 +87,11 @@ public class FastMap implements Map {
         this.loadFactor = loadFactor;
         this.kStart = kPos = Unsafe.malloc(this.capacity = pageSize);
         this.kLimit = kStart + pageSize;
+        this.initialPageSize = pageSize;
 
         this.keyCapacity = (int) (keyCapacity / loadFactor);
         this.keyCapacity = this.keyCapacity < MIN_INITIAL_CAPACITY ? MIN_INITIAL_CAPACITY : Numbers.ceilPow2(this.keyCapacity);
+        this.initialKeyCapacity = this.keyCapacity;
         this.mask = this.keyCapacity - 1;
         this.free = (int) (this.keyCapacity * loadFactor);
         this.offsets = new DirectLongList(this.keyCapacity);
@@ -208,11 +212,33 @@ public class FastMap implements Map {
         return cursor.init(kStart, size);
     }
 
+    @Override
+    public long getMemorySize() {
+        return capacity + ((long) keyCapacity << 3);
+    }
+
     @Override
     public MapRecord getRecord() {
         return record;
     }
 
+    @Override
+    public void restoreInitialCapacity() {
+        if (capacity != initialPageSize) {
+            kStart = Unsafe.realloc(kStart, capacity, initialPageSize);
+            capacity = initialPageSize;
+            kLimit = kStart + initialPageSize;
+        }
+        if (keyCapacity != initialKeyCapacity) {
+            offsets.close();
+            offsets = new DirectLongList(initialKeyCapacity);
+            offsets.setPos(initialKeyCapacity);
+            keyCapacity = initialKeyCapacity;
+            mask = keyCapacity - 1;
+        }
+        clear();
+    }
+
     @Override
     public long size() {
         return size;
@@ -35,10 +35,20 @@ public interface Map extends Mutable, Closeable {
 
     RecordCursor getCursor();
 
+    /**
+     * @return approximate number of bytes of native memory taken by keys and values
+     */
+    long getMemorySize();
+
     MapRecord getRecord();
 
     long size();
 
+    /**
+     * Clears map and releases memory it has grown by, so that it takes as much memory as when created.
+     */
+    void restoreInitialCapacity();
+
     MapValue valueAt(long address);
 
     MapKey withKey();
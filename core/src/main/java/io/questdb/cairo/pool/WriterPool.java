@@ -322,7 +322,9 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
                     iterator.remove();
                     removed = true;
                 }
-            } else if (e.lockFd != -1L) {
+            } else if (e.lockFd != -1L && reason == PoolConstants.CR_POOL_CLOSE) {
+                // locked entries are only purged when pool is closing, otherwise
+                // idle check would pull entry from under the lock owner
                 if (ff.close(e.lockFd)) {
                     e.lockFd = -1L;
                     iterator.remove();
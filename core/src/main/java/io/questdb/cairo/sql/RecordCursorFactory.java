@@ -40,7 +40,22 @@ public interface RecordCursorFactory extends Closeable {
 
     RecordCursor getCursor(SqlExecutionContext executionContext);
 
+    /**
+     * Provides direct access to table data frames for factories that scan all rows of frames without
+     * filtering. Consumers must check {@link #supportsDataFrameCursor()} first.
+     *
+     * @param executionContext execution context
+     * @return data frame cursor, which caller must close, or null when factory does not support it
+     */
+    default DataFrameCursor getDataFrameCursor(SqlExecutionContext executionContext) {
+        return null;
+    }
+
     RecordMetadata getMetadata();
 
     boolean isRandomAccessCursor();
+
+    default boolean supportsDataFrameCursor() {
+        return false;
+    }
 }
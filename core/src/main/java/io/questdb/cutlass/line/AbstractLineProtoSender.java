@@ -0,0 +1,121 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.str.AbstractCharSink;
+import io.questdb.std.str.CharSink;
+
+import java.io.Closeable;
+
+/**
+ * Formats measurements as line protocol text. Subclasses decide where text goes and are told
+ * when a line is complete.
+ */
+public abstract class AbstractLineProtoSender extends AbstractCharSink implements Closeable {
+    private boolean hasMetric = false;
+    private boolean noFields = true;
+
+    public void $(long timestamp) {
+        put(' ').put(timestamp);
+        $();
+    }
+
+    public void $() {
+        put('\n');
+        hasMetric = false;
+        noFields = true;
+        commitLine();
+    }
+
+    public AbstractLineProtoSender field(CharSequence name, long value) {
+        field(name).put(value).put('i');
+        return this;
+    }
+
+    public AbstractLineProtoSender field(CharSequence name, CharSequence value) {
+        field(name).putQuoted(value);
+        return this;
+    }
+
+    public AbstractLineProtoSender field(CharSequence name, double value, int scale) {
+        field(name).put(value, scale);
+        return this;
+    }
+
+    public AbstractLineProtoSender metric(CharSequence metric) {
+        if (hasMetric) {
+            throw CairoException.instance(0).put("duplicate metric");
+        }
+        hasMetric = true;
+        put(metric);
+        return this;
+    }
+
+    public AbstractLineProtoSender tag(CharSequence tag, CharSequence value) {
+        if (hasMetric) {
+            put(',');
+            putNameEscaped(tag).put('=').encodeUtf8(value);
+            return this;
+        }
+        throw CairoException.instance(0).put("metric expected");
+    }
+
+    /**
+     * Called when line, including its trailing new line character, has been written.
+     */
+    protected abstract void commitLine();
+
+    private CharSink field(CharSequence name) {
+        if (hasMetric) {
+            if (noFields) {
+                put(' ');
+                noFields = false;
+            } else {
+                put(',');
+            }
+
+            return putNameEscaped(name).put('=');
+        }
+        throw CairoException.instance(0).put("metric expected");
+    }
+
+    private AbstractLineProtoSender putNameEscaped(CharSequence name) {
+        for (int i = 0, n = name.length(); i < n; i++) {
+            char c = name.charAt(i);
+            switch (c) {
+                case ' ':
+                case ',':
+                case '=':
+                    put('\\').put(c);
+                    break;
+                default:
+                    put(c);
+                    break;
+            }
+        }
+        return this;
+    }
+}
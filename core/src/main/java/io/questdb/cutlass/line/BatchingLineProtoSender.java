@@ -0,0 +1,364 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.Job;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Worker;
+import io.questdb.std.Chars;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjHashSet;
+import io.questdb.std.Unsafe;
+import io.questdb.std.time.MillisecondClock;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Line protocol sender for high rate producers. Rows are written to a ring buffer and are sent
+ * by background thread when enough bytes accumulate, when they wait longer than flush interval
+ * or when producer asks for flush. Producer publishes position of the last complete row and
+ * does not wait for the network unless the buffer is full. Then it either waits or drops rows,
+ * depending on configuration, and counts these events.
+ * <p>
+ * Positions in the buffer grow indefinitely, buffer offset is position modulo capacity.
+ * Rows never wrap around the end of the buffer, row that would is moved to the start and
+ * the rest of the buffer is skipped. This keeps rows intact within UDP datagrams.
+ * <p>
+ * Except for counters, methods must be called from the same thread.
+ */
+public class BatchingLineProtoSender extends AbstractLineProtoSender {
+    private static final Log LOG = LogFactory.getLog(BatchingLineProtoSender.class);
+    private static final long COMMITTED_OFFSET = Unsafe.getFieldOffset(BatchingLineProtoSender.class, "committed");
+    private static final long RELEASED_OFFSET = Unsafe.getFieldOffset(BatchingLineProtoSender.class, "released");
+    private static final int ROW_OK = 0;
+    private static final int ROW_DROPPED = 1;
+    private static final int ROW_TOO_LONG = 2;
+    private final LineProtoChannel channel;
+    private final long buf;
+    private final int capacity;
+    private final long mask;
+    private final int maxLineLength;
+    private final boolean dropOnFull;
+    private final SOCountDownLatch haltLatch = new SOCountDownLatch(1);
+    private final Worker worker;
+    // producer state
+    private long lineStart = 0;
+    private long writePos = 0;
+    private long writeLimit = 0;
+    private long releasedCache = 0;
+    private int rowState = ROW_OK;
+    // end of the last complete row
+    private volatile long committed = 0;
+    // end of the data sent and no longer needed
+    private volatile long released = 0;
+    // end of the data in a buffer lap, rows after it were moved to the next lap
+    private volatile long wrapPos = -1;
+    private volatile long flushPos = 0;
+    private volatile long backPressureCount = 0;
+    private volatile long droppedRowCount = 0;
+    private volatile long reconnectCount = 0;
+    private volatile long sendErrorCount = 0;
+
+    public BatchingLineProtoSender(LineProtoSenderConfiguration configuration, LineProtoChannel channel) {
+        this.channel = channel;
+        this.capacity = Numbers.ceilPow2(configuration.getBufferCapacity());
+        this.mask = capacity - 1;
+        // row moved to the start of the buffer must not overlap itself
+        this.maxLineLength = Math.min(capacity / 2, channel.getMaxSendSize());
+        this.dropOnFull = configuration.isDropOnFull();
+        this.buf = Unsafe.malloc(capacity);
+
+        final ObjHashSet<Job> jobs = new ObjHashSet<>();
+        jobs.add(new FlushJob(configuration));
+        this.worker = new Worker(jobs, haltLatch, configuration.getWorkerAffinity(), LOG, null, false);
+        worker.start();
+    }
+
+    /**
+     * Sends rows that are complete and waits for them to be sent. Waiting stops early when
+     * rows cannot be sent or when reconnect attempt fails. Row in progress is discarded.
+     */
+    @Override
+    public void close() {
+        final long errorCount = sendErrorCount;
+        flushPos = lineStart;
+        while (released < lineStart && sendErrorCount == errorCount) {
+            LockSupport.parkNanos(1_000_000);
+        }
+
+        worker.halt();
+        haltLatch.await();
+
+        if (released < lineStart) {
+            LOG.error().$("closed with unsent rows [bytes=").$(lineStart - released).$(']').$();
+        }
+        channel.close();
+        Unsafe.free(buf, capacity);
+    }
+
+    /**
+     * Asks background thread to send complete rows without waiting for batch size or flush
+     * interval. Does not wait for rows to be sent.
+     */
+    @Override
+    public void flush() {
+        flushPos = lineStart;
+    }
+
+    /**
+     * @return number of times producer had to wait for the buffer to free up
+     */
+    public long getBackPressureCount() {
+        return backPressureCount;
+    }
+
+    /**
+     * @return number of rows dropped because the buffer was full
+     */
+    public long getDroppedRowCount() {
+        return droppedRowCount;
+    }
+
+    /**
+     * @return number of times lost connection was re-established
+     */
+    public long getReconnectCount() {
+        return reconnectCount;
+    }
+
+    /**
+     * @return number of failed sends and connection attempts
+     */
+    public long getSendErrorCount() {
+        return sendErrorCount;
+    }
+
+    @Override
+    public BatchingLineProtoSender put(CharSequence cs) {
+        final int len = cs.length();
+        if (writeLimit - writePos >= len || reserve(len)) {
+            Chars.strcpy(cs, len, buf + (writePos & mask));
+            writePos += len;
+        }
+        return this;
+    }
+
+    @Override
+    public BatchingLineProtoSender put(char c) {
+        if (writePos < writeLimit || reserve(1)) {
+            Unsafe.getUnsafe().putByte(buf + (writePos & mask), (byte) c);
+            writePos++;
+        }
+        return this;
+    }
+
+    @Override
+    protected void commitLine() {
+        final int state = rowState;
+        if (state == ROW_OK) {
+            lineStart = writePos;
+            Unsafe.getUnsafe().putOrderedLong(this, COMMITTED_OFFSET, writePos);
+            return;
+        }
+
+        // writeLimit is still at lineStart, next row will reserve space again
+        rowState = ROW_OK;
+        if (state == ROW_TOO_LONG) {
+            throw CairoException.instance(0).put("line too long");
+        }
+        droppedRowCount++;
+    }
+
+    private boolean awaitRelease(long required) {
+        if ((releasedCache = released) >= required) {
+            return true;
+        }
+
+        // have background thread send what it has without waiting for batch to fill up
+        flushPos = lineStart;
+        if (dropOnFull) {
+            return false;
+        }
+
+        backPressureCount++;
+        do {
+            LockSupport.parkNanos(1);
+        } while ((releasedCache = released) < required);
+        return true;
+    }
+
+    private void cancelRow(int state) {
+        rowState = state;
+        writePos = writeLimit = lineStart;
+    }
+
+    private boolean reserve(int len) {
+        if (rowState != ROW_OK) {
+            return false;
+        }
+
+        final long rowLen = writePos - lineStart;
+        if (rowLen + len > maxLineLength) {
+            cancelRow(ROW_TOO_LONG);
+            return false;
+        }
+
+        final long lapEnd = (lineStart & ~mask) + capacity;
+        final long start = writePos + len > lapEnd ? lapEnd : lineStart;
+        if (start + rowLen + len - capacity > releasedCache && !awaitRelease(start + rowLen + len - capacity)) {
+            cancelRow(ROW_DROPPED);
+            return false;
+        }
+
+        if (start != lineStart) {
+            Unsafe.getUnsafe().copyMemory(buf + (lineStart & mask), buf, rowLen);
+            wrapPos = lineStart;
+            lineStart = start;
+            writePos = start + rowLen;
+        }
+
+        // limit also makes long rows come back here to be measured
+        writeLimit = Math.min(Math.min((lineStart & ~mask) + capacity, releasedCache + capacity), lineStart + maxLineLength);
+        return true;
+    }
+
+    private class FlushJob implements Job {
+        private final MillisecondClock clock;
+        private final int batchSize;
+        private final long flushInterval;
+        private final long reconnectInterval;
+        private final int maxSendSize;
+        private long readPos = 0;
+        private long pendingSince = Long.MIN_VALUE;
+        private long nextConnectAttempt = 0;
+        private boolean disconnected = false;
+
+        private FlushJob(LineProtoSenderConfiguration configuration) {
+            this.clock = configuration.getMillisecondClock();
+            this.batchSize = configuration.getBatchSize();
+            this.flushInterval = configuration.getFlushInterval();
+            this.reconnectInterval = configuration.getReconnectInterval();
+            this.maxSendSize = channel.getMaxSendSize();
+        }
+
+        @Override
+        public boolean run() {
+            final long committed = BatchingLineProtoSender.this.committed;
+            if (readPos == committed) {
+                return false;
+            }
+
+            final long now = clock.getTicks();
+            if (pendingSince == Long.MIN_VALUE) {
+                pendingSince = now;
+            }
+
+            if (committed - readPos < batchSize && now - pendingSince < flushInterval && readPos >= flushPos) {
+                return false;
+            }
+
+            if (!channel.isConnected() && !connect(now)) {
+                return false;
+            }
+
+            send(committed);
+            return true;
+        }
+
+        private boolean connect(long now) {
+            if (now < nextConnectAttempt) {
+                return false;
+            }
+            nextConnectAttempt = now + reconnectInterval;
+
+            if (channel.connect()) {
+                if (disconnected) {
+                    disconnected = false;
+                    reconnectCount++;
+                }
+                return true;
+            }
+            sendErrorCount++;
+            return false;
+        }
+
+        private void release(long pos) {
+            Unsafe.getUnsafe().putOrderedLong(BatchingLineProtoSender.this, RELEASED_OFFSET, pos);
+        }
+
+        private void send(long committed) {
+            while (readPos < committed) {
+                final long lapEnd = (readPos & ~mask) + capacity;
+                long hi = committed;
+                if (hi > lapEnd) {
+                    // producer has moved on to the next lap, wrap position is stored before it
+                    final long wrapPos = BatchingLineProtoSender.this.wrapPos;
+                    hi = wrapPos >= lapEnd - capacity && wrapPos < lapEnd ? wrapPos : lapEnd;
+                    if (readPos == hi) {
+                        readPos = lapEnd;
+                        release(readPos);
+                        continue;
+                    }
+                }
+
+                final long lo = buf + (readPos & mask);
+                int len = (int) Math.min(hi - readPos, maxSendSize);
+                if (len < hi - readPos) {
+                    // rows are not longer than send size, there is line end in range
+                    while (Unsafe.getUnsafe().getByte(lo + len - 1) != '\n') {
+                        len--;
+                    }
+                }
+
+                final int n = channel.send(lo, len);
+                if (n > -1) {
+                    readPos += n;
+                    if (n == len) {
+                        release(readPos);
+                    }
+                } else if (channel.isConnected()) {
+                    // bytes are lost
+                    sendErrorCount++;
+                    readPos += len;
+                    release(readPos);
+                } else {
+                    // rewind to the first row that has not been sent in full
+                    sendErrorCount++;
+                    disconnected = true;
+                    final long released = BatchingLineProtoSender.this.released;
+                    while (readPos > released && Unsafe.getUnsafe().getByte(buf + ((readPos - 1) & mask)) != '\n') {
+                        readPos--;
+                    }
+                    release(readPos);
+                    return;
+                }
+            }
+            pendingSince = Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Decodes binary line protocol. Binary rows carry the same measurement, tags and fields as text
+ * lines, but values are typed and repeated names are sent as references, which spares receiver
+ * lexing, number parsing and value type guessing. Row layout, numbers are little-endian:
+ * <pre>
+ * byte   MAGIC
+ * int    row size in bytes, MAGIC and size included
+ * long   timestamp in microseconds, Long.MIN_VALUE for receiver to assign one
+ * name   table name
+ * short  column count
+ * name   column name, followed by byte column type and value, repeated for every column
+ * </pre>
+ * Name is a short length followed by as many UTF-8 bytes. Every name sent this way is assigned
+ * next id, starting from 0, and can then be sent as negative length of -id - 1 alone. Ids are
+ * scoped by UDP datagram or TCP connection. There is no handshake to agree on ids upfront
+ * because UDP senders cannot receive one. Scope holds at most {@link #MAX_NAME_COUNT} names,
+ * which is as many as short references can address, row with a name past that is malformed.
+ * <p>
+ * Row of {@link #RESET_SCOPE_SIZE} bytes, which is MAGIC and size alone, resets the scope: names
+ * received so far are forgotten and the next name sent in full is assigned id 0 again. Senders
+ * that keep TCP connection open for longer than {@link #MAX_NAME_COUNT} names send it before
+ * they run out of ids.
+ * <p>
+ * Values are int for TYPE_INT, double for TYPE_DOUBLE, byte for TYPE_BOOLEAN, int length followed
+ * by UTF-8 bytes for TYPE_STRING and name for TYPE_TAG. MAGIC is never the first byte of UTF-8
+ * text, which lets receivers tell binary rows from text lines.
+ */
+public class BinaryLineProtoDecoder implements LineProtoRow, Mutable {
+    public static final byte MAGIC = (byte) 0xB1;
+    public static final byte TYPE_INT = 1;
+    public static final byte TYPE_DOUBLE = 2;
+    public static final byte TYPE_BOOLEAN = 3;
+    public static final byte TYPE_STRING = 4;
+    public static final byte TYPE_TAG = 5;
+    public static final int ROW_HEADER_SIZE = 5;
+    public static final int RESET_SCOPE_SIZE = ROW_HEADER_SIZE;
+    public static final int MAX_NAME_COUNT = Short.MAX_VALUE + 1;
+    private final ObjList<StringSink> names = new ObjList<>();
+    private final ObjList<StringSink> strings = new ObjList<>();
+    private final ObjList<CharSequence> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final LongList columnValues = new LongList();
+    private final ObjList<CharSequence> columnStrValues = new ObjList<>();
+    private int nameCount = 0;
+    private int stringCount = 0;
+    private CharSequence name;
+    private CharSequence tableName;
+    private long timestamp;
+    private int size;
+
+    /**
+     * Forgets names received so far, to be called before new datagram or connection.
+     */
+    @Override
+    public void clear() {
+        nameCount = 0;
+    }
+
+    /**
+     * Decodes complete rows in given memory range and passes them to parser.
+     *
+     * @param lo     address of the first byte of a row
+     * @param hi     address past the last available byte
+     * @param parser receives decoded rows
+     * @return address of the first byte that has not been decoded, which is either incomplete row or
+     * the row after one parser stopped on; -1 when input is malformed
+     */
+    public long decode(long lo, long hi, LineProtoRowParser parser) {
+        long p = lo;
+        while (hi - p >= ROW_HEADER_SIZE) {
+            if (Unsafe.getUnsafe().getByte(p) != MAGIC) {
+                return -1;
+            }
+
+            final int size = Unsafe.getUnsafe().getInt(p + 1);
+            if (size < ROW_HEADER_SIZE) {
+                return -1;
+            }
+
+            if (hi - p < size) {
+                break;
+            }
+
+            if (size == RESET_SCOPE_SIZE) {
+                clear();
+                p += size;
+                continue;
+            }
+
+            if (!decodeRow(p + ROW_HEADER_SIZE, p + size)) {
+                return -1;
+            }
+
+            this.size = size;
+            p += size;
+            if (!parser.onRow(this)) {
+                break;
+            }
+        }
+        return p;
+    }
+
+    @Override
+    public boolean getBool(int index) {
+        return columnValues.getQuick(index) != 0;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    @Override
+    public CharSequence getColumnName(int index) {
+        return columnNames.getQuick(index);
+    }
+
+    @Override
+    public int getColumnType(int index) {
+        return columnTypes.getQuick(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return Double.longBitsToDouble(columnValues.getQuick(index));
+    }
+
+    @Override
+    public int getInt(int index) {
+        return (int) columnValues.getQuick(index);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public CharSequence getStr(int index) {
+        return columnStrValues.getQuick(index);
+    }
+
+    @Override
+    public CharSequence getTableName() {
+        return tableName;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    private void addColumn(int type, long value, CharSequence strValue) {
+        columnTypes.add(type);
+        columnValues.add(value);
+        columnStrValues.add(strValue);
+    }
+
+    /**
+     * Decodes name and stores it in "name" field.
+     *
+     * @return address past the name or -1 when name is malformed
+     */
+    private long decodeName(long p, long hi) {
+        if (hi - p < 2) {
+            return -1;
+        }
+
+        final int len = Unsafe.getUnsafe().getShort(p);
+        p += 2;
+
+        if (len < 0) {
+            final int id = -len - 1;
+            if (id >= nameCount) {
+                return -1;
+            }
+            name = names.getQuick(id);
+            return p;
+        }
+
+        if (hi - p < len || nameCount == MAX_NAME_COUNT) {
+            return -1;
+        }
+
+        final StringSink sink = nextSink(names, nameCount);
+        if (!Chars.utf8Decode(p, p + len, sink)) {
+            return -1;
+        }
+        nameCount++;
+        name = sink;
+        return p + len;
+    }
+
+    private boolean decodeRow(long p, long hi) {
+        columnNames.clear();
+        columnTypes.clear();
+        columnValues.clear();
+        columnStrValues.clear();
+        stringCount = 0;
+
+        if (hi - p < 8) {
+            return false;
+        }
+        timestamp = Unsafe.getUnsafe().getLong(p);
+        p += 8;
+
+        if ((p = decodeName(p, hi)) == -1 || name.length() == 0) {
+            return false;
+        }
+        tableName = name;
+
+        if (hi - p < 2) {
+            return false;
+        }
+        final int columnCount = Unsafe.getUnsafe().getShort(p);
+        p += 2;
+        if (columnCount < 0) {
+            return false;
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            if ((p = decodeName(p, hi)) == -1 || name.length() == 0 || hi - p < 1) {
+                return false;
+            }
+            columnNames.add(name);
+
+            final byte type = Unsafe.getUnsafe().getByte(p++);
+            switch (type) {
+                case TYPE_INT:
+                    if (hi - p < 4) {
+                        return false;
+                    }
+                    addColumn(ColumnType.INT, Unsafe.getUnsafe().getInt(p), null);
+                    p += 4;
+                    break;
+                case TYPE_DOUBLE:
+                    if (hi - p < 8) {
+                        return false;
+                    }
+                    addColumn(ColumnType.DOUBLE, Unsafe.getUnsafe().getLong(p), null);
+                    p += 8;
+                    break;
+                case TYPE_BOOLEAN:
+                    if (hi - p < 1) {
+                        return false;
+                    }
+                    addColumn(ColumnType.BOOLEAN, Unsafe.getUnsafe().getByte(p), null);
+                    p++;
+                    break;
+                case TYPE_STRING:
+                    if (hi - p < 4) {
+                        return false;
+                    }
+                    final int len = Unsafe.getUnsafe().getInt(p);
+                    p += 4;
+                    if (len < 0 || hi - p < len) {
+                        return false;
+                    }
+                    final StringSink sink = nextSink(strings, stringCount++);
+                    if (!Chars.utf8Decode(p, p + len, sink)) {
+                        return false;
+                    }
+                    addColumn(ColumnType.STRING, 0, sink);
+                    p += len;
+                    break;
+                case TYPE_TAG:
+                    if ((p = decodeName(p, hi)) == -1) {
+                        return false;
+                    }
+                    addColumn(ColumnType.SYMBOL, 0, name);
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return p == hi;
+    }
+
+    private static StringSink nextSink(ObjList<StringSink> sinks, int index) {
+        final StringSink sink;
+        if (index < sinks.size()) {
+            sink = sinks.getQuick(index);
+            sink.clear();
+        } else {
+            sink = new StringSink();
+            sinks.add(sink);
+        }
+        return sink;
+    }
+}
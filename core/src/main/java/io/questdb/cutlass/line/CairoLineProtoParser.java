@@ -31,13 +31,22 @@ import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.str.Path;
+import io.questdb.std.time.MillisecondClock;
 
 import java.io.Closeable;
 
 import static io.questdb.cairo.TableUtils.TABLE_DOES_NOT_EXIST;
 import static io.questdb.cairo.TableUtils.TABLE_EXISTS;
 
-public class CairoLineProtoParser implements LineProtoParser, Closeable {
+/**
+ * Writes parsed lines to tables. Every table is committed on whichever comes first: number of
+ * uncommitted rows, approximate number of uncommitted bytes or age of the oldest uncommitted row.
+ * Row and byte limits are checked as rows are appended, age is checked by {@link #commitDue()},
+ * which owner is expected to call periodically, typically when it runs out of input.
+ * <p>
+ * Parser accepts both lexed text lines and typed rows of binary protocol, which share table writers.
+ */
+public class CairoLineProtoParser implements LineProtoParser, LineProtoRowParser, Closeable {
     private final static Log LOG = LogFactory.getLog(CairoLineProtoParser.class);
     private static final LineEndParser NOOP_LINE_END = cache -> {
     };
@@ -47,21 +56,29 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     };
     private final CairoEngine engine;
     private final CharSequenceObjHashMap<CacheEntry> writerCache = new CharSequenceObjHashMap<>();
-    private final CharSequenceObjHashMap<TableWriter> commitList = new CharSequenceObjHashMap<>();
+    private final ObjList<CacheEntry> commitList = new ObjList<>();
     private final Path path = new Path();
     private final CairoConfiguration configuration;
     private final LongList columnNameType = new LongList();
     private final LongList columnValues = new LongList();
     private final AppendMemory appendMemory = new AppendMemory();
     private final MicrosecondClock clock;
+    private final MillisecondClock commitClock;
+    private final int commitRate;
+    private final long commitSize;
+    private final long commitInterval;
     private final FieldNameParser MY_NEW_FIELD_NAME = this::parseFieldNameNewTable;
     private final FieldValueParser MY_NEW_TAG_VALUE = this::parseTagValueNewTable;
     private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
+    private final RowTableStructureAdapter rowTableStructureAdapter = new RowTableStructureAdapter();
+    private final IntList rowColumnIndexes = new IntList();
     private final CairoSecurityContext cairoSecurityContext;
     // state
     // cache entry index is always a negative value
     private int cacheEntryIndex = 0;
     private TableWriter writer;
+    private CacheEntry entry;
+    private long lineSize;
     private final LineEndParser MY_LINE_END = this::appendRow;
     private RecordMetadata metadata;
     private int columnCount;
@@ -80,10 +97,29 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     private final FieldValueParser MY_TAG_VALUE = this::parseTagValue;
 
     public CairoLineProtoParser(CairoEngine engine, CairoSecurityContext cairoSecurityContext) {
+        this(engine, cairoSecurityContext, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param commitRate     maximum number of uncommitted rows in a table
+     * @param commitSize     maximum number of uncommitted bytes in a table, measured as length of lines
+     * @param commitInterval maximum age in milliseconds of the oldest uncommitted row in a table
+     */
+    public CairoLineProtoParser(
+            CairoEngine engine,
+            CairoSecurityContext cairoSecurityContext,
+            int commitRate,
+            long commitSize,
+            long commitInterval
+    ) {
         this.configuration = engine.getConfiguration();
         this.clock = configuration.getMicrosecondClock();
+        this.commitClock = configuration.getMillisecondClock();
         this.engine = engine;
         this.cairoSecurityContext = cairoSecurityContext;
+        this.commitRate = commitRate;
+        this.commitSize = commitSize;
+        this.commitInterval = commitInterval;
     }
 
     @Override
@@ -96,15 +132,34 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     }
 
     public void commitAll() {
-        if (writer != null) {
-            writer.commit();
-        }
         for (int i = 0, n = commitList.size(); i < n; i++) {
-            commitList.valueQuick(i).commit();
+            final CacheEntry e = commitList.getQuick(i);
+            commit(e);
+            e.listed = false;
         }
         commitList.clear();
     }
 
+    /**
+     * Commits tables, which have held uncommitted rows for longer than commit interval.
+     */
+    public void commitDue() {
+        final long now = commitClock.getTicks();
+        int keep = 0;
+        for (int i = 0, n = commitList.size(); i < n; i++) {
+            final CacheEntry e = commitList.getQuick(i);
+            if (e.uncommittedRows > 0 && now - e.firstUncommittedTimestamp >= commitInterval) {
+                commit(e);
+            }
+            if (e.uncommittedRows > 0) {
+                commitList.setQuick(keep++, e);
+            } else {
+                e.listed = false;
+            }
+        }
+        commitList.setPos(keep);
+    }
+
     @Override
     public void onError(int position, int state, int code) {
         clearState();
@@ -115,6 +170,7 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
 
         switch (eventType) {
             case EVT_MEASUREMENT:
+                lineSize = 0;
                 int wrtIndex = writerCache.keyIndex(token);
                 // this condition relies on the fact that this.cacheEntryIndex is always negative
                 // which indicates that entry is in cache
@@ -146,6 +202,21 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
             default:
                 break;
         }
+        // token and its separator
+        lineSize += token.length() + 1;
+    }
+
+    @Override
+    public boolean onRow(LineProtoRow row) {
+        try {
+            final CacheEntry entry = getRowEntry(row);
+            if (entry != null) {
+                appendTypedRow(entry, row);
+            }
+        } catch (CairoException e) {
+            LOG.error().$((Sinkable) e).$();
+        }
+        return true;
     }
 
     @Override
@@ -163,7 +234,8 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
         this.writer = writer;
         this.metadata = writer.getMetadata();
         this.columnCount = metadata.getColumnCount();
-        writerCache.valueAt(cacheEntryIndex).writer = writer;
+        this.entry = writerCache.valueAt(cacheEntryIndex);
+        this.entry.writer = writer;
 
         int columnCount = columnNameType.size() / 2;
         int valueCount = columnValues.size();
@@ -189,6 +261,7 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
                         , cache.get(columnValues.getQuick(i)));
             }
             row.append();
+            onRowAppended(entry, lineSize);
         } catch (BadCastException ignore) {
             row.cancel();
         }
@@ -219,11 +292,67 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
                 );
             }
             row.append();
+            onRowAppended(entry, lineSize);
         } catch (BadCastException ignore) {
             row.cancel();
         }
     }
 
+    private void appendTypedRow(CacheEntry entry, LineProtoRow row) {
+        final TableWriter writer = entry.writer;
+        final RecordMetadata metadata = writer.getMetadata();
+        final int n = row.getColumnCount();
+        rowColumnIndexes.clear();
+        for (int i = 0; i < n; i++) {
+            final CharSequence name = row.getColumnName(i);
+            final int type = row.getColumnType(i);
+            int index = metadata.getColumnIndexQuiet(name);
+            if (index == -1) {
+                // adding column commits pending rows
+                writer.addColumn(name, type);
+                index = metadata.getColumnCount() - 1;
+                entry.uncommittedRows = 0;
+                entry.uncommittedSize = 0;
+                if (writer == this.writer) {
+                    this.columnCount = metadata.getColumnCount();
+                }
+            } else if (metadata.getColumnType(index) != type) {
+                LOG.error().$("mismatched column and value types [table=").$(writer.getName())
+                        .$(", column=").$(name)
+                        .$(", columnType=").$(ColumnType.nameOf(metadata.getColumnType(index)))
+                        .$(", valueType=").$(ColumnType.nameOf(type))
+                        .$(']').$();
+                return;
+            }
+            rowColumnIndexes.add(index);
+        }
+
+        final long timestamp = row.getTimestamp();
+        final TableWriter.Row r = writer.newRow(timestamp == Numbers.LONG_NaN ? clock.getTicks() : timestamp);
+        for (int i = 0; i < n; i++) {
+            final int index = rowColumnIndexes.getQuick(i);
+            switch (row.getColumnType(i)) {
+                case ColumnType.INT:
+                    r.putInt(index, row.getInt(i));
+                    break;
+                case ColumnType.DOUBLE:
+                    r.putDouble(index, row.getDouble(i));
+                    break;
+                case ColumnType.BOOLEAN:
+                    r.putBool(index, row.getBool(i));
+                    break;
+                case ColumnType.STRING:
+                    r.putStr(index, row.getStr(i));
+                    break;
+                default:
+                    r.putSym(index, row.getStr(i));
+                    break;
+            }
+        }
+        r.append();
+        onRowAppended(entry, row.getSize());
+    }
+
     private void cacheWriter(CacheEntry entry, CachedCharSequence tableName) {
         try {
             entry.writer = engine.getWriter(cairoSecurityContext, tableName);
@@ -241,7 +370,16 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
         columnValues.clear();
     }
 
+    private void commit(CacheEntry e) {
+        if (e.uncommittedRows > 0) {
+            e.writer.commit();
+            e.uncommittedRows = 0;
+            e.uncommittedSize = 0;
+        }
+    }
+
     private void createState(CacheEntry entry) {
+        this.entry = entry;
         writer = entry.writer;
         metadata = writer.getMetadata();
         columnCount = metadata.getColumnCount();
@@ -258,6 +396,54 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
         appendFirstRowAndCacheWriter(cache);
     }
 
+    private CacheEntry getRowEntry(LineProtoRow row) {
+        final CharSequence tableName = row.getTableName();
+        final int index = writerCache.keyIndex(tableName);
+        final CacheEntry entry;
+        if (index < 0) {
+            entry = writerCache.valueAt(index);
+            if (entry.writer != null) {
+                return entry;
+            }
+        } else {
+            entry = new CacheEntry();
+            writerCache.putAt(index, Chars.stringOf(tableName), entry);
+            // map could have been rehashed, entry index of the current text table must follow
+            if (writer != null) {
+                cacheEntryIndex = writerCache.keyIndex(writer.getName());
+            }
+        }
+
+        switch (entry.state) {
+            case 0:
+                switch (engine.getStatus(cairoSecurityContext, path, tableName)) {
+                    case TABLE_EXISTS:
+                        break;
+                    case TABLE_DOES_NOT_EXIST:
+                        engine.creatTable(
+                                cairoSecurityContext,
+                                appendMemory,
+                                path,
+                                rowTableStructureAdapter.of(row)
+                        );
+                        break;
+                    default:
+                        entry.state = 3;
+                        return null;
+                }
+                entry.state = 1;
+                break;
+            case 1:
+                break;
+            default:
+                return null;
+        }
+
+        entry.writer = engine.getWriter(cairoSecurityContext, tableName);
+        LOG.info().$("cached writer [name=").$(tableName).$(']').$();
+        return entry;
+    }
+
     private int getValueType(CharSequence token) {
         int len = token.length();
         char c = token.charAt(len - 1);
@@ -313,6 +499,20 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
         }
     }
 
+    private void onRowAppended(CacheEntry e, long size) {
+        if (e.uncommittedRows++ == 0) {
+            e.firstUncommittedTimestamp = commitClock.getTicks();
+            if (!e.listed) {
+                commitList.add(e);
+                e.listed = true;
+            }
+        }
+        e.uncommittedSize += size;
+        if (e.uncommittedRows >= commitRate || e.uncommittedSize >= commitSize) {
+            commit(e);
+        }
+    }
+
     private void parseFieldName(CachedCharSequence token) {
         columnIndex = metadata.getColumnIndexQuiet(token);
         if (columnIndex == -1) {
@@ -442,14 +642,6 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     }
 
     private void switchTable(CachedCharSequence tableName, int entryIndex) {
-        if (this.cacheEntryIndex != 0) {
-            // add previous writer to commit list
-            CacheEntry e = writerCache.valueAt(cacheEntryIndex);
-            if (e.writer != null) {
-                commitList.put(e.writer.getName(), e.writer);
-            }
-        }
-
         CacheEntry entry;
         if (entryIndex < 0) {
             entry = writerCache.valueAt(entryIndex);
@@ -491,6 +683,50 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
     private static class CacheEntry {
         private TableWriter writer;
         private int state = 0;
+        private int uncommittedRows = 0;
+        private long uncommittedSize = 0;
+        private long firstUncommittedTimestamp;
+        private boolean listed = false;
+    }
+
+    private class RowTableStructureAdapter extends TableStructureAdapter {
+        private LineProtoRow row;
+
+        @Override
+        public int getColumnCount() {
+            return row.getColumnCount() + 1;
+        }
+
+        @Override
+        public CharSequence getColumnName(int columnIndex) {
+            if (columnIndex == getTimestampIndex()) {
+                return "timestamp";
+            }
+            return row.getColumnName(columnIndex);
+        }
+
+        @Override
+        public int getColumnType(int columnIndex) {
+            if (columnIndex == getTimestampIndex()) {
+                return ColumnType.TIMESTAMP;
+            }
+            return row.getColumnType(columnIndex);
+        }
+
+        @Override
+        public CharSequence getTableName() {
+            return row.getTableName();
+        }
+
+        @Override
+        public int getTimestampIndex() {
+            return row.getColumnCount();
+        }
+
+        RowTableStructureAdapter of(LineProtoRow row) {
+            this.row = row;
+            return this;
+        }
     }
 
     private class TableStructureAdapter implements TableStructure {
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.std.*;
+import io.questdb.std.str.AbstractCharSequence;
+
+import java.io.Closeable;
+
+/**
+ * Single measurement (line) in lexed form. Receivers stage tokens of the current line here and
+ * copy completed lines into writer queue slots, which are instances of the same class. Writer job
+ * replays the line into its parser, so lexing happens once, on the receiving thread.
+ * <p>
+ * Token characters are stored back to back in native memory. Cache addresses use the same
+ * encoding as {@link LineProtoLexer}, i.e. high int is the token offset and low int is offset
+ * of the character past the token terminator.
+ * <p>
+ * Event can alternatively hold typed row of binary protocol, see {@link #of(LineProtoRow)}. Then
+ * token list holds timestamp, table name address and (name address, type, value) for every column,
+ * where values of STRING and SYMBOL columns are addresses and other values are stored as is.
+ */
+public class LineMeasurementEvent implements LineProtoRow, Mutable, Closeable {
+    private final LongList tokens = new LongList();
+    private final FloatingCharSequence token = new FloatingCharSequence();
+    private final FloatingCharSequence cachedValue = new FloatingCharSequence();
+    private final CharSequenceCache cache = cachedValue::of;
+    private final FloatingCharSequence tableName = new FloatingCharSequence();
+    private long buffer;
+    private int capacity;
+    private int size;
+    private int tableNameHash;
+    private boolean typed = false;
+    private int rowSize;
+
+    public LineMeasurementEvent(int capacity) {
+        this.capacity = capacity;
+        this.buffer = Unsafe.malloc(capacity);
+    }
+
+    public void addToken(int type, CharSequence value) {
+        tokens.add(type);
+        tokens.add(addChars(value));
+        if (type == LineProtoParser.EVT_MEASUREMENT) {
+            tableNameHash = Chars.hashCode(value);
+        }
+    }
+
+    @Override
+    public void clear() {
+        tokens.clear();
+        size = 0;
+        tableNameHash = 0;
+        typed = false;
+    }
+
+    @Override
+    public void close() {
+        if (buffer != 0) {
+            Unsafe.free(buffer, capacity);
+            buffer = 0;
+        }
+    }
+
+    public void copyFrom(LineMeasurementEvent that) {
+        ensureCapacity(that.size);
+        Unsafe.getUnsafe().copyMemory(that.buffer, buffer, that.size);
+        size = that.size;
+        tokens.clear();
+        tokens.add(that.tokens);
+        tableNameHash = that.tableNameHash;
+        typed = that.typed;
+        rowSize = that.rowSize;
+    }
+
+    @Override
+    public boolean getBool(int index) {
+        return getValue(index) != 0;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return (tokens.size() - 2) / 3;
+    }
+
+    @Override
+    public CharSequence getColumnName(int index) {
+        return token.of(tokens.getQuick(2 + index * 3));
+    }
+
+    @Override
+    public int getColumnType(int index) {
+        return (int) tokens.getQuick(3 + index * 3);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return Double.longBitsToDouble(getValue(index));
+    }
+
+    @Override
+    public int getInt(int index) {
+        return (int) getValue(index);
+    }
+
+    @Override
+    public int getSize() {
+        return rowSize;
+    }
+
+    @Override
+    public CharSequence getStr(int index) {
+        return cachedValue.of(getValue(index));
+    }
+
+    @Override
+    public CharSequence getTableName() {
+        return tableName.of(tokens.getQuick(1));
+    }
+
+    public int getTableNameHash() {
+        return tableNameHash;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return tokens.getQuick(0);
+    }
+
+    public boolean isEmpty() {
+        return tokens.size() == 0;
+    }
+
+    /**
+     * Stages typed row.
+     *
+     * @param row row to copy, it can be reused as soon as this method returns
+     */
+    public void of(LineProtoRow row) {
+        clear();
+        typed = true;
+        rowSize = row.getSize();
+        final CharSequence tableName = row.getTableName();
+        tokens.add(row.getTimestamp());
+        tokens.add(addChars(tableName));
+        tableNameHash = Chars.hashCode(tableName);
+        for (int i = 0, n = row.getColumnCount(); i < n; i++) {
+            final int type = row.getColumnType(i);
+            tokens.add(addChars(row.getColumnName(i)));
+            tokens.add(type);
+            switch (type) {
+                case ColumnType.BOOLEAN:
+                    tokens.add(row.getBool(i) ? 1 : 0);
+                    break;
+                case ColumnType.INT:
+                    tokens.add(row.getInt(i));
+                    break;
+                case ColumnType.DOUBLE:
+                    tokens.add(Double.doubleToRawLongBits(row.getDouble(i)));
+                    break;
+                default:
+                    tokens.add(addChars(row.getStr(i)));
+                    break;
+            }
+        }
+    }
+
+    public void replay(CairoLineProtoParser parser) {
+        if (typed) {
+            parser.onRow(this);
+            return;
+        }
+        for (int i = 0, n = tokens.size(); i < n; i += 2) {
+            parser.onEvent(token.of(tokens.getQuick(i + 1)), (int) tokens.getQuick(i), cache);
+        }
+        parser.onLineEnd(cache);
+    }
+
+    private long addChars(CharSequence value) {
+        final int len = value.length();
+        ensureCapacity(size + len * 2);
+        long p = buffer + size;
+        for (int i = 0; i < len; i++) {
+            Unsafe.getUnsafe().putChar(p, value.charAt(i));
+            p += 2;
+        }
+        final long address = Numbers.encodeLowHighInts(size + len * 2 + 2, size);
+        size += len * 2;
+        return address;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > capacity) {
+            final int newCapacity = Math.max(capacity * 2, required);
+            final long buf = Unsafe.malloc(newCapacity);
+            Unsafe.getUnsafe().copyMemory(buffer, buf, size);
+            Unsafe.free(buffer, capacity);
+            buffer = buf;
+            capacity = newCapacity;
+        }
+    }
+
+    private long getValue(int index) {
+        return tokens.getQuick(4 + index * 3);
+    }
+
+    private class FloatingCharSequence extends AbstractCharSequence implements CachedCharSequence {
+        private long address;
+        private long lo;
+        private long hi;
+
+        @Override
+        public char charAt(int index) {
+            return Unsafe.getUnsafe().getChar(lo + index * 2L);
+        }
+
+        @Override
+        public long getCacheAddress() {
+            return address;
+        }
+
+        @Override
+        public int length() {
+            return (int) (hi - lo) / 2;
+        }
+
+        FloatingCharSequence of(long address) {
+            this.address = address;
+            this.lo = buffer + Numbers.decodeHighInt(address);
+            this.hi = buffer + Numbers.decodeLowInt(address) - 2;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoSecurityContext;
+import io.questdb.mp.Job;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Routes lexed measurements to writer jobs by table name hash. There is one writer job per
+ * worker, so writers for different tables are spread across workers while every table is
+ * always written from the same thread.
+ */
+public class LineMeasurementScheduler implements Closeable {
+    private final ObjList<LineWriterJob> writerJobs = new ObjList<>();
+
+    public LineMeasurementScheduler(
+            WorkerPool pool,
+            int queueCapacity,
+            int bufferSize,
+            int commitRate,
+            long commitSize,
+            long commitInterval,
+            CairoEngine engine,
+            CairoSecurityContext securityContext
+    ) {
+        for (int i = 0, n = pool.getWorkerCount(); i < n; i++) {
+            final LineWriterJob writerJob = new LineWriterJob(
+                    queueCapacity,
+                    bufferSize,
+                    commitRate,
+                    commitSize,
+                    commitInterval,
+                    engine,
+                    securityContext
+            );
+            writerJobs.add(writerJob);
+            pool.assign(i, (Job) writerJob);
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(writerJobs);
+    }
+
+    /**
+     * Copies measurement into queue of the writer job that owns its table.
+     *
+     * @param event lexed measurement, it can be reused as soon as this method returns
+     * @return false when writer queue is full, in which case measurement is not published
+     */
+    public boolean publish(LineMeasurementEvent event) {
+        return writerJobs.getQuick((event.getTableNameHash() & Integer.MAX_VALUE) % writerJobs.size()).publish(event);
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import java.io.Closeable;
+
+/**
+ * Transport used by {@link BatchingLineProtoSender} to deliver line protocol text. Methods are
+ * called from sender's background thread only.
+ */
+public interface LineProtoChannel extends Closeable {
+
+    @Override
+    void close();
+
+    /**
+     * Establishes connection, the call is repeated until it succeeds.
+     *
+     * @return true when channel is ready to send
+     */
+    boolean connect();
+
+    /**
+     * @return maximum number of bytes send() can deliver at once. Sender never passes more and
+     * cuts bytes on line boundaries when it has to.
+     */
+    int getMaxSendSize();
+
+    boolean isConnected();
+
+    /**
+     * @param lo  address of the first byte
+     * @param len number of bytes to send
+     * @return number of bytes sent or -1 on error. Channel that is still connected after error
+     * has lost these bytes, otherwise sender resends them after reconnect.
+     */
+    int send(long lo, int len);
+}
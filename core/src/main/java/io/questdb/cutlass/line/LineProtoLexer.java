@@ -58,6 +58,7 @@ public class LineProtoLexer implements Mutable, Closeable {
     private long utf8ErrorTop;
     private long utf8ErrorPos;
     private int errorCode = 0;
+    private boolean paused = false;
 
     public LineProtoLexer(int bufferSize) {
         buffer = Unsafe.malloc(bufferSize);
@@ -85,8 +86,9 @@ public class LineProtoLexer implements Mutable, Closeable {
      *
      * @param bytesPtr byte array address
      * @param hi       high watermark for byte array address
+     * @return address of the first byte that has not been parsed, which is hi unless parser paused lexer
      */
-    public void parse(long bytesPtr, long hi) {
+    public long parse(long bytesPtr, long hi) {
         long p = bytesPtr;
 
         while (p < hi) {
@@ -140,6 +142,11 @@ public class LineProtoLexer implements Mutable, Closeable {
                     case '\n':
                     case '\r':
                         consumeLineEnd();
+                        if (paused) {
+                            paused = false;
+                            dstTop = dstPos;
+                            return p;
+                        }
                         break;
                     default:
                         // normal byte
@@ -151,6 +158,7 @@ public class LineProtoLexer implements Mutable, Closeable {
                 parser.onError((int) (dstPos - 2 - buffer) / 2, state, errorCode);
             }
         }
+        return p;
     }
 
     public void parseLast() {
@@ -163,6 +171,17 @@ public class LineProtoLexer implements Mutable, Closeable {
             }
         }
         clear();
+        // there is nothing left to stop parsing of
+        paused = false;
+    }
+
+    /**
+     * Stops {@link #parse(long, long)} right after the line that is being ended. Parser calls
+     * this from {@link LineProtoParser#onLineEnd(CharSequenceCache)} when it cannot accept
+     * more lines for the time being.
+     */
+    public void pause() {
+        paused = true;
     }
 
     public void withParser(LineProtoParser parser) {
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+/**
+ * Measurement with typed values. Unlike lexed lines, rows do not require values to be parsed
+ * or their types to be guessed. Rows are produced by {@link BinaryLineProtoDecoder}.
+ */
+public interface LineProtoRow {
+
+    boolean getBool(int index);
+
+    int getColumnCount();
+
+    CharSequence getColumnName(int index);
+
+    /**
+     * @param index column index
+     * @return one of ColumnType.BOOLEAN, INT, DOUBLE, STRING or SYMBOL
+     */
+    int getColumnType(int index);
+
+    double getDouble(int index);
+
+    int getInt(int index);
+
+    /**
+     * @return size of the row in bytes as it was received
+     */
+    int getSize();
+
+    /**
+     * @param index column index
+     * @return value of STRING or SYMBOL column
+     */
+    CharSequence getStr(int index);
+
+    CharSequence getTableName();
+
+    /**
+     * @return timestamp in microseconds or Numbers.LONG_NaN when receiver should assign one
+     */
+    long getTimestamp();
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.std.time.MillisecondClock;
+
+public interface LineProtoSenderConfiguration {
+
+    /**
+     * @return number of pending bytes, which makes background thread send them without waiting
+     * for flush interval
+     */
+    int getBatchSize();
+
+    /**
+     * Size of the buffer rows are written to, rounded up to a power of 2. Rows cannot be
+     * longer than half of the buffer.
+     *
+     * @return buffer capacity in bytes
+     */
+    int getBufferCapacity();
+
+    /**
+     * @return maximum time in milliseconds rows can wait in the buffer before they are sent
+     */
+    long getFlushInterval();
+
+    MillisecondClock getMillisecondClock();
+
+    /**
+     * @return time in milliseconds between attempts to re-establish lost connection
+     */
+    long getReconnectInterval();
+
+    int getWorkerAffinity();
+
+    /**
+     * When buffer is full, rows can either wait for background thread to make room or be
+     * dropped, which keeps producer latency flat while receiver is slow or unreachable.
+     *
+     * @return true to drop rows
+     */
+    boolean isDropOnFull();
+}
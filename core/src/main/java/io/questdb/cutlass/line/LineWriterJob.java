@@ -0,0 +1,107 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoSecurityContext;
+import io.questdb.mp.Job;
+import io.questdb.mp.MPSequence;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.Misc;
+
+import java.io.Closeable;
+
+/**
+ * Owns table writers for a subset of tables. Every measurement of a table is routed to the same
+ * job, which means writers are never contended for and never change hands between threads.
+ */
+public class LineWriterJob implements Job, Closeable {
+    private final RingQueue<LineMeasurementEvent> queue;
+    private final MPSequence pubSeq;
+    private final SCSequence subSeq = new SCSequence();
+    private final CairoLineProtoParser parser;
+
+    public LineWriterJob(
+            int queueCapacity,
+            int bufferSize,
+            int commitRate,
+            long commitSize,
+            long commitInterval,
+            CairoEngine engine,
+            CairoSecurityContext securityContext
+    ) {
+        this.queue = new RingQueue<>(() -> new LineMeasurementEvent(bufferSize), queueCapacity);
+        this.pubSeq = new MPSequence(queueCapacity);
+        this.pubSeq.then(subSeq).then(pubSeq);
+        this.parser = new CairoLineProtoParser(engine, securityContext, commitRate, commitSize, commitInterval);
+    }
+
+    @Override
+    public void close() {
+        // drain what has been published before writers are released
+        run();
+        parser.commitAll();
+        Misc.free(parser);
+        for (int i = 0, n = queue.getCapacity(); i < n; i++) {
+            Misc.free(queue.get(i));
+        }
+    }
+
+    @Override
+    public boolean run() {
+        boolean useful = false;
+        long cursor;
+        while ((cursor = subSeq.next()) > -1) {
+            try {
+                queue.get(cursor).replay(parser);
+            } finally {
+                subSeq.done(cursor);
+            }
+            useful = true;
+        }
+        parser.commitDue();
+        return useful;
+    }
+
+    boolean publish(LineMeasurementEvent event) {
+        long cursor;
+        do {
+            cursor = pubSeq.next();
+        } while (cursor == -2);
+
+        if (cursor < 0) {
+            return false;
+        }
+
+        try {
+            queue.get(cursor).copyFrom(event);
+        } finally {
+            pubSeq.done(cursor);
+        }
+        return true;
+    }
+}
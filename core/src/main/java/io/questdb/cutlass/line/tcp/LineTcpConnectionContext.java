@@ -0,0 +1,197 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cutlass.line.*;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.IOContext;
+import io.questdb.network.NetworkFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+
+/**
+ * Reads line protocol from TCP connection. When writer queue for the current line's table is full
+ * the lexer is paused after that line and connection stops reading until the line is published.
+ * Partially received lines stay in the lexer between reads.
+ * <p>
+ * Connection, which starts with {@link BinaryLineProtoDecoder#MAGIC}, sends binary rows for its
+ * lifetime. Binary rows are decoded once they are received in full, incomplete row is kept at
+ * the start of receive buffer, which limits row size to the size of the buffer.
+ */
+public class LineTcpConnectionContext implements IOContext, LineProtoParser, LineProtoRowParser, Mutable {
+    static final int STATUS_NEEDS_READ = 0;
+    static final int STATUS_QUEUE_FULL = 1;
+    static final int STATUS_DISCONNECTED = 2;
+    private static final int PROTOCOL_UNKNOWN = 0;
+    private static final int PROTOCOL_TEXT = 1;
+    private static final int PROTOCOL_BINARY = 2;
+    private static final Log LOG = LogFactory.getLog(LineTcpConnectionContext.class);
+    private final NetworkFacade nf;
+    private final LineMeasurementScheduler scheduler;
+    private final LineProtoLexer lexer;
+    private final BinaryLineProtoDecoder decoder = new BinaryLineProtoDecoder();
+    private final LineMeasurementEvent staging;
+    private final long recvBuffer;
+    private final int recvBufferSize;
+    private long fd = -1;
+    private int recvBufferPos;
+    private int recvBufferLimit;
+    private boolean pendingLine;
+    private int protocol;
+
+    public LineTcpConnectionContext(LineTcpReceiverConfiguration configuration, LineMeasurementScheduler scheduler) {
+        this.nf = configuration.getNetworkFacade();
+        this.scheduler = scheduler;
+        this.recvBufferSize = configuration.getMsgBufferSize();
+        this.recvBuffer = Unsafe.malloc(recvBufferSize);
+        this.lexer = new LineProtoLexer(recvBufferSize);
+        this.lexer.withParser(this);
+        this.staging = new LineMeasurementEvent(recvBufferSize);
+    }
+
+    @Override
+    public void clear() {
+        lexer.clear();
+        decoder.clear();
+        staging.clear();
+        recvBufferPos = recvBufferLimit = 0;
+        pendingLine = false;
+        protocol = PROTOCOL_UNKNOWN;
+    }
+
+    @Override
+    public void close() {
+        this.fd = -1;
+        Unsafe.free(recvBuffer, recvBufferSize);
+        Misc.free(lexer);
+        Misc.free(staging);
+    }
+
+    @Override
+    public long getFd() {
+        return fd;
+    }
+
+    @Override
+    public boolean invalid() {
+        return fd == -1;
+    }
+
+    public LineTcpConnectionContext of(long clientFd) {
+        this.fd = clientFd;
+        clear();
+        return this;
+    }
+
+    @Override
+    public void onError(int position, int state, int code) {
+        LOG.error().$("could not parse line [fd=").$(fd).$(", position=").$(position).$(", state=").$(state).$(", code=").$(code).$(']').$();
+        staging.clear();
+    }
+
+    @Override
+    public void onEvent(CachedCharSequence token, int type, CharSequenceCache cache) {
+        staging.addToken(type, token);
+    }
+
+    @Override
+    public void onLineEnd(CharSequenceCache cache) {
+        if (scheduler.publish(staging)) {
+            staging.clear();
+        } else {
+            pendingLine = true;
+            lexer.pause();
+        }
+    }
+
+    @Override
+    public boolean onRow(LineProtoRow row) {
+        staging.of(row);
+        if (scheduler.publish(staging)) {
+            staging.clear();
+            return true;
+        }
+        pendingLine = true;
+        return false;
+    }
+
+    int handleIO() {
+        if (pendingLine) {
+            if (!scheduler.publish(staging)) {
+                return STATUS_QUEUE_FULL;
+            }
+            staging.clear();
+            pendingLine = false;
+        }
+
+        while (true) {
+            if (recvBufferPos < recvBufferLimit) {
+                final long lo = recvBuffer + recvBufferPos;
+                final long hi = recvBuffer + recvBufferLimit;
+                if (protocol == PROTOCOL_UNKNOWN) {
+                    protocol = Unsafe.getUnsafe().getByte(lo) == BinaryLineProtoDecoder.MAGIC ? PROTOCOL_BINARY : PROTOCOL_TEXT;
+                }
+
+                final long p = protocol == PROTOCOL_BINARY ? decoder.decode(lo, hi, this) : lexer.parse(lo, hi);
+                if (p == -1) {
+                    LOG.error().$("malformed binary row [fd=").$(fd).$(']').$();
+                    return STATUS_DISCONNECTED;
+                }
+
+                recvBufferPos = (int) (p - recvBuffer);
+                if (pendingLine) {
+                    return STATUS_QUEUE_FULL;
+                }
+            }
+
+            // only incomplete binary row can remain, lexer consumes everything
+            final int remaining = recvBufferLimit - recvBufferPos;
+            if (remaining > 0) {
+                if (remaining == recvBufferSize) {
+                    LOG.error().$("binary row is too long [fd=").$(fd).$(", bufferSize=").$(recvBufferSize).$(']').$();
+                    return STATUS_DISCONNECTED;
+                }
+                Unsafe.getUnsafe().copyMemory(recvBuffer + recvBufferPos, recvBuffer, remaining);
+            }
+            recvBufferPos = 0;
+            recvBufferLimit = remaining;
+
+            final int n = nf.recv(fd, recvBuffer + remaining, recvBufferSize - remaining);
+            if (n < 0) {
+                LOG.info().$("peer disconnected [fd=").$(fd).$(']').$();
+                return STATUS_DISCONNECTED;
+            }
+
+            if (n == 0) {
+                return STATUS_NEEDS_READ;
+            }
+
+            recvBufferLimit += n;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.network.IODispatcherConfiguration;
+import io.questdb.network.NetworkFacade;
+
+public interface LineTcpReceiverConfiguration {
+
+    /**
+     * @return maximum time in milliseconds a table can hold uncommitted rows before it is committed
+     */
+    long getCommitInterval();
+
+    /**
+     * @return number of uncommitted rows in a table, which triggers its commit
+     */
+    int getCommitRate();
+
+    /**
+     * @return number of uncommitted bytes of line protocol text in a table, which triggers its commit
+     */
+    long getCommitSize();
+
+    int getConnectionPoolInitialCapacity();
+
+    IODispatcherConfiguration getDispatcherConfiguration();
+
+    /**
+     * Size of per-connection receive buffer. Lexer and measurement buffers start at this size
+     * and grow to accommodate longer lines.
+     *
+     * @return receive buffer size in bytes
+     */
+    int getMsgBufferSize();
+
+    NetworkFacade getNetworkFacade();
+
+    int[] getWorkerAffinity();
+
+    int getWorkerCount();
+
+    /**
+     * Capacity of the queue in front of each writer job. Must be a power of 2. Connections
+     * that find their queue full stop reading from the socket until the writer catches up.
+     *
+     * @return writer queue capacity
+     */
+    int getWriterQueueCapacity();
+
+    boolean isEnabled();
+
+    boolean workerHaltOnError();
+}
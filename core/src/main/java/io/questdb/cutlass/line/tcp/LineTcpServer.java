@@ -0,0 +1,270 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cutlass.line.LineMeasurementScheduler;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.*;
+import io.questdb.network.*;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.ThreadLocal;
+import io.questdb.std.WeakObjectPool;
+import io.questdb.std.time.MillisecondClock;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Line protocol over TCP. Connections are lexed on IO jobs, which run on every worker. Lexed
+ * lines are routed to writer jobs by {@link LineMeasurementScheduler}. Connections, which find
+ * writer queue full, are parked outside of dispatcher and retried on a timer.
+ */
+public class LineTcpServer implements Closeable {
+    private static final Log LOG = LogFactory.getLog(LineTcpServer.class);
+    // milliseconds between attempts to publish lines of parked connections
+    private static final long QUEUE_FULL_RETRY_INTERVAL = 1;
+    private final IODispatcher<LineTcpConnectionContext> dispatcher;
+    private final LineTcpConnectionContextFactory contextFactory;
+    private final LineMeasurementScheduler scheduler;
+    private final ParkedConnectionJob parkedConnectionJob;
+    private final WorkerPool workerPool;
+
+    public LineTcpServer(
+            LineTcpReceiverConfiguration configuration,
+            CairoEngine engine,
+            WorkerPool pool,
+            boolean localPool
+    ) {
+        if (localPool) {
+            workerPool = pool;
+        } else {
+            workerPool = null;
+        }
+        this.scheduler = new LineMeasurementScheduler(
+                pool,
+                configuration.getWriterQueueCapacity(),
+                configuration.getMsgBufferSize(),
+                configuration.getCommitRate(),
+                configuration.getCommitSize(),
+                configuration.getCommitInterval(),
+                engine,
+                AllowAllCairoSecurityContext.INSTANCE
+        );
+        this.contextFactory = new LineTcpConnectionContextFactory(configuration, scheduler);
+        this.dispatcher = IODispatchers.create(
+                configuration.getDispatcherConfiguration(),
+                contextFactory
+        );
+
+        this.parkedConnectionJob = new ParkedConnectionJob(configuration.getDispatcherConfiguration());
+
+        pool.assign(dispatcher);
+        // parked connections are consumed by single thread
+        pool.assign(0, (Job) parkedConnectionJob);
+
+        final IORequestProcessor<LineTcpConnectionContext> processor = (operation, context, dispatcher) -> onStatus(context, context.handleIO());
+
+        for (int i = 0, n = pool.getWorkerCount(); i < n; i++) {
+            pool.assign(i, (Job) () -> dispatcher.processIOQueue(processor));
+            // context factory has thread local pools
+            // therefore we need each thread to clean their thread locals individually
+            pool.assign(i, contextFactory::closeContextPool);
+        }
+    }
+
+    @Nullable
+    public static LineTcpServer create(LineTcpReceiverConfiguration configuration, WorkerPool workerPool, Log log, CairoEngine cairoEngine) {
+        LineTcpServer lineTcpServer;
+        if (configuration.isEnabled()) {
+            final WorkerPool localPool;
+            if (configuration.getWorkerCount() > 0) {
+                localPool = new WorkerPool(new WorkerPoolConfiguration() {
+                    @Override
+                    public int[] getWorkerAffinity() {
+                        return configuration.getWorkerAffinity();
+                    }
+
+                    @Override
+                    public int getWorkerCount() {
+                        return configuration.getWorkerCount();
+                    }
+
+                    @Override
+                    public boolean haltOnError() {
+                        return configuration.workerHaltOnError();
+                    }
+                });
+            } else {
+                localPool = workerPool;
+            }
+
+            lineTcpServer = new LineTcpServer(configuration, cairoEngine, localPool, localPool != workerPool);
+
+            if (localPool != workerPool) {
+                localPool.start(log);
+            }
+        } else {
+            lineTcpServer = null;
+        }
+        return lineTcpServer;
+    }
+
+    @Override
+    public void close() {
+        // workers of local pool replay events and use writers of the scheduler
+        if (workerPool != null) {
+            workerPool.halt();
+        }
+        parkedConnectionJob.close();
+        Misc.free(contextFactory);
+        Misc.free(dispatcher);
+        Misc.free(scheduler);
+    }
+
+    private void onStatus(LineTcpConnectionContext context, int status) {
+        switch (status) {
+            case LineTcpConnectionContext.STATUS_NEEDS_READ:
+                dispatcher.registerChannel(context, IOOperation.READ);
+                break;
+            case LineTcpConnectionContext.STATUS_QUEUE_FULL:
+                // neither socket read nor write interest would wait for the writer,
+                // they would have IO jobs spinning until writer catches up
+                parkedConnectionJob.park(context);
+                break;
+            default:
+                dispatcher.disconnect(context);
+                break;
+        }
+    }
+
+    private static class LineTcpConnectionContextFactory implements IOContextFactory<LineTcpConnectionContext>, Closeable, EagerThreadSetup {
+        private final ThreadLocal<WeakObjectPool<LineTcpConnectionContext>> contextPool;
+        private boolean closed = false;
+
+        public LineTcpConnectionContextFactory(LineTcpReceiverConfiguration configuration, LineMeasurementScheduler scheduler) {
+            this.contextPool = new ThreadLocal<>(() -> new WeakObjectPool<>(() ->
+                    new LineTcpConnectionContext(configuration, scheduler), configuration.getConnectionPoolInitialCapacity()));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public LineTcpConnectionContext newInstance(long fd) {
+            return contextPool.get().pop().of(fd);
+        }
+
+        @Override
+        public void done(LineTcpConnectionContext context) {
+            if (closed) {
+                Misc.free(context);
+            } else {
+                context.of(-1);
+                contextPool.get().push(context);
+                LOG.info().$("pushed").$();
+            }
+        }
+
+        @Override
+        public void setup() {
+            contextPool.get();
+        }
+
+        private void closeContextPool() {
+            Misc.free(this.contextPool.get());
+            LOG.info().$("closed").$();
+        }
+    }
+
+    private class ParkedConnectionJob implements Job, Closeable {
+        private final RingQueue<IOEvent<LineTcpConnectionContext>> queue;
+        private final MPSequence pubSeq;
+        private final SCSequence subSeq = new SCSequence();
+        private final QueueConsumer<IOEvent<LineTcpConnectionContext>> parkRef = this::addParked;
+        private final ObjList<LineTcpConnectionContext> parked = new ObjList<>();
+        private final MillisecondClock clock;
+        private long nextRetry;
+
+        private ParkedConnectionJob(IODispatcherConfiguration configuration) {
+            // connection is either registered with dispatcher or parked, never both
+            this.queue = new RingQueue<>(IOEvent::new, Numbers.ceilPow2(configuration.getActiveConnectionLimit()));
+            this.pubSeq = new MPSequence(queue.getCapacity());
+            this.pubSeq.then(subSeq).then(pubSeq);
+            this.clock = configuration.getClock();
+        }
+
+        @Override
+        public void close() {
+            subSeq.consumeAll(queue, parkRef);
+            for (int i = 0, n = parked.size(); i < n; i++) {
+                dispatcher.disconnect(parked.getQuick(i));
+            }
+            parked.clear();
+        }
+
+        @Override
+        public boolean run() {
+            subSeq.consumeAll(queue, parkRef);
+            if (parked.size() == 0) {
+                return false;
+            }
+
+            final long now = clock.getTicks();
+            if (now < nextRetry) {
+                return false;
+            }
+            nextRetry = now + QUEUE_FULL_RETRY_INTERVAL;
+
+            for (int i = parked.size() - 1; i > -1; i--) {
+                final LineTcpConnectionContext context = parked.getQuick(i);
+                final int status = context.handleIO();
+                if (status != LineTcpConnectionContext.STATUS_QUEUE_FULL) {
+                    parked.remove(i);
+                    onStatus(context, status);
+                }
+            }
+            return true;
+        }
+
+        private void addParked(IOEvent<LineTcpConnectionContext> event) {
+            parked.add(event.context);
+            event.context = null;
+        }
+
+        private void park(LineTcpConnectionContext context) {
+            final long cursor = pubSeq.nextBully();
+            queue.get(cursor).context = context;
+            pubSeq.done(cursor);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cutlass.line.LineProtoChannel;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.NetworkFacade;
+
+/**
+ * Streams line protocol text over TCP connection. Connection is established lazily and is
+ * closed on the first error, sender then reconnects and resends lines that were not
+ * sent in full.
+ */
+public class TcpLineProtoChannel implements LineProtoChannel {
+    private static final Log LOG = LogFactory.getLog(TcpLineProtoChannel.class);
+    private final NetworkFacade nf;
+    private final long sockaddr;
+    private final int ipv4Address;
+    private final int port;
+    private long fd = -1;
+
+    public TcpLineProtoChannel(NetworkFacade nf, int ipv4Address, int port) {
+        this.nf = nf;
+        this.ipv4Address = ipv4Address;
+        this.port = port;
+        this.sockaddr = nf.sockaddr(ipv4Address, port);
+    }
+
+    @Override
+    public void close() {
+        disconnect();
+        nf.freeSockAddr(sockaddr);
+    }
+
+    @Override
+    public boolean connect() {
+        fd = nf.socketTcp(true);
+        if (fd == -1) {
+            LOG.error().$("could not create TCP socket [errno=").$(nf.errno()).$(']').$();
+            return false;
+        }
+
+        if (nf.connect(fd, sockaddr) != 0) {
+            LOG.error().$("could not connect [ip=").$ip(ipv4Address).$(", port=").$(port).$(", errno=").$(nf.errno()).$(']').$();
+            disconnect();
+            return false;
+        }
+
+        LOG.info().$("connected [ip=").$ip(ipv4Address).$(", port=").$(port).$(", fd=").$(fd).$(']').$();
+        return true;
+    }
+
+    @Override
+    public int getMaxSendSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return fd != -1;
+    }
+
+    @Override
+    public int send(long lo, int len) {
+        final int n = nf.send(fd, lo, len);
+        if (n < 0) {
+            LOG.error().$("could not send, disconnecting [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+            disconnect();
+        }
+        return n;
+    }
+
+    private void disconnect() {
+        if (fd != -1) {
+            nf.close(fd, LOG);
+            fd = -1;
+        }
+    }
+}
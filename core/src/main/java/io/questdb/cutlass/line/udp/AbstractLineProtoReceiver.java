@@ -0,0 +1,334 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.udp;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CairoSecurityContext;
+import io.questdb.cutlass.line.*;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.Job;
+import io.questdb.network.NetworkFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+import io.questdb.std.time.MillisecondClock;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * UDP socket and lexer shared by platform specific receivers. Receiver either writes rows
+ * itself or, when constructed with {@link LineMeasurementScheduler}, hands lexed lines over
+ * to writer jobs. When writer queue is full the lexer is paused and receiver stops reading
+ * until the line is published, leaving the following datagrams in socket receive buffer.
+ * <p>
+ * Datagrams, which start with {@link BinaryLineProtoDecoder#MAGIC}, carry binary rows rather
+ * than text lines.
+ */
+public abstract class AbstractLineProtoReceiver implements Closeable, Job, LineProtoParser, LineProtoRowParser {
+    private static final Log LOG = LogFactory.getLog(AbstractLineProtoReceiver.class);
+    private static final long STATS_INTERVAL = 1000;
+    protected final NetworkFacade nf;
+    protected final LineProtoLexer lexer;
+    private final BinaryLineProtoDecoder decoder = new BinaryLineProtoDecoder();
+    protected long fd;
+    private final CairoLineProtoParser parser;
+    private final LineMeasurementScheduler scheduler;
+    private final LineMeasurementEvent staging;
+    private final MillisecondClock clock;
+    private boolean pendingLine = false;
+    private boolean binary = false;
+    private long packetCount = 0;
+    private long lineCount = 0;
+    private long droppedLineCount = 0;
+    private long queueFullCount = 0;
+    private long statsTimestamp;
+    private long statsLineCount = 0;
+    private long rowsPerSecond = 0;
+
+    public AbstractLineProtoReceiver(
+            LineUdpReceiverConfiguration receiverCfg,
+            CairoEngine engine,
+            CairoSecurityContext cairoSecurityContext,
+            @Nullable LineMeasurementScheduler scheduler
+    ) {
+        this.nf = receiverCfg.getNetworkFacade();
+        this.clock = engine.getConfiguration().getMillisecondClock();
+        this.statsTimestamp = clock.getTicks();
+
+        fd = nf.socketUdp();
+        if (fd < 0) {
+            int errno = nf.errno();
+            LOG.error().$("cannot open UDP socket [errno=").$(errno).$(']').$();
+            throw CairoException.instance(errno).put("Cannot open UDP socket");
+        }
+
+        try {
+            // receivers sharing the port each get a subset of unicast datagrams
+            if (receiverCfg.getReceiverCount() > 1 && nf.setReusePort(fd) != 0) {
+                int errno = nf.errno();
+                LOG.error().$("cannot set SO_REUSEPORT [errno=").$(errno).$(", fd=").$(fd).$(']').$();
+                throw CairoException.instance(errno).put("Cannot set SO_REUSEPORT");
+            }
+
+            // when listening for multicast packets bind address must be 0
+            if (nf.bindUdp(fd, 0, receiverCfg.getPort())) {
+                if (nf.join(fd, receiverCfg.getBindIPv4Address(), receiverCfg.getGroupIPv4Address())) {
+                    if (receiverCfg.getReceiveBufferSize() != -1 && nf.setRcvBuf(fd, receiverCfg.getReceiveBufferSize()) != 0) {
+                        LOG.error().$("cannot set receive buffer size [fd=").$(fd).$(", size=").$(receiverCfg.getReceiveBufferSize()).$(']').$();
+                    }
+                } else {
+                    int errno = nf.errno();
+                    LOG.error().$("cannot join group [errno=").$(errno).$(", fd=").$(fd).$(", bind=").$(receiverCfg.getBindIPv4Address()).$(", group=").$(receiverCfg.getGroupIPv4Address()).$(']').$();
+                    throw CairoException.instance(nf.errno()).put("Cannot join group ").put(receiverCfg.getGroupIPv4Address()).put(" [bindTo=").put(receiverCfg.getBindIPv4Address()).put(']');
+                }
+            } else {
+                int errno = nf.errno();
+                LOG.error().$("cannot bind socket [errno=").$(errno).$(", fd=").$(fd).$(", bind=").$(receiverCfg.getBindIPv4Address()).$(", port=").$(receiverCfg.getPort()).$(']').$();
+                throw CairoException.instance(nf.errno()).put("Cannot bind to ").put(receiverCfg.getBindIPv4Address()).put(':').put(receiverCfg.getPort());
+            }
+        } catch (CairoException e) {
+            close();
+            throw e;
+        }
+
+        this.lexer = new LineProtoLexer(receiverCfg.getMsgBufferSize());
+        this.lexer.withParser(this);
+        this.scheduler = scheduler;
+        if (scheduler == null) {
+            this.parser = new CairoLineProtoParser(
+                    engine,
+                    cairoSecurityContext,
+                    receiverCfg.getCommitRate(),
+                    receiverCfg.getCommitSize(),
+                    receiverCfg.getCommitInterval()
+            );
+            this.staging = null;
+        } else {
+            this.parser = null;
+            this.staging = new LineMeasurementEvent(receiverCfg.getMsgBufferSize());
+        }
+
+        LOG.info()
+                .$("started [fd=").$(fd)
+                .$(", bind=").$(receiverCfg.getBindIPv4Address())
+                .$(", group=").$(receiverCfg.getGroupIPv4Address())
+                .$(", port=").$(receiverCfg.getPort())
+                .$(", commitRate=").$(receiverCfg.getCommitRate())
+                .$(", commitSize=").$(receiverCfg.getCommitSize())
+                .$(", commitInterval=").$(receiverCfg.getCommitInterval())
+                .$(", scheduled=").$(scheduler != null)
+                .$(']').$();
+    }
+
+    @Override
+    public void close() {
+        if (fd > -1) {
+            if (nf.close(fd) != 0) {
+                LOG.error().$("failed to close [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+            } else {
+                LOG.info().$("closed [fd=").$(fd).$(']').$();
+            }
+            if (parser != null) {
+                parser.commitAll();
+                parser.close();
+            }
+            Misc.free(staging);
+            Misc.free(lexer);
+            fd = -1;
+        }
+    }
+
+    /**
+     * @return number of lines that could not be parsed
+     */
+    public long getDroppedLineCount() {
+        return droppedLineCount;
+    }
+
+    /**
+     * @return number of lines accepted
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return number of datagrams received
+     */
+    public long getPacketCount() {
+        return packetCount;
+    }
+
+    /**
+     * @return number of times receiver had to stop reading because writer queue was full
+     */
+    public long getQueueFullCount() {
+        return queueFullCount;
+    }
+
+    /**
+     * @return rows accepted per second, measured over the last complete stats interval
+     */
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    @Override
+    public void onError(int position, int state, int code) {
+        droppedLineCount++;
+        if (parser != null) {
+            parser.onError(position, state, code);
+        } else {
+            staging.clear();
+        }
+    }
+
+    @Override
+    public void onEvent(CachedCharSequence token, int type, CharSequenceCache cache) {
+        if (parser != null) {
+            parser.onEvent(token, type, cache);
+        } else {
+            staging.addToken(type, token);
+        }
+    }
+
+    @Override
+    public void onLineEnd(CharSequenceCache cache) {
+        lineCount++;
+        if (parser != null) {
+            parser.onLineEnd(cache);
+        } else if (scheduler.publish(staging)) {
+            staging.clear();
+        } else {
+            pendingLine = true;
+            queueFullCount++;
+            lexer.pause();
+        }
+    }
+
+    @Override
+    public boolean onRow(LineProtoRow row) {
+        lineCount++;
+        if (parser != null) {
+            return parser.onRow(row);
+        }
+
+        staging.of(row);
+        if (scheduler.publish(staging)) {
+            staging.clear();
+            return true;
+        }
+        pendingLine = true;
+        queueFullCount++;
+        return false;
+    }
+
+    protected void commitDue() {
+        if (parser != null) {
+            parser.commitDue();
+        }
+    }
+
+    protected boolean isPendingLine() {
+        return pendingLine;
+    }
+
+    protected void onPackets(int count) {
+        packetCount += count;
+    }
+
+    /**
+     * Parses datagram or what is left of it, when parsing stopped because writer queue was full.
+     *
+     * @param lo    address to parse from
+     * @param hi    end of datagram
+     * @param start true when lo is the start of datagram
+     * @return address parsing stopped at, which is hi unless there is a line waiting to be published
+     */
+    protected long parseDatagram(long lo, long hi, boolean start) {
+        if (start && lo < hi) {
+            binary = Unsafe.getUnsafe().getByte(lo) == BinaryLineProtoDecoder.MAGIC;
+            if (binary) {
+                decoder.clear();
+            }
+        }
+
+        if (binary) {
+            final long p = decoder.decode(lo, hi, this);
+            if (p == -1 || (p < hi && !pendingLine)) {
+                // datagrams do not continue, incomplete row is as bad as malformed one
+                droppedLineCount++;
+                LOG.error().$("malformed binary datagram [fd=").$(fd).$(']').$();
+                return hi;
+            }
+            return p;
+        }
+
+        final long p = lexer.parse(lo, hi);
+        if (p == hi) {
+            lexer.parseLast();
+        }
+        return p;
+    }
+
+    /**
+     * Retries publishing of the line that did not fit writer queue.
+     *
+     * @return true when there is no pending line and receiver can carry on parsing
+     */
+    protected boolean publishPendingLine() {
+        if (pendingLine) {
+            if (!scheduler.publish(staging)) {
+                return false;
+            }
+            staging.clear();
+            pendingLine = false;
+        }
+        return true;
+    }
+
+    protected void updateStats() {
+        final long now = clock.getTicks();
+        final long elapsed = now - statsTimestamp;
+        if (elapsed >= STATS_INTERVAL) {
+            rowsPerSecond = (lineCount - statsLineCount) * 1000 / elapsed;
+            if (lineCount > statsLineCount) {
+                LOG.info()
+                        .$("stats [fd=").$(fd)
+                        .$(", packets=").$(packetCount)
+                        .$(", lines=").$(lineCount)
+                        .$(", dropped=").$(droppedLineCount)
+                        .$(", queueFull=").$(queueFullCount)
+                        .$(", rowsPerSecond=").$(rowsPerSecond)
+                        .$(']').$();
+            }
+            statsLineCount = lineCount;
+            statsTimestamp = now;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.udp;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.network.NetworkFacade;
+import io.questdb.std.*;
+import io.questdb.std.str.AbstractCharSink;
+import io.questdb.std.str.CharSink;
+
+import java.nio.charset.StandardCharsets;
+
+import static io.questdb.cutlass.line.BinaryLineProtoDecoder.*;
+
+/**
+ * Sends measurements in binary line protocol, see {@link io.questdb.cutlass.line.BinaryLineProtoDecoder}.
+ * Names and tag values are sent in full once per datagram and as references after that. Row is
+ * staged until it ends and is then encoded as a whole, so that rows never span datagrams.
+ */
+public class BinaryLineProtoSender extends LineProtoSender {
+    // distinct names remembered between rows, beyond that sender starts over
+    private static final int MAX_NAMES = 64 * 1024;
+    private final CharSequenceIntHashMap nameIndex = new CharSequenceIntHashMap();
+    private final ObjList<byte[]> names = new ObjList<>();
+    // datagram sequence name was last sent in and id receiver assigned to it there
+    private final IntList nameDatagrams = new IntList();
+    private final IntList nameIds = new IntList();
+    // names sent in full by the row being encoded
+    private final IntList rowNames = new IntList();
+    private final RowSink row;
+    private int datagram = 0;
+    private int nextNameId = 0;
+    private int columnCount;
+    private boolean hasMetric = false;
+
+    public BinaryLineProtoSender(
+            NetworkFacade nf,
+            int interfaceIPv4Address,
+            int sendToIPv4Address,
+            int sendToPort,
+            int capacity
+    ) {
+        super(nf, interfaceIPv4Address, sendToIPv4Address, sendToPort, capacity);
+        this.row = new RowSink(capacity);
+    }
+
+    @Override
+    public void $(long timestamp) {
+        if (!hasMetric) {
+            throw CairoException.instance(0).put("metric expected");
+        }
+        hasMetric = false;
+
+        if (!encodeRow(timestamp)) {
+            rollbackRow();
+            send();
+            ptr = lineStart = lo;
+            nextDatagram();
+            if (!encodeRow(timestamp)) {
+                rollbackRow();
+                throw CairoException.instance(0).put("line too long");
+            }
+        }
+        lineStart = ptr;
+    }
+
+    @Override
+    public void $() {
+        $(Numbers.LONG_NaN);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        row.close();
+    }
+
+    @Override
+    public BinaryLineProtoSender field(CharSequence name, long value) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw CairoException.instance(0).put("value is out of int range: ").put(value);
+        }
+        column(name, TYPE_INT).putInt((int) value);
+        return this;
+    }
+
+    @Override
+    public BinaryLineProtoSender field(CharSequence name, CharSequence value) {
+        column(name, TYPE_STRING).putStr(value);
+        return this;
+    }
+
+    /**
+     * Sends double value as is, scale is ignored.
+     */
+    @Override
+    public BinaryLineProtoSender field(CharSequence name, double value, int scale) {
+        column(name, TYPE_DOUBLE).putDouble(value);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        super.flush();
+        nextDatagram();
+    }
+
+    @Override
+    public BinaryLineProtoSender metric(CharSequence metric) {
+        if (hasMetric) {
+            throw CairoException.instance(0).put("duplicate metric");
+        }
+
+        if (names.size() > MAX_NAMES) {
+            // receiver keeps names of the current datagram, they will simply be sent in full again
+            nameIndex.clear();
+            names.clear();
+            nameDatagrams.clear();
+            nameIds.clear();
+        }
+
+        row.clear();
+        row.putInt(getNameSlot(metric));
+        columnCount = 0;
+        hasMetric = true;
+        return this;
+    }
+
+    @Override
+    public BinaryLineProtoSender tag(CharSequence tag, CharSequence value) {
+        column(tag, TYPE_TAG).putInt(getNameSlot(value));
+        return this;
+    }
+
+    private RowSink column(CharSequence name, byte type) {
+        if (!hasMetric) {
+            throw CairoException.instance(0).put("metric expected");
+        }
+
+        if (columnCount == Short.MAX_VALUE) {
+            throw CairoException.instance(0).put("too many columns");
+        }
+        columnCount++;
+        row.putInt(getNameSlot(name));
+        row.putByte(type);
+        return row;
+    }
+
+    private boolean copyFromRow(long p, int len) {
+        if (hi - ptr < len) {
+            return false;
+        }
+        Unsafe.getUnsafe().copyMemory(p, ptr, len);
+        ptr += len;
+        return true;
+    }
+
+    private boolean encodeName(int slot) {
+        if (nameDatagrams.getQuick(slot) == datagram) {
+            if (hi - ptr < 2) {
+                return false;
+            }
+            Unsafe.getUnsafe().putShort(ptr, (short) (-nameIds.getQuick(slot) - 1));
+            ptr += 2;
+            return true;
+        }
+
+        final byte[] bytes = names.getQuick(slot);
+        if (nextNameId == MAX_NAME_COUNT || hi - ptr < 2 + bytes.length) {
+            return false;
+        }
+        Unsafe.getUnsafe().putShort(ptr, (short) bytes.length);
+        ptr += 2;
+        for (int i = 0, n = bytes.length; i < n; i++) {
+            Unsafe.getUnsafe().putByte(ptr++, bytes[i]);
+        }
+        nameDatagrams.setQuick(slot, datagram);
+        nameIds.setQuick(slot, nextNameId++);
+        rowNames.add(slot);
+        return true;
+    }
+
+    /**
+     * Encodes staged row into datagram buffer.
+     *
+     * @return false when row does not fit what is left of the buffer
+     */
+    private boolean encodeRow(long timestamp) {
+        final long rowStart = ptr;
+        rowNames.clear();
+
+        if (hi - ptr < ROW_HEADER_SIZE + 8) {
+            return false;
+        }
+        Unsafe.getUnsafe().putByte(ptr, MAGIC);
+        // row size is written when row is complete
+        ptr += ROW_HEADER_SIZE;
+        Unsafe.getUnsafe().putLong(ptr, timestamp);
+        ptr += 8;
+
+        long p = row.lo;
+        if (!encodeName(Unsafe.getUnsafe().getInt(p))) {
+            return false;
+        }
+        p += 4;
+
+        if (hi - ptr < 2) {
+            return false;
+        }
+        Unsafe.getUnsafe().putShort(ptr, (short) columnCount);
+        ptr += 2;
+
+        for (int i = 0; i < columnCount; i++) {
+            if (!encodeName(Unsafe.getUnsafe().getInt(p)) || hi - ptr < 1) {
+                return false;
+            }
+            p += 4;
+
+            final byte type = Unsafe.getUnsafe().getByte(p++);
+            Unsafe.getUnsafe().putByte(ptr++, type);
+            switch (type) {
+                case TYPE_INT:
+                    if (!copyFromRow(p, 4)) {
+                        return false;
+                    }
+                    p += 4;
+                    break;
+                case TYPE_DOUBLE:
+                    if (!copyFromRow(p, 8)) {
+                        return false;
+                    }
+                    p += 8;
+                    break;
+                case TYPE_STRING:
+                    final int len = 4 + Unsafe.getUnsafe().getInt(p);
+                    if (!copyFromRow(p, len)) {
+                        return false;
+                    }
+                    p += len;
+                    break;
+                default:
+                    if (!encodeName(Unsafe.getUnsafe().getInt(p))) {
+                        return false;
+                    }
+                    p += 4;
+                    break;
+            }
+        }
+
+        Unsafe.getUnsafe().putInt(rowStart + 1, (int) (ptr - rowStart));
+        return true;
+    }
+
+    private int getNameSlot(CharSequence name) {
+        final int index = nameIndex.keyIndex(name);
+        if (index < 0) {
+            return nameIndex.valueAt(index);
+        }
+
+        final byte[] bytes = name.toString().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw CairoException.instance(0).put("name too long");
+        }
+        final int slot = names.size();
+        nameIndex.putAt(index, name, slot);
+        names.add(bytes);
+        nameDatagrams.add(-1);
+        nameIds.add(0);
+        return slot;
+    }
+
+    private void nextDatagram() {
+        datagram++;
+        nextNameId = 0;
+    }
+
+    private void rollbackRow() {
+        ptr = lineStart;
+        for (int i = 0, n = rowNames.size(); i < n; i++) {
+            nameDatagrams.setQuick(rowNames.getQuick(i), -1);
+        }
+        nextNameId -= rowNames.size();
+    }
+
+    private static class RowSink extends AbstractCharSink {
+        private final int capacity;
+        private final long lo;
+        private final long hi;
+        private long ptr;
+
+        private RowSink(int capacity) {
+            this.capacity = capacity;
+            this.lo = this.ptr = Unsafe.malloc(capacity);
+            this.hi = lo + capacity;
+        }
+
+        @Override
+        public CharSink put(char c) {
+            putByte((byte) c);
+            return this;
+        }
+
+        private void clear() {
+            ptr = lo;
+        }
+
+        private void close() {
+            Unsafe.free(lo, capacity);
+        }
+
+        private void ensureCapacity(int len) {
+            if (hi - ptr < len) {
+                throw CairoException.instance(0).put("line too long");
+            }
+        }
+
+        private void putByte(byte value) {
+            ensureCapacity(1);
+            Unsafe.getUnsafe().putByte(ptr++, value);
+        }
+
+        private void putDouble(double value) {
+            ensureCapacity(8);
+            Unsafe.getUnsafe().putDouble(ptr, value);
+            ptr += 8;
+        }
+
+        private void putInt(int value) {
+            ensureCapacity(4);
+            Unsafe.getUnsafe().putInt(ptr, value);
+            ptr += 4;
+        }
+
+        private void putStr(CharSequence value) {
+            final long lenAddress = ptr;
+            putInt(0);
+            encodeUtf8(value);
+            Unsafe.getUnsafe().putInt(lenAddress, (int) (ptr - lenAddress - 4));
+        }
+    }
+}
@@ -22,132 +22,80 @@
  *
  ******************************************************************************/
 
+
 package io.questdb.cutlass.line.udp;
 
 import io.questdb.cairo.CairoEngine;
-import io.questdb.cairo.CairoException;
 import io.questdb.cairo.CairoSecurityContext;
-import io.questdb.cutlass.line.CairoLineProtoParser;
-import io.questdb.cutlass.line.LineProtoLexer;
-import io.questdb.log.Log;
-import io.questdb.log.LogFactory;
-import io.questdb.mp.Job;
-import io.questdb.network.NetworkFacade;
-import io.questdb.std.Misc;
+import io.questdb.cutlass.line.LineMeasurementScheduler;
 import io.questdb.std.Unsafe;
-import io.questdb.std.str.DirectByteCharSequence;
-
-import java.io.Closeable;
+import org.jetbrains.annotations.Nullable;
 
-public class GenericLineProtoReceiver implements Closeable, Job {
-    private static final Log LOG = LogFactory.getLog(GenericLineProtoReceiver.class);
-
-    private final DirectByteCharSequence byteSequence = new DirectByteCharSequence();
-    private final LineProtoLexer lexer;
-    private final CairoLineProtoParser parser;
-    private final NetworkFacade nf;
+public class GenericLineProtoReceiver extends AbstractLineProtoReceiver {
     private final int bufLen;
-    private long fd;
-    private int commitRate;
-    private long totalCount = 0;
     private long buf;
+    // unparsed remainder of the last datagram, non-empty when parsing has been paused
+    private int bufPos = 0;
+    private int bufLimit = 0;
 
     public GenericLineProtoReceiver(
             LineUdpReceiverConfiguration receiverCfg,
             CairoEngine engine,
             CairoSecurityContext cairoSecurityContext
     ) {
-        nf = receiverCfg.getNetworkFacade();
-        fd = nf.socketUdp();
-        if (fd < 0) {
-            int errno = nf.errno();
-            LOG.error().$("cannot open UDP socket [errno=").$(errno).$(']').$();
-            throw CairoException.instance(errno).put("Cannot open UDP socket");
-        }
-
-        try {
-            if (nf.bindUdp(fd, 0, receiverCfg.getPort())) {
-                if (nf.join(fd, receiverCfg.getBindIPv4Address(), receiverCfg.getGroupIPv4Address())) {
-                    this.commitRate = receiverCfg.getCommitRate();
-
-                    if (receiverCfg.getReceiveBufferSize() != -1 && nf.setRcvBuf(fd, receiverCfg.getReceiveBufferSize()) != 0) {
-                        LOG.error().$("cannot set receive buffer size [fd=").$(fd).$(", size=").$(receiverCfg.getReceiveBufferSize()).$(']').$();
-                    }
-
-                    this.buf = Unsafe.malloc(this.bufLen = receiverCfg.getMsgBufferSize());
-
-                    lexer = new LineProtoLexer(receiverCfg.getMsgBufferSize());
-                    parser = new CairoLineProtoParser(engine, cairoSecurityContext);
-                    lexer.withParser(parser);
-
-                    LOG.info()
-                            .$("started [fd=").$(fd)
-                            .$(", bind=").$(receiverCfg.getBindIPv4Address())
-                            .$(", group=").$(receiverCfg.getGroupIPv4Address())
-                            .$(", port=").$(receiverCfg.getPort())
-                            .$(", commitRate=").$(commitRate)
-                            .$(']').$();
-
-                    return;
-                }
-                int errno = nf.errno();
-                LOG.error().$("cannot join group [errno=").$(errno).$(", fd=").$(fd).$(", bind=").$(receiverCfg.getBindIPv4Address()).$(", group=").$(receiverCfg.getGroupIPv4Address()).$(']').$();
-                throw CairoException.instance(nf.errno()).put("Cannot join group ").put(receiverCfg.getGroupIPv4Address()).put(" [bindTo=").put(receiverCfg.getBindIPv4Address()).put(']');
+        this(receiverCfg, engine, cairoSecurityContext, null);
+    }
 
-            }
-            int errno = nf.errno();
-            LOG.error().$("cannot bind socket [errno=").$(errno).$(", fd=").$(fd).$(", bind=").$(receiverCfg.getBindIPv4Address()).$(", port=").$(receiverCfg.getPort()).$(']').$();
-            throw CairoException.instance(nf.errno()).put("Cannot bind to ").put(receiverCfg.getBindIPv4Address()).put(':').put(receiverCfg.getPort());
-        } catch (CairoException e) {
-            close();
-            throw e;
-        }
+    public GenericLineProtoReceiver(
+            LineUdpReceiverConfiguration receiverCfg,
+            CairoEngine engine,
+            CairoSecurityContext cairoSecurityContext,
+            @Nullable LineMeasurementScheduler scheduler
+    ) {
+        super(receiverCfg, engine, cairoSecurityContext, scheduler);
+        this.buf = Unsafe.malloc(this.bufLen = receiverCfg.getMsgBufferSize());
     }
 
     @Override
     public void close() {
         if (fd > -1) {
-            if (nf.close(fd) != 0) {
-                LOG.error().$("failed to close [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
-            } else {
-                LOG.info().$("closed [fd=").$(fd).$(']').$();
-            }
             if (buf != 0) {
                 Unsafe.free(buf, bufLen);
+                buf = 0;
             }
-            if (parser != null) {
-                parser.commitAll();
-                parser.close();
-            }
-
-            Misc.free(lexer);
-            fd = -1;
+            super.close();
         }
     }
 
     @Override
     public boolean run() {
+        if (!publishPendingLine()) {
+            return false;
+        }
+
         boolean ran = false;
         int count;
-        while ((count = nf.recv(fd, buf, bufLen)) > 0) {
-            byteSequence.of(buf, buf + count);
-            lexer.parse(buf, buf + count);
-            lexer.parseLast();
-
-            totalCount++;
-
-            if (totalCount > commitRate) {
-                totalCount = 0;
-                parser.commitAll();
-            }
-
-            if (ran) {
-                continue;
-            }
-
+        while (resumeDatagram() && (count = nf.recv(fd, buf, bufLen)) > 0) {
+            bufPos = 0;
+            bufLimit = count;
+            onPackets(1);
+            commitDue();
             ran = true;
         }
-        parser.commitAll();
+        commitDue();
+        updateStats();
         return ran;
     }
+
+    /**
+     * Parses what is left of the last datagram.
+     *
+     * @return false when line is waiting for space in writer queue
+     */
+    private boolean resumeDatagram() {
+        if (bufPos < bufLimit) {
+            bufPos = (int) (parseDatagram(buf + bufPos, buf + bufLimit, bufPos == 0) - buf);
+        }
+        return !isPendingLine();
+    }
 }
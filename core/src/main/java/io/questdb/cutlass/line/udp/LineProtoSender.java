@@ -25,33 +25,28 @@
 package io.questdb.cutlass.line.udp;
 
 import io.questdb.cairo.CairoException;
+import io.questdb.cutlass.line.AbstractLineProtoSender;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.network.NetworkError;
 import io.questdb.network.NetworkFacade;
 import io.questdb.std.Chars;
 import io.questdb.std.Unsafe;
-import io.questdb.std.str.AbstractCharSink;
-import io.questdb.std.str.CharSink;
 
-import java.io.Closeable;
-
-public class LineProtoSender extends AbstractCharSink implements Closeable {
+public class LineProtoSender extends AbstractLineProtoSender {
     private static final Log LOG = LogFactory.getLog(LineProtoSender.class);
 
-    private final int capacity;
+    protected final int capacity;
     private final long bufA;
     private final long bufB;
     private final long sockaddr;
     private final long fd;
     private final NetworkFacade nf;
 
-    private long lo;
-    private long hi;
-    private long ptr;
-    private long lineStart;
-    private boolean hasMetric = false;
-    private boolean noFields = true;
+    protected long lo;
+    protected long hi;
+    protected long ptr;
+    protected long lineStart;
 
     public LineProtoSender(
             NetworkFacade nf,
@@ -84,18 +79,6 @@ public class LineProtoSender extends AbstractCharSink implements Closeable {
         lineStart = lo;
     }
 
-    public void $(long timestamp) {
-        put(' ').put(timestamp);
-        $();
-    }
-
-    public void $() {
-        put('\n');
-        lineStart = ptr;
-        hasMetric = false;
-        noFields = true;
-    }
-
     @Override
     public void close() {
         if (nf.close(fd) != 0) {
@@ -106,21 +89,6 @@ public class LineProtoSender extends AbstractCharSink implements Closeable {
         Unsafe.free(bufB, capacity);
     }
 
-    public LineProtoSender field(CharSequence name, long value) {
-        field(name).put(value).put('i');
-        return this;
-    }
-
-    public LineProtoSender field(CharSequence name, CharSequence value) {
-        field(name).putQuoted(value);
-        return this;
-    }
-
-    public LineProtoSender field(CharSequence name, double value, int scale) {
-        field(name).put(value, scale);
-        return this;
-    }
-
     @Override
     public void flush() {
         send();
@@ -144,14 +112,6 @@ public class LineProtoSender extends AbstractCharSink implements Closeable {
         return this;
     }
 
-    public LineProtoSender metric(CharSequence metric) {
-        if (hasMetric) {
-            throw CairoException.instance(0).put("duplicate metric");
-        }
-        hasMetric = true;
-        return put(metric);
-    }
-
     @Override
     public LineProtoSender put(char c) {
         if (ptr >= hi) {
@@ -161,45 +121,12 @@ public class LineProtoSender extends AbstractCharSink implements Closeable {
         return this;
     }
 
-    public LineProtoSender tag(CharSequence tag, CharSequence value) {
-        if (hasMetric) {
-            put(',').putNameEscaped(tag).put('=').encodeUtf8(value);
-            return this;
-        }
-        throw CairoException.instance(0).put("metric expected");
-    }
-
-    private CharSink field(CharSequence name) {
-        if (hasMetric) {
-            if (noFields) {
-                put(' ');
-                noFields = false;
-            } else {
-                put(',');
-            }
-
-            return putNameEscaped(name).put('=');
-        }
-        throw CairoException.instance(0).put("metric expected");
-    }
-
-    private LineProtoSender putNameEscaped(CharSequence name) {
-        for (int i = 0, n = name.length(); i < n; i++) {
-            char c = name.charAt(i);
-            switch (c) {
-                case ' ':
-                case ',':
-                case '=':
-                    put('\\');
-                default:
-                    put(c);
-                    break;
-            }
-        }
-        return this;
+    @Override
+    protected void commitLine() {
+        lineStart = ptr;
     }
 
-    private void send() {
+    protected void send() {
         if (lo < lineStart) {
             int len = (int) (lineStart - lo);
             if (nf.sendTo(fd, lo, len, sockaddr) != len) {
@@ -30,8 +30,21 @@ public interface LineUdpReceiverConfiguration {
 
     int getBindIPv4Address();
 
+    /**
+     * @return maximum time in milliseconds a table can hold uncommitted rows before it is committed
+     */
+    long getCommitInterval();
+
+    /**
+     * @return number of uncommitted rows in a table, which triggers its commit
+     */
     int getCommitRate();
 
+    /**
+     * @return number of uncommitted bytes of line protocol text in a table, which triggers its commit
+     */
+    long getCommitSize();
+
     int getGroupIPv4Address();
 
     int getMsgBufferSize();
@@ -43,4 +56,23 @@ public interface LineUdpReceiverConfiguration {
     int getPort();
 
     int getReceiveBufferSize();
+
+    /**
+     * Number of receivers sharing the port via SO_REUSEPORT. Kernel spreads unicast datagrams
+     * between receivers. Multicast datagrams are delivered to every socket, so multicast
+     * senders should be served by a single receiver.
+     *
+     * @return number of receivers
+     */
+    int getReceiverCount();
+
+    /**
+     * Capacity of the queue in front of each writer job. Must be a power of 2. Lines that
+     * receivers cannot fit into the queue are dropped.
+     *
+     * @return writer queue capacity
+     */
+    int getWriterQueueCapacity();
+
+    boolean isEnabled();
 }
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.udp;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cutlass.line.LineMeasurementScheduler;
+import io.questdb.mp.Job;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Os;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Runs configured number of UDP receivers on worker pool. Receivers lex datagrams and hand
+ * lines over to writer jobs, so ingest is not limited by a single thread parsing and writing.
+ */
+public class LineUdpServer implements Closeable {
+    private final LineMeasurementScheduler scheduler;
+    private final ObjList<AbstractLineProtoReceiver> receivers = new ObjList<>();
+
+    public LineUdpServer(LineUdpReceiverConfiguration configuration, CairoEngine engine, WorkerPool pool) {
+        this.scheduler = new LineMeasurementScheduler(
+                pool,
+                configuration.getWriterQueueCapacity(),
+                configuration.getMsgBufferSize(),
+                configuration.getCommitRate(),
+                configuration.getCommitSize(),
+                configuration.getCommitInterval(),
+                engine,
+                AllowAllCairoSecurityContext.INSTANCE
+        );
+
+        try {
+            for (int i = 0, n = configuration.getReceiverCount(); i < n; i++) {
+                final AbstractLineProtoReceiver receiver;
+                if (Os.type == Os.LINUX_AMD64) {
+                    receiver = new LinuxLineProtoReceiver(configuration, engine, AllowAllCairoSecurityContext.INSTANCE, scheduler);
+                } else {
+                    receiver = new GenericLineProtoReceiver(configuration, engine, AllowAllCairoSecurityContext.INSTANCE, scheduler);
+                }
+                receivers.add(receiver);
+                pool.assign(i % pool.getWorkerCount(), (Job) receiver);
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Nullable
+    public static LineUdpServer create(LineUdpReceiverConfiguration configuration, WorkerPool workerPool, CairoEngine cairoEngine) {
+        if (configuration.isEnabled()) {
+            return new LineUdpServer(configuration, cairoEngine, workerPool);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(receivers);
+        Misc.free(scheduler);
+    }
+
+    public AbstractLineProtoReceiver getReceiver(int index) {
+        return receivers.getQuick(index);
+    }
+
+    public int getReceiverCount() {
+        return receivers.size();
+    }
+}
@@ -22,131 +22,94 @@
  *
  ******************************************************************************/
 
+
 package io.questdb.cutlass.line.udp;
 
 import io.questdb.cairo.CairoEngine;
-import io.questdb.cairo.CairoException;
 import io.questdb.cairo.CairoSecurityContext;
-import io.questdb.cutlass.line.CairoLineProtoParser;
-import io.questdb.cutlass.line.LineProtoLexer;
-import io.questdb.log.Log;
-import io.questdb.log.LogFactory;
-import io.questdb.mp.Job;
+import io.questdb.cutlass.line.LineMeasurementScheduler;
 import io.questdb.network.Net;
-import io.questdb.network.NetworkFacade;
-import io.questdb.std.Misc;
-
-import java.io.Closeable;
-
-public class LinuxLineProtoReceiver implements Closeable, Job {
-    private static final Log LOG = LogFactory.getLog(LinuxLineProtoReceiver.class);
+import org.jetbrains.annotations.Nullable;
 
+public class LinuxLineProtoReceiver extends AbstractLineProtoReceiver {
     private final int msgCount;
-    private final LineProtoLexer lexer;
-    private final CairoLineProtoParser parser;
-    private final NetworkFacade nf;
-    private long fd;
     private long msgVec;
-    private int commitRate;
-    private long totalCount = 0;
+    // messages of the last batch that are yet to be parsed, parsing could have been paused
+    // in the middle of message at msgIndex, in which case msgPos is where it stopped
+    private int msgIndex = 0;
+    private int msgLimit = 0;
+    private long msgPos = 0;
 
     public LinuxLineProtoReceiver(
             LineUdpReceiverConfiguration receiverCfg,
             CairoEngine engine,
             CairoSecurityContext cairoSecurityContext
     ) {
+        this(receiverCfg, engine, cairoSecurityContext, null);
+    }
 
-        nf = receiverCfg.getNetworkFacade();
-
-        fd = nf.socketUdp();
-        if (fd < 0) {
-            int errno = nf.errno();
-            LOG.error().$("cannot open UDP socket [errno=").$(errno).$(']').$();
-            throw CairoException.instance(errno).put("Cannot open UDP socket");
-        }
-
-        try {
-            // when listening for multicast packets bind address must be 0
-            if (nf.bindUdp(fd, 0, receiverCfg.getPort())) {
-                if (nf.join(fd, receiverCfg.getBindIPv4Address(), receiverCfg.getGroupIPv4Address())) {
-                    this.commitRate = receiverCfg.getCommitRate();
-                    this.msgCount = receiverCfg.getMsgCount();
-
-                    if (receiverCfg.getReceiveBufferSize() != -1 && nf.setRcvBuf(fd, receiverCfg.getReceiveBufferSize()) != 0) {
-                        LOG.error().$("cannot set receive buffer size [fd=").$(fd).$(", size=").$(receiverCfg.getReceiveBufferSize()).$(']').$();
-                    }
-
-                    msgVec = nf.msgHeaders(receiverCfg.getMsgBufferSize(), msgCount);
-                    lexer = new LineProtoLexer(receiverCfg.getMsgBufferSize());
-                    parser = new CairoLineProtoParser(engine, cairoSecurityContext);
-                    lexer.withParser(parser);
-
-                    LOG.info().$("started [fd=").$(fd).$(", bind=").$(receiverCfg.getBindIPv4Address()).$(", group=").$(receiverCfg.getGroupIPv4Address()).$(", port=").$(receiverCfg.getPort()).$(", batch=").$(msgCount).$(", commitRate=").$(commitRate).$(']').$();
-
-                    return;
-                }
-                int errno = nf.errno();
-                LOG.error().$("cannot join group [errno=").$(errno).$(", fd=").$(fd).$(", bind=").$(receiverCfg.getBindIPv4Address()).$(", group=").$(receiverCfg.getGroupIPv4Address()).$(']').$();
-                throw CairoException.instance(nf.errno()).put("Cannot join group ").put(receiverCfg.getGroupIPv4Address()).put(" [bindTo=").put(receiverCfg.getBindIPv4Address()).put(']');
-            }
-            int errno = nf.errno();
-            LOG.error().$("cannot bind socket [errno=").$(errno).$(", fd=").$(fd).$(", bind=").$(receiverCfg.getBindIPv4Address()).$(", port=").$(receiverCfg.getPort()).$(']').$();
-            throw CairoException.instance(nf.errno()).put("Cannot bind to ").put(receiverCfg.getBindIPv4Address()).put(':').put(receiverCfg.getPort());
-
-        } catch (CairoException e) {
-            close();
-            throw e;
-        }
+    public LinuxLineProtoReceiver(
+            LineUdpReceiverConfiguration receiverCfg,
+            CairoEngine engine,
+            CairoSecurityContext cairoSecurityContext,
+            @Nullable LineMeasurementScheduler scheduler
+    ) {
+        super(receiverCfg, engine, cairoSecurityContext, scheduler);
+        this.msgCount = receiverCfg.getMsgCount();
+        this.msgVec = nf.msgHeaders(receiverCfg.getMsgBufferSize(), msgCount);
     }
 
     @Override
     public void close() {
         if (fd > -1) {
-            if (nf.close(fd) != 0) {
-                LOG.error().$("failed to close [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
-            } else {
-                LOG.info().$("closed [fd=").$(fd).$(']').$();
-            }
             if (msgVec != 0) {
                 nf.freeMsgHeaders(msgVec);
+                msgVec = 0;
             }
-            if (parser != null) {
-                parser.commitAll();
-                parser.close();
-            }
-            Misc.free(lexer);
-            LOG.info().$("closed [fd=").$(fd).$(']').$();
-            fd = -1;
+            super.close();
         }
     }
 
     @Override
     public boolean run() {
+        if (!publishPendingLine()) {
+            return false;
+        }
+
         boolean ran = false;
         int count;
-        while ((count = nf.recvmmsg(fd, msgVec, msgCount)) > 0) {
-            long p = msgVec;
-            for (int i = 0; i < count; i++) {
-                long buf = nf.getMMsgBuf(p);
-                lexer.parse(buf, buf + nf.getMMsgBufLen(p));
-                lexer.parseLast();
-                p += Net.MMSGHDR_SIZE;
-            }
-
-            totalCount += count;
+        while (resumeBatch() && (count = nf.recvmmsg(fd, msgVec, msgCount)) > 0) {
+            msgIndex = 0;
+            msgLimit = count;
+            onPackets(count);
+            commitDue();
+            ran = true;
+        }
+        commitDue();
+        updateStats();
+        return ran;
+    }
 
-            if (totalCount > commitRate) {
-                totalCount = 0;
-                parser.commitAll();
+    /**
+     * Parses what is left of the last batch of messages.
+     *
+     * @return false when line is waiting for space in writer queue
+     */
+    private boolean resumeBatch() {
+        while (msgIndex < msgLimit) {
+            final long p = msgVec + msgIndex * Net.MMSGHDR_SIZE;
+            final long buf = nf.getMMsgBuf(p);
+            final long hi = buf + nf.getMMsgBufLen(p);
+            msgPos = parseDatagram(msgPos == 0 ? buf : msgPos, hi, msgPos == 0);
+            if (msgPos < hi) {
+                return false;
             }
-
-            if (ran) {
-                continue;
+            msgPos = 0;
+            msgIndex++;
+            if (isPendingLine()) {
+                return false;
             }
-
-            ran = true;
         }
-        parser.commitAll();
-        return ran;
+        return true;
     }
 }
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.udp;
+
+import io.questdb.cutlass.line.LineProtoChannel;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.NetworkError;
+import io.questdb.network.NetworkFacade;
+
+/**
+ * Sends line protocol text in UDP datagrams. UDP has no connection to lose, datagrams that
+ * fail to send are dropped.
+ */
+public class UdpLineProtoChannel implements LineProtoChannel {
+    private static final Log LOG = LogFactory.getLog(UdpLineProtoChannel.class);
+    private final NetworkFacade nf;
+    private final long fd;
+    private final long sockaddr;
+    private final int datagramSize;
+
+    public UdpLineProtoChannel(
+            NetworkFacade nf,
+            int interfaceIPv4Address,
+            int sendToIPv4Address,
+            int sendToPort,
+            int datagramSize
+    ) {
+        this.nf = nf;
+        this.datagramSize = datagramSize;
+        fd = nf.socketUdp();
+
+        if (fd == -1) {
+            throw NetworkError.instance(nf.errno()).put("could not create UDP socket");
+        }
+
+        if (nf.setMulticastInterface(fd, interfaceIPv4Address) != 0) {
+            final int errno = nf.errno();
+            nf.close(fd, LOG);
+            throw NetworkError.instance(errno).put("could not bind to ").ip(interfaceIPv4Address);
+        }
+
+        sockaddr = nf.sockaddr(sendToIPv4Address, sendToPort);
+    }
+
+    @Override
+    public void close() {
+        if (nf.close(fd) != 0) {
+            LOG.error().$("failed to close UDP socket [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+        }
+        nf.freeSockAddr(sockaddr);
+    }
+
+    @Override
+    public boolean connect() {
+        return true;
+    }
+
+    @Override
+    public int getMaxSendSize() {
+        return datagramSize;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public int send(long lo, int len) {
+        if (nf.sendTo(fd, lo, len, sockaddr) != len) {
+            LOG.error().$("could not send datagram [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+            return -1;
+        }
+        return len;
+    }
+}
@@ -61,6 +61,28 @@ public interface FunctionFactory {
      */
     String getSignature();
 
+    /**
+     * Analytic function factories are resolved only for columns with "over" clause, where
+     * they take precedence over group-by functions of the same name. Instances they create
+     * must implement {@link io.questdb.griffin.engine.analytic.AnalyticFunction}.
+     *
+     * @return true when factory creates analytic functions
+     */
+    default boolean isAnalytic() {
+        return false;
+    }
+
+    /**
+     * Functions, whose values may change between two executions of the same query over the same
+     * data, such as random value generators or clock readings, must not be deterministic.
+     * Results of queries that use such functions are never cached.
+     *
+     * @return true when function value depends only on its arguments and table data
+     */
+    default boolean isDeterministic() {
+        return true;
+    }
+
     default boolean isGroupBy() {
         return false;
     }
@@ -71,8 +71,12 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
     private final PostOrderTreeTraversalAlgo traverseAlgo = new PostOrderTreeTraversalAlgo();
     private final CairoConfiguration configuration;
     private final CharSequenceObjHashMap<ObjList<FunctionFactory>> factories = new CharSequenceObjHashMap<>();
+    private final CharSequenceObjHashMap<ObjList<FunctionFactory>> analyticFactories = new CharSequenceObjHashMap<>();
     private final CharSequenceHashSet groupByFunctionNames = new CharSequenceHashSet();
     private final ArrayDeque<RecordMetadata> metadataStack = new ArrayDeque<>();
+    private final IntList bindVariableIndexes = new IntList();
+    private final ObjList<CharSequence> bindVariableNames = new ObjList<>();
+    private boolean deterministic = true;
     private RecordMetadata metadata;
     private SqlCodeGenerator sqlCodeGenerator;
     private SqlExecutionContext sqlExecutionContext;
@@ -207,6 +211,7 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         if (function == null) {
             throw SqlException.position(node.position).put("no bind variable defined at index ").put(variableIndex);
         }
+        bindVariableIndexes.add(variableIndex);
         return new IndexedParameterLinkFunction(variableIndex, function.getType(), node.position);
     }
 
@@ -215,7 +220,9 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         if (function == null) {
             throw SqlException.position(node.position).put("undefined bind variable: ").put(node.token);
         }
-        return new NamedParameterLinkFunction(Chars.toString(node.token), function.getType(), node.position);
+        final String name = Chars.toString(node.token);
+        bindVariableNames.add(name);
+        return new NamedParameterLinkFunction(name, function.getType(), node.position);
     }
 
     @NotNull
@@ -227,6 +234,10 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         return bindVariableService;
     }
 
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
     public boolean isGroupBy(CharSequence name) {
         return groupByFunctionNames.contains(name);
     }
@@ -282,6 +293,47 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         }
     }
 
+    /**
+     * Creates analytic function instance. Top level function of the node is looked up
+     * among analytic function factories, whereas its arguments are parsed as regular functions.
+     *
+     * @param node             analytic function expression node
+     * @param metadata         metadata for resolving types of columns.
+     * @param executionContext for resolving parameters
+     * @return function instance, which is an {@link io.questdb.griffin.engine.analytic.AnalyticFunction}
+     * @throws SqlException when function is not analytic or cannot be created
+     */
+    public Function parseAnalyticFunction(
+            ExpressionNode node,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final ObjList<FunctionFactory> overload = analyticFactories.get(node.token);
+        if (overload == null) {
+            throw SqlException.$(node.position, "analytic function expected");
+        }
+
+        final int argCount = node.paramCount;
+        final ObjList<Function> args = new ObjList<>(argCount);
+        try {
+            if (argCount == 1) {
+                args.add(parseFunction(node.rhs != null ? node.rhs : node.lhs, metadata, executionContext));
+            } else if (argCount == 2) {
+                args.add(parseFunction(node.lhs, metadata, executionContext));
+                args.add(parseFunction(node.rhs, metadata, executionContext));
+            } else {
+                // argument list is stored in reverse order
+                for (int i = argCount - 1; i > -1; i--) {
+                    args.add(parseFunction(node.args.getQuick(i), metadata, executionContext));
+                }
+            }
+            return createFunction(node, args, overload);
+        } catch (SqlException e) {
+            Misc.freeObjList(args);
+            throw e;
+        }
+    }
+
     public void setSqlCodeGenerator(SqlCodeGenerator sqlCodeGenerator) {
         this.sqlCodeGenerator = sqlCodeGenerator;
     }
@@ -338,6 +390,9 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
 
     private Function checkAndCreateFunction(FunctionFactory factory, @Transient ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
         Function function;
+        if (!factory.isDeterministic()) {
+            deterministic = false;
+        }
         try {
             function = factory.newInstance(args, position, configuration);
         } catch (SqlException e) {
@@ -453,6 +508,14 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         if (overload == null) {
             throw invalidFunction("unknown function name", node, args);
         }
+        return createFunction(node, args, overload);
+    }
+
+    private Function createFunction(
+            ExpressionNode node,
+            @Transient ObjList<Function> args,
+            ObjList<FunctionFactory> overload
+    ) throws SqlException {
 
         final int argCount;
         if (args == null) {
@@ -713,6 +776,20 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         }
     }
 
+    void clearDependencies() {
+        bindVariableIndexes.clear();
+        bindVariableNames.clear();
+        deterministic = true;
+    }
+
+    IntList getBindVariableIndexes() {
+        return bindVariableIndexes;
+    }
+
+    ObjList<CharSequence> getBindVariableNames() {
+        return bindVariableNames;
+    }
+
     int getFunctionCount() {
         return factories.size();
     }
@@ -730,13 +807,14 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
             }
 
             String name = sig.substring(0, openBraceIndex);
-            final int index = factories.keyIndex(name);
+            final CharSequenceObjHashMap<ObjList<FunctionFactory>> map = factory.isAnalytic() ? analyticFactories : factories;
+            final int index = map.keyIndex(name);
             final ObjList<FunctionFactory> overload;
             if (index < 0) {
-                overload = factories.valueAt(index);
+                overload = map.valueAt(index);
             } else {
                 overload = new ObjList<>(4);
-                factories.putAt(index, name, overload);
+                map.putAt(index, name, overload);
             }
             overload.add(factory);
 
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.AppendMemory;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ReadOnlyMemory;
+import io.questdb.cairo.VirtualMemory;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.microtime.DateFormatUtils;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Path;
+
+/**
+ * Definition of materialized view, which is a table populated by SAMPLE BY query over single base table.
+ * Definition is kept in "_mv" file of view directory:
+ * <pre>
+ *     data version of base table view was built from
+ *     base table name, sample by interval, query text before and after base table name
+ * </pre>
+ * View contains closed sample intervals only, which are those before interval of maximum base table
+ * timestamp. Therefore next interval to be aggregated is derived from maximum timestamp of view itself.
+ */
+public class MaterializedView {
+    public static final String FILE_NAME = "_mv";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private final String baseTableName;
+    private final String sampleBy;
+    private final String queryPrefix;
+    private final String querySuffix;
+    private long baseDataVersion;
+
+    public MaterializedView(String baseTableName, String sampleBy, String queryPrefix, String querySuffix, long baseDataVersion) {
+        this.baseTableName = baseTableName;
+        this.sampleBy = sampleBy;
+        this.queryPrefix = queryPrefix;
+        this.querySuffix = querySuffix;
+        this.baseDataVersion = baseDataVersion;
+    }
+
+    public static MaterializedView read(FilesFacade ff, ReadOnlyMemory mem, Path path, CharSequence root, CharSequence viewName) {
+        try {
+            path.of(root).concat(viewName).concat(FILE_NAME).$();
+            mem.of(ff, path, ff.getPageSize(), ff.length(path));
+            long offset = 0;
+            final long baseDataVersion = mem.getLong(offset);
+            offset += Long.BYTES;
+            final String baseTableName = Chars.toString(mem.getStr(offset));
+            offset += VirtualMemory.getStorageLength(baseTableName);
+            final String sampleBy = Chars.toString(mem.getStr(offset));
+            offset += VirtualMemory.getStorageLength(sampleBy);
+            final String queryPrefix = Chars.toString(mem.getStr(offset));
+            offset += VirtualMemory.getStorageLength(queryPrefix);
+            final String querySuffix = Chars.toString(mem.getStr(offset));
+            return new MaterializedView(baseTableName, sampleBy, queryPrefix, querySuffix, baseDataVersion);
+        } finally {
+            mem.close();
+        }
+    }
+
+    public long getBaseDataVersion() {
+        return baseDataVersion;
+    }
+
+    public void setBaseDataVersion(long baseDataVersion) {
+        this.baseDataVersion = baseDataVersion;
+    }
+
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    public String getSampleBy() {
+        return sampleBy;
+    }
+
+    /**
+     * Prints view query restricted to base table rows in given timestamp interval. Interval bounds
+     * are multiples of sample by interval, which is never less than a millisecond, and are printed as
+     * millisecond literals so that where clause parser can use them for interval scan.
+     *
+     * @param sink            receives query text
+     * @param timestampColumn name of designated timestamp column of base table
+     * @param lo              inclusive lower bound
+     * @param hi              exclusive upper bound
+     */
+    public void toRefreshQuery(CharSink sink, CharSequence timestampColumn, long lo, long hi) {
+        sink.put(queryPrefix);
+        sink.put("(select * from '").put(baseTableName).put("' where ");
+        sink.put(timestampColumn).put(" >= '");
+        DateFormatUtils.appendDateTime(sink, lo);
+        sink.put("' and ");
+        sink.put(timestampColumn).put(" < '");
+        DateFormatUtils.appendDateTime(sink, hi);
+        sink.put("')");
+        sink.put(querySuffix);
+    }
+
+    /**
+     * Writes definition to "_mv" file. File is written under temporary name and renamed when complete,
+     * so that refresh job never sees partially written definition.
+     */
+    public void write(FilesFacade ff, AppendMemory mem, Path path, Path other, CharSequence root, CharSequence viewName) {
+        path.of(root).concat(viewName).concat(FILE_NAME).put(TEMP_FILE_SUFFIX).$();
+        try {
+            mem.of(ff, path, ff.getPageSize());
+            mem.putLong(baseDataVersion);
+            mem.putStr(baseTableName);
+            mem.putStr(sampleBy);
+            mem.putStr(queryPrefix);
+            mem.putStr(querySuffix);
+        } finally {
+            mem.close(true);
+        }
+
+        other.of(root).concat(viewName).concat(FILE_NAME).$();
+        if (!ff.rename(path, other)) {
+            throw CairoException.instance(ff.errno()).put("Cannot rename ").put(path).put(" to ").put(other);
+        }
+    }
+}
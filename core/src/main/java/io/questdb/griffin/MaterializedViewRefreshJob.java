@@ -0,0 +1,273 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.engine.functions.bind.BindVariableService;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Keeps materialized views up to date with their base tables. Job periodically looks for directories
+ * that contain view definition file and refreshes views whose base table has new commits. Refresh
+ * aggregates base table rows from the first interval view does not have yet up to interval of maximum
+ * base table timestamp and appends result to view. When data version of base table changes, which
+ * happens on out-of-order commit and on truncate, view is truncated and aggregated again from scratch.
+ */
+public class MaterializedViewRefreshJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(MaterializedViewRefreshJob.class);
+    private final CairoEngine engine;
+    private final CairoConfiguration configuration;
+    private final MicrosecondClock clock;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final long checkInterval;
+    private final Path rootPath = new Path();
+    private final Path path = new Path();
+    private final Path otherPath = new Path();
+    private final AppendMemory appendMemory = new AppendMemory();
+    private final ReadOnlyMemory readOnlyMemory = new ReadOnlyMemory();
+    private final NativeLPSZ viewName = new NativeLPSZ();
+    private final FindVisitor findViewFunc = this::findView;
+    private final CharSequenceObjHashMap<ViewState> views = new CharSequenceObjHashMap<>();
+    private final ObjList<CharSequence> removedViews = new ObjList<>();
+    private final StringSink querySink = new StringSink();
+    private final BytecodeAssembler asm = new BytecodeAssembler();
+    private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+    private final SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl().with(
+            AllowAllCairoSecurityContext.INSTANCE,
+            new BindVariableService()
+    );
+    private SqlCompiler compiler;
+    private long last = 0;
+    private int scanId = 0;
+    private boolean refreshed;
+
+    public MaterializedViewRefreshJob(CairoEngine engine) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.clock = configuration.getMicrosecondClock();
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.checkInterval = configuration.getMatViewRefreshInterval() * 1000;
+    }
+
+    @Override
+    public void close() {
+        compiler = Misc.free(compiler);
+        Misc.free(rootPath);
+        Misc.free(path);
+        Misc.free(otherPath);
+        Misc.free(appendMemory);
+        Misc.free(readOnlyMemory);
+    }
+
+    /**
+     * Brings view up to date with commits to its base table. View that is being written to by
+     * another thread is skipped.
+     *
+     * @param viewName name of materialized view
+     * @return true when view was refreshed, false when there was nothing to do or view could not be refreshed
+     */
+    public boolean refresh(CharSequence viewName) {
+        ViewState state = views.get(viewName);
+        if (state == null) {
+            path.of(root).concat(viewName).concat(MaterializedView.FILE_NAME).$();
+            if (!ff.exists(path)) {
+                return false;
+            }
+            try {
+                state = new ViewState(MaterializedView.read(ff, readOnlyMemory, path, root, viewName));
+            } catch (CairoException e) {
+                LOG.error().$("could not read materialized view [view=").$(viewName).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+                return false;
+            }
+            views.put(Chars.toString(viewName), state);
+        }
+        state.scanId = scanId;
+
+        try {
+            return refresh0(viewName, state);
+        } catch (EntryUnavailableException ignore) {
+            // view is busy, we will try again next time
+            return false;
+        } catch (CairoException e) {
+            LOG.error().$("could not refresh materialized view [view=").$(viewName).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+            return false;
+        } catch (SqlException e) {
+            LOG.error().$("could not refresh materialized view [view=").$(viewName).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+            return false;
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        long t = clock.getTicks();
+        if (last + checkInterval < t) {
+            last = t;
+            scanId++;
+            refreshed = false;
+            ff.iterateDir(rootPath.of(root).$(), findViewFunc);
+
+            // forget views that were dropped since last scan
+            final ObjList<CharSequence> names = views.keys();
+            for (int i = 0, n = names.size(); i < n; i++) {
+                CharSequence name = names.getQuick(i);
+                if (views.get(name).scanId != scanId) {
+                    removedViews.add(name);
+                }
+            }
+            for (int i = 0, n = removedViews.size(); i < n; i++) {
+                views.remove(removedViews.getQuick(i));
+            }
+            removedViews.clear();
+            return refreshed;
+        }
+        return false;
+    }
+
+    private void copy(TableWriter writer, MaterializedView view, CharSequence timestampColumn, long lo, long hi) throws SqlException {
+        if (compiler == null) {
+            compiler = new SqlCompiler(engine);
+        }
+        querySink.clear();
+        view.toRefreshQuery(querySink, timestampColumn, lo, hi);
+
+        try (
+                RecordCursorFactory factory = compiler.compile(querySink, executionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(executionContext)
+        ) {
+            final RecordMetadata metadata = factory.getMetadata();
+            final RecordMetadata writerMetadata = writer.getMetadata();
+            final int timestampIndex = metadata.getTimestampIndex();
+            entityColumnFilter.of(writerMetadata.getColumnCount());
+            final SqlCompiler.RecordToRowCopier copier = SqlCompiler.assembleRecordToRowCopier(asm, metadata, writerMetadata, entityColumnFilter);
+            final Record record = cursor.getRecord();
+            while (cursor.hasNext()) {
+                TableWriter.Row row = writer.newRow(record.getTimestamp(timestampIndex));
+                copier.copy(record, row);
+                row.append();
+            }
+        }
+    }
+
+    private void findView(long name, int type) {
+        if (type != Files.DT_DIR) {
+            return;
+        }
+        viewName.of(name);
+        if (Chars.equals(viewName, '.') || Chars.equals(viewName, "..")) {
+            return;
+        }
+
+        if (ff.exists(path.of(root).concat(viewName).concat(MaterializedView.FILE_NAME).$())) {
+            refreshed |= refresh(viewName);
+        }
+    }
+
+    private boolean refresh0(CharSequence viewName, ViewState state) throws SqlException {
+        final MaterializedView view = state.view;
+        final long txn;
+        final long dataVersion;
+        final long minTimestamp;
+        final long maxTimestamp;
+        final String timestampColumn;
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), view.getBaseTableName())) {
+            txn = reader.getTxn();
+            if (txn == state.baseTxn) {
+                return false;
+            }
+            final int timestampIndex = reader.getMetadata().getTimestampIndex();
+            if (timestampIndex == -1) {
+                throw CairoException.instance(0).put("base table has no designated timestamp [table=").put(view.getBaseTableName()).put(']');
+            }
+            timestampColumn = Chars.toString(reader.getMetadata().getColumnName(timestampIndex));
+            dataVersion = reader.getDataVersion();
+            minTimestamp = reader.getMinTimestamp();
+            maxTimestamp = reader.getMaxTimestamp();
+        }
+
+        final TimestampSampler sampler = TimestampSamplerFactory.getInstance(view.getSampleBy(), 0);
+        // interval of maximum timestamp is still open, it is aggregated once base table moves past it
+        final long hi = maxTimestamp == Long.MIN_VALUE ? Long.MIN_VALUE : sampler.round(maxTimestamp);
+
+        try (TableWriter writer = engine.getWriter(executionContext.getCairoSecurityContext(), viewName)) {
+            final boolean rebuild = dataVersion != view.getBaseDataVersion();
+            if (rebuild) {
+                writer.truncate();
+            }
+
+            if (hi != Long.MIN_VALUE) {
+                final long viewMaxTimestamp = writer.getMaxTimestamp();
+                final long lo = viewMaxTimestamp == Long.MIN_VALUE ? sampler.round(minTimestamp) : sampler.nextTimestamp(viewMaxTimestamp);
+                if (lo < hi) {
+                    try {
+                        copy(writer, view, timestampColumn, lo, hi);
+                        writer.commit();
+                    } catch (Throwable e) {
+                        writer.rollback();
+                        throw e;
+                    }
+                }
+            }
+
+            if (rebuild) {
+                // until definition is updated, crash would cause another rebuild, which is harmless
+                view.setBaseDataVersion(dataVersion);
+                view.write(ff, appendMemory, path, otherPath, root, viewName);
+            }
+            state.baseTxn = txn;
+            LOG.info().$("refreshed materialized view [view=").$(viewName).$(", rebuild=").$(rebuild).$(", baseTxn=").$(txn).$(']').$();
+            return true;
+        }
+    }
+
+    private static class ViewState {
+        private final MaterializedView view;
+        private long baseTxn = -1;
+        private int scanId;
+
+        private ViewState(MaterializedView view) {
+            this.view = view;
+        }
+    }
+}
@@ -29,10 +29,15 @@ import io.questdb.cairo.map.RecordValueSinkFactory;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
 import io.questdb.griffin.engine.LimitRecordCursorFactory;
+import io.questdb.griffin.engine.QueryResultCacheRecordCursorFactory;
+import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.analytic.AnalyticRecordCursorFactory;
 import io.questdb.griffin.engine.functions.columns.SymbolColumn;
 import io.questdb.griffin.engine.functions.constants.LongConstant;
 import io.questdb.griffin.engine.groupby.*;
+import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
+import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
@@ -41,7 +46,9 @@ import io.questdb.griffin.engine.union.UnionAllRecordCursorFactory;
 import io.questdb.griffin.engine.union.UnionRecordCursorFactory;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
+import io.questdb.std.microtime.Timestamps;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import static io.questdb.griffin.model.ExpressionNode.FUNCTION;
 
@@ -64,21 +71,40 @@ public class SqlCodeGenerator {
     private final ListColumnFilter listColumnFilterB = new ListColumnFilter();
     private final CairoConfiguration configuration;
     private final RecordComparatorCompiler recordComparatorCompiler;
+    private final FilterCompiler filterCompiler;
     private final IntHashSet intHashSet = new IntHashSet();
     private final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
     private final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
     private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+    private final CairoWorkScheduler workScheduler;
+    // tables read by query being generated, result cache keeps track of their transactions
+    private final ObjList<CharSequence> tableNames = new ObjList<>();
     private boolean fullFatJoins = false;
 
     public SqlCodeGenerator(
             CairoEngine engine,
             CairoConfiguration configuration,
-            FunctionParser functionParser
+            FunctionParser functionParser,
+            @Nullable CairoWorkScheduler workScheduler
     ) {
         this.engine = engine;
         this.configuration = configuration;
         this.functionParser = functionParser;
+        this.workScheduler = workScheduler;
         this.recordComparatorCompiler = new RecordComparatorCompiler(asm);
+        this.filterCompiler = new FilterCompiler(asm);
+    }
+
+    private Function compileFilter(Function filter) {
+        if (configuration.isSqlFilterCompilerEnabled()) {
+            final Function compiled = filterCompiler.compile(filter);
+            if (compiled != null) {
+                // compiled tree consists of columns, constants and arithmetic, it holds no resources
+                filter.close();
+                return compiled;
+            }
+        }
+        return filter;
     }
 
     private GenericRecordMetadata copyMetadata(RecordMetadata that) {
@@ -392,6 +418,90 @@ public class SqlCodeGenerator {
         );
     }
 
+    /**
+     * Collects predicates of "column op constant" form from top level conjunction of filter. Other parts of
+     * filter are ignored, which is safe because statistics are only used to skip rows filter would reject anyway.
+     */
+    private static void extractColumnStatsFilter(ExpressionNode node, RecordMetadata metadata, ColumnStatsFilter statsFilter) {
+        if (node.type != ExpressionNode.OPERATION || node.paramCount != 2) {
+            return;
+        }
+
+        if (Chars.equalsLowerCaseAscii(node.token, "and")) {
+            extractColumnStatsFilter(node.lhs, metadata, statsFilter);
+            extractColumnStatsFilter(node.rhs, metadata, statsFilter);
+            return;
+        }
+
+        final ExpressionNode column;
+        final ExpressionNode constant;
+        int op;
+        if (Chars.equals(node.token, '=')) {
+            op = ColumnStatsFilter.OP_EQ;
+        } else if (Chars.equals(node.token, '<')) {
+            op = ColumnStatsFilter.OP_LT;
+        } else if (Chars.equals(node.token, '>')) {
+            op = ColumnStatsFilter.OP_GT;
+        } else {
+            return;
+        }
+
+        if (node.lhs.type == ExpressionNode.LITERAL && node.rhs.type == ExpressionNode.CONSTANT) {
+            column = node.lhs;
+            constant = node.rhs;
+        } else if (node.lhs.type == ExpressionNode.CONSTANT && node.rhs.type == ExpressionNode.LITERAL) {
+            column = node.rhs;
+            constant = node.lhs;
+            // "5 < x" is "x > 5"
+            if (op == ColumnStatsFilter.OP_LT) {
+                op = ColumnStatsFilter.OP_GT;
+            } else if (op == ColumnStatsFilter.OP_GT) {
+                op = ColumnStatsFilter.OP_LT;
+            }
+        } else {
+            return;
+        }
+
+        final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+        if (columnIndex == -1) {
+            return;
+        }
+
+        final int columnType = metadata.getColumnType(columnIndex);
+        final CharSequence value = constant.token;
+        switch (columnType) {
+            case ColumnType.SYMBOL:
+                if (op != ColumnStatsFilter.OP_EQ) {
+                    return;
+                }
+                if (Chars.equalsLowerCaseAscii(value, "null")) {
+                    statsFilter.addSymbol(columnIndex, null);
+                } else if (value.length() > 3 && value.charAt(0) == '\'' && Chars.indexOf(value, 1, '\'') == value.length() - 1) {
+                    // shorter literals are char constants, literals with escaped quotes are left to filter
+                    statsFilter.addSymbol(columnIndex, value.subSequence(1, value.length() - 1));
+                }
+                break;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                try {
+                    statsFilter.addNumeric(columnIndex, columnType, op, Numbers.parseDouble(value));
+                } catch (NumericException ignore) {
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    void clearDependencies() {
+        tableNames.clear();
+        functionParser.clearDependencies();
+    }
+
     RecordCursorFactory generate(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         return generateQuery(model, executionContext, true);
     }
@@ -413,7 +523,7 @@ public class SqlCodeGenerator {
         if (filter != null) {
             factory = new FilteredRecordCursorFactory(
                     factory,
-                    functionParser.parseFunction(filter, factory.getMetadata(), executionContext)
+                    compileFilter(functionParser.parseFunction(filter, factory.getMetadata(), executionContext))
             );
         }
 
@@ -545,7 +655,7 @@ public class SqlCodeGenerator {
                 // check if there are post-filters
                 ExpressionNode filter = slaveModel.getPostJoinWhereClause();
                 if (filter != null) {
-                    master = new FilteredRecordCursorFactory(master, functionParser.parseFunction(filter, master.getMetadata(), executionContext));
+                    master = new FilteredRecordCursorFactory(master, compileFilter(functionParser.parseFunction(filter, master.getMetadata(), executionContext)));
                 }
             }
 
@@ -770,12 +880,12 @@ public class SqlCodeGenerator {
         final RecordCursorFactory factory = generateSubQuery(model, executionContext);
         final ExpressionNode filter = model.getWhereClause();
         if (filter != null) {
-            return new FilteredRecordCursorFactory(factory, functionParser.parseFunction(filter, factory.getMetadata(), executionContext));
+            return new FilteredRecordCursorFactory(factory, compileFilter(functionParser.parseFunction(filter, factory.getMetadata(), executionContext)));
         }
         return factory;
     }
 
-    private RecordCursorFactory generateOrderBy(RecordCursorFactory recordCursorFactory, QueryModel model) throws SqlException {
+    private RecordCursorFactory generateOrderBy(RecordCursorFactory recordCursorFactory, QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         try {
             final CharSequenceIntHashMap orderBy = model.getOrderHash();
             final ObjList<CharSequence> columnNames = orderBy.keys();
@@ -843,32 +953,17 @@ public class SqlCodeGenerator {
                 }
 
                 if (recordCursorFactory.isRandomAccessCursor()) {
-                    return new SortedLightRecordCursorFactory(
-                            configuration,
-                            orderedMetadata,
-                            recordCursorFactory,
-                            recordComparatorCompiler.compile(metadata, listColumnFilterA)
-                    );
-                }
-
-                // when base record cursor does not support random access
-                // we have to copy entire record into ordered structure
-
-                entityColumnFilter.of(orderedMetadata.getColumnCount());
-
-                return new SortedRecordCursorFactory(
-                        configuration,
-                        orderedMetadata,
-                        recordCursorFactory,
-                        orderedMetadata,
-                        RecordSinkFactory.getInstance(
-                                asm,
+                    final long limit = getSortLimit(model, executionContext);
+                    if (limit > 0 && limit <= Integer.MAX_VALUE / 2) {
+                        return new LimitedSizeSortedLightRecordCursorFactory(
                                 orderedMetadata,
-                                entityColumnFilter,
-                                false
-                        ),
-                        recordComparatorCompiler.compile(metadata, listColumnFilterA)
-                );
+                                recordCursorFactory,
+                                recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                                (int) limit
+                        );
+                    }
+                }
+                return generateSort(recordCursorFactory, orderedMetadata, listColumnFilterA);
             }
 
             return recordCursorFactory;
@@ -894,22 +989,60 @@ public class SqlCodeGenerator {
                                 executionContext,
                                 processJoins
                         ),
-                        model
+                        model,
+                        executionContext
                 ),
                 model,
                 executionContext
         );
     }
 
+    @NotNull
+    RecordCursorFactory generateResultCache(RecordCursorFactory factory, CharSequence query) {
+        if (engine.getQueryResultCache() == null || tableNames.size() == 0 || !functionParser.isDeterministic()) {
+            return factory;
+        }
+
+        final RecordMetadata metadata = factory.getMetadata();
+        entityColumnFilter.of(metadata.getColumnCount());
+        return new QueryResultCacheRecordCursorFactory(
+                factory,
+                engine,
+                query,
+                tableNames,
+                functionParser.getBindVariableIndexes(),
+                functionParser.getBindVariableNames(),
+                RecordSinkFactory.getInstance(asm, metadata, entityColumnFilter, false),
+                configuration.getSqlResultCachePageSize()
+        );
+    }
+
     @NotNull
     private RecordCursorFactory generateSampleBy(QueryModel model, SqlExecutionContext executionContext, ExpressionNode sampleByNode) throws SqlException {
-        final RecordCursorFactory factory = generateSubQuery(model, executionContext);
+        RecordCursorFactory factory = generateSubQuery(model, executionContext);
         final ObjList<ExpressionNode> sampleByFill = model.getSampleByFill();
         final TimestampSampler timestampSampler = TimestampSamplerFactory.getInstance(sampleByNode.token, sampleByNode.position);
 
         assert model.getNestedModel() != null;
         final int fillCount = sampleByFill.size();
         try {
+            if (isParallelGroupByEnabled()) {
+                final RecordCursorFactory parallelFactory = ParallelSampleByRecordCursorFactory.newInstance(
+                        configuration,
+                        engine,
+                        workScheduler,
+                        factory,
+                        timestampSampler,
+                        model,
+                        functionParser,
+                        executionContext,
+                        asm
+                );
+                if (parallelFactory != null) {
+                    factory = parallelFactory;
+                }
+            }
+
             keyTypes.reset();
             valueTypes.reset();
             listColumnFilterA.clear();
@@ -1022,7 +1155,164 @@ public class SqlCodeGenerator {
     }
 
     private RecordCursorFactory generateSelectAnalytic(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
-        return generateSubQuery(model, executionContext);
+        assert model.getNestedModel() != null;
+        RecordCursorFactory factory = generateSubQuery(model, executionContext);
+        final ObjList<QueryColumn> columns = model.getColumns();
+        final int columnCount = columns.size();
+        final ObjList<Function> functions = new ObjList<>(columnCount);
+
+        try {
+            // analytic functions are computed over single stream of rows,
+            // which is why all of them have to agree on order of rows
+            AnalyticColumn orderSource = null;
+            for (int i = 0; i < columnCount; i++) {
+                final QueryColumn column = columns.getQuick(i);
+                if (column instanceof AnalyticColumn) {
+                    final AnalyticColumn ac = (AnalyticColumn) column;
+                    if (orderSource == null) {
+                        orderSource = ac;
+                    } else if (!isSameAnalyticOrder(orderSource, ac)) {
+                        throw SqlException.$(ac.getAst().position, "analytic functions with different 'order by' are not supported");
+                    }
+                }
+            }
+            assert orderSource != null;
+
+            final RecordMetadata baseMetadata = factory.getMetadata();
+            final ObjList<ExpressionNode> orderBy = orderSource.getOrderBy();
+            final IntList orderByDirection = orderSource.getOrderByDirection();
+            final int orderByCount = orderBy.size();
+            final IntList orderByColumns = new IntList(orderByCount);
+            listColumnFilterA.clear();
+            for (int i = 0; i < orderByCount; i++) {
+                final ExpressionNode node = orderBy.getQuick(i);
+                final int index = baseMetadata.getColumnIndexQuiet(node.token);
+                if (index == -1) {
+                    throw SqlException.invalidColumn(node.position, node.token);
+                }
+                if (baseMetadata.getColumnType(index) == ColumnType.BINARY) {
+                    throw SqlException.$(node.position, "unsupported column type: ").put(ColumnType.nameOf(ColumnType.BINARY));
+                }
+                orderByColumns.add(index);
+                // column index sign indicates direction
+                if (orderByDirection.getQuick(i) == QueryModel.ORDER_DIRECTION_DESCENDING) {
+                    listColumnFilterA.add(-index - 1);
+                } else {
+                    listColumnFilterA.add(index + 1);
+                }
+            }
+
+            // rows ordered by designated timestamp can be streamed as is, otherwise we have to sort them
+            final boolean ascending = orderByCount == 1 && orderByDirection.getQuick(0) == QueryModel.ORDER_DIRECTION_ASCENDING;
+            if (orderByCount > 0 && !(ascending && orderByColumns.getQuick(0) == baseMetadata.getTimestampIndex())) {
+                final RecordMetadata orderedMetadata;
+                if (listColumnFilterA.getQuick(0) == baseMetadata.getTimestampIndex() + 1) {
+                    orderedMetadata = copyMetadata(baseMetadata);
+                } else {
+                    orderedMetadata = GenericRecordMetadata.copyOfSansTimestamp(baseMetadata);
+                }
+                factory = generateSort(factory, orderedMetadata, listColumnFilterA);
+            }
+
+            final RecordMetadata metadata = factory.getMetadata();
+            // range frames need rows ordered by timestamp, it does not have to be designated one
+            final int frameTimestampIndex = ascending && metadata.getColumnType(orderByColumns.getQuick(0)) == ColumnType.TIMESTAMP ? orderByColumns.getQuick(0) : -1;
+
+            final GenericRecordMetadata analyticMetadata = new GenericRecordMetadata();
+            final int timestampIndex = metadata.getTimestampIndex();
+            final CharSequence timestampColumn = timestampIndex > -1 ? metadata.getColumnName(timestampIndex) : null;
+            final ObjList<IntList> partitionColumns = new ObjList<>();
+            final ObjList<RecordSink> partitionSinks = new ObjList<>();
+            final ObjList<ArrayColumnTypes> partitionKeyTypes = new ObjList<>();
+            final ObjList<ObjList<AnalyticFunction>> partitionFunctions = new ObjList<>();
+            IntList symbolTableCrossIndex = null;
+
+            for (int i = 0; i < columnCount; i++) {
+                final QueryColumn column = columns.getQuick(i);
+                final ExpressionNode node = column.getAst();
+                final Function function;
+
+                if (column instanceof AnalyticColumn) {
+                    final AnalyticColumn ac = (AnalyticColumn) column;
+                    function = functionParser.parseAnalyticFunction(node, metadata, executionContext);
+                    functions.add(function);
+
+                    final AnalyticFunction analyticFunction = (AnalyticFunction) function;
+                    analyticFunction.initOrderBy(metadata, orderByColumns, node.position);
+                    if (ac.getFrameType() != AnalyticColumn.FRAME_DEFAULT) {
+                        analyticFunction.initFrame(
+                                ac.getFrameType(),
+                                getAnalyticFrameSize(ac.getFrameType(), ac.getFrameSize()),
+                                frameTimestampIndex,
+                                ac.getFrameSize().position
+                        );
+                    }
+
+                    // functions with the same "partition by" share partition map
+                    final ObjList<ExpressionNode> partitionBy = ac.getPartitionBy();
+                    final IntList keyColumns = new IntList(partitionBy.size());
+                    for (int j = 0, n = partitionBy.size(); j < n; j++) {
+                        final ExpressionNode partitionNode = partitionBy.getQuick(j);
+                        final int index = metadata.getColumnIndexQuiet(partitionNode.token);
+                        if (index == -1) {
+                            throw SqlException.invalidColumn(partitionNode.position, partitionNode.token);
+                        }
+                        keyColumns.add(index);
+                    }
+
+                    int partitionIndex = partitionColumns.indexOf(keyColumns);
+                    if (partitionIndex == -1) {
+                        final ListColumnFilter keyFilter = new ListColumnFilter();
+                        final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+                        for (int j = 0, n = keyColumns.size(); j < n; j++) {
+                            final int index = keyColumns.getQuick(j);
+                            keyFilter.add(index);
+                            keyTypes.add(metadata.getColumnType(index));
+                        }
+                        partitionIndex = partitionColumns.size();
+                        partitionColumns.add(keyColumns);
+                        partitionSinks.add(RecordSinkFactory.getInstance(asm, metadata, keyFilter, false));
+                        partitionKeyTypes.add(keyTypes);
+                        partitionFunctions.add(new ObjList<>());
+                    }
+                    partitionFunctions.getQuick(partitionIndex).add(analyticFunction);
+                } else {
+                    if (timestampColumn != null && node.type == ExpressionNode.LITERAL && Chars.equals(timestampColumn, node.token)) {
+                        analyticMetadata.setTimestampIndex(i);
+                    }
+
+                    function = functionParser.parseFunction(node, metadata, executionContext);
+                    functions.add(function);
+
+                    if (function instanceof SymbolColumn) {
+                        if (symbolTableCrossIndex == null) {
+                            symbolTableCrossIndex = new IntList(columnCount);
+                        }
+                        symbolTableCrossIndex.extendAndSet(i, ((SymbolColumn) function).getColumnIndex());
+                    }
+                }
+
+                analyticMetadata.add(new TableColumnMetadata(
+                        Chars.toString(column.getAlias()),
+                        function.getType()
+                ));
+            }
+
+            return new AnalyticRecordCursorFactory(
+                    configuration,
+                    analyticMetadata,
+                    factory,
+                    functions,
+                    partitionSinks,
+                    partitionKeyTypes,
+                    partitionFunctions,
+                    symbolTableCrossIndex
+            );
+        } catch (SqlException | CairoException e) {
+            Misc.freeObjList(functions);
+            factory.close();
+            throw e;
+        }
     }
 
     private RecordCursorFactory generateSelectChoose(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
@@ -1127,10 +1417,36 @@ public class SqlCodeGenerator {
                 }
             }
 
+            if (factory.supportsDataFrameCursor()) {
+                final RecordCursorFactory vectorFactory = generateVectorGroupBy(columns, factory);
+                if (vectorFactory != null) {
+                    return vectorFactory;
+                }
+            }
+
             keyTypes.reset();
             valueTypes.reset();
             listColumnFilterA.clear();
 
+            if (factory.supportsDataFrameCursor() && isParallelGroupByEnabled()) {
+                final RecordCursorFactory parallelFactory = ParallelGroupByRecordCursorFactory.newInstance(
+                        configuration,
+                        engine,
+                        workScheduler,
+                        factory,
+                        model,
+                        listColumnFilterA,
+                        functionParser,
+                        executionContext,
+                        asm,
+                        keyTypes,
+                        valueTypes
+                );
+                if (parallelFactory != null) {
+                    return parallelFactory;
+                }
+            }
+
             return new GroupByRecordCursorFactory(
                     configuration,
                     factory,
@@ -1149,6 +1465,47 @@ public class SqlCodeGenerator {
         }
     }
 
+    @Nullable
+    private RecordCursorFactory generateVectorGroupBy(ObjList<QueryColumn> columns, RecordCursorFactory factory) {
+        final RecordMetadata metadata = factory.getMetadata();
+        final GenericRecordMetadata groupByMetadata = new GenericRecordMetadata();
+        final ObjList<VectorAggregateFunction> functions = new ObjList<>(columns.size());
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final QueryColumn column = columns.getQuick(i);
+            final ExpressionNode ast = column.getAst();
+            if (ast.type != FUNCTION) {
+                return null;
+            }
+
+            final VectorAggregateFunction function;
+            if (ast.paramCount == 0) {
+                if (!Chars.equalsLowerCaseAscii(ast.token, "count")) {
+                    return null;
+                }
+                function = new CountVectorAggregateFunction(ast.position);
+            } else if (ast.paramCount == 1 && ast.rhs != null && ast.rhs.type == ExpressionNode.LITERAL) {
+                final int columnIndex = metadata.getColumnIndexQuiet(ast.rhs.token);
+                if (columnIndex == -1) {
+                    return null;
+                }
+                function = VectorAggregateFunctionFactory.newInstance(
+                        ast.token,
+                        metadata.getColumnType(columnIndex),
+                        ast.position,
+                        columnIndex
+                );
+                if (function == null) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+            functions.add(function);
+            groupByMetadata.add(new TableColumnMetadata(Chars.toString(column.getName()), function.getType()));
+        }
+        return new GroupByNotKeyedVectorRecordCursorFactory(groupByMetadata, factory, functions);
+    }
+
     private RecordCursorFactory generateSelectVirtual(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         assert model.getNestedModel() != null;
         final RecordCursorFactory factory = generateSubQuery(model, executionContext);
@@ -1231,6 +1588,41 @@ public class SqlCodeGenerator {
         return null;
     }
 
+    private RecordCursorFactory generateSort(
+            RecordCursorFactory recordCursorFactory,
+            RecordMetadata orderedMetadata,
+            ListColumnFilter orderBy
+    ) {
+        final RecordMetadata metadata = recordCursorFactory.getMetadata();
+        if (recordCursorFactory.isRandomAccessCursor()) {
+            return new SortedLightRecordCursorFactory(
+                    configuration,
+                    orderedMetadata,
+                    recordCursorFactory,
+                    recordComparatorCompiler.compile(metadata, orderBy)
+            );
+        }
+
+        // when base record cursor does not support random access
+        // we have to copy entire record into ordered structure
+
+        entityColumnFilter.of(orderedMetadata.getColumnCount());
+
+        return new SortedRecordCursorFactory(
+                configuration,
+                orderedMetadata,
+                recordCursorFactory,
+                orderedMetadata,
+                RecordSinkFactory.getInstance(
+                        asm,
+                        orderedMetadata,
+                        entityColumnFilter,
+                        false
+                ),
+                recordComparatorCompiler.compile(metadata, orderBy)
+        );
+    }
+
     private RecordCursorFactory generateSubQuery(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         assert model.getNestedModel() != null;
         return generateQuery(model.getNestedModel(), executionContext, true);
@@ -1281,6 +1673,9 @@ public class SqlCodeGenerator {
             }
 
             final String tableName = Chars.toString(model.getTableName().token);
+            if (tableNames.indexOf(tableName) < 0) {
+                tableNames.add(tableName);
+            }
 
             if (whereClause != null) {
 
@@ -1307,6 +1702,8 @@ public class SqlCodeGenerator {
                         } else {
                             return new EmptyTableRecordCursorFactory(metadata);
                         }
+                    } else {
+                        filter = compileFilter(filter);
                     }
                 } else {
                     filter = null;
@@ -1335,6 +1732,14 @@ public class SqlCodeGenerator {
                     dfcFactory = new FullFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion());
                 }
 
+                if (intrinsicModel.filter != null && configuration.isPartitionStatsEnabled()) {
+                    final ColumnStatsFilter statsFilter = new ColumnStatsFilter();
+                    extractColumnStatsFilter(intrinsicModel.filter, metadata, statsFilter);
+                    if (!statsFilter.isEmpty()) {
+                        dfcFactory = new ColumnStatsDataFrameCursorFactory(dfcFactory, statsFilter);
+                    }
+                }
+
                 if (intrinsicModel.keyColumn != null) {
                     // existence of column would have been already validated
                     final int keyColumnIndex = reader.getMetadata().getColumnIndexQuiet(intrinsicModel.keyColumn);
@@ -1386,6 +1791,18 @@ public class SqlCodeGenerator {
                 }
 
                 if (filter != null) {
+                    if (isParallelFilterEnabled()) {
+                        return new ParallelFilteredRecordCursorFactory(
+                                engine,
+                                workScheduler,
+                                metadata,
+                                dfcFactory,
+                                tableName,
+                                model.getTableVersion(),
+                                configuration.getSqlParallelFilterFrameRowCount(),
+                                parseParallelFilters(filter, intrinsicModel.filter, metadata, executionContext)
+                        );
+                    }
                     // filter lifecycle is managed by top level
                     return new FilteredRecordCursorFactory(new DataFrameRecordCursorFactory(metadata, dfcFactory, new DataFrameRowCursorFactory(), null), filter);
                 }
@@ -1470,6 +1887,104 @@ public class SqlCodeGenerator {
         return unionFactory;
     }
 
+    private long getAnalyticFrameSize(int frameType, ExpressionNode node) throws SqlException {
+        final CharSequence tok = GenericLexer.unquote(node.token);
+        final int len = tok.length();
+        try {
+            if (frameType == AnalyticColumn.FRAME_ROWS) {
+                final long rows = Numbers.parseLong(tok);
+                if (rows > -1) {
+                    return rows;
+                }
+            } else if (len > 1) {
+                // interval such as '10m', qualifiers are the same as in "sample by"
+                final long n = Numbers.parseLong(tok, 0, len - 1);
+                if (n > 0) {
+                    switch (tok.charAt(len - 1)) {
+                        case 's':
+                            return n * Timestamps.SECOND_MICROS;
+                        case 'm':
+                            return n * Timestamps.MINUTE_MICROS;
+                        case 'h':
+                            return n * Timestamps.HOUR_MICROS;
+                        case 'd':
+                            return n * Timestamps.DAY_MICROS;
+                        default:
+                            break;
+                    }
+                }
+            }
+        } catch (NumericException ignore) {
+        }
+        if (frameType == AnalyticColumn.FRAME_ROWS) {
+            throw SqlException.$(node.position, "non-negative number of rows expected");
+        }
+        throw SqlException.$(node.position, "interval expected, for example '10m'");
+    }
+
+    private long getConstantLimit(ExpressionNode node, SqlExecutionContext executionContext) throws SqlException {
+        final Function function = functionParser.parseFunction(node, EmptyRecordMetadata.INSTANCE, executionContext);
+        try {
+            if (function.isConstant() && !limitTypes.excludes(function.getType())) {
+                return function.getLong(null);
+            }
+            return -1;
+        } finally {
+            function.close();
+        }
+    }
+
+    /**
+     * Number of sorted rows that "limit" clause of the model can return, "limit 10" and "limit 5,10"
+     * both need first 10 rows.
+     *
+     * @return number of rows or -1 when limit is absent, is not a constant or counts rows from the end of cursor
+     */
+    private long getSortLimit(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
+        final ExpressionNode limitLo = model.getLimitLo();
+        final ExpressionNode limitHi = model.getLimitHi();
+
+        if (limitLo == null && limitHi == null) {
+            return -1;
+        }
+
+        final long lo = limitLo == null ? 0 : getConstantLimit(limitLo, executionContext);
+        if (lo < 0) {
+            return -1;
+        }
+
+        if (limitHi == null) {
+            return lo;
+        }
+        return getConstantLimit(limitHi, executionContext);
+    }
+
+    private static boolean isSameAnalyticOrder(AnalyticColumn a, AnalyticColumn b) {
+        final ObjList<ExpressionNode> orderByA = a.getOrderBy();
+        final ObjList<ExpressionNode> orderByB = b.getOrderBy();
+        if (orderByA.size() != orderByB.size() || !a.getOrderByDirection().equals(b.getOrderByDirection())) {
+            return false;
+        }
+        for (int i = 0, n = orderByA.size(); i < n; i++) {
+            if (!Chars.equals(orderByA.getQuick(i).token, orderByB.getQuick(i).token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isParallelFilterEnabled() {
+        return workScheduler != null
+                && workScheduler.getWorkerCount() > 0
+                && configuration.isSqlParallelFilterEnabled();
+    }
+
+    private boolean isParallelGroupByEnabled() {
+        return workScheduler != null
+                && workScheduler.getWorkerCount() > 0
+                && configuration.isSqlParallelGroupByEnabled();
+    }
+
     private void lookupColumnIndexes(
             ListColumnFilter filter,
             ObjList<ExpressionNode> columnNames,
@@ -1492,6 +2007,37 @@ public class SqlCodeGenerator {
         }
     }
 
+    /**
+     * Filter functions are not thread-safe. Each worker thread and the thread iterating
+     * the cursor get their own instance of filter, owner's instance comes first.
+     */
+    private ObjList<Function> parseParallelFilters(
+            Function filter,
+            ExpressionNode filterNode,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final int n = workScheduler.getWorkerCount() + 1;
+        final ObjList<Function> filters = new ObjList<>(n);
+        filters.add(filter);
+        if (filter instanceof CompiledFilter) {
+            // compiled filter is stateless, workers can share it
+            for (int i = 1; i < n; i++) {
+                filters.add(filter);
+            }
+            return filters;
+        }
+        try {
+            for (int i = 1; i < n; i++) {
+                filters.add(functionParser.parseFunction(filterNode, metadata, executionContext));
+            }
+        } catch (SqlException e) {
+            Misc.freeObjList(filters);
+            throw e;
+        }
+        return filters;
+    }
+
     private void processJoinContext(boolean vanillaMaster, JoinContext jc, RecordMetadata masterMetadata, RecordMetadata slaveMetadata) throws SqlException {
         lookupColumnIndexesUsingVanillaNames(listColumnFilterA, jc.aNames, slaveMetadata);
         if (vanillaMaster) {
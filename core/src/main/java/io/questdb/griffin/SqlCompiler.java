@@ -29,11 +29,15 @@ import io.questdb.cairo.sql.*;
 import io.questdb.cutlass.text.Atomicity;
 import io.questdb.cutlass.text.TextException;
 import io.questdb.cutlass.text.TextLoader;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
 import io.questdb.griffin.model.*;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
+import io.questdb.std.microtime.TimestampFormat;
+import io.questdb.std.microtime.TimestampLocaleFactory;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -80,6 +84,7 @@ public class SqlCompiler implements Closeable {
     private final SqlCodeGenerator codeGenerator;
     private final CairoConfiguration configuration;
     private final Path path = new Path();
+    private final Path otherPath = new Path();
     private final AppendMemory mem = new AppendMemory();
     private final BytecodeAssembler asm = new BytecodeAssembler();
     private final CairoWorkScheduler workScheduler;
@@ -96,9 +101,10 @@ public class SqlCompiler implements Closeable {
     private final ExecutableMethod createTableMethod = this::createTable;
     private final TextLoader textLoader;
     private final FilesFacade ff;
+    private final StringSink normalizedQuerySink = new StringSink();
 
     public SqlCompiler(CairoEngine engine) {
-        this(engine, null);
+        this(engine, engine.getWorkScheduler());
     }
 
     public SqlCompiler(CairoEngine engine, @Nullable CairoWorkScheduler workScheduler) {
@@ -115,7 +121,7 @@ public class SqlCompiler implements Closeable {
         );
         this.lexer = new GenericLexer(configuration.getSqlLexerPoolCapacity());
         this.functionParser = new FunctionParser(configuration, ServiceLoader.load(FunctionFactory.class));
-        this.codeGenerator = new SqlCodeGenerator(engine, configuration, functionParser);
+        this.codeGenerator = new SqlCodeGenerator(engine, configuration, functionParser, workScheduler);
 
         // we have cyclical dependency here
         functionParser.setSqlCodeGenerator(codeGenerator);
@@ -173,7 +179,7 @@ public class SqlCompiler implements Closeable {
 
     // Creates data type converter.
     // INT and LONG NaN values are cast to their representation rather than Double or Float NaN.
-    private static RecordToRowCopier assembleRecordToRowCopier(BytecodeAssembler asm, ColumnTypes from, RecordMetadata to, ColumnFilter toColumnFilter) {
+    static RecordToRowCopier assembleRecordToRowCopier(BytecodeAssembler asm, ColumnTypes from, RecordMetadata to, ColumnFilter toColumnFilter) {
         int timestampIndex = to.getTimestampIndex();
         asm.init(RecordToRowCopier.class);
         asm.setupPool();
@@ -635,6 +641,7 @@ public class SqlCompiler implements Closeable {
     @Override
     public void close() {
         Misc.free(path);
+        Misc.free(otherPath);
         Misc.free(textLoader);
     }
 
@@ -680,12 +687,14 @@ public class SqlCompiler implements Closeable {
         CharSequence tableName = GenericLexer.immutableOf(tok);
         try (TableWriter writer = engine.getWriter(executionContext.getCairoSecurityContext(), tableName)) {
 
-            tok = expectToken(lexer, "'add' or 'drop'");
+            tok = expectToken(lexer, "'add', 'drop' or 'compress'");
 
             if (Chars.equalsLowerCaseAscii("add", tok)) {
                 alterTableAddColumn(tableNamePosition, writer);
             } else if (Chars.equalsLowerCaseAscii("drop", tok)) {
                 alterTableDropColumn(tableNamePosition, writer);
+            } else if (Chars.equalsLowerCaseAscii("compress", tok)) {
+                alterTableCompressPartition(tableNamePosition, writer);
             } else {
                 throw SqlException.$(lexer.lastTokenPosition(), "unexpected token: ").put(tok);
             }
@@ -817,6 +826,49 @@ public class SqlCompiler implements Closeable {
         } while (true);
     }
 
+    private void alterTableCompressPartition(int tableNamePosition, TableWriter writer) throws SqlException {
+        expectKeyword(lexer, "partition");
+
+        final TimestampFormat partitionDirFmt = TableWriter.selectPartitionDirFmt(writer.getPartitionBy());
+        if (partitionDirFmt == null) {
+            throw SqlException.$(tableNamePosition, "table is not partitioned");
+        }
+
+        do {
+            CharSequence tok = expectToken(lexer, "partition name");
+            final int partitionNamePosition = lexer.lastTokenPosition();
+
+            final long timestamp;
+            try {
+                timestamp = partitionDirFmt.parse(GenericLexer.unquote(tok), TimestampLocaleFactory.INSTANCE.getDefaultTimestampLocale());
+            } catch (NumericException e) {
+                throw SqlException.$(partitionNamePosition, "invalid partition name");
+            }
+
+            final boolean compressed;
+            try {
+                compressed = writer.compressPartition(timestamp);
+            } catch (CairoException e) {
+                LOG.error().$("Cannot compress partition '").$(writer.getName()).$('.').$(tok).$("'. Exception: ").$((Sinkable) e).$();
+                throw SqlException.$(tableNamePosition, "Cannot compress partition. Try again later.");
+            }
+
+            if (!compressed) {
+                throw SqlException.$(partitionNamePosition, "could not compress partition '").put(GenericLexer.unquote(tok)).put('\'');
+            }
+
+            tok = SqlUtil.fetchNext(lexer);
+
+            if (tok == null) {
+                break;
+            }
+
+            if (!Chars.equals(tok, ',')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "',' expected");
+            }
+        } while (true);
+    }
+
     private void alterTableDropColumn(int tableNamePosition, TableWriter writer) throws SqlException {
         // add columns to table
         expectKeyword(lexer, "column");
@@ -856,6 +908,7 @@ public class SqlCompiler implements Closeable {
         queryModelPool.clear();
         optimiser.clear();
         parser.clear();
+        codeGenerator.clearDependencies();
     }
 
     private ExecutionModel compileExecutionModel(SqlExecutionContext executionContext) throws SqlException {
@@ -894,7 +947,7 @@ public class SqlCompiler implements Closeable {
         ExecutionModel executionModel = compileExecutionModel(executionContext);
         switch (executionModel.getModelType()) {
             case ExecutionModel.QUERY:
-                return compiledQuery.of(generate((QueryModel) executionModel, executionContext));
+                return compiledQuery.of(generateWithResultCache((QueryModel) executionModel, executionContext));
             case ExecutionModel.CREATE_TABLE:
                 return createTableWithRetries(executionModel, executionContext);
             case ExecutionModel.COPY:
@@ -989,6 +1042,71 @@ public class SqlCompiler implements Closeable {
         writer.commit();
     }
 
+    private TableWriter createMaterializedView(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
+        final MaterializedView view = model.getMaterializedView();
+        final long maxTimestamp;
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), view.getBaseTableName())) {
+            if (reader.getMetadata().getTimestampIndex() == -1) {
+                throw SqlException.$(model.getName().position, "base table of materialized view must have designated timestamp");
+            }
+            view.setBaseDataVersion(reader.getDataVersion());
+            maxTimestamp = reader.getMaxTimestamp();
+            if (model.getPartitionBy() == PartitionBy.NONE) {
+                model.setPartitionBy(SqlUtil.nextLiteral(sqlNodePool, PartitionBy.toString(reader.getPartitionedBy()), 0));
+            }
+        }
+
+        try (final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext);
+             final RecordCursor cursor = factory.getCursor(executionContext)
+        ) {
+            final RecordMetadata metadata = factory.getMetadata();
+            final int timestampIndex = metadata.getTimestampIndex();
+            if (timestampIndex == -1) {
+                throw SqlException.$(model.getName().position, "materialized view must select sample by timestamp");
+            }
+            model.setTimestamp(SqlUtil.nextLiteral(sqlNodePool, metadata.getColumnName(timestampIndex), 0));
+
+            typeCast.clear();
+            engine.creatTable(
+                    executionContext.getCairoSecurityContext(),
+                    mem,
+                    path,
+                    tableStructureAdapter.of(model, metadata, typeCast)
+            );
+
+            TableWriter writer = null;
+            try {
+                writer = new TableWriter(configuration, model.getName().token, workScheduler, false, DefaultLifecycleManager.INSTANCE);
+                // interval of maximum timestamp is still open, view is populated with intervals before it
+                if (maxTimestamp != Long.MIN_VALUE) {
+                    final long hi = TimestampSamplerFactory.getInstance(view.getSampleBy(), 0).round(maxTimestamp);
+                    final RecordMetadata writerMetadata = writer.getMetadata();
+                    entityColumnFilter.of(writerMetadata.getColumnCount());
+                    final RecordToRowCopier copier = assembleRecordToRowCopier(asm, metadata, writerMetadata, entityColumnFilter);
+                    final Record record = cursor.getRecord();
+                    while (cursor.hasNext()) {
+                        final long timestamp = record.getTimestamp(timestampIndex);
+                        if (timestamp >= hi) {
+                            break;
+                        }
+                        TableWriter.Row row = writer.newRow(timestamp);
+                        copier.copy(record, row);
+                        row.append();
+                    }
+                    writer.commit();
+                }
+                view.write(ff, mem, path, otherPath, configuration.getRoot(), model.getName().token);
+                return writer;
+            } catch (CairoException e) {
+                Misc.free(writer);
+                if (removeTableDirectory(model)) {
+                    throw e;
+                }
+                throw SqlException.$(0, "Concurrent modification cannot be handled. Failed to clean up. See log for more details.");
+            }
+        }
+    }
+
     private CompiledQuery createTable(final ExecutionModel model, SqlExecutionContext executionContext) throws SqlException {
         final CreateTableModel createTableModel = (CreateTableModel) model;
         final ExpressionNode name = createTableModel.getName();
@@ -1009,6 +1127,8 @@ public class SqlCompiler implements Closeable {
                 try {
                     if (createTableModel.getQueryModel() == null) {
                         engine.creatTable(executionContext.getCairoSecurityContext(), mem, path, createTableModel);
+                    } else if (createTableModel.getMaterializedView() != null) {
+                        writer = createMaterializedView(createTableModel, executionContext);
                     } else {
                         writer = createTableFromCursor(createTableModel, executionContext);
                     }
@@ -1129,6 +1249,25 @@ public class SqlCompiler implements Closeable {
         return codeGenerator.generate(queryModel, executionContext);
     }
 
+    private RecordCursorFactory generateWithResultCache(QueryModel queryModel, SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursorFactory factory = generate(queryModel, executionContext);
+        if (engine.getQueryResultCache() == null) {
+            return factory;
+        }
+
+        // queries that differ only in whitespace and comments share cached result
+        normalizedQuerySink.clear();
+        lexer.restart();
+        CharSequence tok;
+        while ((tok = SqlUtil.fetchNext(lexer)) != null) {
+            if (normalizedQuerySink.length() > 0) {
+                normalizedQuerySink.put(' ');
+            }
+            normalizedQuerySink.put(tok);
+        }
+        return codeGenerator.generateResultCache(factory, normalizedQuerySink);
+    }
+
     private CompiledQuery insert(ExecutionModel executionModel, SqlExecutionContext executionContext) throws SqlException {
         final InsertModel model = (InsertModel) executionModel;
         final ExpressionNode name = model.getTableName();
@@ -879,6 +879,17 @@ class SqlOptimiser {
         }
     }
 
+    private void emitLiterals(
+            ObjList<ExpressionNode> literals,
+            QueryModel translatingModel,
+            QueryModel innerModel,
+            QueryModel validatingModel
+    ) throws SqlException {
+        for (int i = 0, n = literals.size(); i < n; i++) {
+            literals.setQuick(i, replaceLiteral(literals.getQuick(i), translatingModel, innerModel, validatingModel));
+        }
+    }
+
     private void emitLiterals(
             @Transient ExpressionNode node,
             QueryModel translatingModel,
@@ -2310,6 +2321,10 @@ class SqlOptimiser {
 
                         // ensure literals referenced by analytic column are present in nested models
                         emitLiterals(qc.getAst(), translatingModel, innerModel, baseModel);
+                        // as well as columns analytic function partitions and orders by
+                        final AnalyticColumn ac = (AnalyticColumn) qc;
+                        emitLiterals(ac.getPartitionBy(), translatingModel, innerModel, baseModel);
+                        emitLiterals(ac.getOrderBy(), translatingModel, innerModel, baseModel);
                         useAnalyticModel = true;
                         continue;
                     } else if (functionParser.isGroupBy(qc.getAst().token)) {
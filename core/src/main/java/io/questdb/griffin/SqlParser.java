@@ -30,6 +30,7 @@ import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableUtils;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
 
 public final class SqlParser {
@@ -110,6 +111,19 @@ public final class SqlParser {
         copyModelPool.clear();
     }
 
+    private void addCreateTableColumns(CreateTableModel model, QueryModel queryModel) {
+        ObjList<QueryColumn> columns = queryModel.getColumns();
+        assert columns.size() > 0;
+
+        // we do not know types of columns at this stage
+        // compiler must put table together using query metadata.
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            model.addColumn(columns.getQuick(i).getName(), -1, configuration.getDefaultSymbolCapacity());
+        }
+
+        model.setQueryModel(queryModel);
+    }
+
     private CharSequence createColumnAlias(ExpressionNode node, QueryModel model) {
         return SqlUtil.createColumnAlias(characterStore, node.token, Chars.indexOf(node.token, '.'), model.getColumnNameTypeMap());
     }
@@ -281,7 +295,50 @@ public final class SqlParser {
         throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
     }
 
+    private ExecutionModel parseCreateMaterializedView(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
+        final CreateTableModel model = createTableModelPool.next();
+        final CharSequence viewName = tok(lexer, "view name");
+        if (Chars.indexOf(viewName, '.') != -1) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'.' is not allowed here");
+        }
+        model.setName(nextLiteral(GenericLexer.unquote(viewName), lexer.lastTokenPosition()));
+
+        expectTok(lexer, "as");
+        expectTok(lexer, '(');
+        final int queryLo = lexer.getPosition();
+        final QueryModel queryModel = parseDml(lexer);
+        expectTok(lexer, ')');
+
+        // refresh job re-runs view query over new rows of base table, it does so by substituting
+        // table name with sub-query, hence text around table name has to be kept
+        model.setMaterializedView(validateMaterializedViewQuery(lexer.getContent(), queryLo, lexer.lastTokenPosition(), queryModel));
+        addCreateTableColumns(model, optimiser.optimise(queryModel, executionContext));
+
+        CharSequence tok = optTok(lexer);
+        ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
+        if (partitionBy != null) {
+            if (PartitionBy.fromString(partitionBy.token) == -1) {
+                throw SqlException.$(partitionBy.position, "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected");
+            }
+            model.setPartitionBy(partitionBy);
+            tok = optTok(lexer);
+        }
+
+        if (tok == null || Chars.equals(tok, ';')) {
+            return model;
+        }
+        throw errUnexpected(lexer, tok);
+    }
+
     private ExecutionModel parseCreateStatement(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
+        CharSequence tok = optTok(lexer);
+        if (Chars.equalsLowerCaseAsciiNc(tok, "materialized")) {
+            expectTok(lexer, "view");
+            return parseCreateMaterializedView(lexer, executionContext);
+        }
+        if (tok != null) {
+            lexer.unparse();
+        }
         expectTok(lexer, "table");
         return parseCreateTable(lexer, executionContext);
     }
@@ -327,7 +384,7 @@ public final class SqlParser {
         ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
         if (partitionBy != null) {
             if (PartitionBy.fromString(partitionBy.token) == -1) {
-                throw SqlException.$(partitionBy.position, "'NONE', 'DAY', 'MONTH' or 'YEAR' expected");
+                throw SqlException.$(partitionBy.position, "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected");
             }
             model.setPartitionBy(partitionBy);
             tok = optTok(lexer);
@@ -341,17 +398,7 @@ public final class SqlParser {
 
     private void parseCreateTableAsSelect(GenericLexer lexer, CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
         expectTok(lexer, '(');
-        QueryModel queryModel = optimiser.optimise(parseDml(lexer), executionContext);
-        ObjList<QueryColumn> columns = queryModel.getColumns();
-        assert columns.size() > 0;
-
-        // we do not know types of columns at this stage
-        // compiler must put table together using query metadata.
-        for (int i = 0, n = columns.size(); i < n; i++) {
-            model.addColumn(columns.getQuick(i).getName(), -1, configuration.getDefaultSymbolCapacity());
-        }
-
-        model.setQueryModel(queryModel);
+        addCreateTableColumns(model, optimiser.optimise(parseDml(lexer), executionContext));
         expectTok(lexer, ')');
     }
 
@@ -1025,6 +1072,24 @@ public final class SqlParser {
                             }
                         }
                     } while (Chars.equals(tok, ','));
+
+                    // optional frame, only "<n> preceding and current row" bound is supported
+                    final boolean rows = Chars.equalsLowerCaseAscii(tok, "rows");
+                    if (rows || Chars.equalsLowerCaseAscii(tok, "range")) {
+                        expectTok(lexer, "between");
+                        tok = tok(lexer, "'unbounded' or frame size");
+                        if (!Chars.equalsLowerCaseAscii(tok, "unbounded")) {
+                            col.setFrame(
+                                    rows ? AnalyticColumn.FRAME_ROWS : AnalyticColumn.FRAME_RANGE,
+                                    nextLiteral(GenericLexer.immutableOf(tok), lexer.lastTokenPosition())
+                            );
+                        }
+                        expectTok(lexer, "preceding");
+                        expectTok(lexer, "and");
+                        expectTok(lexer, "current");
+                        expectTok(lexer, "row");
+                        tok = tok(lexer, "')'");
+                    }
                 }
                 expectTok(tok, lexer.lastTokenPosition(), ')');
                 model.addColumn(col);
@@ -1302,6 +1367,62 @@ public final class SqlParser {
         }
     }
 
+    private MaterializedView validateMaterializedViewQuery(CharSequence content, int queryLo, int queryHi, QueryModel queryModel) throws SqlException {
+        if (queryModel.getUnionModel() != null) {
+            throw SqlException.$(queryModel.getUnionModel().getModelPosition(), "union is not supported by materialized view");
+        }
+
+        final QueryModel nested = queryModel.getNestedModel();
+        final ExpressionNode tableName = nested.getTableName();
+        if (tableName == null || tableName.type != ExpressionNode.LITERAL) {
+            throw SqlException.$(nested.getModelPosition(), "materialized view must select from table");
+        }
+
+        if (nested.getJoinModels().size() > 1) {
+            final QueryModel joinModel = nested.getJoinModels().getQuick(1);
+            final int position = joinModel.getTableName() != null ? joinModel.getTableName().position : nested.getModelPosition();
+            throw SqlException.$(position, "join is not supported by materialized view");
+        }
+
+        if (nested.getLatestBy().size() > 0) {
+            throw SqlException.$(nested.getLatestBy().getQuick(0).position, "latest by is not supported by materialized view");
+        }
+
+        final ExpressionNode sampleBy = nested.getSampleBy();
+        if (sampleBy == null) {
+            throw SqlException.$(queryHi, "materialized view query must have 'sample by'");
+        }
+
+        if (nested.getSampleByFill().size() > 0) {
+            throw SqlException.$(nested.getSampleByFill().getQuick(0).position, "fill is not supported by materialized view");
+        }
+
+        if (nested.getOrderBy().size() > 0 || queryModel.getLimitLo() != null) {
+            throw SqlException.$(sampleBy.position, "order by and limit are not supported by materialized view");
+        }
+
+        // table name token may be quoted, in which case its text is longer than the name
+        final int tableLo = tableName.position;
+        final char c = content.charAt(tableLo);
+        final boolean quoted = c == '\'' || c == '"';
+        final int tableHi = quoted ? Chars.indexOf(content, tableLo + 1, c) + 1 : tableLo + tableName.token.length();
+
+        final StringSink suffix = new StringSink();
+        if (nested.getAlias() == null && !quoted) {
+            // column references qualified with table name must still resolve against sub-query
+            suffix.put(' ').put(tableName.token);
+        }
+        suffix.put(content, tableHi, queryHi);
+
+        return new MaterializedView(
+                Chars.toString(tableName.token),
+                Chars.toString(sampleBy.token),
+                content.subSequence(queryLo, tableLo).toString(),
+                suffix.toString(),
+                -1
+        );
+    }
+
     static {
         tableAliasStop.add("where");
         tableAliasStop.add("latest");
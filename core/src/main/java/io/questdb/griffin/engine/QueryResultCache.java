@@ -0,0 +1,252 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.RecordChain;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Engine-wide cache of query results. Entries are keyed by query text and bind variable values,
+ * each entry remembers versions and transactions of tables it was produced from and becomes
+ * stale as soon as any of these tables commits. Cached rows are kept in off-heap record chains,
+ * values of symbol columns are kept in symbol tables of the entry. Total size of chain memory pages
+ * and symbol values is bounded. Least recently used entries are evicted first.
+ * <p>
+ * Record chains are not thread-safe, therefore entry is served to one cursor at a time. Concurrent
+ * executions of the same query fall back to reading tables.
+ */
+public class QueryResultCache implements Closeable {
+    private final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+    private final long maxSize;
+    // most recently used entry
+    private Entry head;
+    // least recently used entry
+    private Entry tail;
+    private long size;
+
+    public QueryResultCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Finds entry for given key, which was produced from tables in the given state. Stale entry
+     * is removed from cache.
+     *
+     * @param key        query text and bind variable values
+     * @param tableState versions and transactions of tables query reads
+     * @return entry, which caller must {@link #release(Entry)}, or null when there is no usable entry
+     */
+    public synchronized Entry acquire(CharSequence key, CharSequence tableState) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        if (!Chars.equals(entry.tableState, tableState)) {
+            remove0(entry);
+            return null;
+        }
+
+        if (entry.busy) {
+            return null;
+        }
+
+        entry.busy = true;
+        unlink(entry);
+        linkHead(entry);
+        return entry;
+    }
+
+    public synchronized void clear() {
+        while (head != null) {
+            remove0(head);
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Offers query result to the cache. On success cache takes ownership of the chain, otherwise
+     * chain remains with the caller.
+     *
+     * @param key        query text and bind variable values
+     * @param tableState versions and transactions of tables query reads
+     * @param chain        rows of query result
+     * @param symbolTables values of symbol columns by column index, null for other columns
+     * @param rowCount     number of rows in the chain
+     * @return true when result has been cached
+     */
+    public synchronized boolean put(
+            CharSequence key,
+            CharSequence tableState,
+            RecordChain chain,
+            ObjList<QueryResultSymbolTable> symbolTables,
+            long rowCount
+    ) {
+        long entrySize = chain.getAllocatedMemorySize();
+        for (int i = 0, n = symbolTables.size(); i < n; i++) {
+            final QueryResultSymbolTable symbolTable = symbolTables.getQuick(i);
+            if (symbolTable != null) {
+                entrySize += symbolTable.getMemorySize();
+            }
+        }
+
+        if (entrySize > maxSize) {
+            return false;
+        }
+
+        final Entry existing = entries.get(key);
+        if (existing != null) {
+            if (existing.busy) {
+                return false;
+            }
+            remove0(existing);
+        }
+
+        Entry victim = tail;
+        while (size + entrySize > maxSize && victim != null) {
+            final Entry prev = victim.prev;
+            if (!victim.busy) {
+                remove0(victim);
+            }
+            victim = prev;
+        }
+
+        if (size + entrySize > maxSize) {
+            return false;
+        }
+
+        final Entry entry = new Entry(Chars.toString(key), Chars.toString(tableState), chain, symbolTables, rowCount, entrySize);
+        entries.put(entry.key, entry);
+        linkHead(entry);
+        size += entrySize;
+        return true;
+    }
+
+    public synchronized void release(Entry entry) {
+        entry.busy = false;
+        if (entry.removed) {
+            Misc.free(entry.chain);
+        }
+    }
+
+    private void linkHead(Entry entry) {
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        } else {
+            tail = entry;
+        }
+        head = entry;
+    }
+
+    private void remove0(Entry entry) {
+        unlink(entry);
+        entries.remove(entry.key);
+        size -= entry.size;
+        entry.removed = true;
+        // busy entry is freed when its cursor releases it
+        if (!entry.busy) {
+            Misc.free(entry.chain);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            head = entry.next;
+        }
+
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        } else {
+            tail = entry.prev;
+        }
+        entry.prev = entry.next = null;
+    }
+
+    public static class Entry {
+        private final String key;
+        private final String tableState;
+        private final RecordChain chain;
+        private final ObjList<QueryResultSymbolTable> symbolTables;
+        private final long rowCount;
+        private final long size;
+        private Entry prev;
+        private Entry next;
+        private boolean busy;
+        private boolean removed;
+
+        private Entry(
+                String key,
+                String tableState,
+                RecordChain chain,
+                ObjList<QueryResultSymbolTable> symbolTables,
+                long rowCount,
+                long size
+        ) {
+            this.key = key;
+            this.tableState = tableState;
+            this.chain = chain;
+            this.symbolTables = symbolTables;
+            this.rowCount = rowCount;
+            this.size = size;
+        }
+
+        public RecordChain getChain() {
+            return chain;
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        public QueryResultSymbolTable getSymbolTable(int columnIndex) {
+            return symbolTables.getQuick(columnIndex);
+        }
+    }
+}
@@ -0,0 +1,484 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.bind.BindVariableService;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Serves rows of the base factory from {@link QueryResultCache} while tables query reads
+ * do not change. On cache miss rows are copied into record chain as they are being read
+ * and the chain is offered to the cache once cursor is exhausted. Symbol tables of base cursor
+ * do not outlive it, therefore cached rows refer to symbol values copied into
+ * {@link QueryResultSymbolTable}, which cached cursor serves instead.
+ */
+public class QueryResultCacheRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final Log LOG = LogFactory.getLog(QueryResultCacheRecordCursorFactory.class);
+    private final RecordCursorFactory base;
+    private final CairoEngine engine;
+    private final QueryResultCache cache;
+    private final String query;
+    private final ObjList<CharSequence> tableNames;
+    private final IntList bindVariableIndexes;
+    private final ObjList<CharSequence> bindVariableNames;
+    private final RecordSink recordSink;
+    private final long pageSize;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final Path path = new Path();
+    private final long tempMem16b = Unsafe.malloc(16);
+    private final StringSink keySink = new StringSink();
+    private final StringSink tableStateSink = new StringSink();
+    private final QueryResultCacheRecordCursor cursor;
+
+    public QueryResultCacheRecordCursorFactory(
+            RecordCursorFactory base,
+            CairoEngine engine,
+            CharSequence query,
+            @Transient ObjList<CharSequence> tableNames,
+            @Transient IntList bindVariableIndexes,
+            @Transient ObjList<CharSequence> bindVariableNames,
+            RecordSink recordSink,
+            long pageSize
+    ) {
+        super(base.getMetadata());
+        this.base = base;
+        this.engine = engine;
+        this.cache = engine.getQueryResultCache();
+        this.query = Chars.toString(query);
+        this.tableNames = new ObjList<>(tableNames.size());
+        this.tableNames.addAll(tableNames);
+        this.bindVariableIndexes = new IntList(bindVariableIndexes.size());
+        this.bindVariableIndexes.addAll(bindVariableIndexes);
+        this.bindVariableNames = new ObjList<>(bindVariableNames.size());
+        this.bindVariableNames.addAll(bindVariableNames);
+        this.recordSink = recordSink;
+        this.pageSize = pageSize;
+        this.ff = engine.getConfiguration().getFilesFacade();
+        this.root = engine.getConfiguration().getRoot();
+        this.cursor = new QueryResultCacheRecordCursor();
+    }
+
+    private static boolean putBindVariable(CharSink sink, Function function) {
+        if (function == null) {
+            return false;
+        }
+        final int type = function.getType();
+        sink.put(type).put('=');
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                sink.put(function.getBool(null));
+                break;
+            case ColumnType.BYTE:
+                sink.put(function.getByte(null));
+                break;
+            case ColumnType.SHORT:
+                sink.put(function.getShort(null));
+                break;
+            case ColumnType.CHAR:
+                sink.put((int) function.getChar(null));
+                break;
+            case ColumnType.INT:
+                sink.put(function.getInt(null));
+                break;
+            case ColumnType.LONG:
+                sink.put(function.getLong(null));
+                break;
+            case ColumnType.DATE:
+                sink.put(function.getDate(null));
+                break;
+            case ColumnType.TIMESTAMP:
+                sink.put(function.getTimestamp(null));
+                break;
+            case ColumnType.FLOAT:
+                sink.put(Float.floatToIntBits(function.getFloat(null)));
+                break;
+            case ColumnType.DOUBLE:
+                sink.put(Double.doubleToLongBits(function.getDouble(null)));
+                break;
+            case ColumnType.STRING:
+                final CharSequence value = function.getStr(null);
+                if (value == null) {
+                    sink.put(TableUtils.NULL_LEN);
+                } else {
+                    sink.put(value.length()).put(':').put(value);
+                }
+                break;
+            case ColumnType.LONG256:
+                function.getLong256(null, sink);
+                break;
+            default:
+                // binary values are not worth comparing
+                return false;
+        }
+        sink.put(';');
+        return true;
+    }
+
+    @Override
+    public void close() {
+        base.close();
+        Misc.free(path);
+        Unsafe.free(tempMem16b, 16);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        if (!buildKey(executionContext)) {
+            cursor.ofBase(base.getCursor(executionContext));
+            return cursor;
+        }
+
+        final QueryResultCache.Entry entry = cache.acquire(keySink, tableStateSink);
+        if (entry != null) {
+            cursor.ofEntry(entry);
+            return cursor;
+        }
+
+        // table state is captured before query runs, rows committed in the meantime
+        // can only make entry look stale, they cannot be served under older state
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        cursor.ofChain(baseCursor, new RecordChain(getMetadata(), recordSink, pageSize));
+        return cursor;
+    }
+
+    @Override
+    public boolean isRandomAccessCursor() {
+        return false;
+    }
+
+    private boolean buildKey(SqlExecutionContext executionContext) {
+        keySink.clear();
+        keySink.put(query).put('\u0000');
+
+        final int indexedCount = bindVariableIndexes.size();
+        final int namedCount = bindVariableNames.size();
+        if (indexedCount > 0 || namedCount > 0) {
+            final BindVariableService bindVariableService = executionContext.getBindVariableService();
+            if (bindVariableService == null) {
+                return false;
+            }
+
+            for (int i = 0; i < indexedCount; i++) {
+                final int index = bindVariableIndexes.getQuick(i);
+                keySink.put(index).put(':');
+                if (!putBindVariable(keySink, bindVariableService.getFunction(index))) {
+                    return false;
+                }
+            }
+
+            for (int i = 0; i < namedCount; i++) {
+                final CharSequence name = bindVariableNames.getQuick(i);
+                keySink.put(name).put(':');
+                if (!putBindVariable(keySink, bindVariableService.getFunction(name))) {
+                    return false;
+                }
+            }
+        }
+
+        // table state is read from transaction files, acquiring readers would cost as much
+        // as some of the queries being cached
+        tableStateSink.clear();
+        for (int i = 0, n = tableNames.size(); i < n; i++) {
+            final CharSequence tableName = tableNames.getQuick(i);
+            try {
+                if (!TableUtils.readTxnState(ff, path.of(root).concat(tableName), tempMem16b)) {
+                    LOG.info().$("result will not be cached, table is being committed to [table=").$(tableName).$(']').$();
+                    return false;
+                }
+            } catch (CairoException e) {
+                LOG.info().$("result will not be cached [table=").$(tableName).$(", e=").$((Sinkable) e).$(']').$();
+                return false;
+            }
+            final long txn = Unsafe.getUnsafe().getLong(tempMem16b);
+            final long structVersion = Unsafe.getUnsafe().getLong(tempMem16b + 8);
+            tableStateSink.put(tableName).put(':').put(structVersion).put(':').put(txn).put(';');
+        }
+        return true;
+    }
+
+    private class QueryResultCacheRecordCursor implements RecordCursor {
+        private final SymbolKeyRecord symbolKeyRecord = new SymbolKeyRecord();
+        private RecordCursor baseCursor;
+        private QueryResultCache.Entry entry;
+        private RecordChain chain;
+        private ObjList<QueryResultSymbolTable> symbolTables;
+        private long prevRecordOffset;
+        private long rowCount;
+
+        @Override
+        public void close() {
+            if (entry != null) {
+                cache.release(entry);
+                entry = null;
+            }
+            chain = Misc.free(chain);
+            symbolTables = null;
+            baseCursor = Misc.free(baseCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return entry != null ? entry.getChain().getRecord() : baseCursor.getRecord();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return entry != null ? entry.getSymbolTable(columnIndex) : baseCursor.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (entry != null) {
+                return entry.getChain().hasNext();
+            }
+
+            if (baseCursor.hasNext()) {
+                if (chain != null) {
+                    prevRecordOffset = chain.put(symbolKeyRecord, prevRecordOffset);
+                    rowCount++;
+                    if (chain.getAllocatedMemorySize() > cache.getMaxSize()) {
+                        freeChain();
+                    }
+                }
+                return true;
+            }
+
+            if (chain != null) {
+                if (cache.put(keySink, tableStateSink, chain, symbolTables, rowCount)) {
+                    chain = null;
+                    symbolTables = null;
+                } else {
+                    freeChain();
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Record newRecord() {
+            return entry != null ? entry.getChain().newRecord() : baseCursor.newRecord();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            if (entry != null) {
+                entry.getChain().recordAt(record, atRowId);
+            } else {
+                baseCursor.recordAt(record, atRowId);
+            }
+        }
+
+        @Override
+        public void recordAt(long rowId) {
+            if (entry != null) {
+                entry.getChain().recordAt(rowId);
+            } else {
+                baseCursor.recordAt(rowId);
+            }
+        }
+
+        @Override
+        public void toTop() {
+            if (entry != null) {
+                entry.getChain().toTop();
+            } else {
+                // partially read result cannot be cached
+                freeChain();
+                baseCursor.toTop();
+            }
+        }
+
+        @Override
+        public long size() {
+            return entry != null ? entry.getRowCount() : baseCursor.size();
+        }
+
+        private void freeChain() {
+            chain = Misc.free(chain);
+            symbolTables = null;
+        }
+
+        private void ofBase(RecordCursor baseCursor) {
+            this.baseCursor = baseCursor;
+        }
+
+        private void ofChain(RecordCursor baseCursor, RecordChain chain) {
+            this.baseCursor = baseCursor;
+            this.chain = chain;
+            final RecordMetadata metadata = getMetadata();
+            final int columnCount = metadata.getColumnCount();
+            this.symbolTables = new ObjList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                symbolTables.add(metadata.getColumnType(i) == ColumnType.SYMBOL ? new QueryResultSymbolTable() : null);
+            }
+            this.symbolKeyRecord.of(baseCursor.getRecord(), symbolTables);
+            this.prevRecordOffset = -1L;
+            this.rowCount = 0;
+        }
+
+        private void ofEntry(QueryResultCache.Entry entry) {
+            this.entry = entry;
+            final RecordChain chain = entry.getChain();
+            chain.setSymbolTableResolver(this);
+            chain.toTop();
+        }
+    }
+
+    /**
+     * Gives record sink keys of cached symbol tables in place of base symbol keys.
+     */
+    private static class SymbolKeyRecord implements Record {
+        private Record base;
+        private ObjList<QueryResultSymbolTable> symbolTables;
+
+        @Override
+        public BinarySequence getBin(int col) {
+            return base.getBin(col);
+        }
+
+        @Override
+        public long getBinLen(int col) {
+            return base.getBinLen(col);
+        }
+
+        @Override
+        public boolean getBool(int col) {
+            return base.getBool(col);
+        }
+
+        @Override
+        public byte getByte(int col) {
+            return base.getByte(col);
+        }
+
+        @Override
+        public long getDate(int col) {
+            return base.getDate(col);
+        }
+
+        @Override
+        public double getDouble(int col) {
+            return base.getDouble(col);
+        }
+
+        @Override
+        public float getFloat(int col) {
+            return base.getFloat(col);
+        }
+
+        @Override
+        public int getInt(int col) {
+            final QueryResultSymbolTable symbolTable = symbolTables.getQuick(col);
+            if (symbolTable != null) {
+                return symbolTable.toKey(base.getInt(col), base.getSym(col));
+            }
+            return base.getInt(col);
+        }
+
+        @Override
+        public long getLong(int col) {
+            return base.getLong(col);
+        }
+
+        @Override
+        public long getRowId() {
+            return base.getRowId();
+        }
+
+        @Override
+        public short getShort(int col) {
+            return base.getShort(col);
+        }
+
+        @Override
+        public char getChar(int col) {
+            return base.getChar(col);
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return base.getStr(col);
+        }
+
+        @Override
+        public void getStr(int col, CharSink sink) {
+            base.getStr(col, sink);
+        }
+
+        @Override
+        public void getLong256(int col, CharSink sink) {
+            base.getLong256(col, sink);
+        }
+
+        @Override
+        public Long256 getLong256A(int col) {
+            return base.getLong256A(col);
+        }
+
+        @Override
+        public Long256 getLong256B(int col) {
+            return base.getLong256B(col);
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return base.getStrB(col);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return base.getStrLen(col);
+        }
+
+        @Override
+        public CharSequence getSym(int col) {
+            return base.getSym(col);
+        }
+
+        @Override
+        public long getTimestamp(int col) {
+            return base.getTimestamp(col);
+        }
+
+        private void of(Record base, ObjList<QueryResultSymbolTable> symbolTables) {
+            this.base = base;
+            this.symbolTables = symbolTables;
+        }
+    }
+}
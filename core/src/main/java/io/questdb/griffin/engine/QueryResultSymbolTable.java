@@ -0,0 +1,99 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.CharSequenceIntHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.IntIntHashMap;
+import io.questdb.std.ObjList;
+
+/**
+ * Symbol values of cached query result. Symbol tables of base cursor do not outlive it, therefore
+ * values cached rows refer to are copied here as the result is being read and rows are given keys
+ * of this table instead of keys of base symbol table.
+ */
+public class QueryResultSymbolTable implements SymbolTable {
+    // rough heap footprint of value object, its references and hash map slots
+    private static final int VALUE_OVERHEAD = 64;
+    private final IntIntHashMap baseKeys = new IntIntHashMap();
+    private final CharSequenceIntHashMap keys = new CharSequenceIntHashMap();
+    private final ObjList<String> values = new ObjList<>();
+    private long memorySize;
+
+    /**
+     * @return estimate of heap bytes taken by symbol values
+     */
+    public long getMemorySize() {
+        return memorySize;
+    }
+
+    @Override
+    public int getQuick(CharSequence value) {
+        if (value == null) {
+            return VALUE_IS_NULL;
+        }
+        final int index = keys.keyIndex(value);
+        return index < 0 ? keys.valueAt(index) : VALUE_NOT_FOUND;
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public CharSequence value(int key) {
+        return key == VALUE_IS_NULL ? null : values.getQuick(key);
+    }
+
+    /**
+     * Translates key of base symbol table to key of this table. Value is copied when
+     * key is seen for the first time.
+     *
+     * @param baseKey key in base symbol table
+     * @param value   value of the key
+     * @return key in this table
+     */
+    int toKey(int baseKey, CharSequence value) {
+        if (baseKey == VALUE_IS_NULL || value == null) {
+            return VALUE_IS_NULL;
+        }
+
+        final int index = baseKeys.keyIndex(baseKey);
+        if (index < 0) {
+            return baseKeys.valueAt(index);
+        }
+
+        final int key = values.size();
+        final String str = Chars.toString(value);
+        values.add(str);
+        keys.put(str, key);
+        baseKeys.putAt(index, baseKey, key);
+        memorySize += 2L * str.length() + VALUE_OVERHEAD;
+        return key;
+    }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.functions.constants.NullConstant;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+
+/**
+ * Accepts (value [, offset [, default]]) arguments, where offset and default are constants.
+ * Offset defaults to 1 and default value to null.
+ */
+abstract class AbstractLagLeadFunctionFactory implements FunctionFactory {
+
+    @Override
+    public boolean isAnalytic() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
+        final int argCount = args == null ? 0 : args.size();
+        if (argCount < 1 || argCount > 3) {
+            throw SqlException.$(position, "value, offset and default value expected");
+        }
+
+        final Function value = args.getQuick(0);
+        final int pageSize = configuration.getSqlAnalyticStorePageSize();
+
+        int offset = 1;
+        if (argCount > 1) {
+            final Function offsetArg = args.getQuick(1);
+            if (!offsetArg.isConstant() || (offsetArg.getType() != ColumnType.INT && offsetArg.getType() != ColumnType.LONG)) {
+                throw SqlException.$(offsetArg.getPosition(), "integer constant expected");
+            }
+            final long n = offsetArg.getLong(null);
+            final int max = pageSize / Long.BYTES;
+            if (n < 1 || n > max) {
+                throw SqlException.$(offsetArg.getPosition(), "offset must be between 1 and ").put(max);
+            }
+            offset = (int) n;
+        }
+
+        Function defaultArg = null;
+        if (argCount > 2) {
+            defaultArg = args.getQuick(2);
+            if (!defaultArg.isConstant()) {
+                throw SqlException.$(defaultArg.getPosition(), "constant expected");
+            }
+            if (defaultArg instanceof NullConstant) {
+                defaultArg = null;
+            }
+        }
+
+        final boolean lead = isLead();
+        final int type = value.getType();
+        switch (type) {
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return new LagLeadDoubleFunction(
+                        position,
+                        value,
+                        new LagLeadBuffer(lead, offset, Double.doubleToRawLongBits(getDefaultDouble(defaultArg)), pageSize)
+                );
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                return new LagLeadLongFunction(
+                        position,
+                        value,
+                        new LagLeadBuffer(lead, offset, getDefaultLong(defaultArg, type), pageSize)
+                );
+            case ColumnType.DATE:
+                return new LagLeadDateFunction(
+                        position,
+                        value,
+                        new LagLeadBuffer(lead, offset, getDefaultLong(defaultArg, type), pageSize)
+                );
+            case ColumnType.TIMESTAMP:
+                return new LagLeadTimestampFunction(
+                        position,
+                        value,
+                        new LagLeadBuffer(lead, offset, getDefaultLong(defaultArg, type), pageSize)
+                );
+            default:
+                throw SqlException.$(value.getPosition(), "unsupported argument type: ").put(ColumnType.nameOf(type));
+        }
+    }
+
+    private static double getDefaultDouble(Function defaultArg) throws SqlException {
+        if (defaultArg == null) {
+            return Double.NaN;
+        }
+        final int type = defaultArg.getType();
+        if (type < ColumnType.BYTE || type > ColumnType.DOUBLE || type == ColumnType.CHAR) {
+            throw incompatibleDefault(defaultArg);
+        }
+        return defaultArg.getDouble(null);
+    }
+
+    private static long getDefaultLong(Function defaultArg, int valueType) throws SqlException {
+        if (defaultArg == null) {
+            return Numbers.LONG_NaN;
+        }
+        final int type = defaultArg.getType();
+        switch (type) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                return defaultArg.getLong(null);
+            case ColumnType.DATE:
+                if (valueType == ColumnType.DATE) {
+                    return defaultArg.getDate(null);
+                }
+                break;
+            case ColumnType.TIMESTAMP:
+                if (valueType == ColumnType.TIMESTAMP) {
+                    return defaultArg.getTimestamp(null);
+                }
+                break;
+            default:
+                break;
+        }
+        throw incompatibleDefault(defaultArg);
+    }
+
+    private static SqlException incompatibleDefault(Function defaultArg) {
+        return SqlException.$(defaultArg.getPosition(), "incompatible default value type: ").put(ColumnType.nameOf(defaultArg.getType()));
+    }
+
+    protected abstract boolean isLead();
+}
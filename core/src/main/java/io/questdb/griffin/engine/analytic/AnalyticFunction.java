@@ -0,0 +1,90 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.IntList;
+import io.questdb.std.Transient;
+
+/**
+ * Analytic function computes value of current row from rows of the same partition seen so far. Partition state
+ * is kept in map value, which is keyed by partition columns. Value is new when row is the first in its partition.
+ * <p>
+ * Functions that need to look ahead of current row, such as lead(), are two-pass. They are invoked via
+ * {@link #pass1(MapValue, Record, long)} for every row before the first call to
+ * {@link #computeNext(MapValue, Record, long)}. Both calls receive the same map value for the partition.
+ * <p>
+ * Getters return value computed for current row and ignore the record argument.
+ */
+public interface AnalyticFunction extends Function {
+
+    void computeNext(MapValue value, Record record, long rowIndex);
+
+    /**
+     * Frame of "n preceding and current row" form.
+     *
+     * @param frameType      {@link io.questdb.griffin.model.AnalyticColumn#FRAME_ROWS} or {@link io.questdb.griffin.model.AnalyticColumn#FRAME_RANGE}
+     * @param frameSize      number of preceding rows or length of interval in microseconds
+     * @param timestampIndex index of timestamp column rows are ordered by, valid for range frames only
+     * @param position       position of frame in SQL text
+     * @throws SqlException when function does not support frames
+     */
+    default void initFrame(int frameType, long frameSize, int timestampIndex, int position) throws SqlException {
+        throw SqlException.$(position, "frame is not supported by this function");
+    }
+
+    /**
+     * Called once function is created to let it know columns of "order by" clause. Rows
+     * are guaranteed to arrive in this order within partition.
+     *
+     * @param metadata       metadata of analysed rows
+     * @param orderByColumns indexes of order by columns, empty when there is no "order by"
+     * @param position       position of function in SQL text
+     * @throws SqlException when function cannot be ordered by given columns
+     */
+    default void initOrderBy(RecordMetadata metadata, @Transient IntList orderByColumns, int position) throws SqlException {
+    }
+
+    default boolean isTwoPass() {
+        return false;
+    }
+
+    default void pass1(MapValue value, Record record, long rowIndex) {
+    }
+
+    void pushValueTypes(ArrayColumnTypes columnTypes);
+
+    /**
+     * Releases state accumulated by previous cursor, including first pass. In contrast {@link #toTop()}
+     * keeps results of the first pass.
+     */
+    default void reset() {
+    }
+}
@@ -0,0 +1,309 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Streams rows of base cursor and computes analytic functions as rows go by. Rows are expected to
+ * arrive in order of "order by" clause of analytic functions, which is either natural order of
+ * base cursor, typically designated timestamp, or is established by sorting base cursor.
+ * <p>
+ * Functions with the same "partition by" clause share map, which is keyed by partition columns
+ * and holds state of every partition these functions have seen. Two-pass functions, such as lead(),
+ * have separate map, which is populated on the first pass over base cursor.
+ */
+public class AnalyticRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<Function> functions;
+    private final ObjList<AnalyticFunction> analyticFunctions = new ObjList<>();
+    private final ObjList<Partition> partitions;
+    private final AnalyticRecordCursor cursor;
+    private final boolean twoPass;
+
+    /**
+     * @param configuration         for creating partition maps
+     * @param metadata              metadata of this factory
+     * @param base                  factory of rows in order required by analytic functions
+     * @param functions             functions of every column of this factory, including analytic functions
+     * @param partitionSinks        sinks that copy partition columns of base record to map key, one per distinct "partition by" clause
+     * @param partitionKeyTypes     types of partition columns, one list per sink
+     * @param partitionFunctions    analytic functions of every partition
+     * @param symbolTableCrossIndex index of base column for every symbol column of this factory
+     */
+    public AnalyticRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            ObjList<Function> functions,
+            @Transient @NotNull ObjList<RecordSink> partitionSinks,
+            @Transient @NotNull ObjList<ArrayColumnTypes> partitionKeyTypes,
+            @Transient @NotNull ObjList<ObjList<AnalyticFunction>> partitionFunctions,
+            @Nullable IntList symbolTableCrossIndex
+    ) {
+        super(metadata);
+        this.base = base;
+        this.functions = functions;
+
+        final int n = partitionSinks.size();
+        this.partitions = new ObjList<>(n);
+        final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+        final ArrayColumnTypes pass1ValueTypes = new ArrayColumnTypes();
+        boolean twoPass = false;
+        for (int i = 0; i < n; i++) {
+            final ObjList<AnalyticFunction> all = partitionFunctions.getQuick(i);
+            final ObjList<AnalyticFunction> streaming = new ObjList<>();
+            final ObjList<AnalyticFunction> pass1 = new ObjList<>();
+            valueTypes.reset();
+            pass1ValueTypes.reset();
+            for (int j = 0, m = all.size(); j < m; j++) {
+                final AnalyticFunction function = all.getQuick(j);
+                if (function.isTwoPass()) {
+                    function.pushValueTypes(pass1ValueTypes);
+                    pass1.add(function);
+                } else {
+                    function.pushValueTypes(valueTypes);
+                    streaming.add(function);
+                }
+                analyticFunctions.add(function);
+            }
+            twoPass |= pass1.size() > 0;
+            final ArrayColumnTypes keyTypes = partitionKeyTypes.getQuick(i);
+            partitions.add(
+                    new Partition(
+                            partitionSinks.getQuick(i),
+                            streaming.size() > 0 ? MapFactory.createMap(configuration, keyTypes, valueTypes) : null,
+                            streaming,
+                            pass1.size() > 0 ? MapFactory.createMap(configuration, keyTypes, pass1ValueTypes) : null,
+                            pass1
+                    )
+            );
+        }
+        this.twoPass = twoPass;
+        this.cursor = new AnalyticRecordCursor(symbolTableCrossIndex);
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            functions.getQuick(i).close();
+        }
+        Misc.freeObjList(partitions);
+        base.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            functions.getQuick(i).init(baseCursor, executionContext);
+        }
+        for (int i = 0, n = analyticFunctions.size(); i < n; i++) {
+            analyticFunctions.getQuick(i).reset();
+        }
+        try {
+            cursor.of(baseCursor);
+            return cursor;
+        } catch (CairoException e) {
+            baseCursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isRandomAccessCursor() {
+        return false;
+    }
+
+    private static class Partition implements Closeable {
+        private final RecordSink sink;
+        private final Map map;
+        private final ObjList<AnalyticFunction> functions;
+        private final Map pass1Map;
+        private final ObjList<AnalyticFunction> pass1Functions;
+
+        private Partition(
+                RecordSink sink,
+                Map map,
+                ObjList<AnalyticFunction> functions,
+                Map pass1Map,
+                ObjList<AnalyticFunction> pass1Functions
+        ) {
+            this.sink = sink;
+            this.map = map;
+            this.functions = functions;
+            this.pass1Map = pass1Map;
+            this.pass1Functions = pass1Functions;
+        }
+
+        @Override
+        public void close() {
+            Misc.free(map);
+            Misc.free(pass1Map);
+        }
+
+        private void clear() {
+            if (map != null) {
+                map.clear();
+            }
+        }
+
+        private void computeNext(Record record, long rowIndex) {
+            if (map != null) {
+                final MapKey key = map.withKey();
+                sink.copy(record, key);
+                final MapValue value = key.createValue();
+                for (int i = 0, n = functions.size(); i < n; i++) {
+                    functions.getQuick(i).computeNext(value, record, rowIndex);
+                }
+            }
+
+            if (pass1Map != null) {
+                final MapKey key = pass1Map.withKey();
+                sink.copy(record, key);
+                final MapValue value = key.findValue();
+                for (int i = 0, n = pass1Functions.size(); i < n; i++) {
+                    pass1Functions.getQuick(i).computeNext(value, record, rowIndex);
+                }
+            }
+        }
+
+        private void pass1(Record record, long rowIndex) {
+            if (pass1Map != null) {
+                final MapKey key = pass1Map.withKey();
+                sink.copy(record, key);
+                final MapValue value = key.createValue();
+                for (int i = 0, n = pass1Functions.size(); i < n; i++) {
+                    pass1Functions.getQuick(i).pass1(value, record, rowIndex);
+                }
+            }
+        }
+
+        private void reset() {
+            clear();
+            if (pass1Map != null) {
+                pass1Map.clear();
+            }
+        }
+    }
+
+    private class AnalyticRecordCursor implements NoRandomAccessRecordCursor {
+        private final VirtualRecord record;
+        private final IntList symbolTableCrossIndex;
+        private RecordCursor baseCursor;
+        private Record baseRecord;
+        private long rowIndex;
+
+        private AnalyticRecordCursor(@Nullable IntList symbolTableCrossIndex) {
+            this.record = new VirtualRecordNoRowid(functions);
+            this.symbolTableCrossIndex = symbolTableCrossIndex;
+        }
+
+        @Override
+        public void close() {
+            Misc.free(baseCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            assert symbolTableCrossIndex != null;
+            return baseCursor.getSymbolTable(symbolTableCrossIndex.getQuick(columnIndex));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (baseCursor.hasNext()) {
+                for (int i = 0, n = partitions.size(); i < n; i++) {
+                    partitions.getQuick(i).computeNext(baseRecord, rowIndex);
+                }
+                rowIndex++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return baseCursor.size();
+        }
+
+        @Override
+        public void toTop() {
+            baseCursor.toTop();
+            rowIndex = 0;
+            // results of the first pass remain valid
+            for (int i = 0, n = partitions.size(); i < n; i++) {
+                partitions.getQuick(i).clear();
+            }
+            for (int i = 0, n = analyticFunctions.size(); i < n; i++) {
+                analyticFunctions.getQuick(i).toTop();
+            }
+        }
+
+        private void of(RecordCursor baseCursor) {
+            this.baseCursor = baseCursor;
+            this.baseRecord = baseCursor.getRecord();
+            this.record.of(baseRecord);
+            this.rowIndex = 0;
+            for (int i = 0, n = partitions.size(); i < n; i++) {
+                partitions.getQuick(i).reset();
+            }
+
+            if (twoPass) {
+                long rowIndex = 0;
+                while (baseCursor.hasNext()) {
+                    for (int i = 0, n = partitions.size(); i < n; i++) {
+                        partitions.getQuick(i).pass1(baseRecord, rowIndex);
+                    }
+                    rowIndex++;
+                }
+                baseCursor.toTop();
+            }
+        }
+    }
+}
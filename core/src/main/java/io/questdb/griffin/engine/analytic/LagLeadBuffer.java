@@ -0,0 +1,145 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.MemoryPages;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * State of lag() and lead() functions, which is independent of value type. Values are passed
+ * around as their raw 64-bit representation.
+ * <p>
+ * Every partition owns ring buffer of "offset" entries in native memory. For lag() ring holds last
+ * values of partition and value of current row is the one pushed out of the ring. lead() is two-pass.
+ * On the first pass ring holds indexes of last rows and value of current row is stored as
+ * result of row pushed out of the ring. Rows that are never pushed out keep the default value.
+ */
+class LagLeadBuffer implements Closeable {
+    private final boolean lead;
+    private final int offset;
+    private final long defaultValue;
+    private final MemoryPages store;
+    private final DirectLongList leadValues;
+    private int valueIndex;
+    private long current;
+
+    LagLeadBuffer(boolean lead, int offset, long defaultValue, int pageSize) {
+        this.lead = lead;
+        this.offset = offset;
+        this.defaultValue = defaultValue;
+        this.store = new MemoryPages(pageSize);
+        this.leadValues = lead ? new DirectLongList(pageSize / Long.BYTES) : null;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(store);
+        Misc.free(leadValues);
+    }
+
+    void computeNext(MapValue value, long v, long rowIndex) {
+        if (lead) {
+            current = leadValues.get(rowIndex);
+        } else {
+            current = shift(value, v, defaultValue);
+        }
+    }
+
+    long getCurrent() {
+        return current;
+    }
+
+    boolean isTwoPass() {
+        return lead;
+    }
+
+    void pass1(MapValue value, long v, long rowIndex) {
+        leadValues.add(defaultValue);
+        final long pushedOut = shift(value, rowIndex, -1);
+        if (pushedOut != -1) {
+            leadValues.set(pushedOut, v);
+        }
+    }
+
+    void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        // ring offset in store
+        columnTypes.add(ColumnType.LONG);
+        // ring head
+        columnTypes.add(ColumnType.LONG);
+        // ring size
+        columnTypes.add(ColumnType.LONG);
+    }
+
+    void reset() {
+        store.clear();
+        if (leadValues != null) {
+            leadValues.setPos(0);
+        }
+    }
+
+    void toTop() {
+        if (!lead) {
+            store.clear();
+        }
+    }
+
+    private long shift(MapValue value, long v, long missing) {
+        final long ring;
+        final long head;
+        final long size;
+        if (value.isNew()) {
+            ring = store.allocateOffset((long) offset * Long.BYTES);
+            head = 0;
+            size = 0;
+            value.putLong(valueIndex, ring);
+        } else {
+            ring = value.getLong(valueIndex);
+            head = value.getLong(valueIndex + 1);
+            size = value.getLong(valueIndex + 2);
+        }
+
+        if (size < offset) {
+            // ring is filling up from head at 0
+            Unsafe.getUnsafe().putLong(store.addressOf(ring + size * Long.BYTES), v);
+            value.putLong(valueIndex + 1, 0);
+            value.putLong(valueIndex + 2, size + 1);
+            return missing;
+        }
+
+        final long address = store.addressOf(ring + head * Long.BYTES);
+        final long pushedOut = Unsafe.getUnsafe().getLong(address);
+        Unsafe.getUnsafe().putLong(address, v);
+        value.putLong(valueIndex + 1, head + 1 < offset ? head + 1 : 0);
+        return pushedOut;
+    }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.DateFunction;
+
+public class LagLeadDateFunction extends DateFunction implements AnalyticFunction {
+    private final Function arg;
+    private final LagLeadBuffer buffer;
+
+    public LagLeadDateFunction(int position, Function arg, LagLeadBuffer buffer) {
+        super(position);
+        this.arg = arg;
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void close() {
+        arg.close();
+        buffer.close();
+    }
+
+    @Override
+    public void computeNext(MapValue value, Record record, long rowIndex) {
+        buffer.computeNext(value, arg.getDate(record), rowIndex);
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) {
+        arg.init(symbolTableSource, executionContext);
+    }
+
+    @Override
+    public boolean isTwoPass() {
+        return buffer.isTwoPass();
+    }
+
+    @Override
+    public void pass1(MapValue value, Record record, long rowIndex) {
+        buffer.pass1(value, arg.getDate(record), rowIndex);
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        buffer.pushValueTypes(columnTypes);
+    }
+
+    @Override
+    public void reset() {
+        buffer.reset();
+    }
+
+    @Override
+    public void toTop() {
+        buffer.toTop();
+    }
+
+    @Override
+    public long getDate(Record rec) {
+        return buffer.getCurrent();
+    }
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.std.IntList;
+
+/**
+ * Implements rank() and dense_rank(). Rows are peers when their "order by" values are equal. Values of the
+ * last row are kept in partition map value to detect start of next group of peers.
+ */
+public class RankFunction extends LongFunction implements AnalyticFunction {
+    private final boolean dense;
+    private final IntList orderByColumns = new IntList();
+    private final IntList orderByTypes = new IntList();
+    private int valueIndex;
+    private long rank;
+
+    public RankFunction(int position, boolean dense) {
+        super(position);
+        this.dense = dense;
+    }
+
+    @Override
+    public void computeNext(MapValue value, Record record, long rowIndex) {
+        final long rowNumber;
+        if (value.isNew()) {
+            rowNumber = 1;
+            rank = 1;
+            storeOrderValues(value, record);
+        } else {
+            rowNumber = value.getLong(valueIndex) + 1;
+            rank = value.getLong(valueIndex + 1);
+            if (!isPeer(value, record)) {
+                rank = dense ? rank + 1 : rowNumber;
+                storeOrderValues(value, record);
+            }
+        }
+        value.putLong(valueIndex, rowNumber);
+        value.putLong(valueIndex + 1, rank);
+    }
+
+    @Override
+    public void initOrderBy(RecordMetadata metadata, IntList orderByColumns, int position) throws SqlException {
+        for (int i = 0, n = orderByColumns.size(); i < n; i++) {
+            final int index = orderByColumns.getQuick(i);
+            final int type = metadata.getColumnType(index);
+            switch (type) {
+                case ColumnType.STRING:
+                case ColumnType.BINARY:
+                case ColumnType.LONG256:
+                    throw SqlException.$(position, "cannot rank by column of type ").put(ColumnType.nameOf(type));
+                default:
+                    this.orderByColumns.add(index);
+                    this.orderByTypes.add(type);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        // row number within partition
+        columnTypes.add(ColumnType.LONG);
+        // rank of the last row
+        columnTypes.add(ColumnType.LONG);
+        // order by values of the last row
+        for (int i = 0, n = orderByColumns.size(); i < n; i++) {
+            columnTypes.add(ColumnType.LONG);
+        }
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        return rank;
+    }
+
+    private static long getOrderValue(Record record, int columnIndex, int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+                return record.getBool(columnIndex) ? 1 : 0;
+            case ColumnType.BYTE:
+                return record.getByte(columnIndex);
+            case ColumnType.SHORT:
+                return record.getShort(columnIndex);
+            case ColumnType.CHAR:
+                return record.getChar(columnIndex);
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+                return record.getInt(columnIndex);
+            case ColumnType.FLOAT:
+                return Float.floatToIntBits(record.getFloat(columnIndex));
+            case ColumnType.DOUBLE:
+                return Double.doubleToLongBits(record.getDouble(columnIndex));
+            case ColumnType.DATE:
+                return record.getDate(columnIndex);
+            case ColumnType.TIMESTAMP:
+                return record.getTimestamp(columnIndex);
+            default:
+                return record.getLong(columnIndex);
+        }
+    }
+
+    private boolean isPeer(MapValue value, Record record) {
+        for (int i = 0, n = orderByColumns.size(); i < n; i++) {
+            if (value.getLong(valueIndex + 2 + i) != getOrderValue(record, orderByColumns.getQuick(i), orderByTypes.getQuick(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void storeOrderValues(MapValue value, Record record) {
+        for (int i = 0, n = orderByColumns.size(); i < n; i++) {
+            value.putLong(valueIndex + 2 + i, getOrderValue(record, orderByColumns.getQuick(i), orderByTypes.getQuick(i)));
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.model.AnalyticColumn;
+import io.questdb.std.IntList;
+import io.questdb.std.MemoryPages;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+
+/**
+ * Sum of values in analytic frame, null values are ignored. Frame is chosen by "over" clause:
+ * <ul>
+ * <li>no "order by" - all rows of partition, values are summed up on the first pass</li>
+ * <li>"order by" - rows of partition up to and including current row</li>
+ * <li>"rows between n preceding and current row" - last n+1 rows of partition</li>
+ * <li>"range between n preceding and current row" - rows of partition with timestamp
+ * no older than n before current row's timestamp</li>
+ * </ul>
+ * Rows of moving frames are kept in native memory. Rows frame is a per-partition ring buffer of
+ * fixed size, which has to fit single page of the store. Range frame is a per-partition list of
+ * fixed size chunks, which grows by a chunk at a time and is not limited by page size. Chunks
+ * that frames move past are reused by all partitions.
+ */
+public class SumDoubleAnalyticFunction extends DoubleFunction implements AnalyticFunction {
+    private static final int MODE_PARTITION = 0;
+    private static final int MODE_RUNNING = 1;
+    private static final int MODE_ROWS = 2;
+    private static final int MODE_RANGE = 3;
+    private static final int RANGE_ENTRY_SIZE = 2 * Long.BYTES;
+    private static final int RANGE_CHUNK_ROWS = 64;
+    private final Function arg;
+    private final int storePageSize;
+    private int mode = MODE_PARTITION;
+    private MemoryPages store;
+    private long frameSize;
+    // rows per range chunk and head of the list of chunks free for reuse
+    private long chunkRows;
+    private long freeChunk = -1;
+    private int timestampIndex;
+    private int valueIndex;
+    private double value;
+
+    public SumDoubleAnalyticFunction(int position, Function arg, int storePageSize) {
+        super(position);
+        this.arg = arg;
+        this.storePageSize = storePageSize;
+    }
+
+    @Override
+    public void close() {
+        arg.close();
+        store = Misc.free(store);
+    }
+
+    @Override
+    public void computeNext(MapValue value, Record record, long rowIndex) {
+        switch (mode) {
+            case MODE_PARTITION:
+                break;
+            case MODE_RUNNING:
+                computeRunning(value, record);
+                break;
+            case MODE_ROWS:
+                computeRows(value, record);
+                break;
+            default:
+                computeRange(value, record);
+                break;
+        }
+        this.value = getResult(value.getDouble(valueIndex), value.getLong(valueIndex + 1));
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) {
+        arg.init(symbolTableSource, executionContext);
+    }
+
+    @Override
+    public void initFrame(int frameType, long frameSize, int timestampIndex, int position) throws SqlException {
+        if (frameType == AnalyticColumn.FRAME_ROWS) {
+            if ((frameSize + 1) * Double.BYTES > storePageSize) {
+                throw SqlException.$(position, "frame cannot exceed ").put(storePageSize / Double.BYTES - 1).put(" rows");
+            }
+            this.mode = MODE_ROWS;
+        } else {
+            if (timestampIndex == -1) {
+                throw SqlException.$(position, "range frame requires ascending order by timestamp column");
+            }
+            this.mode = MODE_RANGE;
+            this.timestampIndex = timestampIndex;
+            // chunk starts with offset of the next chunk
+            this.chunkRows = Math.max(1, Math.min(RANGE_CHUNK_ROWS, (storePageSize - Long.BYTES) / RANGE_ENTRY_SIZE));
+        }
+        this.frameSize = frameSize;
+        this.store = new MemoryPages(storePageSize);
+    }
+
+    @Override
+    public void initOrderBy(RecordMetadata metadata, IntList orderByColumns, int position) {
+        if (orderByColumns.size() > 0) {
+            this.mode = MODE_RUNNING;
+        }
+    }
+
+    @Override
+    public boolean isTwoPass() {
+        return mode == MODE_PARTITION;
+    }
+
+    @Override
+    public void pass1(MapValue value, Record record, long rowIndex) {
+        computeRunning(value, record);
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        // sum and count of non-null values in frame
+        columnTypes.add(ColumnType.DOUBLE);
+        columnTypes.add(ColumnType.LONG);
+        switch (mode) {
+            case MODE_ROWS:
+                // ring offset, head and size
+                columnTypes.add(ColumnType.LONG);
+                columnTypes.add(ColumnType.LONG);
+                columnTypes.add(ColumnType.LONG);
+                break;
+            case MODE_RANGE:
+                // head chunk, index of its first row, tail chunk and its row count
+                columnTypes.add(ColumnType.LONG);
+                columnTypes.add(ColumnType.LONG);
+                columnTypes.add(ColumnType.LONG);
+                columnTypes.add(ColumnType.LONG);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void reset() {
+        toTop();
+    }
+
+    @Override
+    public void toTop() {
+        if (store != null) {
+            store.clear();
+        }
+        freeChunk = -1;
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return value;
+    }
+
+    protected double getResult(double sum, long count) {
+        return count > 0 ? sum : Double.NaN;
+    }
+
+    private long allocateChunk() {
+        final long chunk;
+        if (freeChunk != -1) {
+            chunk = freeChunk;
+            freeChunk = Unsafe.getUnsafe().getLong(store.addressOf(chunk));
+        } else {
+            chunk = store.allocateOffset(Long.BYTES + chunkRows * RANGE_ENTRY_SIZE);
+        }
+        Unsafe.getUnsafe().putLong(store.addressOf(chunk), -1);
+        return chunk;
+    }
+
+    private void computeRange(MapValue value, Record record) {
+        final long timestamp = record.getTimestamp(timestampIndex);
+        final double d = arg.getDouble(record);
+
+        long headChunk;
+        long headIndex;
+        long tailChunk;
+        long tailCount;
+        double sum;
+        long count;
+        if (value.isNew()) {
+            headChunk = tailChunk = allocateChunk();
+            headIndex = 0;
+            tailCount = 0;
+            sum = 0;
+            count = 0;
+        } else {
+            sum = value.getDouble(valueIndex);
+            count = value.getLong(valueIndex + 1);
+            headChunk = value.getLong(valueIndex + 2);
+            headIndex = value.getLong(valueIndex + 3);
+            tailChunk = value.getLong(valueIndex + 4);
+            tailCount = value.getLong(valueIndex + 5);
+        }
+
+        // evict rows that fell out of the frame
+        final long lo = timestamp - frameSize;
+        while (headChunk != tailChunk || headIndex < tailCount) {
+            final long chunkAddress = store.addressOf(headChunk);
+            if (headIndex == chunkRows) {
+                // frame moved past head chunk
+                final long next = Unsafe.getUnsafe().getLong(chunkAddress);
+                Unsafe.getUnsafe().putLong(chunkAddress, freeChunk);
+                freeChunk = headChunk;
+                headChunk = next;
+                headIndex = 0;
+                continue;
+            }
+            final long address = chunkAddress + Long.BYTES + headIndex * RANGE_ENTRY_SIZE;
+            if (Unsafe.getUnsafe().getLong(address) >= lo) {
+                break;
+            }
+            sum -= Unsafe.getUnsafe().getDouble(address + Long.BYTES);
+            count--;
+            headIndex++;
+        }
+
+        if (headChunk == tailChunk && headIndex == tailCount) {
+            // frame is empty, start over at the top of the chunk
+            headIndex = 0;
+            tailCount = 0;
+        }
+
+        if (d == d) {
+            if (tailCount == chunkRows) {
+                final long chunk = allocateChunk();
+                Unsafe.getUnsafe().putLong(store.addressOf(tailChunk), chunk);
+                tailChunk = chunk;
+                tailCount = 0;
+            }
+            final long address = store.addressOf(tailChunk) + Long.BYTES + tailCount * RANGE_ENTRY_SIZE;
+            Unsafe.getUnsafe().putLong(address, timestamp);
+            Unsafe.getUnsafe().putDouble(address + Long.BYTES, d);
+            tailCount++;
+            sum += d;
+            count++;
+        }
+
+        value.putDouble(valueIndex, count > 0 ? sum : 0);
+        value.putLong(valueIndex + 1, count);
+        value.putLong(valueIndex + 2, headChunk);
+        value.putLong(valueIndex + 3, headIndex);
+        value.putLong(valueIndex + 4, tailChunk);
+        value.putLong(valueIndex + 5, tailCount);
+    }
+
+    private void computeRows(MapValue value, Record record) {
+        final long capacity = frameSize + 1;
+        final double d = arg.getDouble(record);
+
+        final long ring;
+        long head;
+        long size;
+        double sum;
+        long count;
+        if (value.isNew()) {
+            ring = store.allocateOffset(capacity * Double.BYTES);
+            head = 0;
+            size = 0;
+            sum = 0;
+            count = 0;
+        } else {
+            sum = value.getDouble(valueIndex);
+            count = value.getLong(valueIndex + 1);
+            ring = value.getLong(valueIndex + 2);
+            head = value.getLong(valueIndex + 3);
+            size = value.getLong(valueIndex + 4);
+        }
+
+        final long address;
+        if (size < capacity) {
+            address = store.addressOf(ring + size * Double.BYTES);
+            size++;
+        } else {
+            // replace the oldest row of the frame
+            address = store.addressOf(ring + head * Double.BYTES);
+            final double old = Unsafe.getUnsafe().getDouble(address);
+            if (old == old) {
+                sum -= old;
+                count--;
+            }
+            head = head + 1 < capacity ? head + 1 : 0;
+        }
+        Unsafe.getUnsafe().putDouble(address, d);
+
+        if (d == d) {
+            sum += d;
+            count++;
+        }
+
+        value.putDouble(valueIndex, count > 0 ? sum : 0);
+        value.putLong(valueIndex + 1, count);
+        value.putLong(valueIndex + 2, ring);
+        value.putLong(valueIndex + 3, head);
+        value.putLong(valueIndex + 4, size);
+    }
+
+    private void computeRunning(MapValue value, Record record) {
+        final double d = arg.getDouble(record);
+        if (value.isNew()) {
+            value.putDouble(valueIndex, 0);
+            value.putLong(valueIndex + 1, 0);
+        }
+        if (d == d) {
+            value.addDouble(valueIndex, d);
+            value.addLong(valueIndex + 1, 1);
+        }
+    }
+}
@@ -34,6 +34,28 @@ public interface GroupByFunction extends Function {
 
     void computeNext(MapValue mapValue, Record record);
 
+    /**
+     * Copies partial aggregate of srcValue into destValue. Values belong to different maps
+     * with identical value columns, such as maps of threads that aggregated parts of the
+     * same table. Functions that can merge must also return true from {@link #supportsMerge()}.
+     *
+     * @param destValue value that has no aggregate yet
+     * @param srcValue  partial aggregate
+     */
+    default void mergeFirst(MapValue destValue, MapValue srcValue) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Folds partial aggregate of srcValue into aggregate held by destValue.
+     *
+     * @param destValue value that was previously computed or merged
+     * @param srcValue  partial aggregate
+     */
+    default void mergeNext(MapValue destValue, MapValue srcValue) {
+        throw new UnsupportedOperationException();
+    }
+
     void pushValueTypes(ArrayColumnTypes columnTypes);
 
     default void setByte(MapValue mapValue, byte value) {
@@ -61,4 +83,8 @@ public interface GroupByFunction extends Function {
     default void setShort(MapValue mapValue, short value) {
         throw new UnsupportedOperationException();
     }
+
+    default boolean supportsMerge() {
+        return false;
+    }
 }
@@ -53,6 +53,11 @@ public class ClassCatalogueFunctionFactory implements FunctionFactory {
         return "pg_catalog.pg_class()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) {
         return new CursorFunction(
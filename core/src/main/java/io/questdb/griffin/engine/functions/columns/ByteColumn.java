@@ -36,6 +36,10 @@ public class ByteColumn extends ByteFunction implements StatelessFunction {
         this.columnIndex = columnIndex;
     }
 
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     @Override
     public byte getByte(Record rec) {
         return rec.getByte(columnIndex);
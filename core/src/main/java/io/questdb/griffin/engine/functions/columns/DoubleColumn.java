@@ -36,6 +36,10 @@ public class DoubleColumn extends DoubleFunction implements StatelessFunction {
         this.columnIndex = columnIndex;
     }
 
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     @Override
     public double getDouble(Record rec) {
         return rec.getDouble(columnIndex);
@@ -36,6 +36,10 @@ public class LongColumn extends LongFunction implements StatelessFunction {
         this.columnIndex = columnIndex;
     }
 
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     @Override
     public long getLong(Record rec) {
         return rec.getLong(columnIndex);
@@ -36,6 +36,10 @@ public class ShortColumn extends ShortFunction implements StatelessFunction {
         this.columnIndex = columnIndex;
     }
 
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     @Override
     public short getShort(Record rec) {
         return rec.getShort(columnIndex);
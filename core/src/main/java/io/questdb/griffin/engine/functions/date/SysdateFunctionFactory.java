@@ -39,6 +39,11 @@ public class SysdateFunctionFactory implements FunctionFactory {
         return "sysdate()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) {
         return new Func(position, configuration.getMillisecondClock());
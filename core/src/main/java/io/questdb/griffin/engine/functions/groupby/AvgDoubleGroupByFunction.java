@@ -54,6 +54,18 @@ public class AvgDoubleGroupByFunction extends DoubleFunction implements GroupByF
         mapValue.addLong(valueIndex + 1, 1L);
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putDouble(valueIndex, srcValue.getDouble(valueIndex));
+        destValue.putLong(valueIndex + 1, srcValue.getLong(valueIndex + 1));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        destValue.addDouble(valueIndex, srcValue.getDouble(valueIndex));
+        destValue.addLong(valueIndex + 1, srcValue.getLong(valueIndex + 1));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -64,13 +76,20 @@ public class AvgDoubleGroupByFunction extends DoubleFunction implements GroupByF
     @Override
     public void setDouble(MapValue mapValue, double value) {
         mapValue.putDouble(valueIndex, value);
+        mapValue.putLong(valueIndex + 1, 1L);
     }
 
     @Override
     public void setNull(MapValue mapValue) {
+        mapValue.putDouble(valueIndex, Double.NaN);
         mapValue.putLong(valueIndex + 1, 0);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public double getDouble(Record rec) {
         return rec.getDouble(valueIndex) / rec.getLong(valueIndex + 1);
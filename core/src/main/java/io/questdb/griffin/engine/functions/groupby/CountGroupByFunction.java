@@ -49,6 +49,16 @@ public class CountGroupByFunction extends LongFunction implements GroupByFunctio
         mapValue.putLong(valueIndex, mapValue.getLong(valueIndex) + 1);
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putLong(valueIndex, srcValue.getLong(valueIndex));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        destValue.addLong(valueIndex, srcValue.getLong(valueIndex));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -65,6 +75,11 @@ public class CountGroupByFunction extends LongFunction implements GroupByFunctio
         mapValue.putLong(valueIndex, Numbers.LONG_NaN);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public long getLong(Record rec) {
         return rec.getLong(valueIndex);
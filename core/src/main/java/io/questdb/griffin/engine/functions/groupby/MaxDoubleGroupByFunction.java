@@ -56,6 +56,20 @@ public class MaxDoubleGroupByFunction extends DoubleFunction implements GroupByF
         }
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putDouble(valueIndex, srcValue.getDouble(valueIndex));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        double max = destValue.getDouble(valueIndex);
+        double next = srcValue.getDouble(valueIndex);
+        if (next > max || Double.isNaN(max)) {
+            destValue.putDouble(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -72,6 +86,11 @@ public class MaxDoubleGroupByFunction extends DoubleFunction implements GroupByF
         mapValue.putDouble(valueIndex, Double.NaN);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public double getDouble(Record rec) {
         return rec.getDouble(valueIndex);
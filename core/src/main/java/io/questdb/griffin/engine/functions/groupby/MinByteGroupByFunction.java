@@ -56,6 +56,20 @@ public class MinByteGroupByFunction extends ByteFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putByte(valueIndex, srcValue.getByte(valueIndex));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        byte min = destValue.getByte(valueIndex);
+        byte next = srcValue.getByte(valueIndex);
+        if (next < min) {
+            destValue.putByte(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -72,6 +86,11 @@ public class MinByteGroupByFunction extends ByteFunction implements GroupByFunct
         mapValue.putByte(valueIndex, (byte) 0);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public byte getByte(Record rec) {
         return rec.getByte(valueIndex);
@@ -56,6 +56,20 @@ public class MinCharGroupByFunction extends CharFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putChar(valueIndex, srcValue.getChar(valueIndex));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        char min = destValue.getChar(valueIndex);
+        char next = srcValue.getChar(valueIndex);
+        if (next > 0 && next < min) {
+            destValue.putChar(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -67,6 +81,11 @@ public class MinCharGroupByFunction extends CharFunction implements GroupByFunct
         mapValue.putChar(valueIndex, (char) 0);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public char getChar(Record rec) {
         return rec.getChar(valueIndex);
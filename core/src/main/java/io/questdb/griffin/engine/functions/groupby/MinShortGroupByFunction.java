@@ -56,6 +56,20 @@ public class MinShortGroupByFunction extends ShortFunction implements GroupByFun
         }
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putShort(valueIndex, srcValue.getShort(valueIndex));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        short min = destValue.getShort(valueIndex);
+        short next = srcValue.getShort(valueIndex);
+        if (next < min) {
+            destValue.putShort(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -72,6 +86,11 @@ public class MinShortGroupByFunction extends ShortFunction implements GroupByFun
         mapValue.putShort(valueIndex, (short) 0);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public short getShort(Record rec) {
         return rec.getShort(valueIndex);
@@ -52,6 +52,16 @@ public class SumByteGroupByFunction extends ByteFunction implements GroupByFunct
         mapValue.addByte(valueIndex, value.getByte(record));
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putByte(valueIndex, srcValue.getByte(valueIndex));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        destValue.addByte(valueIndex, srcValue.getByte(valueIndex));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -68,6 +78,11 @@ public class SumByteGroupByFunction extends ByteFunction implements GroupByFunct
         mapValue.putByte(valueIndex, (byte) 0);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public byte getByte(Record rec) {
         return rec.getByte(valueIndex);
@@ -52,6 +52,16 @@ public class SumDoubleGroupByFunction extends DoubleFunction implements GroupByF
         mapValue.addDouble(valueIndex, value.getDouble(record));
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putDouble(valueIndex, srcValue.getDouble(valueIndex));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        destValue.addDouble(valueIndex, srcValue.getDouble(valueIndex));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -68,6 +78,11 @@ public class SumDoubleGroupByFunction extends DoubleFunction implements GroupByF
         mapValue.putDouble(valueIndex, Double.NaN);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public double getDouble(Record rec) {
         return rec.getDouble(valueIndex);
@@ -52,6 +52,16 @@ public class SumFloatGroupByFunction extends FloatFunction implements GroupByFun
         mapValue.addFloat(valueIndex, value.getFloat(record));
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putFloat(valueIndex, srcValue.getFloat(valueIndex));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        destValue.addFloat(valueIndex, srcValue.getFloat(valueIndex));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -68,6 +78,11 @@ public class SumFloatGroupByFunction extends FloatFunction implements GroupByFun
         mapValue.putFloat(valueIndex, Float.NaN);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public float getFloat(Record rec) {
         return rec.getFloat(valueIndex);
@@ -53,6 +53,16 @@ public class SumIntGroupByFunction extends IntFunction implements GroupByFunctio
         mapValue.addInt(valueIndex, value.getInt(record));
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putInt(valueIndex, srcValue.getInt(valueIndex));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        destValue.addInt(valueIndex, srcValue.getInt(valueIndex));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -69,6 +79,11 @@ public class SumIntGroupByFunction extends IntFunction implements GroupByFunctio
         mapValue.putInt(valueIndex, Numbers.INT_NaN);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public int getInt(Record rec) {
         return rec.getInt(valueIndex);
@@ -53,6 +53,16 @@ public class SumLongGroupByFunction extends LongFunction implements GroupByFunct
         mapValue.addLong(valueIndex, value.getLong(record));
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putLong(valueIndex, srcValue.getLong(valueIndex));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        destValue.addLong(valueIndex, srcValue.getLong(valueIndex));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -69,6 +79,11 @@ public class SumLongGroupByFunction extends LongFunction implements GroupByFunct
         mapValue.putLong(valueIndex, Numbers.LONG_NaN);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public long getLong(Record rec) {
         return rec.getLong(valueIndex);
@@ -52,6 +52,16 @@ public class SumShortGroupByFunction extends ShortFunction implements GroupByFun
         mapValue.addShort(valueIndex, value.getShort(record));
     }
 
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        destValue.putShort(valueIndex, srcValue.getShort(valueIndex));
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        destValue.addShort(valueIndex, srcValue.getShort(valueIndex));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -68,6 +78,11 @@ public class SumShortGroupByFunction extends ShortFunction implements GroupByFun
         mapValue.putShort(valueIndex, value);
     }
 
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public short getShort(Record rec) {
         return rec.getShort(valueIndex);
@@ -41,6 +41,11 @@ public class RndBinCCCFunctionFactory implements FunctionFactory {
         return "rnd_bin(lli)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
         final long lo = args.getQuick(0).getLong(null);
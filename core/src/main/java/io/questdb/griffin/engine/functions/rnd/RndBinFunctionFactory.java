@@ -40,6 +40,11 @@ public class RndBinFunctionFactory implements FunctionFactory {
         return "rnd_bin()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) {
         return new FixLenFunction(position, configuration);
@@ -41,6 +41,11 @@ public class RndByteCCFunctionFactory implements FunctionFactory {
         return "rnd_byte(ii)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
 
@@ -40,6 +40,11 @@ public class RndByteFunctionFactory implements FunctionFactory {
         return "rnd_byte()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) {
 
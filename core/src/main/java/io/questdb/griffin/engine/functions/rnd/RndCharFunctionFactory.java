@@ -40,6 +40,11 @@ public class RndCharFunctionFactory implements FunctionFactory {
         return "rnd_char()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) {
         return new RndFunction(position, configuration);
@@ -41,6 +41,11 @@ public class RndDoubleCCFunctionFactory implements FunctionFactory {
         return "rnd_double(i)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
         int nanRate = args.getQuick(0).getInt(null);
@@ -40,6 +40,11 @@ public class RndDoubleFunctionFactory implements FunctionFactory {
         return "rnd_double()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) {
         return new RndFunction(position, configuration);
@@ -40,6 +40,11 @@ public class RndFloatFunctionFactory implements FunctionFactory {
         return "rnd_float()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) {
         return new RndFunction(position, configuration);
@@ -42,6 +42,11 @@ public class RndIntCCFunctionFactory implements FunctionFactory {
         return "rnd_int(iii)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
 
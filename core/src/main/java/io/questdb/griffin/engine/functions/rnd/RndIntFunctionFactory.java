@@ -40,6 +40,11 @@ public class RndIntFunctionFactory implements FunctionFactory {
         return "rnd_int()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) {
         return new RndFunction(position, configuration);
@@ -41,6 +41,11 @@ public class RndLong256FunctionFactory implements FunctionFactory {
         return "rnd_long256()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) {
         return new RndFunction(position, configuration);
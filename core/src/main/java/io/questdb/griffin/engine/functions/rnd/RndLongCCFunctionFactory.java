@@ -41,6 +41,11 @@ public class RndLongCCFunctionFactory implements FunctionFactory {
         return "rnd_long(lli)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
         final long lo = args.getQuick(0).getLong(null);
@@ -41,6 +41,11 @@ public class RndShortCCFunctionFactory implements FunctionFactory {
         return "rnd_short(ii)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
 
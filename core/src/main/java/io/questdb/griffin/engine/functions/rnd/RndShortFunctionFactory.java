@@ -40,6 +40,11 @@ public class RndShortFunctionFactory implements FunctionFactory {
         return "rnd_short()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) {
         return new RndFunction(position, configuration);
@@ -41,6 +41,11 @@ public class RndStrFunctionFactory implements FunctionFactory {
         return "rnd_str(iii)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
 
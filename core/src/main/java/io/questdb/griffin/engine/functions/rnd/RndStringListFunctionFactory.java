@@ -59,6 +59,11 @@ public class RndStringListFunctionFactory implements FunctionFactory {
         return "rnd_str(V)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
         if (args == null) {
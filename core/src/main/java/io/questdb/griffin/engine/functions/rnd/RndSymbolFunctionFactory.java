@@ -41,6 +41,11 @@ public class RndSymbolFunctionFactory implements FunctionFactory {
         return "rnd_symbol(iiii)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
         final int count = args.getQuick(0).getInt(null);
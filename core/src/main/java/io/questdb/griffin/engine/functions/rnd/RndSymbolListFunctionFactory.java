@@ -40,6 +40,11 @@ public class RndSymbolListFunctionFactory implements FunctionFactory {
         return "rnd_symbol(V)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
         final ObjList<String> symbols = new ObjList<>(args.size());
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CairoWorkScheduler;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.ReaderOutOfDateException;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Splits data frames into tasks of at most "frameRowCount" rows and aggregates batch of tasks
+ * on worker threads. Owner thread aggregates whatever workers have not picked up and waits for
+ * the rest of the batch before it publishes the next one. Workers read table via their own
+ * readers, which are held only while rows are aggregated. Subclasses decide where rows of a
+ * task are aggregated to and how partial aggregates are merged.
+ */
+abstract class AbstractParallelGroupByRecordCursor implements RecordCursor {
+    private static final Log LOG = LogFactory.getLog(AbstractParallelGroupByRecordCursor.class);
+    protected final ObjList<ParallelGroupBySlot> slots;
+    protected final ObjList<ParallelGroupByTask> tasks;
+    private final CairoEngine engine;
+    private final long frameRowCount;
+    private final Sequence pubSequence;
+    private final RingQueue<ParallelGroupByEntry> queue;
+    private final LongList taskSequences = new LongList();
+    private final SOCountDownLatch doneLatch = new SOCountDownLatch();
+    protected DataFrameCursor dataFrameCursor;
+    protected int slotCount = 0;
+    private int taskCount = 0;
+    private int partitionIndex;
+    private long partitionRowLo = 0;
+    private long partitionRowHi = 0;
+
+    /**
+     * @param taskMaps maps, one for each task, that tasks aggregate into, or null when tasks
+     *                 aggregate into map of the slot they run with
+     */
+    AbstractParallelGroupByRecordCursor(
+            CairoEngine engine,
+            CairoWorkScheduler workScheduler,
+            long frameRowCount,
+            ObjList<ParallelGroupBySlot> slots,
+            @Nullable ObjList<Map> taskMaps
+    ) {
+        this.engine = engine;
+        this.frameRowCount = frameRowCount;
+        this.pubSequence = workScheduler.getGroupByPubSequence();
+        this.queue = workScheduler.getGroupByQueue();
+        this.slots = slots;
+        final int taskCapacity = getTaskCapacity(slots.size());
+        this.tasks = new ObjList<>(taskCapacity);
+        for (int i = 0; i < taskCapacity; i++) {
+            tasks.add(new ParallelGroupByTask(this, taskMaps != null ? taskMaps.getQuick(i) : null));
+        }
+    }
+
+    static int getTaskCapacity(int slotCount) {
+        // two tasks per thread leave room to balance uneven tasks
+        return 2 * slotCount;
+    }
+
+    @Override
+    public void close() {
+        dataFrameCursor = Misc.free(dataFrameCursor);
+    }
+
+    boolean tryRun(ParallelGroupByTask task, long taskSequence) {
+        // Slot 0 is reserved for owner thread. Task is locked only after we have
+        // slot to run it with, otherwise owner thread would wait for us in vain.
+        for (int i = 1, n = slotCount; i < n; i++) {
+            final ParallelGroupBySlot slot = slots.getQuick(i);
+            if (slot.tryAcquire()) {
+                try {
+                    if (task.tryLock(taskSequence)) {
+                        aggregateAndCountDown(task, slot);
+                        return true;
+                    }
+                    return false;
+                } finally {
+                    slot.release();
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Aggregates rows of the task. Runs on whichever thread locked the task.
+     */
+    protected abstract void aggregate(ParallelGroupByTask task, ParallelGroupBySlot slot);
+
+    /**
+     * Aggregates all data frames of the cursor. Cursor is owned by this instance from now on.
+     */
+    protected void aggregateFrames(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext) {
+        this.dataFrameCursor = dataFrameCursor;
+        final TableReader reader = dataFrameCursor.getTableReader();
+        slots.getQuick(0).of(reader);
+        slotCount = 1;
+        acquireWorkerReaders(reader, executionContext);
+        try {
+            for (int i = 1; i < slotCount; i++) {
+                final ParallelGroupBySlot slot = slots.getQuick(i);
+                for (int j = 0, n = slot.functions.size(); j < n; j++) {
+                    slot.functions.getQuick(j).init(slot, executionContext);
+                }
+            }
+            resetState();
+            while (aggregateNextBatch()) {
+                onBatchAggregated(taskCount);
+            }
+        } finally {
+            releaseWorkerReaders();
+        }
+    }
+
+    /**
+     * Called on owner thread when all tasks of the batch are aggregated.
+     *
+     * @param taskCount number of tasks in the batch, tasks are in order of rows
+     */
+    protected abstract void onBatchAggregated(int taskCount);
+
+    private void acquireWorkerReaders(TableReader reader, SqlExecutionContext executionContext) {
+        for (int i = 1, n = slots.size(); i < n; i++) {
+            final TableReader workerReader;
+            try {
+                workerReader = engine.getReader(executionContext.getCairoSecurityContext(), reader.getTableName(), reader.getVersion());
+            } catch (CairoException | ReaderOutOfDateException e) {
+                // reader pool is exhausted or table has changed, aggregate with fewer threads
+                LOG.info().$("could not acquire worker reader [table=").$(reader.getTableName()).$(", workers=").$(slotCount - 1).$(']').$();
+                break;
+            }
+
+            // row ranges come from owner reader, worker readers must see identical data
+            if (workerReader.getTxn() != reader.getTxn()) {
+                workerReader.close();
+                break;
+            }
+            slots.getQuick(slotCount++).of(workerReader);
+        }
+    }
+
+    private void aggregateAndCountDown(ParallelGroupByTask task, ParallelGroupBySlot slot) {
+        try {
+            aggregate(task, slot);
+        } catch (Throwable e) {
+            task.failed = true;
+            LOG.error().$("group by error [table=").$(slot.reader.getTableName()).$(", partitionIndex=").$(task.partitionIndex).$(", rowLo=").$(task.rowLo).$(']').$(e).$();
+        } finally {
+            doneLatch.countDown();
+        }
+    }
+
+    private boolean aggregateNextBatch() {
+        taskCount = 0;
+        final int taskCapacity = tasks.size();
+        while (taskCount < taskCapacity) {
+            if (partitionRowLo < partitionRowHi) {
+                final long hi = Math.min(partitionRowLo + frameRowCount, partitionRowHi);
+                tasks.getQuick(taskCount++).of(partitionIndex, partitionRowLo, hi);
+                partitionRowLo = hi;
+            } else if (dataFrameCursor.hasNext()) {
+                final DataFrame frame = dataFrameCursor.next();
+                partitionIndex = frame.getPartitionIndex();
+                partitionRowLo = frame.getRowLo();
+                partitionRowHi = frame.getRowHi();
+            } else {
+                break;
+            }
+        }
+
+        if (taskCount == 0) {
+            return false;
+        }
+
+        doneLatch.setCount(taskCount);
+        taskSequences.clear();
+        for (int i = 0; i < taskCount; i++) {
+            taskSequences.add(tasks.getQuick(i).getSequence());
+        }
+
+        if (slotCount > 1) {
+            // last task is left to this thread, which starts from the end of the batch
+            OUT:
+            for (int i = 0, n = taskCount - 1; i < n; i++) {
+                long cursor;
+                do {
+                    cursor = pubSequence.next();
+                    if (cursor == -1) {
+                        // queue is full, remaining tasks are done in the current thread
+                        break OUT;
+                    }
+                } while (cursor < 0);
+
+                final ParallelGroupByEntry queueItem = queue.get(cursor);
+                queueItem.task = tasks.getQuick(i);
+                queueItem.sequence = taskSequences.getQuick(i);
+                pubSequence.done(cursor);
+            }
+        }
+
+        final ParallelGroupBySlot slot = slots.getQuick(0);
+        for (int i = taskCount - 1; i > -1; i--) {
+            final ParallelGroupByTask task = tasks.getQuick(i);
+            if (task.tryLock(taskSequences.getQuick(i))) {
+                aggregateAndCountDown(task, slot);
+            }
+        }
+        // wait for tasks we could not steal
+        doneLatch.await();
+
+        for (int i = 0; i < taskCount; i++) {
+            if (tasks.getQuick(i).failed) {
+                throw CairoException.instance(0).put("parallel group by failed [table=").put(slot.reader.getTableName()).put(']');
+            }
+        }
+        return true;
+    }
+
+    private void releaseWorkerReaders() {
+        for (int i = 1; i < slotCount; i++) {
+            final ParallelGroupBySlot slot = slots.getQuick(i);
+            slot.reader.close();
+            slot.reader = null;
+        }
+        slotCount = 1;
+    }
+
+    private void resetState() {
+        taskCount = 0;
+        partitionRowLo = 0;
+        partitionRowHi = 0;
+    }
+}
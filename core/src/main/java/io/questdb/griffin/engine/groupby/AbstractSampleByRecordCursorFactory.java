@@ -76,6 +76,11 @@ public class AbstractSampleByRecordCursorFactory implements RecordCursorFactory
                 valueTypes
         );
 
+        if (base instanceof ParallelSampleByRecordCursorFactory) {
+            // rows of base are partial aggregates rather than table rows
+            ((ParallelSampleByRecordCursorFactory) base).wrapGroupByFunctions(groupByFunctions);
+        }
+
         this.recordFunctions = new ObjList<>(columnCount);
         final GenericRecordMetadata groupByMetadata = new GenericRecordMetadata();
         final IntIntHashMap symbolTableIndex = new IntIntHashMap();
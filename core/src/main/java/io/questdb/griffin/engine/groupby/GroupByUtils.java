@@ -196,6 +196,18 @@ class GroupByUtils {
         }
     }
 
+    static void mergeFunctions(ObjList<GroupByFunction> groupByFunctions, int n, MapValue destValue, MapValue srcValue) {
+        if (destValue.isNew()) {
+            for (int i = 0; i < n; i++) {
+                groupByFunctions.getQuick(i).mergeFirst(destValue, srcValue);
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                groupByFunctions.getQuick(i).mergeNext(destValue, srcValue);
+            }
+        }
+    }
+
     static void updateFunctions(ObjList<GroupByFunction> groupByFunctions, int n, MapValue value, Record record) {
         if (value.isNew()) {
             updateNew(groupByFunctions, n, value, record);
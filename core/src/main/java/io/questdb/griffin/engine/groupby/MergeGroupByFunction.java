@@ -0,0 +1,257 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.Long256;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Group-by function that aggregates partial aggregates instead of rows. Rows it is given
+ * are records of {@link ParallelSampleByRecordCursorFactory}, whose partial aggregate is
+ * read from map record these rows are backed by. Everything else is delegated to wrapped
+ * function, including value columns, so sample by cursors can use it in place of the
+ * function it wraps.
+ */
+class MergeGroupByFunction implements GroupByFunction {
+    private final GroupByFunction function;
+    private final MapRecord partialRecord;
+
+    MergeGroupByFunction(GroupByFunction function, MapRecord partialRecord) {
+        this.function = function;
+        this.partialRecord = partialRecord;
+    }
+
+    @Override
+    public void close() {
+        function.close();
+    }
+
+    @Override
+    public void computeFirst(MapValue mapValue, Record record) {
+        function.mergeFirst(mapValue, partialRecord.getValue());
+    }
+
+    @Override
+    public void computeNext(MapValue mapValue, Record record) {
+        function.mergeNext(mapValue, partialRecord.getValue());
+    }
+
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue) {
+        function.mergeFirst(destValue, srcValue);
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue) {
+        function.mergeNext(destValue, srcValue);
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        function.pushValueTypes(columnTypes);
+    }
+
+    @Override
+    public void setByte(MapValue mapValue, byte value) {
+        function.setByte(mapValue, value);
+    }
+
+    @Override
+    public void setDouble(MapValue mapValue, double value) {
+        function.setDouble(mapValue, value);
+    }
+
+    @Override
+    public void setFloat(MapValue mapValue, float value) {
+        function.setFloat(mapValue, value);
+    }
+
+    @Override
+    public void setInt(MapValue mapValue, int value) {
+        function.setInt(mapValue, value);
+    }
+
+    @Override
+    public void setLong(MapValue mapValue, long value) {
+        function.setLong(mapValue, value);
+    }
+
+    @Override
+    public void setNull(MapValue mapValue) {
+        function.setNull(mapValue);
+    }
+
+    @Override
+    public void setShort(MapValue mapValue, short value) {
+        function.setShort(mapValue, value);
+    }
+
+    @Override
+    public boolean supportsMerge() {
+        return function.supportsMerge();
+    }
+
+    @Override
+    public BinarySequence getBin(Record rec) {
+        return function.getBin(rec);
+    }
+
+    @Override
+    public long getBinLen(Record rec) {
+        return function.getBinLen(rec);
+    }
+
+    @Override
+    public boolean getBool(Record rec) {
+        return function.getBool(rec);
+    }
+
+    @Override
+    public byte getByte(Record rec) {
+        return function.getByte(rec);
+    }
+
+    @Override
+    public long getDate(Record rec) {
+        return function.getDate(rec);
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return function.getDouble(rec);
+    }
+
+    @Override
+    public float getFloat(Record rec) {
+        return function.getFloat(rec);
+    }
+
+    @Override
+    public int getInt(Record rec) {
+        return function.getInt(rec);
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        return function.getLong(rec);
+    }
+
+    @Override
+    public Long256 getLong256A(Record rec) {
+        return function.getLong256A(rec);
+    }
+
+    @Override
+    public Long256 getLong256B(Record rec) {
+        return function.getLong256B(rec);
+    }
+
+    @Override
+    public void getLong256(Record rec, CharSink sink) {
+        function.getLong256(rec, sink);
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return function.getMetadata();
+    }
+
+    @Override
+    public int getPosition() {
+        return function.getPosition();
+    }
+
+    @Override
+    public RecordCursorFactory getRecordCursorFactory() {
+        return function.getRecordCursorFactory();
+    }
+
+    @Override
+    public short getShort(Record rec) {
+        return function.getShort(rec);
+    }
+
+    @Override
+    public char getChar(Record rec) {
+        return function.getChar(rec);
+    }
+
+    @Override
+    public CharSequence getStr(Record rec) {
+        return function.getStr(rec);
+    }
+
+    @Override
+    public void getStr(Record rec, CharSink sink) {
+        function.getStr(rec, sink);
+    }
+
+    @Override
+    public CharSequence getStrB(Record rec) {
+        return function.getStrB(rec);
+    }
+
+    @Override
+    public int getStrLen(Record rec) {
+        return function.getStrLen(rec);
+    }
+
+    @Override
+    public CharSequence getSymbol(Record rec) {
+        return function.getSymbol(rec);
+    }
+
+    @Override
+    public long getTimestamp(Record rec) {
+        return function.getTimestamp(rec);
+    }
+
+    @Override
+    public int getType() {
+        return function.getType();
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) {
+        function.init(symbolTableSource, executionContext);
+    }
+
+    @Override
+    public boolean isConstant() {
+        return function.isConstant();
+    }
+
+    @Override
+    public void toTop() {
+        function.toTop();
+    }
+}
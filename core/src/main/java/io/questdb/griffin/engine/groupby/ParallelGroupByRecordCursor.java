@@ -0,0 +1,179 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoWorkScheduler;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.TableReaderRecord;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.std.IntIntHashMap;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Each thread aggregates tasks it runs into map of its slot. When all rows are aggregated,
+ * maps of workers are merged into the owner's map, which is then iterated.
+ */
+class ParallelGroupByRecordCursor extends AbstractParallelGroupByRecordCursor {
+    private final RecordSink mapSink;
+    // copies keys of worker map records to owner's map
+    private final RecordSink mergeSink;
+    private final ObjList<Function> recordFunctions;
+    private final VirtualRecord functionRecord;
+    private final IntIntHashMap symbolTableIndex;
+    private RecordCursor mapCursor;
+
+    ParallelGroupByRecordCursor(
+            CairoEngine engine,
+            CairoWorkScheduler workScheduler,
+            long frameRowCount,
+            ObjList<ParallelGroupBySlot> slots,
+            RecordSink mapSink,
+            RecordSink mergeSink,
+            ObjList<Function> recordFunctions,
+            IntIntHashMap symbolTableIndex
+    ) {
+        super(engine, workScheduler, frameRowCount, slots, null);
+        this.mapSink = mapSink;
+        this.mergeSink = mergeSink;
+        this.recordFunctions = recordFunctions;
+        this.functionRecord = new VirtualRecord(recordFunctions);
+        this.symbolTableIndex = symbolTableIndex;
+    }
+
+    @Override
+    public void close() {
+        mapCursor = Misc.free(mapCursor);
+        super.close();
+    }
+
+    @Override
+    public Record getRecord() {
+        return functionRecord;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return dataFrameCursor.getSymbolTable(symbolTableIndex.get(columnIndex));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return mapCursor.hasNext();
+    }
+
+    @Override
+    public Record newRecord() {
+        VirtualRecord record = new VirtualRecord(functionRecord.getFunctions());
+        record.of(mapCursor.newRecord());
+        return record;
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        assert record instanceof VirtualRecord;
+        mapCursor.recordAt(((VirtualRecord) record).getBaseRecord(), atRowId);
+    }
+
+    @Override
+    public void recordAt(long rowId) {
+        mapCursor.recordAt(functionRecord.getBaseRecord(), rowId);
+    }
+
+    @Override
+    public void toTop() {
+        mapCursor.toTop();
+    }
+
+    void of(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext) {
+        this.dataFrameCursor = dataFrameCursor;
+        for (int i = 0, n = slots.size(); i < n; i++) {
+            slots.getQuick(i).map.clear();
+        }
+        // record functions include owner's group-by functions, they resolve symbols via this cursor
+        for (int i = 0, n = recordFunctions.size(); i < n; i++) {
+            recordFunctions.getQuick(i).init(this, executionContext);
+        }
+
+        aggregateFrames(dataFrameCursor, executionContext);
+        mergeWorkerMaps();
+
+        final Map map = slots.getQuick(0).map;
+        mapCursor = map.getCursor();
+        functionRecord.of(mapCursor.getRecord());
+    }
+
+    @Override
+    protected void aggregate(ParallelGroupByTask task, ParallelGroupBySlot slot) {
+        final TableReaderRecord record = slot.record;
+        final ObjList<GroupByFunction> functions = slot.functions;
+        final int n = functions.size();
+        final Map map = slot.map;
+        slot.reader.openPartition(task.partitionIndex);
+        record.jumpTo(task.partitionIndex, 0);
+        for (long r = task.rowLo, hi = task.rowHi; r < hi; r++) {
+            record.setRecordIndex(r);
+            final MapKey key = map.withKey();
+            mapSink.copy(record, key);
+            GroupByUtils.updateFunctions(functions, n, key.createValue(), record);
+        }
+    }
+
+    @Override
+    protected void onBatchAggregated(int taskCount) {
+        // worker maps are merged once all batches are aggregated
+    }
+
+    private void mergeWorkerMaps() {
+        final ParallelGroupBySlot owner = slots.getQuick(0);
+        final Map destMap = owner.map;
+        final ObjList<GroupByFunction> functions = owner.functions;
+        final int n = functions.size();
+        for (int i = 1, m = slots.size(); i < m; i++) {
+            final Map srcMap = slots.getQuick(i).map;
+            if (srcMap.size() == 0) {
+                continue;
+            }
+            final RecordCursor srcCursor = srcMap.getCursor();
+            final MapRecord srcRecord = (MapRecord) srcCursor.getRecord();
+            while (srcCursor.hasNext()) {
+                final MapKey key = destMap.withKey();
+                mergeSink.copy(srcRecord, key);
+                GroupByUtils.mergeFunctions(functions, n, key.createValue(), srcRecord.getValue());
+            }
+        }
+    }
+}
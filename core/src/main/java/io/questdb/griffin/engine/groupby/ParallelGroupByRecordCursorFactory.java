@@ -0,0 +1,235 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.FunctionParser;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.model.QueryModel;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keyed group by over table scan, which aggregates data frames on multiple threads. There is
+ * one set of group-by functions and one map for each thread that can aggregate, first set
+ * belongs to the thread that iterates the cursor. Partial aggregates are merged via
+ * {@link GroupByFunction#mergeNext(io.questdb.cairo.map.MapValue, io.questdb.cairo.map.MapValue)},
+ * so factory is only created when every function supports merge.
+ */
+public class ParallelGroupByRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final RecordMetadata metadata;
+    private final ObjList<Function> recordFunctions;
+    private final ObjList<ParallelGroupBySlot> slots;
+    private final ParallelGroupByRecordCursor cursor;
+
+    private ParallelGroupByRecordCursorFactory(
+            CairoConfiguration configuration,
+            CairoEngine engine,
+            CairoWorkScheduler workScheduler,
+            RecordCursorFactory base,
+            QueryModel model,
+            ListColumnFilter listColumnFilter,
+            BytecodeAssembler asm,
+            ArrayColumnTypes keyTypes,
+            ArrayColumnTypes valueTypes,
+            ObjList<ObjList<GroupByFunction>> groupByFunctions
+    ) {
+        final int columnCount = model.getColumns().size();
+        final RecordMetadata metadata = base.getMetadata();
+        this.recordFunctions = new ObjList<>(columnCount);
+        final GenericRecordMetadata groupByMetadata = new GenericRecordMetadata();
+        final IntIntHashMap symbolTableIndex = new IntIntHashMap();
+        final int valueCount = valueTypes.getColumnCount();
+
+        GroupByUtils.prepareGroupByRecordFunctions(
+                model,
+                metadata,
+                listColumnFilter,
+                groupByFunctions.getQuick(0),
+                recordFunctions,
+                groupByMetadata,
+                keyTypes,
+                valueCount,
+                symbolTableIndex,
+                true
+        );
+
+        // sink will be storing record columns to map key
+        final RecordSink mapSink = RecordSinkFactory.getInstance(asm, metadata, listColumnFilter, false);
+
+        // map records have value columns first and key columns after them
+        final ArrayColumnTypes mapRecordTypes = new ArrayColumnTypes();
+        final ListColumnFilter mapKeyFilter = new ListColumnFilter();
+        for (int i = 0; i < valueCount; i++) {
+            mapRecordTypes.add(valueTypes.getColumnType(i));
+        }
+        for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+            mapRecordTypes.add(keyTypes.getColumnType(i));
+            mapKeyFilter.add(valueCount + i);
+        }
+        final RecordSink mergeSink = RecordSinkFactory.getInstance(asm, mapRecordTypes, mapKeyFilter, false);
+
+        final int slotCount = groupByFunctions.size();
+        this.slots = new ObjList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ParallelGroupBySlot(groupByFunctions.getQuick(i), MapFactory.createMap(configuration, keyTypes, valueTypes)));
+        }
+
+        this.base = base;
+        this.metadata = groupByMetadata;
+        this.cursor = new ParallelGroupByRecordCursor(
+                engine,
+                workScheduler,
+                configuration.getSqlParallelGroupByFrameRowCount(),
+                slots,
+                mapSink,
+                mergeSink,
+                recordFunctions,
+                symbolTableIndex
+        );
+    }
+
+    /**
+     * Creates parallel group by when all group-by functions of the model can merge partial
+     * aggregates. Group-by functions are not thread-safe, so they are parsed once for each
+     * worker thread and once for the thread that iterates the cursor.
+     *
+     * @return factory or null when any of the functions cannot merge, in which case caller keeps ownership of base
+     * @throws SqlException when group-by functions cannot be parsed
+     */
+    @Nullable
+    public static RecordCursorFactory newInstance(
+            CairoConfiguration configuration,
+            CairoEngine engine,
+            CairoWorkScheduler workScheduler,
+            RecordCursorFactory base,
+            @Transient @NotNull QueryModel model,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull FunctionParser functionParser,
+            @Transient @NotNull SqlExecutionContext executionContext,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes
+    ) throws SqlException {
+        final int slotCount = workScheduler.getWorkerCount() + 1;
+        final int columnCount = model.getColumns().size();
+        final ObjList<ObjList<GroupByFunction>> groupByFunctions = new ObjList<>(slotCount);
+        try {
+            for (int i = 0; i < slotCount; i++) {
+                final ObjList<GroupByFunction> functions = new ObjList<>(columnCount);
+                groupByFunctions.add(functions);
+                // every instance pushes identical value types, last push stays
+                valueTypes.reset();
+                GroupByUtils.prepareGroupByFunctions(
+                        model,
+                        base.getMetadata(),
+                        functionParser,
+                        executionContext,
+                        functions,
+                        valueTypes
+                );
+
+                if (i == 0 && !supportsMerge(functions)) {
+                    freeGroupByFunctions(groupByFunctions);
+                    valueTypes.reset();
+                    return null;
+                }
+            }
+        } catch (SqlException e) {
+            freeGroupByFunctions(groupByFunctions);
+            throw e;
+        }
+
+        return new ParallelGroupByRecordCursorFactory(
+                configuration,
+                engine,
+                workScheduler,
+                base,
+                model,
+                listColumnFilter,
+                asm,
+                keyTypes,
+                valueTypes,
+                groupByFunctions
+        );
+    }
+
+    @Override
+    public void close() {
+        // owner's group-by functions are among record functions
+        Misc.freeObjList(recordFunctions);
+        for (int i = 0, n = slots.size(); i < n; i++) {
+            final ParallelGroupBySlot slot = slots.getQuick(i);
+            if (i > 0) {
+                Misc.freeObjList(slot.functions);
+            }
+            slot.map.close();
+        }
+        base.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final DataFrameCursor dataFrameCursor = base.getDataFrameCursor(executionContext);
+        try {
+            cursor.of(dataFrameCursor, executionContext);
+            return cursor;
+        } catch (CairoException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean isRandomAccessCursor() {
+        return true;
+    }
+
+    private static void freeGroupByFunctions(ObjList<ObjList<GroupByFunction>> groupByFunctions) {
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            Misc.freeObjList(groupByFunctions.getQuick(i));
+        }
+    }
+
+    private static boolean supportsMerge(ObjList<GroupByFunction> functions) {
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            if (!functions.getQuick(i).supportsMerge()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
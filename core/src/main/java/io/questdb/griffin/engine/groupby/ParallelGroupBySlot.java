@@ -0,0 +1,77 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderRecord;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+/**
+ * Group-by functions together with map they aggregate into and reader they read rows from.
+ * Functions, maps and readers are not thread-safe, so thread has to acquire slot before
+ * running a task.
+ */
+class ParallelGroupBySlot implements SymbolTableSource {
+    private static final long BUSY_OFFSET;
+
+    static {
+        BUSY_OFFSET = Unsafe.getFieldOffset(ParallelGroupBySlot.class, "busy");
+    }
+
+    final TableReaderRecord record = new TableReaderRecord();
+    final ObjList<GroupByFunction> functions;
+    final Map map;
+    TableReader reader;
+    @SuppressWarnings({"unused", "FieldCanBeLocal"})
+    private volatile int busy = 0;
+
+    ParallelGroupBySlot(ObjList<GroupByFunction> functions, Map map) {
+        this.functions = functions;
+        this.map = map;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return reader.getSymbolMapReader(columnIndex);
+    }
+
+    void of(TableReader reader) {
+        this.reader = reader;
+        this.record.of(reader);
+    }
+
+    void release() {
+        busy = 0;
+    }
+
+    boolean tryAcquire() {
+        return Unsafe.cas(this, BUSY_OFFSET, 0, 1);
+    }
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoWorkScheduler;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.TableReaderRecord;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.table.SelectedRecord;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Each task aggregates its rows into its own map, keyed by sample timestamp and key columns.
+ * When batch is aggregated, task maps are merged in order of their rows into combined map.
+ * Rows are in timestamp order and maps keep insertion order, so combined map has samples in
+ * timestamp order too. Sample, which straddles tasks or batches, ends up as single entry.
+ * Cursor iterates combined map, its records have timestamp and key columns of base record,
+ * other columns are not available.
+ */
+class ParallelSampleByRecordCursor extends AbstractParallelGroupByRecordCursor implements NoRandomAccessRecordCursor {
+    private final Map map;
+    private final RecordSink mapSink;
+    // copies keys of task map records to combined map
+    private final RecordSink mergeSink;
+    private final ObjList<Map> taskMaps;
+    private final TimestampSampler timestampSampler;
+    private final int timestampIndex;
+    private final SelectedRecord record;
+    private RecordCursor mapCursor;
+
+    ParallelSampleByRecordCursor(
+            CairoEngine engine,
+            CairoWorkScheduler workScheduler,
+            long frameRowCount,
+            ObjList<ParallelGroupBySlot> slots,
+            ObjList<Map> taskMaps,
+            Map map,
+            RecordSink mapSink,
+            RecordSink mergeSink,
+            TimestampSampler timestampSampler,
+            int timestampIndex,
+            IntList columnCrossIndex
+    ) {
+        super(engine, workScheduler, frameRowCount, slots, taskMaps);
+        this.taskMaps = taskMaps;
+        this.map = map;
+        this.mapSink = mapSink;
+        this.mergeSink = mergeSink;
+        this.timestampSampler = timestampSampler;
+        this.timestampIndex = timestampIndex;
+        this.record = new SelectedRecord(columnCrossIndex);
+    }
+
+    @Override
+    public void close() {
+        mapCursor = Misc.free(mapCursor);
+        super.close();
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return dataFrameCursor.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return mapCursor.hasNext();
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        mapCursor.toTop();
+    }
+
+    void of(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext) {
+        this.dataFrameCursor = dataFrameCursor;
+        map.clear();
+        for (int i = 0, n = taskMaps.size(); i < n; i++) {
+            taskMaps.getQuick(i).clear();
+        }
+        aggregateFrames(dataFrameCursor, executionContext);
+        mapCursor = map.getCursor();
+        record.of(mapCursor.getRecord());
+    }
+
+    @Override
+    protected void aggregate(ParallelGroupByTask task, ParallelGroupBySlot slot) {
+        final TableReaderRecord record = slot.record;
+        final ObjList<GroupByFunction> functions = slot.functions;
+        final int n = functions.size();
+        final Map map = task.map;
+        slot.reader.openPartition(task.partitionIndex);
+        record.jumpTo(task.partitionIndex, 0);
+        for (long r = task.rowLo, hi = task.rowHi; r < hi; r++) {
+            record.setRecordIndex(r);
+            final MapKey key = map.withKey();
+            key.putTimestamp(timestampSampler.round(record.getTimestamp(timestampIndex)));
+            mapSink.copy(record, key);
+            GroupByUtils.updateFunctions(functions, n, key.createValue(), record);
+        }
+    }
+
+    @Override
+    protected void onBatchAggregated(int taskCount) {
+        final ObjList<GroupByFunction> functions = slots.getQuick(0).functions;
+        final int n = functions.size();
+        for (int i = 0; i < taskCount; i++) {
+            final Map taskMap = tasks.getQuick(i).map;
+            final RecordCursor taskCursor = taskMap.getCursor();
+            final MapRecord taskRecord = (MapRecord) taskCursor.getRecord();
+            while (taskCursor.hasNext()) {
+                final MapKey key = map.withKey();
+                mergeSink.copy(taskRecord, key);
+                GroupByUtils.mergeFunctions(functions, n, key.createValue(), taskRecord.getValue());
+            }
+            taskMap.clear();
+        }
+    }
+}
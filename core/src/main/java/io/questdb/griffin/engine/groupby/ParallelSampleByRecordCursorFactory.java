@@ -0,0 +1,282 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.FunctionParser;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.model.QueryModel;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Pre-aggregates table scan of sample by on multiple threads. Each row of this factory is
+ * partial aggregate of one sample and key combination, rows are in timestamp order and
+ * have metadata of the table. Sample by factory, which fills gaps, consumes these rows in
+ * place of table rows. To do that it replaces its group-by functions with functions that
+ * merge partial aggregates via {@link #wrapGroupByFunctions(ObjList)}.
+ */
+public class ParallelSampleByRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<ParallelGroupBySlot> slots;
+    private final ObjList<Map> taskMaps;
+    private final Map map;
+    private final ParallelSampleByRecordCursor cursor;
+
+    private ParallelSampleByRecordCursorFactory(
+            CairoConfiguration configuration,
+            CairoEngine engine,
+            CairoWorkScheduler workScheduler,
+            RecordCursorFactory base,
+            TimestampSampler timestampSampler,
+            QueryModel model,
+            BytecodeAssembler asm,
+            ArrayColumnTypes valueTypes,
+            ObjList<ObjList<GroupByFunction>> groupByFunctions
+    ) {
+        final RecordMetadata metadata = base.getMetadata();
+        final int timestampIndex = metadata.getTimestampIndex();
+        final int valueCount = valueTypes.getColumnCount();
+
+        // find out key columns the way sample by does, functions this creates are of no use here
+        final ListColumnFilter listColumnFilter = new ListColumnFilter();
+        final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+        GroupByUtils.prepareGroupByRecordFunctions(
+                model,
+                metadata,
+                listColumnFilter,
+                groupByFunctions.getQuick(0),
+                new ObjList<>(),
+                new GenericRecordMetadata(),
+                keyTypes,
+                valueCount,
+                new IntIntHashMap(),
+                false
+        );
+
+        // sink will be storing record columns to map key after sample timestamp
+        final RecordSink mapSink = RecordSinkFactory.getInstance(asm, metadata, listColumnFilter, false);
+
+        // map keys are sample timestamp followed by key columns,
+        // map records have value columns first and key columns after them
+        final ArrayColumnTypes mapKeyTypes = new ArrayColumnTypes();
+        final ArrayColumnTypes mapRecordTypes = new ArrayColumnTypes();
+        final ListColumnFilter mapKeyFilter = new ListColumnFilter();
+        for (int i = 0; i < valueCount; i++) {
+            mapRecordTypes.add(valueTypes.getColumnType(i));
+        }
+        mapKeyTypes.add(ColumnType.TIMESTAMP);
+        mapRecordTypes.add(ColumnType.TIMESTAMP);
+        mapKeyFilter.add(valueCount);
+        final IntList columnCrossIndex = new IntList(metadata.getColumnCount());
+        columnCrossIndex.setAll(metadata.getColumnCount(), -1);
+        columnCrossIndex.setQuick(timestampIndex, valueCount);
+        for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+            mapKeyTypes.add(keyTypes.getColumnType(i));
+            mapRecordTypes.add(keyTypes.getColumnType(i));
+            mapKeyFilter.add(valueCount + 1 + i);
+            columnCrossIndex.setQuick(listColumnFilter.getColumnIndex(i), valueCount + 1 + i);
+        }
+        final RecordSink mergeSink = RecordSinkFactory.getInstance(asm, mapRecordTypes, mapKeyFilter, false);
+
+        final int slotCount = groupByFunctions.size();
+        this.slots = new ObjList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            // tasks have maps of their own
+            slots.add(new ParallelGroupBySlot(groupByFunctions.getQuick(i), null));
+        }
+
+        // fast map iterates in order of insertion, which keeps samples in timestamp order
+        final int taskCapacity = AbstractParallelGroupByRecordCursor.getTaskCapacity(slotCount);
+        this.taskMaps = new ObjList<>(taskCapacity);
+        for (int i = 0; i < taskCapacity; i++) {
+            taskMaps.add(createMap(configuration, mapKeyTypes, valueTypes));
+        }
+        this.map = createMap(configuration, mapKeyTypes, valueTypes);
+
+        this.base = base;
+        this.cursor = new ParallelSampleByRecordCursor(
+                engine,
+                workScheduler,
+                configuration.getSqlParallelGroupByFrameRowCount(),
+                slots,
+                taskMaps,
+                map,
+                mapSink,
+                mergeSink,
+                timestampSampler,
+                timestampIndex,
+                columnCrossIndex
+        );
+    }
+
+    /**
+     * Creates parallel pre-aggregation of sample by when base is a table scan and all
+     * group-by functions of the model can merge partial aggregates. Group-by functions are
+     * not thread-safe, so they are parsed once for each worker thread and once for the thread
+     * that iterates the cursor.
+     *
+     * @return factory or null when parallel aggregation is not possible, in which case caller keeps ownership of base
+     * @throws SqlException when group-by functions cannot be parsed
+     */
+    @Nullable
+    public static RecordCursorFactory newInstance(
+            CairoConfiguration configuration,
+            CairoEngine engine,
+            CairoWorkScheduler workScheduler,
+            RecordCursorFactory base,
+            @NotNull TimestampSampler timestampSampler,
+            @Transient @NotNull QueryModel model,
+            @Transient @NotNull FunctionParser functionParser,
+            @Transient @NotNull SqlExecutionContext executionContext,
+            @Transient @NotNull BytecodeAssembler asm
+    ) throws SqlException {
+        if (!base.supportsDataFrameCursor() || base.getMetadata().getTimestampIndex() == -1) {
+            return null;
+        }
+
+        final int slotCount = workScheduler.getWorkerCount() + 1;
+        final int columnCount = model.getColumns().size();
+        final ObjList<ObjList<GroupByFunction>> groupByFunctions = new ObjList<>(slotCount);
+        final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+        try {
+            for (int i = 0; i < slotCount; i++) {
+                final ObjList<GroupByFunction> functions = new ObjList<>(columnCount);
+                groupByFunctions.add(functions);
+                // every instance pushes identical value types, last push stays
+                valueTypes.reset();
+                // sample by factories reserve first value for themselves, partial aggregates
+                // must be at the same value indexes as aggregates of those factories
+                valueTypes.add(ColumnType.LONG);
+                GroupByUtils.prepareGroupByFunctions(
+                        model,
+                        base.getMetadata(),
+                        functionParser,
+                        executionContext,
+                        functions,
+                        valueTypes
+                );
+
+                if (i == 0 && !supportsMerge(functions)) {
+                    freeGroupByFunctions(groupByFunctions);
+                    return null;
+                }
+            }
+        } catch (SqlException e) {
+            freeGroupByFunctions(groupByFunctions);
+            throw e;
+        }
+
+        return new ParallelSampleByRecordCursorFactory(
+                configuration,
+                engine,
+                workScheduler,
+                base,
+                timestampSampler,
+                model,
+                asm,
+                valueTypes,
+                groupByFunctions
+        );
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = slots.size(); i < n; i++) {
+            Misc.freeObjList(slots.getQuick(i).functions);
+        }
+        for (int i = 0, n = taskMaps.size(); i < n; i++) {
+            taskMaps.getQuick(i).close();
+        }
+        map.close();
+        base.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final DataFrameCursor dataFrameCursor = base.getDataFrameCursor(executionContext);
+        try {
+            cursor.of(dataFrameCursor, executionContext);
+            return cursor;
+        } catch (CairoException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return base.getMetadata();
+    }
+
+    @Override
+    public boolean isRandomAccessCursor() {
+        return false;
+    }
+
+    /**
+     * Replaces group-by functions of sample by factory with functions that aggregate
+     * partial aggregates of this factory. Functions must have been parsed from the same
+     * model and with the same value types as functions of this factory.
+     */
+    void wrapGroupByFunctions(ObjList<GroupByFunction> groupByFunctions) {
+        final MapRecord partialRecord = map.getRecord();
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            groupByFunctions.setQuick(i, new MergeGroupByFunction(groupByFunctions.getQuick(i), partialRecord));
+        }
+    }
+
+    private static Map createMap(CairoConfiguration configuration, ColumnTypes keyTypes, ColumnTypes valueTypes) {
+        return new FastMap(
+                configuration.getSqlMapPageSize(),
+                keyTypes,
+                valueTypes,
+                configuration.getSqlMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor()
+        );
+    }
+
+    private static void freeGroupByFunctions(ObjList<ObjList<GroupByFunction>> groupByFunctions) {
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            Misc.freeObjList(groupByFunctions.getQuick(i));
+        }
+    }
+
+    private static boolean supportsMerge(ObjList<GroupByFunction> functions) {
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            if (!functions.getQuick(i).supportsMerge()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ReadOnlyColumn;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.VirtualMemory;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Non-keyed group by, which feeds column memory of each data frame directly to
+ * {@link VectorAggregateFunction} instances instead of going through records.
+ */
+public class GroupByNotKeyedVectorRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<VectorAggregateFunction> functions;
+    private final GroupByNotKeyedVectorRecordCursor cursor;
+
+    public GroupByNotKeyedVectorRecordCursorFactory(
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            ObjList<VectorAggregateFunction> functions
+    ) {
+        super(metadata);
+        this.base = base;
+        this.functions = functions;
+        this.cursor = new GroupByNotKeyedVectorRecordCursor(functions);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(functions);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            functions.getQuick(i).clear();
+        }
+
+        long rowCount = 0;
+        try (DataFrameCursor dataFrameCursor = base.getDataFrameCursor(executionContext)) {
+            final TableReader reader = dataFrameCursor.getTableReader();
+            final RecordMetadata baseMetadata = reader.getMetadata();
+            while (dataFrameCursor.hasNext()) {
+                final DataFrame frame = dataFrameCursor.next();
+                final int columnBase = reader.getColumnBase(frame.getPartitionIndex());
+                final long rowLo = frame.getRowLo();
+                final long rowHi = frame.getRowHi();
+                if (rowHi <= rowLo) {
+                    continue;
+                }
+                rowCount += rowHi - rowLo;
+
+                for (int i = 0, n = functions.size(); i < n; i++) {
+                    final VectorAggregateFunction function = functions.getQuick(i);
+                    final int columnIndex = function.getColumnIndex();
+                    if (columnIndex == -1) {
+                        function.aggregate(0, rowHi - rowLo);
+                        continue;
+                    }
+                    aggregate(
+                            function,
+                            reader.getColumn(TableReader.getPrimaryColumnIndex(columnBase, columnIndex)),
+                            ColumnType.pow2SizeOf(baseMetadata.getColumnType(columnIndex)),
+                            reader.getColumnTop(columnBase, columnIndex),
+                            rowLo,
+                            rowHi
+                    );
+                }
+            }
+        }
+        cursor.of(rowCount > 0);
+        return cursor;
+    }
+
+    @Override
+    public boolean isRandomAccessCursor() {
+        return false;
+    }
+
+    private static void aggregate(
+            VectorAggregateFunction function,
+            ReadOnlyColumn column,
+            int shift,
+            long columnTop,
+            long rowLo,
+            long rowHi
+    ) {
+        // rows above column top are nulls that are not stored in column file
+        if (rowLo < columnTop) {
+            final long hi = Math.min(rowHi, columnTop);
+            function.aggregateNull(hi - rowLo);
+            rowLo = hi;
+        }
+
+        if (rowLo < rowHi) {
+            if (column instanceof VirtualMemory) {
+                final VirtualMemory mem = (VirtualMemory) column;
+                long offset = (rowLo - columnTop) << shift;
+                long remaining = rowHi - rowLo;
+                while (remaining > 0) {
+                    final long count = Math.min(remaining, mem.pageRemaining(offset) >> shift);
+                    function.aggregate(mem.addressOf(offset), count);
+                    offset += count << shift;
+                    remaining -= count;
+                }
+            } else {
+                function.aggregateNull(rowHi - rowLo);
+            }
+        }
+    }
+
+    private static class GroupByNotKeyedVectorRecordCursor implements NoRandomAccessRecordCursor {
+        private final VirtualRecord record;
+        private boolean hasNext;
+        private boolean notEmpty;
+
+        public GroupByNotKeyedVectorRecordCursor(ObjList<? extends Function> functions) {
+            this.record = new VirtualRecord(functions);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (hasNext) {
+                hasNext = false;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void toTop() {
+            hasNext = notEmpty;
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        private void of(boolean notEmpty) {
+            this.notEmpty = notEmpty;
+            toTop();
+        }
+    }
+}
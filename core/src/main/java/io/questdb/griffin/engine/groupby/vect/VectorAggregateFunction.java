@@ -0,0 +1,55 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.sql.Function;
+
+/**
+ * Aggregate function, which consumes column values in blocks of contiguous memory rather than row by row.
+ * Function accumulates state across calls to {@link #aggregate(long, long)} until {@link #clear()} is called.
+ */
+public interface VectorAggregateFunction extends Function {
+
+    /**
+     * Aggregates block of values.
+     *
+     * @param address address of first value, it is 0 for functions that do not read column values
+     * @param count   number of values in the block
+     */
+    void aggregate(long address, long count);
+
+    /**
+     * Aggregates null values, which are not backed by memory, such as rows above column top.
+     *
+     * @param count number of null values
+     */
+    void aggregateNull(long count);
+
+    void clear();
+
+    /**
+     * @return index of column in base metadata or -1 when function does not read any column
+     */
+    int getColumnIndex();
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.std.Chars;
+
+public final class VectorAggregateFunctionFactory {
+
+    private VectorAggregateFunctionFactory() {
+    }
+
+    /**
+     * Creates vectorized counterpart of group-by function over single column. Only functions, which produce
+     * exactly the same result as their row-by-row implementations are supported.
+     *
+     * @param name        function name
+     * @param columnType  type of column function is applied to
+     * @param position    position of function in SQL text
+     * @param columnIndex index of column in table metadata
+     * @return function instance or null when function and column type combination cannot be vectorized
+     */
+    public static VectorAggregateFunction newInstance(CharSequence name, int columnType, int position, int columnIndex) {
+        switch (columnType) {
+            case ColumnType.DOUBLE:
+                if (Chars.equalsLowerCaseAscii(name, "sum")) {
+                    return new SumDoubleVectorAggregateFunction(position, columnIndex);
+                }
+                if (Chars.equalsLowerCaseAscii(name, "avg")) {
+                    return new AvgDoubleVectorAggregateFunction(position, columnIndex);
+                }
+                if (Chars.equalsLowerCaseAscii(name, "min")) {
+                    return new MinDoubleVectorAggregateFunction(position, columnIndex);
+                }
+                if (Chars.equalsLowerCaseAscii(name, "max")) {
+                    return new MaxDoubleVectorAggregateFunction(position, columnIndex);
+                }
+                break;
+            case ColumnType.INT:
+                if (Chars.equalsLowerCaseAscii(name, "sum")) {
+                    return new SumIntVectorAggregateFunction(position, columnIndex);
+                }
+                if (Chars.equalsLowerCaseAscii(name, "min")) {
+                    return new MinIntVectorAggregateFunction(position, columnIndex);
+                }
+                break;
+            case ColumnType.LONG:
+                if (Chars.equalsLowerCaseAscii(name, "sum")) {
+                    return new SumLongVectorAggregateFunction(position, columnIndex);
+                }
+                if (Chars.equalsLowerCaseAscii(name, "min")) {
+                    return new MinLongVectorAggregateFunction(position, columnIndex);
+                }
+                break;
+            default:
+                break;
+        }
+        return null;
+    }
+}
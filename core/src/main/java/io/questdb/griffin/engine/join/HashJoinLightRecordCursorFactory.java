@@ -31,10 +31,20 @@ import io.questdb.cairo.map.MapKey;
 import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
 import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
 import io.questdb.std.Transient;
 
 public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final Log LOG = LogFactory.getLog(HashJoinLightRecordCursorFactory.class);
+    // each partition keeps a block of row ids in memory while partitions are written
+    // and master without random access is scanned once per partition
+    private static final int MAX_PARTITION_BITS = 6;
+    // partition that does not fit memory budget is split further, rows of sub-partitions
+    // are picked from the rows of their partition, which is re-read for each sub-partition
+    private static final int MAX_SUB_PARTITION_BITS = 16;
     private final Map joinKeyMap;
     private final LongChain slaveChain;
     private final RecordCursorFactory masterFactory;
@@ -42,6 +52,14 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     private final RecordSink masterKeySink;
     private final RecordSink slaveKeySink;
     private final HashJoinRecordCursor cursor;
+    private final long spillThreshold;
+    private final JoinKeyHasher hasher = new JoinKeyHasher();
+    private final JoinKeyBloomFilter bloomFilter = new JoinKeyBloomFilter();
+    private final RowIdPartitions masterPartitions;
+    private final RowIdPartitions slavePartitions;
+    // zero when slave records fit memory budget
+    private int partitionBits;
+    private boolean masterPartitioned;
 
     public HashJoinLightRecordCursorFactory(
             CairoConfiguration configuration,
@@ -63,12 +81,18 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         this.masterKeySink = masterKeySink;
         this.slaveKeySink = slaveKeySink;
         this.cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
+        this.spillThreshold = configuration.getSqlHashJoinSpillThreshold();
+        this.masterPartitions = new RowIdPartitions(configuration.getFilesFacade(), configuration.getRoot(), configuration.getSqlHashJoinLightValuePageSize());
+        this.slavePartitions = new RowIdPartitions(configuration.getFilesFacade(), configuration.getRoot(), configuration.getSqlHashJoinLightValuePageSize());
     }
 
     @Override
     public void close() {
         joinKeyMap.close();
         slaveChain.close();
+        bloomFilter.close();
+        masterPartitions.close();
+        slavePartitions.close();
         ((JoinRecordMetadata) getMetadata()).close();
         masterFactory.close();
         slaveFactory.close();
@@ -78,12 +102,30 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     public RecordCursor getCursor(SqlExecutionContext executionContext) {
         RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
         try {
-            buildMapOfSlaveRecords(slaveCursor);
+            if (!buildMapOfSlaveRecords(slaveCursor)) {
+                partitionSlaveRecords(slaveCursor);
+            }
         } catch (CairoException e) {
             slaveCursor.close();
             throw e;
         }
-        cursor.of(masterFactory.getCursor(executionContext), slaveCursor);
+        RecordCursor masterCursor = masterFactory.getCursor(executionContext);
+        try {
+            masterPartitioned = partitionBits > 0 && masterFactory.isRandomAccessCursor();
+            if (masterPartitioned) {
+                partitionMasterRecords(masterCursor);
+            }
+        } catch (CairoException e) {
+            masterCursor.close();
+            slaveCursor.close();
+            throw e;
+        }
+        try {
+            cursor.of(masterCursor, slaveCursor);
+        } catch (CairoException e) {
+            cursor.close();
+            throw e;
+        }
         return cursor;
     }
 
@@ -92,22 +134,73 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         return false;
     }
 
-    private void buildMapOfSlaveRecords(RecordCursor slaveCursor) {
+    private boolean buildMapOfSlaveRecords(RecordCursor slaveCursor) {
         slaveChain.clear();
         joinKeyMap.clear();
+        partitionBits = 0;
         final Record record = slaveCursor.getRecord();
+        long rowCount = 0;
         while (slaveCursor.hasNext()) {
-            MapKey key = joinKeyMap.withKey();
-            key.put(record, slaveKeySink);
-            MapValue value = key.createValue();
-            if (value.isNew()) {
-                final long offset = slaveChain.put(record.getRowId(), -1);
-                value.putLong(0, offset);
-                value.putLong(1, offset);
-            } else {
-                value.putLong(1, slaveChain.put(record.getRowId(), value.getLong(1)));
+            putSlaveRecord(record);
+            rowCount++;
+            final long memorySize = joinKeyMap.getMemorySize() + slaveChain.getMemorySize();
+            if (memorySize > spillThreshold) {
+                final long size = slaveCursor.size();
+                if (size > 0) {
+                    // aim for partitions at half of the budget
+                    final long partitionCount = (memorySize / rowCount * size * 2) / spillThreshold + 1;
+                    partitionBits = Math.min(MAX_PARTITION_BITS, Numbers.msb(Numbers.ceilPow2(Math.max(2, partitionCount))));
+                } else {
+                    partitionBits = MAX_PARTITION_BITS;
+                }
+                bloomFilter.of(size > 0 ? size : rowCount << partitionBits);
+                return false;
             }
         }
+        return true;
+    }
+
+    private int partitionOf(long hash) {
+        return (int) (hash >>> (64 - partitionBits));
+    }
+
+    private void partitionMasterRecords(RecordCursor masterCursor) {
+        masterPartitions.of(1 << partitionBits);
+        final Record record = masterCursor.getRecord();
+        while (masterCursor.hasNext()) {
+            final long hash = hasher.hash(record, masterKeySink);
+            // rows that cannot find a match are not worth writing out
+            if (bloomFilter.mightContain(hash)) {
+                masterPartitions.put(partitionOf(hash), record.getRowId());
+            }
+        }
+        masterPartitions.seal();
+    }
+
+    private void partitionSlaveRecords(RecordCursor slaveCursor) {
+        LOG.info().$("hash join exceeds memory budget, partitioning [partitions=").$(1 << partitionBits).$(']').$();
+        slavePartitions.of(1 << partitionBits);
+        slaveCursor.toTop();
+        final Record record = slaveCursor.getRecord();
+        while (slaveCursor.hasNext()) {
+            final long hash = hasher.hash(record, slaveKeySink);
+            bloomFilter.put(hash);
+            slavePartitions.put(partitionOf(hash), record.getRowId());
+        }
+        slavePartitions.seal();
+    }
+
+    private void putSlaveRecord(Record record) {
+        MapKey key = joinKeyMap.withKey();
+        key.put(record, slaveKeySink);
+        MapValue value = key.createValue();
+        if (value.isNew()) {
+            final long offset = slaveChain.put(record.getRowId(), -1);
+            value.putLong(0, offset);
+            value.putLong(1, offset);
+        } else {
+            value.putLong(1, slaveChain.put(record.getRowId(), value.getLong(1)));
+        }
     }
 
     private class HashJoinRecordCursor implements NoRandomAccessRecordCursor {
@@ -119,6 +212,10 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         private RecordCursor slaveCursor;
         private Record masterRecord;
         private LongChain.TreeCursor slaveChainCursor;
+        private RowIdPartitions.PartitionCursor masterRowIds;
+        private int partitionIndex;
+        private int subPartitionBits;
+        private int subPartitionIndex;
 
         public HashJoinRecordCursor(int columnSplit, Map joinKeyMap, LongChain slaveChain) {
             this.record = new JoinRecord(columnSplit);
@@ -131,6 +228,9 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         public void close() {
             masterCursor = Misc.free(masterCursor);
             slaveCursor = Misc.free(slaveCursor);
+            masterPartitions.clear();
+            slavePartitions.clear();
+            bloomFilter.close();
         }
 
         @Override
@@ -158,26 +258,136 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
                 return true;
             }
 
-            while (masterCursor.hasNext()) {
-                MapKey key = joinKeyMap.withKey();
-                key.put(masterRecord, masterKeySink);
-                MapValue value = key.findValue();
-                if (value != null) {
-                    slaveChainCursor = slaveChain.getCursor(value.getLong(0));
-                    // we know cursor has values
-                    // advance to get first value
-                    slaveChainCursor.hasNext();
-                    slaveCursor.recordAt(slaveChainCursor.next());
-                    return true;
+            do {
+                while (nextMasterRecord()) {
+                    MapKey key = joinKeyMap.withKey();
+                    key.put(masterRecord, masterKeySink);
+                    MapValue value = key.findValue();
+                    if (value != null) {
+                        slaveChainCursor = slaveChain.getCursor(value.getLong(0));
+                        // we know cursor has values
+                        // advance to get first value
+                        slaveChainCursor.hasNext();
+                        slaveCursor.recordAt(slaveChainCursor.next());
+                        return true;
+                    }
                 }
-            }
+            } while (nextPartition());
             return false;
         }
 
         @Override
         public void toTop() {
-            masterCursor.toTop();
             slaveChainCursor = null;
+            if (partitionBits == 0) {
+                masterCursor.toTop();
+            } else {
+                partitionIndex = -1;
+                subPartitionBits = 0;
+                subPartitionIndex = 0;
+                nextPartition();
+            }
+        }
+
+        private boolean inSubPartition(long hash) {
+            return subPartitionBits == 0 || (int) ((hash << partitionBits) >>> (64 - subPartitionBits)) == subPartitionIndex;
+        }
+
+        /**
+         * Reads slave rows of current sub-partition into hash table. When they do not fit memory
+         * budget sub-partition is split in two and the lower half is read instead.
+         *
+         * @return false when sub-partition has no slave rows
+         */
+        private boolean loadSlavePartition() {
+            final Record slaveRecord = slaveCursor.getRecord();
+            while (true) {
+                joinKeyMap.restoreInitialCapacity();
+                slaveChain.clear();
+                final RowIdPartitions.PartitionCursor slaveRowIds = slavePartitions.getCursor(partitionIndex);
+                boolean found = false;
+                long memorySize = 0;
+                while (slaveRowIds.hasNext()) {
+                    slaveCursor.recordAt(slaveRowIds.next());
+                    if (subPartitionBits > 0 && !inSubPartition(hasher.hash(slaveRecord, slaveKeySink))) {
+                        continue;
+                    }
+                    putSlaveRecord(slaveRecord);
+                    found = true;
+                    memorySize = joinKeyMap.getMemorySize() + slaveChain.getMemorySize();
+                    if (memorySize > spillThreshold) {
+                        break;
+                    }
+                }
+
+                if (memorySize <= spillThreshold) {
+                    return found;
+                }
+
+                // splitting does not help when all rows share the same key
+                if (joinKeyMap.size() < 2 || subPartitionBits == MAX_SUB_PARTITION_BITS) {
+                    throw CairoException.instance(0).put("hash join partition exceeds memory budget [partition=").put(partitionIndex)
+                            .put(", keys=").put(joinKeyMap.size())
+                            .put(", memorySize=").put(memorySize)
+                            .put(", budget=").put(spillThreshold)
+                            .put(']');
+                }
+                LOG.info().$("hash join partition exceeds memory budget, splitting [partition=").$(partitionIndex)
+                        .$(", subPartitions=").$(2 << subPartitionBits).$(']').$();
+                subPartitionBits++;
+                subPartitionIndex <<= 1;
+            }
+        }
+
+        private boolean nextMasterRecord() {
+            if (partitionBits == 0) {
+                return masterCursor.hasNext();
+            }
+
+            if (partitionIndex == 1 << partitionBits) {
+                return false;
+            }
+
+            if (masterPartitioned) {
+                while (masterRowIds.hasNext()) {
+                    masterCursor.recordAt(masterRowIds.next());
+                    if (subPartitionBits == 0 || inSubPartition(hasher.hash(masterRecord, masterKeySink))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            while (masterCursor.hasNext()) {
+                final long hash = hasher.hash(masterRecord, masterKeySink);
+                if (partitionOf(hash) == partitionIndex && inSubPartition(hash) && bloomFilter.mightContain(hash)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean nextPartition() {
+            final int partitionCount = 1 << partitionBits;
+            while (partitionIndex < partitionCount) {
+                if (++subPartitionIndex == 1 << subPartitionBits) {
+                    if (++partitionIndex == partitionCount) {
+                        break;
+                    }
+                    subPartitionBits = 0;
+                    subPartitionIndex = 0;
+                }
+
+                if (loadSlavePartition()) {
+                    if (masterPartitioned) {
+                        masterRowIds = masterPartitions.getCursor(partitionIndex);
+                    } else {
+                        masterCursor.toTop();
+                    }
+                    return true;
+                }
+            }
+            return false;
         }
 
         void of(RecordCursor masterCursor, RecordCursor slaveCursor) {
@@ -187,6 +397,12 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
             Record slaveRecord = slaveCursor.getRecord();
             record.of(masterRecord, slaveRecord);
             slaveChainCursor = null;
+            if (partitionBits > 0) {
+                partitionIndex = -1;
+                subPartitionBits = 0;
+                subPartitionIndex = 0;
+                nextPartition();
+            }
         }
     }
 }
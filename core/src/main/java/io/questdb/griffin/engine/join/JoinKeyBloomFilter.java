@@ -0,0 +1,81 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Bloom filter of join key hashes. Bits are derived from low 48 bits of hash while hash join
+ * partitions are chosen by the highest bits, which keeps the two independent.
+ */
+class JoinKeyBloomFilter implements Closeable {
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASH_COUNT = 3;
+    private long address = 0;
+    private long size;
+    private long mask;
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            Unsafe.free(address, size);
+            address = 0;
+        }
+    }
+
+    public boolean mightContain(long hash) {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 16);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            final long bit = (h1 + (long) i * h2) & mask;
+            if ((Unsafe.getUnsafe().getByte(address + (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void of(long expectedKeyCount) {
+        close();
+        final long bits = Numbers.ceilPow2(Math.max(64, expectedKeyCount * BITS_PER_KEY));
+        this.size = bits >>> 3;
+        this.mask = bits - 1;
+        this.address = Unsafe.malloc(size);
+        Unsafe.getUnsafe().setMemory(address, size, (byte) 0);
+    }
+
+    public void put(long hash) {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 16);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            final long bit = (h1 + (long) i * h2) & mask;
+            final long p = address + (bit >>> 3);
+            Unsafe.getUnsafe().putByte(p, (byte) (Unsafe.getUnsafe().getByte(p) | (1 << (bit & 7))));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.RecordSinkSPI;
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.Long256;
+
+/**
+ * Computes 64-bit hash of join key written by record sink. Master and slave key sinks write
+ * same types in same order, which makes hashes of equal keys equal on both sides of join.
+ */
+class JoinKeyHasher implements RecordSinkSPI {
+    private long hash;
+
+    public long hash(Record record, RecordSink sink) {
+        hash = 0;
+        sink.copy(record, this);
+        // murmur3 finalizer spreads entropy to both high and low bits
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public void putBin(BinarySequence value) {
+        if (value == null) {
+            putLong(-1);
+        } else {
+            for (long i = 0, n = value.length(); i < n; i++) {
+                putLong(value.byteAt(i));
+            }
+        }
+    }
+
+    @Override
+    public void putBool(boolean value) {
+        putLong(value ? 1 : 0);
+    }
+
+    @Override
+    public void putByte(byte value) {
+        putLong(value);
+    }
+
+    @Override
+    public void putDate(long value) {
+        putLong(value);
+    }
+
+    @Override
+    public void putDouble(double value) {
+        putLong(Double.doubleToLongBits(value));
+    }
+
+    @Override
+    public void putFloat(float value) {
+        putLong(Float.floatToIntBits(value));
+    }
+
+    @Override
+    public void putInt(int value) {
+        putLong(value);
+    }
+
+    @Override
+    public void putLong(long value) {
+        hash = hash * 31 + value;
+    }
+
+    @Override
+    public void putLong256(Long256 value) {
+        putLong(value.getLong0());
+        putLong(value.getLong1());
+        putLong(value.getLong2());
+        putLong(value.getLong3());
+    }
+
+    @Override
+    public void putShort(short value) {
+        putLong(value);
+    }
+
+    @Override
+    public void putChar(char value) {
+        putLong(value);
+    }
+
+    @Override
+    public void putStr(CharSequence value) {
+        if (value == null) {
+            putLong(-1);
+        } else {
+            putStr(value, 0, value.length());
+        }
+    }
+
+    @Override
+    public void putStr(CharSequence value, int lo, int hi) {
+        for (int i = lo; i < hi; i++) {
+            putLong(value.charAt(i));
+        }
+    }
+
+    @Override
+    public void putTimestamp(long value) {
+        putLong(value);
+    }
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.AppendMemory;
+import io.questdb.cairo.ReadOnlyMemory;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Row ids of one side of hash join split into partitions and spilled to a temporary file under
+ * database root. Each partition buffers a block of row ids in memory, full blocks are appended
+ * to file and linked to previous block of the same partition. Partition is read back from its
+ * last block, which makes row order within partition reversed.
+ */
+class RowIdPartitions implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(RowIdPartitions.class);
+    private static final AtomicLong PARTITION_FILE_ID = new AtomicLong();
+    private static final int BLOCK_ROWS = 1024;
+    private static final int BLOCK_HEADER_SIZE = 16;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final long pageSize;
+    private final AppendMemory writer = new AppendMemory();
+    private final ReadOnlyMemory reader = new ReadOnlyMemory();
+    private final Path path = new Path();
+    private final LongList tails = new LongList();
+    private final IntList counts = new IntList();
+    private final PartitionCursor cursor = new PartitionCursor();
+    private long buffer = 0;
+    private long bufferSize;
+    private boolean fileExists = false;
+
+    public RowIdPartitions(FilesFacade ff, CharSequence root, long pageSize) {
+        this.ff = ff;
+        this.root = root;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void clear() {
+        if (buffer != 0) {
+            Unsafe.free(buffer, bufferSize);
+            buffer = 0;
+        }
+        writer.close();
+        reader.close();
+        if (fileExists) {
+            if (!ff.remove(path)) {
+                LOG.error().$("could not remove [file=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            fileExists = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+        path.close();
+    }
+
+    public PartitionCursor getCursor(int partition) {
+        cursor.of(tails.getQuick(partition));
+        return cursor;
+    }
+
+    public void of(int partitionCount) {
+        clear();
+        path.of(root).concat("join-").put(PARTITION_FILE_ID.incrementAndGet());
+        path.put(".tmp").$();
+        writer.of(ff, path, pageSize);
+        fileExists = true;
+        bufferSize = (long) partitionCount * BLOCK_ROWS * Long.BYTES;
+        buffer = Unsafe.malloc(bufferSize);
+        tails.seed(partitionCount, -1);
+        counts.setAll(partitionCount, 0);
+    }
+
+    public void put(int partition, long rowId) {
+        final int count = counts.getQuick(partition);
+        Unsafe.getUnsafe().putLong(buffer + ((long) partition * BLOCK_ROWS + count) * Long.BYTES, rowId);
+        if (count + 1 == BLOCK_ROWS) {
+            flush(partition, BLOCK_ROWS);
+            counts.setQuick(partition, 0);
+        } else {
+            counts.setQuick(partition, count + 1);
+        }
+    }
+
+    /**
+     * Writes out partially filled blocks and makes partitions available for reading.
+     */
+    public void seal() {
+        for (int i = 0, n = counts.size(); i < n; i++) {
+            final int count = counts.getQuick(i);
+            if (count > 0) {
+                flush(i, count);
+                counts.setQuick(i, 0);
+            }
+        }
+        final long size = writer.getAppendOffset();
+        writer.close();
+        Unsafe.free(buffer, bufferSize);
+        buffer = 0;
+        if (size > 0) {
+            reader.of(ff, path, pageSize, size);
+        }
+    }
+
+    private void flush(int partition, int count) {
+        final long offset = writer.getAppendOffset();
+        writer.putLong(tails.getQuick(partition));
+        writer.putLong(count);
+        writer.putBlockOfBytes(buffer + (long) partition * BLOCK_ROWS * Long.BYTES, (long) count * Long.BYTES);
+        tails.setQuick(partition, offset);
+    }
+
+    public class PartitionCursor {
+        private long blockOffset;
+        private long next;
+        private long limit;
+
+        public boolean hasNext() {
+            if (next < limit) {
+                return true;
+            }
+            if (blockOffset != -1) {
+                next = blockOffset + BLOCK_HEADER_SIZE;
+                limit = next + reader.getLong(blockOffset + 8) * Long.BYTES;
+                blockOffset = reader.getLong(blockOffset);
+                return true;
+            }
+            return false;
+        }
+
+        public long next() {
+            final long rowId = reader.getLong(next);
+            next += Long.BYTES;
+            return rowId;
+        }
+
+        private void of(long tail) {
+            this.blockOffset = tail;
+            this.next = this.limit = 0;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.sql.DelegatingRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.LongList;
+
+/**
+ * Keeps "limit" best rows of base cursor in a binary heap of row ids, the worst of
+ * retained rows is at the top of the heap. Rows that sort after the top are discarded
+ * with single comparison. Once base cursor is exhausted heap is sorted in place.
+ * <p>
+ * Rows with equal keys are ordered the same way {@link LongTreeChain} orders them, most
+ * recent row first. To achieve that heap stores sequence number of each row next to
+ * its row id.
+ */
+class LimitedSizeSortedLightRecordCursor implements DelegatingRecordCursor {
+    private final RecordComparator comparator;
+    private final int limit;
+    // pairs of row id and sequence number
+    private final LongList heap = new LongList();
+    private RecordCursor base;
+    private Record baseRecord;
+    private Record recordA = null;
+    private Record recordB = null;
+    private int size;
+    private int index;
+
+    public LimitedSizeSortedLightRecordCursor(RecordComparator comparator, int limit) {
+        this.comparator = comparator;
+        this.limit = limit;
+    }
+
+    @Override
+    public void close() {
+        heap.clear();
+        base.close();
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < size) {
+            base.recordAt(heap.getQuick(2 * index++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Record newRecord() {
+        return base.newRecord();
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public void recordAt(long rowId) {
+        base.recordAt(rowId);
+    }
+
+    @Override
+    public void toTop() {
+        index = 0;
+    }
+
+    @Override
+    public void of(RecordCursor base) {
+        this.base = base;
+        this.baseRecord = base.getRecord();
+        if (recordA == null) {
+            recordA = base.newRecord();
+            recordB = base.newRecord();
+        }
+
+        heap.clear();
+        size = 0;
+        long sequence = 0;
+        while (base.hasNext()) {
+            final long rowId = baseRecord.getRowId();
+            if (size < limit) {
+                heap.add(rowId);
+                heap.add(sequence);
+                siftUp(size++);
+            } else {
+                comparator.setLeft(baseRecord);
+                base.recordAt(recordA, heap.getQuick(0));
+                // new row is more recent than any row in the heap, it wins on equal keys
+                if (comparator.compare(recordA) <= 0) {
+                    heap.setQuick(0, rowId);
+                    heap.setQuick(1, sequence);
+                    siftDown(0, size);
+                }
+            }
+            sequence++;
+        }
+
+        // heap sort, worst row goes to the end
+        for (int n = size - 1; n > 0; n--) {
+            swap(0, n);
+            siftDown(0, n);
+        }
+        index = 0;
+    }
+
+    /**
+     * Checks if heap entry "a" sorts after heap entry "b".
+     */
+    private boolean isAfter(int a, int b) {
+        base.recordAt(recordA, heap.getQuick(2 * a));
+        comparator.setLeft(recordA);
+        base.recordAt(recordB, heap.getQuick(2 * b));
+        final int cmp = comparator.compare(recordB);
+        return cmp > 0 || (cmp == 0 && heap.getQuick(2 * a + 1) < heap.getQuick(2 * b + 1));
+    }
+
+    private void siftDown(int i, int n) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) {
+                return;
+            }
+            if (child + 1 < n && isAfter(child + 1, child)) {
+                child++;
+            }
+            if (!isAfter(child, i)) {
+                return;
+            }
+            swap(child, i);
+            i = child;
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            final int parent = (i - 1) / 2;
+            if (!isAfter(i, parent)) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void swap(int a, int b) {
+        final long rowId = heap.getQuick(2 * a);
+        final long sequence = heap.getQuick(2 * a + 1);
+        heap.setQuick(2 * a, heap.getQuick(2 * b));
+        heap.setQuick(2 * a + 1, heap.getQuick(2 * b + 1));
+        heap.setQuick(2 * b, rowId);
+        heap.setQuick(2 * b + 1, sequence);
+    }
+}
@@ -158,6 +158,10 @@ public class RecordTreeChain implements Closeable, Mutable {
         return cursor;
     }
 
+    public long getMemorySize() {
+        return mem.size() + recordChain.getMemorySize();
+    }
+
     public void put(Record record) {
         if (root == -1) {
             putParent(record);
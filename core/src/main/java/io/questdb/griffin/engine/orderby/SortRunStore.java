@@ -0,0 +1,461 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps sorted runs of records in a temporary file under database root. Runs are appended one after
+ * another and merged by cursor when all of them are written. Record layout in file follows order of
+ * columns, strings and binaries are stored inline with their length.
+ */
+class SortRunStore implements RecordSinkSPI, Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(SortRunStore.class);
+    private static final AtomicLong RUN_FILE_ID = new AtomicLong();
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final long pageSize;
+    private final RecordSink recordSink;
+    private final RecordComparator comparator;
+    private final int[] columnTypes;
+    private final AppendMemory writer = new AppendMemory();
+    private final ReadOnlyMemory reader = new ReadOnlyMemory();
+    // pairs of run start and end offsets
+    private final LongList runs = new LongList();
+    private final Path path = new Path();
+    private final MergeCursor cursor;
+    private long runLo;
+    private boolean fileExists = false;
+
+    public SortRunStore(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes columnTypes,
+            RecordSink recordSink,
+            RecordComparator comparator
+    ) {
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.pageSize = configuration.getSqlSortValuePageSize();
+        this.recordSink = recordSink;
+        this.comparator = comparator;
+        final int columnCount = columnTypes.getColumnCount();
+        this.columnTypes = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            this.columnTypes[i] = columnTypes.getColumnType(i);
+        }
+        this.cursor = new MergeCursor();
+    }
+
+    public void beginRun() {
+        if (!fileExists) {
+            path.of(root).concat("sort-").put(RUN_FILE_ID.incrementAndGet());
+            path.put(".tmp").$();
+            writer.of(ff, path, pageSize);
+            fileExists = true;
+        }
+        runLo = writer.getAppendOffset();
+    }
+
+    @Override
+    public void clear() {
+        writer.close();
+        reader.close();
+        if (fileExists) {
+            if (!ff.remove(path)) {
+                LOG.error().$("could not remove [file=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            fileExists = false;
+        }
+        runs.clear();
+    }
+
+    @Override
+    public void close() {
+        clear();
+        path.close();
+    }
+
+    public void endRun() {
+        final long runHi = writer.getAppendOffset();
+        if (runHi > runLo) {
+            runs.add(runLo);
+            runs.add(runHi);
+        }
+    }
+
+    public RecordCursor getCursor(RecordCursor base) {
+        final long size = writer.getAppendOffset();
+        writer.close();
+        reader.of(ff, path, pageSize, size);
+        LOG.info().$("merging [file=").$(path).$(", runs=").$(runs.size() / 2).$(", size=").$(size).$(']').$();
+        cursor.of(base);
+        return cursor;
+    }
+
+    public boolean isEmpty() {
+        return runs.size() == 0;
+    }
+
+    public void put(Record record) {
+        recordSink.copy(record, this);
+    }
+
+    @Override
+    public void putBin(BinarySequence value) {
+        writer.putBin(value);
+    }
+
+    @Override
+    public void putBool(boolean value) {
+        writer.putBool(value);
+    }
+
+    @Override
+    public void putByte(byte value) {
+        writer.putByte(value);
+    }
+
+    @Override
+    public void putDate(long value) {
+        writer.putLong(value);
+    }
+
+    @Override
+    public void putDouble(double value) {
+        writer.putDouble(value);
+    }
+
+    @Override
+    public void putFloat(float value) {
+        writer.putFloat(value);
+    }
+
+    @Override
+    public void putInt(int value) {
+        writer.putInt(value);
+    }
+
+    @Override
+    public void putLong(long value) {
+        writer.putLong(value);
+    }
+
+    @Override
+    public void putLong256(Long256 value) {
+        writer.putLong256(value);
+    }
+
+    @Override
+    public void putShort(short value) {
+        writer.putShort(value);
+    }
+
+    @Override
+    public void putChar(char value) {
+        writer.putChar(value);
+    }
+
+    @Override
+    public void putStr(CharSequence value) {
+        writer.putStr(value);
+    }
+
+    @Override
+    public void putStr(CharSequence value, int lo, int hi) {
+        writer.putStr(value, lo, hi - lo);
+    }
+
+    @Override
+    public void putTimestamp(long value) {
+        writer.putLong(value);
+    }
+
+    private class MergeCursor implements RecordCursor {
+        private final ObjList<RunRecord> heads = new ObjList<>();
+        // binary heap of run indexes ordered by their head records
+        private final IntList heap = new IntList();
+        private final RunRecord record = new RunRecord();
+        private RecordCursor base;
+        private int heapSize;
+
+        @Override
+        public void close() {
+            base.close();
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return base.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (heapSize == -1) {
+                buildHeap();
+            } else if (heapSize > 0) {
+                final int run = heap.getQuick(0);
+                final RunRecord head = heads.getQuick(run);
+                final long next = head.getNextRowId();
+                if (next < runs.getQuick(run * 2 + 1)) {
+                    head.of(next);
+                } else {
+                    heap.setQuick(0, heap.getQuick(--heapSize));
+                }
+                siftDown();
+            }
+
+            if (heapSize > 0) {
+                record.of(heads.getQuick(heap.getQuick(0)).getRowId());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Record newRecord() {
+            return new RunRecord();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((RunRecord) record).of(atRowId);
+        }
+
+        @Override
+        public void recordAt(long rowId) {
+            record.of(rowId);
+        }
+
+        @Override
+        public void toTop() {
+            heapSize = -1;
+        }
+
+        @Override
+        public long size() {
+            return base.size();
+        }
+
+        private void buildHeap() {
+            final int runCount = runs.size() / 2;
+            heap.setAll(runCount, -1);
+            for (int i = 0; i < runCount; i++) {
+                final RunRecord head;
+                if (i < heads.size()) {
+                    head = heads.getQuick(i);
+                } else {
+                    heads.add(head = new RunRecord());
+                }
+                head.of(runs.getQuick(i * 2));
+                // sift up
+                int child = i;
+                while (child > 0) {
+                    final int parent = (child - 1) / 2;
+                    if (!less(i, heap.getQuick(parent))) {
+                        break;
+                    }
+                    heap.setQuick(child, heap.getQuick(parent));
+                    child = parent;
+                }
+                heap.setQuick(child, i);
+            }
+            heapSize = runCount;
+        }
+
+        private boolean less(int runA, int runB) {
+            comparator.setLeft(heads.getQuick(runA));
+            final int cmp = comparator.compare(heads.getQuick(runB));
+            // earlier run wins on ties, it was sorted from earlier rows
+            return cmp < 0 || (cmp == 0 && runA < runB);
+        }
+
+        private void of(RecordCursor base) {
+            this.base = base;
+            toTop();
+        }
+
+        private void siftDown() {
+            if (heapSize == 0) {
+                return;
+            }
+            final int run = heap.getQuick(0);
+            int parent = 0;
+            while (true) {
+                int child = parent * 2 + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && less(heap.getQuick(child + 1), heap.getQuick(child))) {
+                    child++;
+                }
+                if (!less(heap.getQuick(child), run)) {
+                    break;
+                }
+                heap.setQuick(parent, heap.getQuick(child));
+                parent = child;
+            }
+            heap.setQuick(parent, run);
+        }
+    }
+
+    private class RunRecord implements Record {
+        private final long[] columnOffsets = new long[columnTypes.length];
+        private long rowId;
+        private long nextRowId;
+
+        @Override
+        public BinarySequence getBin(int col) {
+            return reader.getBin(columnOffsets[col]);
+        }
+
+        @Override
+        public long getBinLen(int col) {
+            return reader.getBinLen(columnOffsets[col]);
+        }
+
+        @Override
+        public boolean getBool(int col) {
+            return reader.getBool(columnOffsets[col]);
+        }
+
+        @Override
+        public byte getByte(int col) {
+            return reader.getByte(columnOffsets[col]);
+        }
+
+        @Override
+        public double getDouble(int col) {
+            return reader.getDouble(columnOffsets[col]);
+        }
+
+        @Override
+        public float getFloat(int col) {
+            return reader.getFloat(columnOffsets[col]);
+        }
+
+        @Override
+        public int getInt(int col) {
+            return reader.getInt(columnOffsets[col]);
+        }
+
+        @Override
+        public long getLong(int col) {
+            return reader.getLong(columnOffsets[col]);
+        }
+
+        @Override
+        public long getRowId() {
+            return rowId;
+        }
+
+        @Override
+        public short getShort(int col) {
+            return reader.getShort(columnOffsets[col]);
+        }
+
+        @Override
+        public char getChar(int col) {
+            return reader.getChar(columnOffsets[col]);
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return reader.getStr(columnOffsets[col]);
+        }
+
+        @Override
+        public void getLong256(int col, CharSink sink) {
+            reader.getLong256(columnOffsets[col], sink);
+        }
+
+        @Override
+        public Long256 getLong256A(int col) {
+            return reader.getLong256A(columnOffsets[col]);
+        }
+
+        @Override
+        public Long256 getLong256B(int col) {
+            return reader.getLong256B(columnOffsets[col]);
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return reader.getStr2(columnOffsets[col]);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return reader.getStrLen(columnOffsets[col]);
+        }
+
+        @Override
+        public CharSequence getSym(int col) {
+            return cursor.getSymbolTable(col).value(getInt(col));
+        }
+
+        private long getNextRowId() {
+            return nextRowId;
+        }
+
+        private void of(long rowId) {
+            this.rowId = rowId;
+            long offset = rowId;
+            for (int i = 0, n = columnTypes.length; i < n; i++) {
+                columnOffsets[i] = offset;
+                final int type = columnTypes[i];
+                switch (type) {
+                    case ColumnType.STRING:
+                        final int strLen = reader.getStrLen(offset);
+                        offset += strLen > 0 ? Integer.BYTES + strLen * 2L : Integer.BYTES;
+                        break;
+                    case ColumnType.BINARY:
+                        final long binLen = reader.getBinLen(offset);
+                        offset += binLen > 0 ? Long.BYTES + binLen : Long.BYTES;
+                        break;
+                    default:
+                        offset += ColumnType.sizeOf(type);
+                        break;
+                }
+            }
+            this.nextRowId = offset;
+        }
+    }
+}
@@ -31,56 +31,63 @@ import io.questdb.cairo.sql.SymbolTable;
 
 class SortedRecordCursor implements DelegatingRecordCursor {
     private final RecordTreeChain chain;
+    private final SortRunStore runStore;
+    private final long spillThreshold;
     private RecordTreeChain.TreeCursor chainCursor;
+    // either tree cursor or merge cursor of spilled runs
+    private RecordCursor cursor;
 
-    public SortedRecordCursor(RecordTreeChain chain) {
+    public SortedRecordCursor(RecordTreeChain chain, SortRunStore runStore, long spillThreshold) {
         this.chain = chain;
+        this.runStore = runStore;
+        this.spillThreshold = spillThreshold;
     }
 
     @Override
     public void close() {
         chainCursor.close();
         chain.clear();
+        runStore.clear();
     }
 
     @Override
     public Record getRecord() {
-        return chainCursor.getRecord();
+        return cursor.getRecord();
     }
 
     @Override
     public SymbolTable getSymbolTable(int columnIndex) {
-        return chainCursor.getSymbolTable(columnIndex);
+        return cursor.getSymbolTable(columnIndex);
     }
 
     @Override
     public boolean hasNext() {
-        return chainCursor.hasNext();
+        return cursor.hasNext();
     }
 
     @Override
     public Record newRecord() {
-        return chainCursor.newRecord();
+        return cursor.newRecord();
     }
 
     @Override
     public void recordAt(Record record, long atRowId) {
-        chainCursor.recordAt(record, atRowId);
+        cursor.recordAt(record, atRowId);
     }
 
     @Override
     public void recordAt(long rowId) {
-        chainCursor.recordAt(rowId);
+        cursor.recordAt(rowId);
     }
 
     @Override
     public void toTop() {
-        chainCursor.toTop();
+        cursor.toTop();
     }
 
     @Override
     public long size() {
-        return chainCursor.size();
+        return cursor.size();
     }
 
     @Override
@@ -89,13 +96,35 @@ class SortedRecordCursor implements DelegatingRecordCursor {
         final Record record = base.getRecord();
 
         chain.clear();
+        runStore.clear();
         while (base.hasNext()) {
             // Tree chain is liable to re-position record to
             // other rows to do record comparison. We must use our
             // own record instance in case base cursor keeps
             // state in the record it returns.
             chain.put(record);
+            if (chain.getMemorySize() > spillThreshold) {
+                spill();
+            }
+        }
+
+        if (runStore.isEmpty()) {
+            chainCursor.toTop();
+            cursor = chainCursor;
+        } else {
+            spill();
+            cursor = runStore.getCursor(base);
         }
+    }
+
+    private void spill() {
         chainCursor.toTop();
+        runStore.beginRun();
+        final Record record = chainCursor.getRecord();
+        while (chainCursor.hasNext()) {
+            runStore.put(record);
+        }
+        runStore.endRun();
+        chain.clear();
     }
 }
@@ -36,6 +36,7 @@ import io.questdb.griffin.SqlExecutionContext;
 public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordCursorFactory base;
     private final RecordTreeChain chain;
+    private final SortRunStore runStore;
     private final SortedRecordCursor cursor;
 
     public SortedRecordCursorFactory(
@@ -52,14 +53,16 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
                 comparator,
                 configuration.getSqlSortKeyPageSize(),
                 configuration.getSqlSortValuePageSize());
+        this.runStore = new SortRunStore(configuration, columnTypes, recordSink, comparator);
         this.base = base;
-        this.cursor = new SortedRecordCursor(chain);
+        this.cursor = new SortedRecordCursor(chain, runStore, configuration.getSqlSortSpillThreshold());
     }
 
     @Override
     public void close() {
         base.close();
         chain.close();
+        runStore.close();
     }
 
     @Override
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.engine.functions.StatelessFunction;
+import io.questdb.std.Numbers;
+
+/**
+ * Base class of filters generated by {@link FilterCompiler}. Static methods of this class
+ * are invoked from generated code, they replicate semantics of the function factories
+ * they replace, including handling of NaN values. Generated code is branch-free, so that
+ * it does not need stack map frames, all branching is done here and is inlined by JIT.
+ */
+public abstract class CompiledFilter extends BooleanFunction implements StatelessFunction {
+
+    public CompiledFilter() {
+        super(0);
+    }
+
+    public static int addInt(int l, int r) {
+        if (l == Numbers.INT_NaN || r == Numbers.INT_NaN) {
+            return Numbers.INT_NaN;
+        }
+        return l + r;
+    }
+
+    public static long addLong(long l, long r) {
+        if (l == Numbers.LONG_NaN || r == Numbers.LONG_NaN) {
+            return Numbers.LONG_NaN;
+        }
+        return l + r;
+    }
+
+    public static long divLong(long l, long r) {
+        if (l == Numbers.LONG_NaN || r == Numbers.LONG_NaN || r == 0) {
+            return Numbers.LONG_NaN;
+        }
+        return l / r;
+    }
+
+    public static boolean eq(int l, int r) {
+        return l == r;
+    }
+
+    public static boolean eq(long l, long r) {
+        return l == r;
+    }
+
+    public static boolean eq(double l, double r) {
+        return l != l && r != r || Math.abs(l - r) < 0.0000000001;
+    }
+
+    public static boolean gt(double l, double r) {
+        return l > r;
+    }
+
+    public static boolean isNaN(int value) {
+        return value == Numbers.INT_NaN;
+    }
+
+    public static boolean isNaN(long value) {
+        return value == Numbers.LONG_NaN;
+    }
+
+    public static boolean isNaN(float value) {
+        return Float.isNaN(value);
+    }
+
+    public static boolean isNaN(double value) {
+        return Double.isNaN(value);
+    }
+
+    public static boolean lt(double l, double r) {
+        return l < r;
+    }
+
+    public static int subInt(int l, int r) {
+        if (l == Numbers.INT_NaN || r == Numbers.INT_NaN) {
+            return Numbers.INT_NaN;
+        }
+        return l - r;
+    }
+
+    public static long subLong(long l, long r) {
+        if (l == Numbers.LONG_NaN || r == Numbers.LONG_NaN) {
+            return Numbers.LONG_NaN;
+        }
+        return l - r;
+    }
+}
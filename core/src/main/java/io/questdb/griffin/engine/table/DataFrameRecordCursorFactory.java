@@ -31,6 +31,7 @@ import org.jetbrains.annotations.Nullable;
 public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
     private final DataFrameRecordCursor cursor;
     private final Function filter;
+    private final boolean entity;
 
     public DataFrameRecordCursorFactory(
             RecordMetadata metadata,
@@ -40,6 +41,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         super(metadata, dataFrameCursorFactory);
         this.cursor = new DataFrameRecordCursor(rowCursorFactory, filter, rowCursorFactory.isEntity());
         this.filter = filter;
+        this.entity = rowCursorFactory.isEntity();
     }
 
     @Override
@@ -49,11 +51,21 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         }
     }
 
+    @Override
+    public DataFrameCursor getDataFrameCursor(SqlExecutionContext executionContext) {
+        return dataFrameCursorFactory.getCursor(executionContext.getCairoSecurityContext(), getMetadata().getTimestampIndex());
+    }
+
     @Override
     public boolean isRandomAccessCursor() {
         return true;
     }
 
+    @Override
+    public boolean supportsDataFrameCursor() {
+        return filter == null && entity;
+    }
+
     @Override
     protected RecordCursor getCursorInstance(
             DataFrameCursor dataFrameCursor,
@@ -0,0 +1,583 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.BinaryFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.bool.AndFunctionFactory;
+import io.questdb.griffin.engine.functions.bool.OrFunctionFactory;
+import io.questdb.griffin.engine.functions.columns.*;
+import io.questdb.griffin.engine.functions.eq.EqDoubleFunctionFactory;
+import io.questdb.griffin.engine.functions.eq.EqIntFunctionFactory;
+import io.questdb.griffin.engine.functions.eq.EqLongFunctionFactory;
+import io.questdb.griffin.engine.functions.gt.GtDoubleFunctionFactory;
+import io.questdb.griffin.engine.functions.lt.LtDoubleVVFunctionFactory;
+import io.questdb.griffin.engine.functions.math.*;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjIntHashMap;
+
+/**
+ * Compiles filter function tree into a single class, which reads record columns at constant
+ * indexes and performs arithmetic and comparisons inline. This removes virtual calls between
+ * nodes of the tree. Only arithmetic, comparison and boolean functions over fixed-width
+ * columns and constants are supported. When filter contains anything else compiler
+ * returns null and caller is expected to use the function tree as is.
+ * <p>
+ * Functions are recognised by their factory, generated code replicates semantics of the
+ * factory, including implicit type conversions performed by function base classes.
+ */
+public class FilterCompiler {
+    private static final int OP_EQ_INT = 1;
+    private static final int OP_EQ_LONG = 2;
+    private static final int OP_EQ_DOUBLE = 3;
+    private static final int OP_LT_DOUBLE = 4;
+    private static final int OP_GT_DOUBLE = 5;
+    private static final int OP_ADD_INT = 6;
+    private static final int OP_SUB_INT = 7;
+    private static final int OP_MUL_INT = 8;
+    private static final int OP_ADD_LONG = 9;
+    private static final int OP_SUB_LONG = 10;
+    private static final int OP_MUL_LONG = 11;
+    private static final int OP_DIV_LONG = 12;
+    private static final int OP_ADD_DOUBLE = 13;
+    private static final int OP_SUB_DOUBLE = 14;
+    private static final int OP_MUL_DOUBLE = 15;
+    private static final int OP_DIV_DOUBLE = 16;
+    private static final int OP_AND = 17;
+    private static final int OP_OR = 18;
+    private static final ObjIntHashMap<Class<?>> ops = new ObjIntHashMap<>();
+    private final BytecodeAssembler asm;
+    private final IntList constantIndices = new IntList();
+    private int constantPos;
+    private int rGetBool;
+    private int rGetByte;
+    private int rGetShort;
+    private int rGetInt;
+    private int rGetLong;
+    private int rGetFloat;
+    private int rGetDouble;
+    private int eqInt;
+    private int eqLong;
+    private int eqDouble;
+    private int ltDouble;
+    private int gtDouble;
+    private int addInt;
+    private int subInt;
+    private int addLong;
+    private int subLong;
+    private int divLong;
+    private int isNaNInt;
+    private int isNaNLong;
+    private int isNaNFloat;
+    private int isNaNDouble;
+
+    public FilterCompiler(BytecodeAssembler asm) {
+        this.asm = asm;
+    }
+
+    /**
+     * Generates byte code for filter function.
+     *
+     * @param filter boolean function tree. Tree is not modified and remains owned by caller.
+     * @return compiled filter or null when filter contains unsupported functions
+     */
+    public Function compile(Function filter) {
+        if (filter.getType() != ColumnType.BOOLEAN || filter.isConstant() || !isCompilable(filter, ColumnType.BOOLEAN)) {
+            return null;
+        }
+
+        asm.init(CompiledFilter.class);
+        asm.setupPool();
+        int thisClassIndex = asm.poolClass(asm.poolUtf8("questdbasm"));
+        int superclassIndex = asm.poolClass(CompiledFilter.class);
+        int superConstructorIndex = asm.poolMethod(superclassIndex, "<init>", "()V");
+        int getBoolNameIndex = asm.poolUtf8("getBool");
+        int getBoolDescIndex = asm.poolUtf8("(Lio/questdb/cairo/sql/Record;)Z");
+        poolMethods(superclassIndex);
+        constantIndices.clear();
+        poolConstants(filter, ColumnType.BOOLEAN);
+        asm.finishPool();
+
+        asm.defineClass(thisClassIndex, superclassIndex);
+        asm.interfaceCount(0);
+        asm.fieldCount(0);
+        asm.methodCount(2);
+        asm.defineDefaultConstructor(superConstructorIndex);
+
+        asm.startMethod(getBoolNameIndex, getBoolDescIndex, getMaxStack(filter, ColumnType.BOOLEAN), 2);
+        constantPos = 0;
+        instrument(filter, ColumnType.BOOLEAN);
+        asm.ireturn();
+        asm.endMethodCode();
+        // exceptions
+        asm.putShort(0);
+        // attributes: 0, code has no branches and does not need stack map table
+        asm.putShort(0);
+        asm.endMethod();
+
+        // class attribute count
+        asm.putShort(0);
+        return asm.newInstance();
+    }
+
+    private static int getColumnIndex(Function function) {
+        if (function instanceof IntColumn) {
+            return ((IntColumn) function).getColumnIndex();
+        }
+        if (function instanceof LongColumn) {
+            return ((LongColumn) function).getColumnIndex();
+        }
+        if (function instanceof DoubleColumn) {
+            return ((DoubleColumn) function).getColumnIndex();
+        }
+        if (function instanceof FloatColumn) {
+            return ((FloatColumn) function).getColumnIndex();
+        }
+        if (function instanceof ShortColumn) {
+            return ((ShortColumn) function).getColumnIndex();
+        }
+        if (function instanceof ByteColumn) {
+            return ((ByteColumn) function).getColumnIndex();
+        }
+        if (function instanceof BooleanColumn) {
+            return ((BooleanColumn) function).getColumnIndex();
+        }
+        return -1;
+    }
+
+    private static int getOperandType(int op) {
+        switch (op) {
+            case OP_EQ_INT:
+            case OP_ADD_INT:
+            case OP_SUB_INT:
+            case OP_MUL_INT:
+                return ColumnType.INT;
+            case OP_EQ_LONG:
+            case OP_ADD_LONG:
+            case OP_SUB_LONG:
+            case OP_MUL_LONG:
+            case OP_DIV_LONG:
+                return ColumnType.LONG;
+            case OP_AND:
+            case OP_OR:
+                return ColumnType.BOOLEAN;
+            default:
+                return ColumnType.DOUBLE;
+        }
+    }
+
+    private static int getOp(Function function) {
+        final Class<?> factoryClass = function.getClass().getEnclosingClass();
+        if (factoryClass == null) {
+            return -1;
+        }
+        final int op = ops.get(factoryClass);
+        if (op == OP_EQ_DOUBLE && function instanceof UnaryFunction) {
+            return op;
+        }
+        return function instanceof BinaryFunction ? op : -1;
+    }
+
+    /**
+     * Type, which argument of "is NaN" check is read as. This is mirror of
+     * the switch in {@link EqDoubleFunctionFactory}.
+     */
+    private static int getNaNCheckType(Function arg) {
+        switch (arg.getType()) {
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+                return arg.getType();
+            default:
+                return ColumnType.DOUBLE;
+        }
+    }
+
+    private static int getSlots(int type) {
+        switch (type) {
+            case ColumnType.LONG:
+            case ColumnType.DOUBLE:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Checks if value of "from" type can be read as "to" type. Conversions
+     * are those of function base classes, e.g. IntFunction.getLong().
+     */
+    private static boolean isConvertible(int from, int to) {
+        if (from == to) {
+            return true;
+        }
+        switch (from) {
+            case ColumnType.BYTE:
+                return to == ColumnType.SHORT || to == ColumnType.INT || to == ColumnType.LONG || to == ColumnType.FLOAT || to == ColumnType.DOUBLE;
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+                return to == ColumnType.INT || to == ColumnType.LONG || to == ColumnType.FLOAT || to == ColumnType.DOUBLE;
+            case ColumnType.LONG:
+                return to == ColumnType.FLOAT || to == ColumnType.DOUBLE;
+            case ColumnType.FLOAT:
+                return to == ColumnType.DOUBLE;
+            default:
+                return false;
+        }
+    }
+
+    private void convert(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        switch (from) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+                switch (to) {
+                    case ColumnType.LONG:
+                        asm.i2l();
+                        break;
+                    case ColumnType.FLOAT:
+                        asm.i2f();
+                        break;
+                    case ColumnType.DOUBLE:
+                        asm.i2d();
+                        break;
+                    default:
+                        // short and int are both int on the stack
+                        break;
+                }
+                break;
+            case ColumnType.LONG:
+                if (to == ColumnType.FLOAT) {
+                    asm.l2f();
+                } else {
+                    asm.l2d();
+                }
+                break;
+            default:
+                asm.f2d();
+                break;
+        }
+    }
+
+    private int getMaxStack(Function function, int type) {
+        if (function.isConstant()) {
+            return getSlots(type);
+        }
+
+        if (getColumnIndex(function) > -1) {
+            // record reference and column index are on stack before value
+            return Math.max(2, getSlots(type));
+        }
+
+        final int op = getOp(function);
+        final int stack;
+        if (op == OP_EQ_DOUBLE && function instanceof UnaryFunction) {
+            final Function arg = ((UnaryFunction) function).getArg();
+            stack = getMaxStack(arg, getNaNCheckType(arg));
+        } else {
+            final BinaryFunction binary = (BinaryFunction) function;
+            final int operandType = getOperandType(op);
+            stack = Math.max(
+                    getMaxStack(binary.getLeft(), operandType),
+                    getSlots(operandType) + getMaxStack(binary.getRight(), operandType)
+            );
+        }
+        return Math.max(stack, getSlots(type));
+    }
+
+    private void instrument(Function function, int type) {
+        if (function.isConstant()) {
+            instrumentConstant(function, type);
+            return;
+        }
+
+        final int columnIndex = getColumnIndex(function);
+        if (columnIndex > -1) {
+            asm.aload(1);
+            asm.iconst(columnIndex);
+            switch (function.getType()) {
+                case ColumnType.BOOLEAN:
+                    asm.invokeInterface(rGetBool, 1);
+                    break;
+                case ColumnType.BYTE:
+                    asm.invokeInterface(rGetByte, 1);
+                    break;
+                case ColumnType.SHORT:
+                    asm.invokeInterface(rGetShort, 1);
+                    break;
+                case ColumnType.INT:
+                    asm.invokeInterface(rGetInt, 1);
+                    break;
+                case ColumnType.LONG:
+                    asm.invokeInterface(rGetLong, 1);
+                    break;
+                case ColumnType.FLOAT:
+                    asm.invokeInterface(rGetFloat, 1);
+                    break;
+                default:
+                    asm.invokeInterface(rGetDouble, 1);
+                    break;
+            }
+            convert(function.getType(), type);
+            return;
+        }
+
+        final int op = getOp(function);
+        if (op == OP_EQ_DOUBLE && function instanceof UnaryFunction) {
+            final Function arg = ((UnaryFunction) function).getArg();
+            final int argType = getNaNCheckType(arg);
+            instrument(arg, argType);
+            switch (argType) {
+                case ColumnType.INT:
+                    asm.invokeStatic(isNaNInt);
+                    break;
+                case ColumnType.FLOAT:
+                    asm.invokeStatic(isNaNFloat);
+                    break;
+                case ColumnType.DOUBLE:
+                    asm.invokeStatic(isNaNDouble);
+                    break;
+                default:
+                    asm.invokeStatic(isNaNLong);
+                    break;
+            }
+            return;
+        }
+
+        final BinaryFunction binary = (BinaryFunction) function;
+        final int operandType = getOperandType(op);
+        instrument(binary.getLeft(), operandType);
+        instrument(binary.getRight(), operandType);
+        switch (op) {
+            case OP_EQ_INT:
+                asm.invokeStatic(eqInt);
+                break;
+            case OP_EQ_LONG:
+                asm.invokeStatic(eqLong);
+                break;
+            case OP_EQ_DOUBLE:
+                asm.invokeStatic(eqDouble);
+                break;
+            case OP_LT_DOUBLE:
+                asm.invokeStatic(ltDouble);
+                break;
+            case OP_GT_DOUBLE:
+                asm.invokeStatic(gtDouble);
+                break;
+            case OP_ADD_INT:
+                asm.invokeStatic(addInt);
+                break;
+            case OP_SUB_INT:
+                asm.invokeStatic(subInt);
+                break;
+            case OP_MUL_INT:
+                asm.imul();
+                break;
+            case OP_ADD_LONG:
+                asm.invokeStatic(addLong);
+                break;
+            case OP_SUB_LONG:
+                asm.invokeStatic(subLong);
+                break;
+            case OP_MUL_LONG:
+                asm.lmul();
+                break;
+            case OP_DIV_LONG:
+                asm.invokeStatic(divLong);
+                break;
+            case OP_ADD_DOUBLE:
+                asm.dadd();
+                break;
+            case OP_SUB_DOUBLE:
+                asm.dsub();
+                break;
+            case OP_MUL_DOUBLE:
+                asm.dmul();
+                break;
+            case OP_DIV_DOUBLE:
+                asm.ddiv();
+                break;
+            case OP_AND:
+                // both sides are evaluated, they do not have side effects
+                asm.iand();
+                break;
+            default:
+                asm.ior();
+                break;
+        }
+        convert(function.getType(), type);
+    }
+
+    private void instrumentConstant(Function function, int type) {
+        final int index = constantIndices.getQuick(constantPos++);
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                asm.iconst(function.getBool(null) ? 1 : 0);
+                break;
+            case ColumnType.BYTE:
+                asm.iconst(function.getByte(null));
+                break;
+            case ColumnType.SHORT:
+                asm.iconst(function.getShort(null));
+                break;
+            case ColumnType.INT:
+                if (index == -1) {
+                    asm.iconst(function.getInt(null));
+                } else {
+                    asm.ldc_w(index);
+                }
+                break;
+            default:
+                asm.ldc2_w(index);
+                break;
+        }
+    }
+
+    private boolean isCompilable(Function function, int type) {
+        if (!isConvertible(function.getType(), type)) {
+            return false;
+        }
+
+        if (function.isConstant()) {
+            // there are no float operands, float constant cannot be requested
+            return type != ColumnType.FLOAT;
+        }
+
+        if (getColumnIndex(function) > -1) {
+            return true;
+        }
+
+        final int op = getOp(function);
+        switch (op) {
+            case -1:
+                return false;
+            case OP_EQ_DOUBLE:
+                if (function instanceof UnaryFunction) {
+                    final Function arg = ((UnaryFunction) function).getArg();
+                    return isCompilable(arg, getNaNCheckType(arg));
+                }
+                break;
+            default:
+                break;
+        }
+
+        final BinaryFunction binary = (BinaryFunction) function;
+        final int operandType = getOperandType(op);
+        return isCompilable(binary.getLeft(), operandType) && isCompilable(binary.getRight(), operandType);
+    }
+
+    private void poolConstants(Function function, int type) {
+        if (function.isConstant()) {
+            switch (type) {
+                case ColumnType.INT:
+                    final int value = function.getInt(null);
+                    constantIndices.add(value < Short.MIN_VALUE || value > Short.MAX_VALUE ? asm.poolIntConst(value) : -1);
+                    break;
+                case ColumnType.LONG:
+                    constantIndices.add(asm.poolLongConst(function.getLong(null)));
+                    break;
+                case ColumnType.DOUBLE:
+                    constantIndices.add(asm.poolDoubleConst(function.getDouble(null)));
+                    break;
+                default:
+                    constantIndices.add(-1);
+                    break;
+            }
+            return;
+        }
+
+        if (getColumnIndex(function) > -1) {
+            return;
+        }
+
+        final int op = getOp(function);
+        if (op == OP_EQ_DOUBLE && function instanceof UnaryFunction) {
+            final Function arg = ((UnaryFunction) function).getArg();
+            poolConstants(arg, getNaNCheckType(arg));
+        } else {
+            final BinaryFunction binary = (BinaryFunction) function;
+            final int operandType = getOperandType(op);
+            poolConstants(binary.getLeft(), operandType);
+            poolConstants(binary.getRight(), operandType);
+        }
+    }
+
+    private void poolMethods(int superclassIndex) {
+        final int recordClassIndex = asm.poolClass(Record.class);
+        rGetBool = asm.poolInterfaceMethod(recordClassIndex, "getBool", "(I)Z");
+        rGetByte = asm.poolInterfaceMethod(recordClassIndex, "getByte", "(I)B");
+        rGetShort = asm.poolInterfaceMethod(recordClassIndex, "getShort", "(I)S");
+        rGetInt = asm.poolInterfaceMethod(recordClassIndex, "getInt", "(I)I");
+        rGetLong = asm.poolInterfaceMethod(recordClassIndex, "getLong", "(I)J");
+        rGetFloat = asm.poolInterfaceMethod(recordClassIndex, "getFloat", "(I)F");
+        rGetDouble = asm.poolInterfaceMethod(recordClassIndex, "getDouble", "(I)D");
+
+        eqInt = asm.poolMethod(superclassIndex, "eq", "(II)Z");
+        eqLong = asm.poolMethod(superclassIndex, "eq", "(JJ)Z");
+        eqDouble = asm.poolMethod(superclassIndex, "eq", "(DD)Z");
+        ltDouble = asm.poolMethod(superclassIndex, "lt", "(DD)Z");
+        gtDouble = asm.poolMethod(superclassIndex, "gt", "(DD)Z");
+        addInt = asm.poolMethod(superclassIndex, "addInt", "(II)I");
+        subInt = asm.poolMethod(superclassIndex, "subInt", "(II)I");
+        addLong = asm.poolMethod(superclassIndex, "addLong", "(JJ)J");
+        subLong = asm.poolMethod(superclassIndex, "subLong", "(JJ)J");
+        divLong = asm.poolMethod(superclassIndex, "divLong", "(JJ)J");
+        isNaNInt = asm.poolMethod(superclassIndex, "isNaN", "(I)Z");
+        isNaNLong = asm.poolMethod(superclassIndex, "isNaN", "(J)Z");
+        isNaNFloat = asm.poolMethod(superclassIndex, "isNaN", "(F)Z");
+        isNaNDouble = asm.poolMethod(superclassIndex, "isNaN", "(D)Z");
+    }
+
+    static {
+        ops.put(EqIntFunctionFactory.class, OP_EQ_INT);
+        ops.put(EqLongFunctionFactory.class, OP_EQ_LONG);
+        ops.put(EqDoubleFunctionFactory.class, OP_EQ_DOUBLE);
+        ops.put(LtDoubleVVFunctionFactory.class, OP_LT_DOUBLE);
+        ops.put(GtDoubleFunctionFactory.class, OP_GT_DOUBLE);
+        ops.put(AddIntFunctionFactory.class, OP_ADD_INT);
+        ops.put(SubIntFunctionFactory.class, OP_SUB_INT);
+        ops.put(MulIntFunctionFactory.class, OP_MUL_INT);
+        ops.put(AddLongFunctionFactory.class, OP_ADD_LONG);
+        ops.put(SubLongFunctionFactory.class, OP_SUB_LONG);
+        ops.put(MulLongFunctionFactory.class, OP_MUL_LONG);
+        ops.put(DivLongFunctionFactory.class, OP_DIV_LONG);
+        ops.put(AddDoubleFunctionFactory.class, OP_ADD_DOUBLE);
+        ops.put(SubDoubleFunctionFactory.class, OP_SUB_DOUBLE);
+        ops.put(MulDoubleFunctionFactory.class, OP_MUL_DOUBLE);
+        ops.put(DivDoubleFunctionFactory.class, OP_DIV_DOUBLE);
+        ops.put(AndFunctionFactory.class, OP_AND);
+        ops.put(OrFunctionFactory.class, OP_OR);
+    }
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.std.LongList;
+import io.questdb.std.Unsafe;
+
+/**
+ * Contiguous range of rows within single partition. Matching row ids are collected
+ * by whichever thread locks the task first.
+ */
+class ParallelFilterTask {
+    private static final long SEQUENCE_OFFSET;
+
+    static {
+        SEQUENCE_OFFSET = Unsafe.getFieldOffset(ParallelFilterTask.class, "sequence");
+    }
+
+    final LongList rows = new LongList();
+    private final ParallelFilteredRecordCursor cursor;
+    int partitionIndex;
+    long rowLo;
+    long rowHi;
+    volatile boolean failed = false;
+    @SuppressWarnings({"unused", "FieldCanBeLocal"})
+    private volatile long sequence = 0L;
+
+    ParallelFilterTask(ParallelFilteredRecordCursor cursor) {
+        this.cursor = cursor;
+    }
+
+    ParallelFilteredRecordCursor getCursor() {
+        return cursor;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    void of(int partitionIndex, long rowLo, long rowHi) {
+        this.partitionIndex = partitionIndex;
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.rows.clear();
+        this.failed = false;
+    }
+
+    boolean tryLock(long expectedSequence) {
+        return Unsafe.cas(this, SEQUENCE_OFFSET, expectedSequence, expectedSequence + 1);
+    }
+}
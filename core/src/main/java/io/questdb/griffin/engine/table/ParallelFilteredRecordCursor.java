@@ -0,0 +1,307 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CairoWorkScheduler;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderRecord;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.ReaderOutOfDateException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+
+/**
+ * Splits data frames into tasks of at most "frameRowCount" rows and filters batch of tasks
+ * on worker threads. Matching row ids are collected per task and returned in task order, which
+ * keeps rows in timestamp order. Each worker reads table via its own reader, acquired
+ * when cursor is opened. Owner thread filters whatever workers have not picked up.
+ */
+class ParallelFilteredRecordCursor extends AbstractDataFrameRecordCursor {
+    private static final Log LOG = LogFactory.getLog(ParallelFilteredRecordCursor.class);
+    private final CairoEngine engine;
+    private final String tableName;
+    private final long tableVersion;
+    private final long frameRowCount;
+    private final Sequence pubSequence;
+    private final RingQueue<ParallelFilterEntry> queue;
+    private final ObjList<ParallelFilterSlot> slots;
+    private final ObjList<ParallelFilterTask> tasks;
+    private final LongList taskSequences = new LongList();
+    private final SOCountDownLatch doneLatch = new SOCountDownLatch();
+    private int slotCount = 0;
+    private int taskCount = 0;
+    private int taskIndex = 0;
+    private LongList rows;
+    private int rowIndex = 0;
+    private int rowCount = 0;
+    private int partitionIndex;
+    private long partitionRowLo = 0;
+    private long partitionRowHi = 0;
+
+    ParallelFilteredRecordCursor(
+            CairoEngine engine,
+            CairoWorkScheduler workScheduler,
+            String tableName,
+            long tableVersion,
+            long frameRowCount,
+            ObjList<Function> filters
+    ) {
+        this.engine = engine;
+        this.tableName = tableName;
+        this.tableVersion = tableVersion;
+        this.frameRowCount = frameRowCount;
+        this.pubSequence = workScheduler.getFilterPubSequence();
+        this.queue = workScheduler.getFilterQueue();
+        final int n = filters.size();
+        this.slots = new ObjList<>(n);
+        for (int i = 0; i < n; i++) {
+            slots.add(new ParallelFilterSlot(filters.getQuick(i)));
+        }
+        // two tasks per thread leave room to balance uneven tasks
+        final int taskCapacity = 2 * n;
+        this.tasks = new ObjList<>(taskCapacity);
+        for (int i = 0; i < taskCapacity; i++) {
+            tasks.add(new ParallelFilterTask(this));
+        }
+    }
+
+    @Override
+    public void close() {
+        releaseWorkerReaders();
+        super.close();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (rowIndex >= rowCount) {
+            if (++taskIndex >= taskCount && !filterNextBatch()) {
+                return false;
+            }
+            final ParallelFilterTask task = tasks.getQuick(taskIndex);
+            rows = task.rows;
+            rowIndex = 0;
+            rowCount = rows.size();
+            record.jumpTo(task.partitionIndex, 0);
+        }
+        record.setRecordIndex(rows.getQuick(rowIndex++));
+        return true;
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        dataFrameCursor.toTop();
+        for (int i = 0; i < slotCount; i++) {
+            slots.getQuick(i).filter.toTop();
+        }
+        resetState();
+    }
+
+    @Override
+    void of(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext) {
+        if (this.dataFrameCursor != dataFrameCursor) {
+            close();
+            this.dataFrameCursor = dataFrameCursor;
+        } else {
+            releaseWorkerReaders();
+        }
+        final TableReader reader = dataFrameCursor.getTableReader();
+        this.record.of(reader);
+        slots.getQuick(0).of(reader);
+        slotCount = 1;
+        acquireWorkerReaders(reader, executionContext);
+        try {
+            for (int i = 0; i < slotCount; i++) {
+                final ParallelFilterSlot slot = slots.getQuick(i);
+                slot.filter.init(slot, executionContext);
+            }
+        } catch (CairoException e) {
+            releaseWorkerReaders();
+            throw e;
+        }
+        resetState();
+    }
+
+    boolean tryRun(ParallelFilterTask task, long taskSequence) {
+        // Slot 0 is reserved for owner thread. Task is locked only after we have
+        // slot to run it with, otherwise owner thread would wait for us in vain.
+        for (int i = 1, n = slotCount; i < n; i++) {
+            final ParallelFilterSlot slot = slots.getQuick(i);
+            if (slot.tryAcquire()) {
+                try {
+                    if (task.tryLock(taskSequence)) {
+                        filterAndCountDown(task, slot);
+                        return true;
+                    }
+                    return false;
+                } finally {
+                    slot.release();
+                }
+            }
+        }
+        return false;
+    }
+
+    private void acquireWorkerReaders(TableReader reader, SqlExecutionContext executionContext) {
+        for (int i = 1, n = slots.size(); i < n; i++) {
+            final TableReader workerReader;
+            try {
+                workerReader = engine.getReader(executionContext.getCairoSecurityContext(), tableName, tableVersion);
+            } catch (CairoException | ReaderOutOfDateException e) {
+                // reader pool is exhausted or table has changed, filter with fewer threads
+                LOG.info().$("could not acquire worker reader [table=").$(tableName).$(", workers=").$(slotCount - 1).$(']').$();
+                break;
+            }
+
+            // row ranges come from owner reader, worker readers must see identical data
+            if (workerReader.getTxn() != reader.getTxn()) {
+                workerReader.close();
+                break;
+            }
+            slots.getQuick(slotCount++).of(workerReader);
+        }
+    }
+
+    private void filterAndCountDown(ParallelFilterTask task, ParallelFilterSlot slot) {
+        try {
+            final TableReaderRecord record = slot.record;
+            final Function filter = slot.filter;
+            final LongList rows = task.rows;
+            slot.reader.openPartition(task.partitionIndex);
+            record.jumpTo(task.partitionIndex, 0);
+            for (long r = task.rowLo, hi = task.rowHi; r < hi; r++) {
+                record.setRecordIndex(r);
+                if (filter.getBool(record)) {
+                    rows.add(r);
+                }
+            }
+        } catch (Throwable e) {
+            task.failed = true;
+            LOG.error().$("filter error [table=").$(tableName).$(", partitionIndex=").$(task.partitionIndex).$(", rowLo=").$(task.rowLo).$(']').$(e).$();
+        } finally {
+            doneLatch.countDown();
+        }
+    }
+
+    private boolean filterNextBatch() {
+        taskCount = 0;
+        final int taskCapacity = tasks.size();
+        while (taskCount < taskCapacity) {
+            if (partitionRowLo < partitionRowHi) {
+                final long hi = Math.min(partitionRowLo + frameRowCount, partitionRowHi);
+                tasks.getQuick(taskCount++).of(partitionIndex, partitionRowLo, hi);
+                partitionRowLo = hi;
+            } else if (dataFrameCursor.hasNext()) {
+                final DataFrame frame = dataFrameCursor.next();
+                partitionIndex = frame.getPartitionIndex();
+                partitionRowLo = frame.getRowLo();
+                partitionRowHi = frame.getRowHi();
+            } else {
+                break;
+            }
+        }
+
+        if (taskCount == 0) {
+            return false;
+        }
+
+        doneLatch.setCount(taskCount);
+        taskSequences.clear();
+        for (int i = 0; i < taskCount; i++) {
+            taskSequences.add(tasks.getQuick(i).getSequence());
+        }
+
+        if (slotCount > 1) {
+            // last task is left to this thread, which starts from the end of the batch
+            OUT:
+            for (int i = 0, n = taskCount - 1; i < n; i++) {
+                long cursor;
+                do {
+                    cursor = pubSequence.next();
+                    if (cursor == -1) {
+                        // queue is full, remaining tasks are done in the current thread
+                        break OUT;
+                    }
+                } while (cursor < 0);
+
+                final ParallelFilterEntry queueItem = queue.get(cursor);
+                queueItem.task = tasks.getQuick(i);
+                queueItem.sequence = taskSequences.getQuick(i);
+                pubSequence.done(cursor);
+            }
+        }
+
+        final ParallelFilterSlot slot = slots.getQuick(0);
+        for (int i = taskCount - 1; i > -1; i--) {
+            final ParallelFilterTask task = tasks.getQuick(i);
+            if (task.tryLock(taskSequences.getQuick(i))) {
+                filterAndCountDown(task, slot);
+            }
+        }
+        // wait for tasks we could not steal
+        doneLatch.await();
+
+        for (int i = 0; i < taskCount; i++) {
+            if (tasks.getQuick(i).failed) {
+                throw CairoException.instance(0).put("parallel filter failed [table=").put(tableName).put(']');
+            }
+        }
+        taskIndex = 0;
+        return true;
+    }
+
+    private void releaseWorkerReaders() {
+        for (int i = 1; i < slotCount; i++) {
+            final ParallelFilterSlot slot = slots.getQuick(i);
+            slot.reader.close();
+            slot.reader = null;
+        }
+        slotCount = 1;
+    }
+
+    private void resetState() {
+        taskCount = 0;
+        taskIndex = 0;
+        rowIndex = 0;
+        rowCount = 0;
+        partitionRowLo = 0;
+        partitionRowHi = 0;
+    }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoWorkScheduler;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Table scan with filter evaluated on multiple threads. There is one instance of filter
+ * function for each thread that can run it, first instance belongs to the thread that
+ * iterates the cursor.
+ */
+public class ParallelFilteredRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
+    private final ParallelFilteredRecordCursor cursor;
+    private final ObjList<Function> filters;
+
+    public ParallelFilteredRecordCursorFactory(
+            CairoEngine engine,
+            CairoWorkScheduler workScheduler,
+            RecordMetadata metadata,
+            DataFrameCursorFactory dataFrameCursorFactory,
+            String tableName,
+            long tableVersion,
+            long frameRowCount,
+            ObjList<Function> filters
+    ) {
+        super(metadata, dataFrameCursorFactory);
+        this.cursor = new ParallelFilteredRecordCursor(engine, workScheduler, tableName, tableVersion, frameRowCount, filters);
+        this.filters = filters;
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(filters);
+    }
+
+    @Override
+    public boolean isRandomAccessCursor() {
+        return true;
+    }
+
+    @Override
+    protected RecordCursor getCursorInstance(
+            DataFrameCursor dataFrameCursor,
+            SqlExecutionContext executionContext
+    ) {
+        cursor.of(dataFrameCursor, executionContext);
+        return cursor;
+    }
+}
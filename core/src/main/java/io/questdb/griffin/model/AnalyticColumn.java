@@ -30,9 +30,14 @@ import io.questdb.std.ObjectFactory;
 
 public final class AnalyticColumn extends QueryColumn {
     public final static ObjectFactory<AnalyticColumn> FACTORY = AnalyticColumn::new;
+    public static final int FRAME_DEFAULT = 0;
+    public static final int FRAME_ROWS = 1;
+    public static final int FRAME_RANGE = 2;
     private final ObjList<ExpressionNode> partitionBy = new ObjList<>(2);
     private final ObjList<ExpressionNode> orderBy = new ObjList<>(2);
     private final IntList orderByDirection = new IntList(2);
+    private int frameType = FRAME_DEFAULT;
+    private ExpressionNode frameSize;
 
     private AnalyticColumn() {
     }
@@ -48,6 +53,22 @@ public final class AnalyticColumn extends QueryColumn {
         partitionBy.clear();
         orderBy.clear();
         orderByDirection.clear();
+        frameType = FRAME_DEFAULT;
+        frameSize = null;
+    }
+
+    /**
+     * Size of "n preceding" frame bound. For {@link #FRAME_ROWS} this is number of rows, for
+     * {@link #FRAME_RANGE} it is time interval, such as '10m'.
+     *
+     * @return frame size literal or null when column uses default frame
+     */
+    public ExpressionNode getFrameSize() {
+        return frameSize;
+    }
+
+    public int getFrameType() {
+        return frameType;
     }
 
     public ObjList<ExpressionNode> getPartitionBy() {
@@ -62,6 +83,11 @@ public final class AnalyticColumn extends QueryColumn {
         return orderByDirection;
     }
 
+    public void setFrame(int frameType, ExpressionNode frameSize) {
+        this.frameType = frameType;
+        this.frameSize = frameSize;
+    }
+
     @Override
     public AnalyticColumn of(CharSequence alias, ExpressionNode ast) {
         return (AnalyticColumn) super.of(alias, ast);
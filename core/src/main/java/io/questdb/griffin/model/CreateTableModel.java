@@ -27,6 +27,7 @@ package io.questdb.griffin.model;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableStructure;
+import io.questdb.griffin.MaterializedView;
 import io.questdb.std.*;
 import io.questdb.std.str.CharSink;
 
@@ -42,6 +43,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     private QueryModel queryModel;
     private ExpressionNode timestamp;
     private ExpressionNode partitionBy;
+    private MaterializedView materializedView;
 
     private CreateTableModel() {
     }
@@ -78,6 +80,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         queryModel = null;
         timestamp = null;
         partitionBy = null;
+        materializedView = null;
         name = null;
         columnBits.clear();
         columnNames.clear();
@@ -148,6 +151,14 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return columnNameIndexMap.get(columnName);
     }
 
+    public MaterializedView getMaterializedView() {
+        return materializedView;
+    }
+
+    public void setMaterializedView(MaterializedView materializedView) {
+        this.materializedView = materializedView;
+    }
+
     @Override
     public int getModelType() {
         return CREATE_TABLE;
@@ -195,7 +206,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
 
     @Override
     public void toSink(CharSink sink) {
-        sink.put("create table ");
+        sink.put(materializedView != null ? "create materialized view " : "create table ");
         sink.put(getName().token);
         if (getQueryModel() != null) {
             sink.put(" as (");
@@ -654,6 +654,12 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
                                 }
                             }
                         }
+
+                        if (ac.getFrameType() != AnalyticColumn.FRAME_DEFAULT) {
+                            sink.put(ac.getFrameType() == AnalyticColumn.FRAME_ROWS ? " rows between " : " range between ");
+                            ac.getFrameSize().toSink(sink);
+                            sink.put(" preceding and current row");
+                        }
                         sink.put(')');
                     }
                 } else {
@@ -112,6 +112,14 @@ public class BytecodeAssembler {
         putShort(0x8F);
     }
 
+    public void dadd() {
+        putByte(0x63);
+    }
+
+    public void ddiv() {
+        putByte(0x6f);
+    }
+
     public void defineClass(int thisClassIndex) {
         defineClass(thisClassIndex, objectClassIndex);
     }
@@ -153,6 +161,14 @@ public class BytecodeAssembler {
         putShort(0);
     }
 
+    public void dmul() {
+        putByte(0x6b);
+    }
+
+    public void dsub() {
+        putByte(0x67);
+    }
+
     public void dump(String path) {
         try (FileOutputStream fos = new FileOutputStream(path)) {
             int p = buf.position();
@@ -245,6 +261,10 @@ public class BytecodeAssembler {
         putByte(0x60);
     }
 
+    public void iand() {
+        putByte(0x7e);
+    }
+
     public void iconst(int v) {
         if (v == -1) {
             putByte(iconst_m1);
@@ -284,6 +304,10 @@ public class BytecodeAssembler {
         optimisedIO(iload_0, iload_1, iload_2, iload_3, iload, value);
     }
 
+    public void imul() {
+        putByte(0x68);
+    }
+
     public void ineg() {
         putByte(0x74);
     }
@@ -317,6 +341,10 @@ public class BytecodeAssembler {
         putShort(index);
     }
 
+    public void ior() {
+        putByte(0x80);
+    }
+
     public void irem() {
         putByte(0x70);
     }
@@ -345,6 +373,10 @@ public class BytecodeAssembler {
         putShort(0x88);
     }
 
+    public void ladd() {
+        putByte(0x61);
+    }
+
     public void lcmp() {
         putByte(0x94);
     }
@@ -363,6 +395,11 @@ public class BytecodeAssembler {
         putShort(index);
     }
 
+    public void ldc_w(int index) {
+        putByte(0x13);
+        putShort(index);
+    }
+
     public void lload(int value) {
         optimisedIO(lload_0, lload_1, lload_2, lload_3, lload, value);
     }
@@ -382,6 +419,10 @@ public class BytecodeAssembler {
         putByte(0xad);
     }
 
+    public void lsub() {
+        putByte(0x65);
+    }
+
     public void lstore(int value) {
         optimisedIO(lstore_0, lstore_1, lstore_2, lstore_3, lstore, value);
     }
@@ -428,6 +469,14 @@ public class BytecodeAssembler {
         return classCache.valueAt(index);
     }
 
+    public int poolDoubleConst(double value) {
+        putByte(0x06);
+        putLong(Double.doubleToRawLongBits(value));
+        int index = poolCount;
+        poolCount += 2;
+        return index;
+    }
+
     public int poolField(int classIndex, int nameAndTypeIndex) {
         return poolRef(0x09, classIndex, nameAndTypeIndex);
     }
@@ -440,6 +489,12 @@ public class BytecodeAssembler {
         return poolInterfaceMethod(classIndex, poolNameAndType(poolUtf8(name), poolUtf8(sig)));
     }
 
+    public int poolIntConst(int value) {
+        putByte(0x03);
+        putInt(value);
+        return poolCount++;
+    }
+
     public int poolLongConst(long value) {
         putByte(0x05);
         putLong(value);
@@ -543,7 +598,7 @@ public class BytecodeAssembler {
     }
 
     public void putLong(long value) {
-        if (buf.remaining() < 4) {
+        if (buf.remaining() < 8) {
             resize();
         }
         buf.putLong(value);
@@ -48,9 +48,17 @@ public final class Files {
 
     public static final int MAP_RO = 1;
     public static final int MAP_RW = 2;
+    public static final int MADV_SEQUENTIAL = 1;
+    public static final int MADV_WILLNEED = 2;
+    public static final int MADV_DONTNEED = 3;
+    public static final int MADV_HUGEPAGE = 4;
+    // smallest page transparent huge pages can back, smaller mappings are not worth advising
+    public static final long HUGE_PAGE_SIZE = 2 * 1024 * 1024;
     public static final char SEPARATOR;
 
     static final AtomicLong OPEN_FILE_COUNT = new AtomicLong();
+    private static final AtomicLong MMAP_COUNT = new AtomicLong();
+    private static final AtomicLong MUNMAP_COUNT = new AtomicLong();
 
     static {
         Os.init();
@@ -72,6 +80,14 @@ public final class Files {
         return res;
     }
 
+    public static long dup(long fd) {
+        long res = dup0(fd);
+        if (res != -1) {
+            bumpFileCount();
+        }
+        return res;
+    }
+
     public static native boolean exists(long fd);
 
     public static boolean exists(LPSZ lpsz) {
@@ -92,10 +108,20 @@ public final class Files {
 
     public native static int findType(long findPtr);
 
+    public native static int fsync(long fd);
+
     public static long getLastModified(LPSZ lpsz) {
         return getLastModified(lpsz.address());
     }
 
+    public static long getMmapCount() {
+        return MMAP_COUNT.get();
+    }
+
+    public static long getMunmapCount() {
+        return MUNMAP_COUNT.get();
+    }
+
     public static long getOpenFileCount() {
         return OPEN_FILE_COUNT.get();
     }
@@ -148,13 +174,28 @@ public final class Files {
         long address = mmap0(fd, len, offset, flags);
         if (address != -1) {
             Unsafe.recordMemAlloc(len);
+            MMAP_COUNT.incrementAndGet();
         }
         return address;
     }
 
+    /**
+     * Advises OS how mapped memory is going to be accessed. Advice is a hint and is ignored where
+     * OS does not support it.
+     *
+     * @param address page aligned address of mapped memory
+     * @param len     length of memory region
+     * @param advice  one of MADV_SEQUENTIAL, MADV_WILLNEED, MADV_DONTNEED or MADV_HUGEPAGE
+     * @return 0 on success, -1 on error
+     */
+    public native static int madvise(long address, long len, int advice);
+
+    public native static int msync(long address, long len, boolean async);
+
     public static void munmap(long address, long len) {
         if (address != 0 && munmap0(address, len) != -1) {
             Unsafe.recordMemAlloc(-len);
+            MUNMAP_COUNT.incrementAndGet();
         }
     }
 
@@ -266,6 +307,8 @@ public final class Files {
         return Unsafe.getUnsafe().getByte(lpsz + len) == 0;
     }
 
+    private static native long dup0(long fd);
+
     private static native int munmap0(long address, long len);
 
     private static native long mmap0(long fd, long len, long offset, int flags);
@@ -32,6 +32,8 @@ public interface FilesFacade {
 
     boolean close(long fd);
 
+    long dup(long fd);
+
     int errno();
 
     boolean exists(LPSZ path);
@@ -48,6 +50,8 @@ public interface FilesFacade {
 
     int findType(long findPtr);
 
+    int fsync(long fd);
+
     long getLastModified(LPSZ path);
 
     long getMapPageSize();
@@ -70,8 +74,12 @@ public interface FilesFacade {
 
     int mkdirs(LPSZ path, int mode);
 
+    int madvise(long address, long size, int advice);
+
     long mmap(long fd, long size, long offset, int mode);
 
+    int msync(long address, long size, boolean async);
+
     void munmap(long address, long size);
 
     long openAppend(LPSZ name);
@@ -44,6 +44,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.close(fd) == 0;
     }
 
+    @Override
+    public long dup(long fd) {
+        return Files.dup(fd);
+    }
+
     @Override
     public int errno() {
         return Os.errno();
@@ -92,6 +97,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.findType(findPtr);
     }
 
+    @Override
+    public int fsync(long fd) {
+        return Files.fsync(fd);
+    }
+
     @Override
     public long getLastModified(LPSZ path) {
         return Files.getLastModified(path);
@@ -158,11 +168,21 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.mkdirs(path, mode);
     }
 
+    @Override
+    public int madvise(long address, long size, int advice) {
+        return Files.madvise(address, size, advice);
+    }
+
     @Override
     public long mmap(long fd, long len, long offset, int mode) {
         return Files.mmap(fd, len, offset, mode);
     }
 
+    @Override
+    public int msync(long address, long size, boolean async) {
+        return Files.msync(address, size, async);
+    }
+
     @Override
     public void munmap(long address, long size) {
         Files.munmap(address, size);
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+/**
+ * Aggregation kernels over contiguous native memory. Kernels use AVX2 when CPU supports it and
+ * fall back to scalar code otherwise. Null values are those of {@link Numbers}: NaN for double,
+ * {@link Numbers#INT_NaN} for int and {@link Numbers#LONG_NaN} for long.
+ */
+public final class Vect {
+    public static final int INSTRUCTION_SET_SCALAR = 0;
+    public static final int INSTRUCTION_SET_AVX2 = 1;
+
+    static {
+        Os.init();
+    }
+
+    private Vect() {
+    }
+
+    public static native int getSupportedInstructionSet();
+
+    /**
+     * @return maximum of non-null values or NaN when there are none
+     */
+    public static native double maxDouble(long pDouble, long count);
+
+    /**
+     * @return minimum of non-null values or NaN when there are none
+     */
+    public static native double minDouble(long pDouble, long count);
+
+    /**
+     * @return minimum of non-null values or {@link Numbers#INT_NaN} when there are none
+     */
+    public static native int minInt(long pInt, long count);
+
+    /**
+     * @return minimum of non-null values or {@link Numbers#LONG_NaN} when there are none
+     */
+    public static native long minLong(long pLong, long count);
+
+    /**
+     * Sums values in fixed order of 16 partial sums, result is NaN when any of values is NaN.
+     */
+    public static native double sumDouble(long pDouble, long count);
+
+    /**
+     * @return sum of values, overflow wraps around like Java int arithmetic does
+     */
+    public static native int sumInt(long pInt, long count);
+
+    /**
+     * @return sum of values, overflow wraps around like Java long arithmetic does
+     */
+    public static native long sumLong(long pLong, long count);
+}
@@ -33,6 +33,7 @@ final public class Timestamps {
 
     public static final long DAY_MICROS = 86400000000L;
     public static final long HOUR_MICROS = 3600000000L;
+    public static final long WEEK_MICROS = 7 * DAY_MICROS;
     public static final long MINUTE_MICROS = 60000000;
     public static final long SECOND_MICROS = 1000000;
     public static final int SECOND_MILLIS = 1000;
@@ -135,6 +136,10 @@ final public class Timestamps {
         }
     }
 
+    public static long addWeeks(long micros, int weeks) {
+        return micros + weeks * WEEK_MICROS;
+    }
+
     public static long addYear(long micros, int years) {
         if (years == 0) {
             return micros;
@@ -200,7 +205,10 @@ final public class Timestamps {
     }
 
     public static long floorHH(long micros) {
-        return micros - micros % HOUR_MICROS;
+        if (micros > -1) {
+            return micros - micros % HOUR_MICROS;
+        }
+        return micros - (HOUR_MICROS - 1 + (micros + 1) % HOUR_MICROS);
     }
 
     public static long floorMI(long micros) {
@@ -213,6 +221,16 @@ final public class Timestamps {
         return yearMicros(y = getYear(micros), l = isLeapYear(y)) + monthOfYearMicros(getMonthOfYear(micros, y, l), l);
     }
 
+    /**
+     * Floors timestamp to start of ISO week, which is Monday.
+     *
+     * @param micros timestamp in micros
+     * @return timestamp of Monday midnight
+     */
+    public static long floorWW(long micros) {
+        return previousOrSameDayOfWeek(floorDD(micros), 1);
+    }
+
     public static long floorYYYY(long micros) {
         int y;
         return yearMicros(y = getYear(micros), isLeapYear(y));
@@ -271,6 +289,14 @@ final public class Timestamps {
         return leap & m == 2 ? 29 : DAYS_PER_MONTH[m - 1];
     }
 
+    public static long getHoursBetween(long a, long b) {
+        if (b < a) {
+            return getHoursBetween(b, a);
+        } else {
+            return (b - a) / HOUR_MICROS;
+        }
+    }
+
     public static int getHourOfDay(long micros) {
         if (micros > -1) {
             return (int) ((micros / HOUR_MICROS) % DAY_HOURS);
@@ -390,6 +416,14 @@ final public class Timestamps {
         return year;
     }
 
+    public static long getWeeksBetween(long a, long b) {
+        if (b < a) {
+            return getWeeksBetween(b, a);
+        } else {
+            return (b - a) / WEEK_MICROS;
+        }
+    }
+
     public static long getYearsBetween(long a, long b) {
         if (b < a) {
             return getYearsBetween(b, a);
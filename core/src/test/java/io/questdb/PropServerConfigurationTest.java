@@ -24,6 +24,7 @@
 
 package io.questdb;
 
+import io.questdb.cairo.CommitMode;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.network.EpollFacadeImpl;
 import io.questdb.network.IOOperation;
@@ -130,6 +131,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(-10_000, configuration.getCairoConfiguration().getInactiveWriterTTL());
         Assert.assertEquals(256, configuration.getCairoConfiguration().getIndexValueBlockSize());
         Assert.assertEquals(30, configuration.getCairoConfiguration().getMaxSwapFileCount());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getMatViewRefreshInterval());
         Assert.assertEquals(509, configuration.getCairoConfiguration().getMkDirMode());
 
         Assert.assertEquals(100000, configuration.getCairoConfiguration().getParallelIndexThreshold());
@@ -153,9 +155,35 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinValuePageSize());
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
         Assert.assertEquals(1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinLightValuePageSize());
+        Assert.assertEquals(1024 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinSpillThreshold());
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
+        Assert.assertEquals(1024 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortSpillThreshold());
+        Assert.assertEquals(1024 * 1024, configuration.getCairoConfiguration().getSqlAnalyticStorePageSize());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+        Assert.assertFalse(configuration.getCairoConfiguration().isO3Enabled());
+        Assert.assertEquals(65536, configuration.getCairoConfiguration().getO3StagingPageSize());
+        Assert.assertEquals(CommitMode.NOSYNC, configuration.getCairoConfiguration().getCommitMode());
+        Assert.assertEquals(1024, configuration.getCairoConfiguration().getIndexerQueueCapacity());
+        Assert.assertEquals(1024, configuration.getCairoConfiguration().getFileSyncQueueCapacity());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+        Assert.assertEquals(100_000, configuration.getCairoConfiguration().getSqlParallelFilterFrameRowCount());
+        Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlParallelFilterQueueCapacity());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelGroupByEnabled());
+        Assert.assertEquals(100_000, configuration.getCairoConfiguration().getSqlParallelGroupByFrameRowCount());
+        Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlParallelGroupByQueueCapacity());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlResultCacheMaxSize());
+        Assert.assertEquals(64 * 1024, configuration.getCairoConfiguration().getSqlResultCachePageSize());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlScanReadAheadEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlFilterCompilerEnabled());
+        Assert.assertFalse(configuration.getCairoConfiguration().isHugePagesEnabled());
+        Assert.assertEquals(64, configuration.getCairoConfiguration().getCompressionBlockCacheSize());
+        Assert.assertEquals(65536, configuration.getCairoConfiguration().getCompressionBlockSize());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getCompressionCheckInterval());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getCompressionPartitionAge());
+        Assert.assertFalse(configuration.getCairoConfiguration().isPartitionStatsEnabled());
+        Assert.assertEquals(65536, configuration.getCairoConfiguration().getPartitionStatsBlockRowCount());
+        Assert.assertEquals(65536, configuration.getCairoConfiguration().getPartitionStatsBloomMaxSize());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getAnalyticColumnPoolCapacity());
         Assert.assertEquals(128, configuration.getCairoConfiguration().getWithClauseModelPoolCapacity());
@@ -169,10 +197,28 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(-402587133, configuration.getLineUdpReceiverConfiguration().getGroupIPv4Address());
 
         Assert.assertEquals(10000, configuration.getLineUdpReceiverConfiguration().getCommitRate());
+        Assert.assertEquals(4 * 1024 * 1024, configuration.getLineUdpReceiverConfiguration().getCommitSize());
+        Assert.assertEquals(1000, configuration.getLineUdpReceiverConfiguration().getCommitInterval());
 
         Assert.assertEquals(1024 * 1024, configuration.getLineUdpReceiverConfiguration().getMsgBufferSize());
         Assert.assertEquals(10000, configuration.getLineUdpReceiverConfiguration().getMsgCount());
         Assert.assertEquals(2048, configuration.getLineUdpReceiverConfiguration().getReceiveBufferSize());
+        Assert.assertEquals(1, configuration.getLineUdpReceiverConfiguration().getReceiverCount());
+        Assert.assertEquals(1024, configuration.getLineUdpReceiverConfiguration().getWriterQueueCapacity());
+        Assert.assertFalse(configuration.getLineUdpReceiverConfiguration().isEnabled());
+
+        Assert.assertTrue(configuration.getLineTcpReceiverConfiguration().isEnabled());
+        Assert.assertEquals(0, configuration.getLineTcpReceiverConfiguration().getDispatcherConfiguration().getBindIPv4Address());
+        Assert.assertEquals(9009, configuration.getLineTcpReceiverConfiguration().getDispatcherConfiguration().getBindPort());
+        Assert.assertEquals(10, configuration.getLineTcpReceiverConfiguration().getDispatcherConfiguration().getActiveConnectionLimit());
+        Assert.assertEquals(300_000, configuration.getLineTcpReceiverConfiguration().getDispatcherConfiguration().getIdleConnectionTimeout());
+        Assert.assertEquals(10000, configuration.getLineTcpReceiverConfiguration().getCommitRate());
+        Assert.assertEquals(4 * 1024 * 1024, configuration.getLineTcpReceiverConfiguration().getCommitSize());
+        Assert.assertEquals(1000, configuration.getLineTcpReceiverConfiguration().getCommitInterval());
+        Assert.assertEquals(32 * 1024, configuration.getLineTcpReceiverConfiguration().getMsgBufferSize());
+        Assert.assertEquals(1024, configuration.getLineTcpReceiverConfiguration().getWriterQueueCapacity());
+        Assert.assertEquals(0, configuration.getLineTcpReceiverConfiguration().getWorkerCount());
+        Assert.assertFalse(configuration.getLineTcpReceiverConfiguration().workerHaltOnError());
 
         // statics
         Assert.assertSame(FilesFacadeImpl.INSTANCE, configuration.getHttpServerConfiguration().getStaticContentProcessorConfiguration().getFilesFacade());
@@ -212,6 +258,15 @@ public class PropServerConfigurationTest {
         new PropServerConfiguration("root", properties);
     }
 
+    @Test(expected = ServerConfigurationException.class)
+    public void testInvalidCommitMode() throws ServerConfigurationException, IOException, JsonException {
+        Properties properties = new Properties();
+        properties.setProperty("cairo.commit.mode", "fast");
+        File root = new File(temp.getRoot(), "data");
+        copyMimeTypes(root.getAbsolutePath());
+        new PropServerConfiguration(root.getAbsolutePath(), properties);
+    }
+
     @Test(expected = ServerConfigurationException.class)
     public void testInvalidDouble() throws ServerConfigurationException, JsonException {
         Properties properties = new Properties();
@@ -315,6 +370,7 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(400_000, configuration.getCairoConfiguration().getInactiveWriterTTL());
             Assert.assertEquals(1024, configuration.getCairoConfiguration().getIndexValueBlockSize());
             Assert.assertEquals(23, configuration.getCairoConfiguration().getMaxSwapFileCount());
+            Assert.assertEquals(250, configuration.getCairoConfiguration().getMatViewRefreshInterval());
             Assert.assertEquals(580, configuration.getCairoConfiguration().getMkDirMode());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getParallelIndexThreshold());
             Assert.assertEquals(10, configuration.getCairoConfiguration().getReaderPoolMaxSegments());
@@ -337,9 +393,35 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(8 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinValuePageSize());
             Assert.assertEquals(10000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
             Assert.assertEquals(2 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinLightValuePageSize());
+            Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinSpillThreshold());
             Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
+            Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortSpillThreshold());
+            Assert.assertEquals(2 * 1024 * 1024, configuration.getCairoConfiguration().getSqlAnalyticStorePageSize());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
             Assert.assertFalse(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+            Assert.assertTrue(configuration.getCairoConfiguration().isO3Enabled());
+            Assert.assertEquals(131072, configuration.getCairoConfiguration().getO3StagingPageSize());
+            Assert.assertEquals(CommitMode.SYNC, configuration.getCairoConfiguration().getCommitMode());
+            Assert.assertEquals(512, configuration.getCairoConfiguration().getIndexerQueueCapacity());
+            Assert.assertEquals(256, configuration.getCairoConfiguration().getFileSyncQueueCapacity());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+            Assert.assertEquals(50_000, configuration.getCairoConfiguration().getSqlParallelFilterFrameRowCount());
+            Assert.assertEquals(2048, configuration.getCairoConfiguration().getSqlParallelFilterQueueCapacity());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelGroupByEnabled());
+            Assert.assertEquals(20_000, configuration.getCairoConfiguration().getSqlParallelGroupByFrameRowCount());
+            Assert.assertEquals(512, configuration.getCairoConfiguration().getSqlParallelGroupByQueueCapacity());
+            Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlResultCacheMaxSize());
+            Assert.assertEquals(32 * 1024, configuration.getCairoConfiguration().getSqlResultCachePageSize());
+            Assert.assertTrue(configuration.getCairoConfiguration().isSqlScanReadAheadEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlFilterCompilerEnabled());
+            Assert.assertTrue(configuration.getCairoConfiguration().isHugePagesEnabled());
+            Assert.assertEquals(16, configuration.getCairoConfiguration().getCompressionBlockCacheSize());
+            Assert.assertEquals(131072, configuration.getCairoConfiguration().getCompressionBlockSize());
+            Assert.assertEquals(30_000, configuration.getCairoConfiguration().getCompressionCheckInterval());
+            Assert.assertEquals(86400000, configuration.getCairoConfiguration().getCompressionPartitionAge());
+            Assert.assertTrue(configuration.getCairoConfiguration().isPartitionStatsEnabled());
+            Assert.assertEquals(8192, configuration.getCairoConfiguration().getPartitionStatsBlockRowCount());
+            Assert.assertEquals(16384, configuration.getCairoConfiguration().getPartitionStatsBloomMaxSize());
             Assert.assertEquals(8 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
 
             Assert.assertEquals(256, configuration.getCairoConfiguration().getAnalyticColumnPoolCapacity());
@@ -353,9 +435,28 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(9915, configuration.getLineUdpReceiverConfiguration().getPort());
             Assert.assertEquals(-536805119, configuration.getLineUdpReceiverConfiguration().getGroupIPv4Address());
             Assert.assertEquals(100_000, configuration.getLineUdpReceiverConfiguration().getCommitRate());
+            Assert.assertEquals(16 * 1024 * 1024, configuration.getLineUdpReceiverConfiguration().getCommitSize());
+            Assert.assertEquals(500, configuration.getLineUdpReceiverConfiguration().getCommitInterval());
             Assert.assertEquals(4 * 1024 * 1024, configuration.getLineUdpReceiverConfiguration().getMsgBufferSize());
             Assert.assertEquals(4000, configuration.getLineUdpReceiverConfiguration().getMsgCount());
             Assert.assertEquals(512, configuration.getLineUdpReceiverConfiguration().getReceiveBufferSize());
+            Assert.assertEquals(4, configuration.getLineUdpReceiverConfiguration().getReceiverCount());
+            Assert.assertEquals(1024, configuration.getLineUdpReceiverConfiguration().getWriterQueueCapacity());
+            Assert.assertTrue(configuration.getLineUdpReceiverConfiguration().isEnabled());
+
+            Assert.assertFalse(configuration.getLineTcpReceiverConfiguration().isEnabled());
+            Assert.assertEquals(167903521, configuration.getLineTcpReceiverConfiguration().getDispatcherConfiguration().getBindIPv4Address());
+            Assert.assertEquals(9916, configuration.getLineTcpReceiverConfiguration().getDispatcherConfiguration().getBindPort());
+            Assert.assertEquals(64, configuration.getLineTcpReceiverConfiguration().getDispatcherConfiguration().getActiveConnectionLimit());
+            Assert.assertEquals(60_000, configuration.getLineTcpReceiverConfiguration().getDispatcherConfiguration().getIdleConnectionTimeout());
+            Assert.assertEquals(50_000, configuration.getLineTcpReceiverConfiguration().getCommitRate());
+            Assert.assertEquals(8 * 1024 * 1024, configuration.getLineTcpReceiverConfiguration().getCommitSize());
+            Assert.assertEquals(250, configuration.getLineTcpReceiverConfiguration().getCommitInterval());
+            Assert.assertEquals(64 * 1024, configuration.getLineTcpReceiverConfiguration().getMsgBufferSize());
+            Assert.assertEquals(1024, configuration.getLineTcpReceiverConfiguration().getWriterQueueCapacity());
+            Assert.assertEquals(2, configuration.getLineTcpReceiverConfiguration().getWorkerCount());
+            Assert.assertArrayEquals(new int[]{1, 2}, configuration.getLineTcpReceiverConfiguration().getWorkerAffinity());
+            Assert.assertTrue(configuration.getLineTcpReceiverConfiguration().workerHaltOnError());
         }
     }
 }
\ No newline at end of file
@@ -27,6 +27,8 @@ package io.questdb.cairo;
 import io.questdb.cairo.pool.PoolListener;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
+import io.questdb.griffin.engine.groupby.ParallelGroupByEntry;
+import io.questdb.griffin.engine.table.ParallelFilterEntry;
 import io.questdb.mp.Job;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.Sequence;
@@ -100,6 +102,36 @@ public class CairoEngineTest extends AbstractCairoTest {
                     jobs.add(job);
                 }
 
+                @Override
+                public Sequence getFilterPubSequence() {
+                    return null;
+                }
+
+                @Override
+                public RingQueue<ParallelFilterEntry> getFilterQueue() {
+                    return null;
+                }
+
+                @Override
+                public Sequence getFilterSubSequence() {
+                    return null;
+                }
+
+                @Override
+                public Sequence getGroupByPubSequence() {
+                    return null;
+                }
+
+                @Override
+                public RingQueue<ParallelGroupByEntry> getGroupByQueue() {
+                    return null;
+                }
+
+                @Override
+                public Sequence getGroupBySubSequence() {
+                    return null;
+                }
+
                 @Override
                 public Sequence getIndexerPubSequence() {
                     return null;
@@ -114,6 +146,26 @@ public class CairoEngineTest extends AbstractCairoTest {
                 public Sequence getIndexerSubSequence() {
                     return null;
                 }
+
+                @Override
+                public Sequence getSyncPubSequence() {
+                    return null;
+                }
+
+                @Override
+                public RingQueue<FileSyncEntry> getSyncQueue() {
+                    return null;
+                }
+
+                @Override
+                public Sequence getSyncSubSequence() {
+                    return null;
+                }
+
+                @Override
+                public int getWorkerCount() {
+                    return 0;
+                }
             }
 
             MyListener listener = new MyListener();
@@ -125,7 +177,7 @@ public class CairoEngineTest extends AbstractCairoTest {
                 assertWriter(engine, "x");
                 assertReader(engine, "x");
 
-                Assert.assertEquals(2, workScheduler.jobs.size());
+                Assert.assertEquals(5, workScheduler.jobs.size());
 
                 Job job = workScheduler.jobs.get(0);
                 Assert.assertNotNull(job);
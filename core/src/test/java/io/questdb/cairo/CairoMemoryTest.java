@@ -334,6 +334,54 @@ public class CairoMemoryTest {
         Assert.assertEquals(openFileCount, ff.getOpenFileCount());
     }
 
+    @Test
+    public void testHugePages() throws Exception {
+        long used = Unsafe.getMemUsed();
+        final int[] hugePageAdvice = {0};
+        final FilesFacade ff = new FilesFacadeImpl() {
+            @Override
+            public int madvise(long address, long size, int advice) {
+                if (advice == Files.MADV_HUGEPAGE) {
+                    Assert.assertTrue(size >= Files.HUGE_PAGE_SIZE);
+                    hugePageAdvice[0]++;
+                }
+                return super.madvise(address, size, advice);
+            }
+        };
+
+        final long mmapCount = Files.getMmapCount();
+        final long munmapCount = Files.getMunmapCount();
+        try (Path path = new Path().of(temp.newFile().getAbsolutePath()).$()) {
+            try (AppendMemory mem = new AppendMemory(ff, path, Files.HUGE_PAGE_SIZE)) {
+                mem.setHugePages(true);
+                for (int i = 0; i < N; i++) {
+                    mem.putLong(i);
+                }
+            }
+            // appender maps whole pages
+            Assert.assertEquals(4, hugePageAdvice[0]);
+
+            try (ReadOnlyMemory mem = new ReadOnlyMemory(ff, path, Files.HUGE_PAGE_SIZE, 8L * N)) {
+                mem.setHugePages(true);
+                for (int i = 0; i < N; i++) {
+                    Assert.assertEquals(i, mem.getLong(i * 8));
+                }
+            }
+            // last page of read-only memory is smaller than huge page
+            Assert.assertEquals(7, hugePageAdvice[0]);
+
+            // small pages are not advised
+            try (ReadOnlyMemory mem = new ReadOnlyMemory(ff, path, FF.getPageSize(), 8L * N)) {
+                mem.setHugePages(true);
+                Assert.assertEquals(N - 1, mem.getLong((N - 1) * 8));
+            }
+            Assert.assertEquals(7, hugePageAdvice[0]);
+        }
+        Assert.assertTrue(Files.getMmapCount() - mmapCount >= 8);
+        Assert.assertEquals(Files.getMmapCount() - mmapCount, Files.getMunmapCount() - munmapCount);
+        Assert.assertEquals(used, Unsafe.getMemUsed());
+    }
+
     @Test
     public void testReadOnlyMemoryJump() {
         try (ReadOnlyMemory mem = new ReadOnlyMemory()) {
@@ -346,6 +394,43 @@ public class CairoMemoryTest {
         }
     }
 
+    @Test
+    public void testReadOnlyMemoryGrowChangesPageSize() throws Exception {
+        long used = Unsafe.getMemUsed();
+        // sizes are chosen so that page size computed for the grown file is not a power of two
+        final long pageSize = FF.getPageSize();
+        final long sizeBefore = 20 * pageSize;
+        final long sizeAfter = 34 * pageSize + 272;
+        try (Path path = new Path().of(temp.newFile().getAbsolutePath()).$()) {
+            try (ReadWriteMemory mem = new ReadWriteMemory(FF, path, FF.getMapPageSize())) {
+                for (long i = 0, n = sizeBefore / 8; i < n; i++) {
+                    mem.putLong(i);
+                }
+            }
+
+            try (ReadOnlyMemory ro = new ReadOnlyMemory(FF, path, FF.getMapPageSize(), sizeBefore)) {
+                for (long i = 0, n = sizeBefore / 8; i < n; i++) {
+                    Assert.assertEquals(i, ro.getLong(i * 8));
+                }
+
+                try (ReadWriteMemory mem = new ReadWriteMemory(FF, path, FF.getMapPageSize())) {
+                    mem.jumpTo(sizeBefore);
+                    for (long i = sizeBefore / 8, n = sizeAfter / 8; i < n; i++) {
+                        mem.putLong(i);
+                    }
+                }
+                ro.grow(sizeAfter);
+
+                // read at boundary of previously computed page size before any page is mapped
+                Assert.assertEquals(34 * pageSize / 8, ro.getLong(34 * pageSize));
+                for (long i = 0, n = sizeAfter / 8; i < n; i++) {
+                    Assert.assertEquals(i, ro.getLong(i * 8));
+                }
+            }
+        }
+        Assert.assertEquals(used, Unsafe.getMemUsed());
+    }
+
     @Test
     public void testReadWriteCannotOpenFile() {
         long used = Unsafe.getMemUsed();
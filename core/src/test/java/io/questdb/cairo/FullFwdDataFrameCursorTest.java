@@ -25,6 +25,8 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.*;
+import io.questdb.griffin.engine.groupby.ParallelGroupByEntry;
+import io.questdb.griffin.engine.table.ParallelFilterEntry;
 import io.questdb.mp.*;
 import io.questdb.std.*;
 import io.questdb.std.microtime.DateFormatUtils;
@@ -311,6 +313,16 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         testIndexFailureInConstructor(PartitionBy.NONE, 1000L, false, TableUtils.DEFAULT_PARTITION_NAME + Files.SEPARATOR + "a.v");
     }
 
+    @Test
+    public void testReadAhead() throws Exception {
+        testReadAhead(true);
+    }
+
+    @Test
+    public void testReadAheadDisabled() throws Exception {
+        testReadAhead(false);
+    }
+
     @Test
     public void testParallelIndexByDay() throws Exception {
         testParallelIndex(PartitionBy.DAY, 1000000, 5, WORK_STEALING_DONT_TEST);
@@ -376,6 +388,16 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         testParallelIndex(PartitionBy.NONE, 0, 0, WORK_STEALING_NO_PICKUP);
     }
 
+    @Test
+    public void testParallelIndexPipelinedByDay() throws Exception {
+        testParallelIndexPipelined(PartitionBy.DAY, 1000000, 5);
+    }
+
+    @Test
+    public void testParallelIndexPipelinedByNone() throws Exception {
+        testParallelIndexPipelined(PartitionBy.NONE, 0, 0);
+    }
+
     @Test
     public void testParallelIndexByYear() throws Exception {
         testParallelIndex(PartitionBy.YEAR, 1000000 * 10 * 12, 3, WORK_STEALING_DONT_TEST);
@@ -1429,6 +1451,157 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         });
     }
 
+    private void testReadAhead(boolean enabled) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int[] advice = new int[4];
+            FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public int madvise(long address, long size, int adv) {
+                    advice[adv]++;
+                    return super.madvise(address, size, adv);
+                }
+            };
+
+            CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+
+                @Override
+                public boolean isSqlScanReadAheadEnabled() {
+                    return enabled;
+                }
+            };
+
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY).
+                    col("a", ColumnType.INT).
+                    col("b", ColumnType.STRING).
+                    timestamp()
+            ) {
+                CairoTestUtils.create(model);
+            }
+
+            final int N = 10000;
+            long expected = 0;
+            final Rnd rnd = new Rnd();
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                long timestamp = DateFormatUtils.parseDateTime("1970-01-03T08:00:00.000Z");
+                for (int i = 0; i < N; i++) {
+                    TableWriter.Row row = writer.newRow(timestamp += 60_000_000L);
+                    int value = rnd.nextInt();
+                    row.putInt(0, value);
+                    row.putStr(1, rnd.nextChars(8));
+                    row.append();
+                    expected += value;
+                }
+                writer.commit();
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                Assert.assertTrue(reader.getPartitionCount() > 2);
+                FullFwdDataFrameCursor cursor = new FullFwdDataFrameCursor();
+                TableReaderRecord record = new TableReaderRecord();
+                cursor.of(reader);
+                record.of(reader);
+
+                // scan twice, pages released behind the cursor must still be readable
+                for (int k = 0; k < 2; k++) {
+                    long sum = 0;
+                    long count = 0;
+                    while (cursor.hasNext()) {
+                        DataFrame frame = cursor.next();
+                        record.jumpTo(frame.getPartitionIndex(), frame.getRowLo());
+                        for (long r = frame.getRowLo(), hi = frame.getRowHi(); r < hi; r++) {
+                            record.setRecordIndex(r);
+                            sum += record.getInt(0);
+                            Assert.assertEquals(8, record.getStrLen(1));
+                            count++;
+                        }
+                    }
+                    Assert.assertEquals(N, count);
+                    Assert.assertEquals(expected, sum);
+                    cursor.toTop();
+                }
+            }
+
+            if (enabled) {
+                Assert.assertTrue(advice[Files.MADV_SEQUENTIAL] > 0);
+                Assert.assertTrue(advice[Files.MADV_WILLNEED] > 0);
+                Assert.assertTrue(advice[Files.MADV_DONTNEED] > 0);
+            } else {
+                Assert.assertEquals(0, advice[Files.MADV_SEQUENTIAL] + advice[Files.MADV_WILLNEED] + advice[Files.MADV_DONTNEED]);
+            }
+        });
+    }
+
+    private void testParallelIndexPipelined(int partitionBy, long increment, int expectedPartitionMin) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            int N = 1000000;
+            int S = 128;
+            Rnd rnd = new Rnd();
+
+            SymbolGroup sg = new SymbolGroup(rnd, S, N, partitionBy, false);
+
+            CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getParallelIndexThreshold() {
+                    return 1000;
+                }
+            };
+
+            MyWorkScheduler workScheduler = new MyWorkScheduler();
+            workScheduler.addJob(new ColumnIndexerJob(workScheduler));
+            workScheduler.start();
+
+            long timestamp = 0;
+            try (TableWriter writer = new TableWriter(configuration, "ABC", workScheduler)) {
+                for (int i = 0; i < N; i++) {
+                    TableWriter.Row r = writer.newRow(timestamp += increment);
+                    r.putSym(0, sg.symA[rnd.nextPositiveInt() % S]);
+                    r.putSym(1, sg.symB[rnd.nextPositiveInt() % S]);
+                    r.putSym(2, sg.symC[rnd.nextPositiveInt() % S]);
+                    r.putDouble(3, rnd.nextDouble());
+                    r.append();
+                    if (i % 33333 == 0) {
+                        writer.commit();
+                    }
+                }
+                writer.commit();
+
+                // rows indexed while appending have to be rolled back from index too
+                long t = timestamp;
+                for (int i = 0; i < 5000; i++) {
+                    TableWriter.Row r = writer.newRow(t += increment);
+                    r.putSym(0, sg.symA[0]);
+                    r.putSym(1, sg.symB[0]);
+                    r.putSym(2, sg.symC[0]);
+                    r.append();
+                }
+                writer.rollback();
+            }
+
+            workScheduler.halt();
+
+            try (TableReader reader = new TableReader(configuration, "ABC")) {
+                Assert.assertEquals(N, reader.size());
+                Assert.assertTrue(reader.getPartitionCount() > expectedPartitionMin);
+
+                FullFwdDataFrameCursor cursor = new FullFwdDataFrameCursor();
+                TableReaderRecord record = new TableReaderRecord();
+
+                cursor.of(reader);
+                record.of(reader);
+
+                assertIndexRowsMatchSymbol(cursor, record, 0, N);
+                cursor.toTop();
+                assertIndexRowsMatchSymbol(cursor, record, 1, N);
+                cursor.toTop();
+                assertIndexRowsMatchSymbol(cursor, record, 2, N);
+            }
+        });
+    }
+
     private void testParallelIndexFailureAtRuntime(int partitionBy, long increment, boolean empty, String fileUnderAttack, int expectedPartitionCount) throws Exception {
         TestUtils.assertMemoryLeak(() -> {
             int N = 10000;
@@ -2234,12 +2407,24 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         private final RingQueue<ColumnIndexerEntry> queue = new RingQueue<>(ColumnIndexerEntry::new, 1024);
         private final Sequence pubSeq;
         private final Sequence subSeq;
+        private final RingQueue<FileSyncEntry> syncQueue = new RingQueue<>(FileSyncEntry::new, 1024);
+        private final Sequence syncPubSeq = new MPSequence(1024);
+        private final Sequence syncSubSeq = new MCSequence(1024);
+        private final RingQueue<ParallelFilterEntry> filterQueue = new RingQueue<>(ParallelFilterEntry::new, 1024);
+        private final Sequence filterPubSeq = new MPSequence(1024);
+        private final Sequence filterSubSeq = new MCSequence(1024);
+        private final RingQueue<ParallelGroupByEntry> groupByQueue = new RingQueue<>(ParallelGroupByEntry::new, 1024);
+        private final Sequence groupByPubSeq = new MPSequence(1024);
+        private final Sequence groupBySubSeq = new MCSequence(1024);
         private final ObjHashSet<Job> jobs = new ObjHashSet<>();
         private final AtomicBoolean active = new AtomicBoolean(false);
 
         public MyWorkScheduler(Sequence pubSequence, Sequence subSequence) {
             this.pubSeq = pubSequence;
             this.subSeq = subSequence;
+            syncPubSeq.then(syncSubSeq).then(syncPubSeq);
+            filterPubSeq.then(filterSubSeq).then(filterPubSeq);
+            groupByPubSeq.then(groupBySubSeq).then(groupByPubSeq);
         }
 
         public MyWorkScheduler() {
@@ -2251,6 +2436,36 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
             jobs.add(job);
         }
 
+        @Override
+        public Sequence getFilterPubSequence() {
+            return filterPubSeq;
+        }
+
+        @Override
+        public RingQueue<ParallelFilterEntry> getFilterQueue() {
+            return filterQueue;
+        }
+
+        @Override
+        public Sequence getFilterSubSequence() {
+            return filterSubSeq;
+        }
+
+        @Override
+        public Sequence getGroupByPubSequence() {
+            return groupByPubSeq;
+        }
+
+        @Override
+        public RingQueue<ParallelGroupByEntry> getGroupByQueue() {
+            return groupByQueue;
+        }
+
+        @Override
+        public Sequence getGroupBySubSequence() {
+            return groupBySubSeq;
+        }
+
         @Override
         public Sequence getIndexerPubSequence() {
             return pubSeq;
@@ -2266,6 +2481,26 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
             return subSeq;
         }
 
+        @Override
+        public Sequence getSyncPubSequence() {
+            return syncPubSeq;
+        }
+
+        @Override
+        public RingQueue<FileSyncEntry> getSyncQueue() {
+            return syncQueue;
+        }
+
+        @Override
+        public Sequence getSyncSubSequence() {
+            return syncSubSeq;
+        }
+
+        @Override
+        public int getWorkerCount() {
+            return nWorkers;
+        }
+
         void halt() {
             if (active.compareAndSet(true, false)) {
                 for (int i = 0; i < nWorkers; i++) {
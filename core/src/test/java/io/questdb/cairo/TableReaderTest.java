@@ -1916,12 +1916,24 @@ public class TableReaderTest extends AbstractCairoTest {
         TestUtils.assertMemoryLeak(this::testTableCursor);
     }
 
+    @Test
+    public void testReadByHour() throws Exception {
+        CairoTestUtils.createAllTable(configuration, PartitionBy.HOUR);
+        TestUtils.assertMemoryLeak(() -> testTableCursor(10 * 60000));
+    }
+
     @Test
     public void testReadByMonth() throws Exception {
         CairoTestUtils.createAllTable(configuration, PartitionBy.MONTH);
         TestUtils.assertMemoryLeak(() -> testTableCursor(60 * 60 * 60000));
     }
 
+    @Test
+    public void testReadByWeek() throws Exception {
+        CairoTestUtils.createAllTable(configuration, PartitionBy.WEEK);
+        TestUtils.assertMemoryLeak(() -> testTableCursor(24 * 60 * 60000L));
+    }
+
     @Test
     public void testReadByYear() throws Exception {
         CairoTestUtils.createAllTable(configuration, PartitionBy.YEAR);
@@ -2023,6 +2035,16 @@ public class TableReaderTest extends AbstractCairoTest {
         testReload(PartitionBy.DAY, 150, 6 * 60000L, MUST_SWITCH);
     }
 
+    @Test
+    public void testReloadByHourSamePartition() throws Exception {
+        testReload(PartitionBy.HOUR, 10, 2 * 60000L, MUST_NOT_SWITCH);
+    }
+
+    @Test
+    public void testReloadByHourSwitch() throws Exception {
+        testReload(PartitionBy.HOUR, 150, 15 * 1000L, MUST_SWITCH);
+    }
+
     @Test
     public void testReloadByMonthSamePartition() throws Exception {
         testReload(PartitionBy.MONTH, 15, 60L * 60000, MUST_NOT_SWITCH);
@@ -2033,6 +2055,16 @@ public class TableReaderTest extends AbstractCairoTest {
         testReload(PartitionBy.MONTH, 15, 24 * 60L * 60000, MUST_SWITCH);
     }
 
+    @Test
+    public void testReloadByWeekSamePartition() throws Exception {
+        testReload(PartitionBy.WEEK, 10, 6 * 60 * 60000L, MUST_NOT_SWITCH);
+    }
+
+    @Test
+    public void testReloadByWeekSwitch() throws Exception {
+        testReload(PartitionBy.WEEK, 150, 60 * 60000L, MUST_SWITCH);
+    }
+
     @Test
     public void testReloadByYearSamePartition() throws Exception {
         testReload(PartitionBy.YEAR, 100, 60 * 60000 * 24L, MUST_NOT_SWITCH);
@@ -2418,11 +2450,21 @@ public class TableReaderTest extends AbstractCairoTest {
         testRemovePartition(PartitionBy.YEAR, "2017", 0, current -> Timestamps.addYear(Timestamps.floorYYYY(current), 2));
     }
 
+    @Test
+    public void testRemovePartitionByHour() throws Exception {
+        testRemovePartition(PartitionBy.HOUR, "2017-12-11T13", 3000, current -> Timestamps.addHours(Timestamps.floorHH(current), 1));
+    }
+
     @Test
     public void testRemovePartitionByDay() throws Exception {
         testRemovePartition(PartitionBy.DAY, "2017-12-14", 3000, current -> Timestamps.addDays(Timestamps.floorDD(current), 1));
     }
 
+    @Test
+    public void testRemovePartitionByWeek() throws Exception {
+        testRemovePartition(PartitionBy.WEEK, "2018-01-01", 3000, current -> Timestamps.addWeeks(Timestamps.floorWW(current), 1));
+    }
+
     @Test
     public void testRemovePartitionByDayCannotDeleteDir() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -124,6 +124,26 @@ public class TableUtilsTest {
 //        });
 //    }
 
+    @Test
+    public void testColumnPageSize() {
+        final long mapPageSize = FF.getMapPageSize();
+        Assert.assertEquals(mapPageSize / 8, TableUtils.getColumnPageSize(FF, ColumnType.BYTE));
+        Assert.assertEquals(mapPageSize / 2, TableUtils.getColumnPageSize(FF, ColumnType.INT));
+        Assert.assertEquals(mapPageSize, TableUtils.getColumnPageSize(FF, ColumnType.TIMESTAMP));
+        Assert.assertEquals(mapPageSize * 4, TableUtils.getColumnPageSize(FF, ColumnType.LONG256));
+        Assert.assertEquals(mapPageSize, TableUtils.getColumnPageSize(FF, ColumnType.STRING));
+        Assert.assertEquals(mapPageSize, TableUtils.getColumnPageSize(FF, ColumnType.BINARY));
+
+        FilesFacade ff = new FilesFacadeImpl() {
+            @Override
+            public long getMapPageSize() {
+                return getPageSize();
+            }
+        };
+        // pages are never smaller than OS page
+        Assert.assertEquals(ff.getPageSize(), TableUtils.getColumnPageSize(ff, ColumnType.BOOLEAN));
+    }
+
     @Test
     public void testForeignDirectory() {
         try (Path path = new Path()) {
@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RowCursor;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
@@ -37,7 +38,10 @@ import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 public class TableWriterTest extends AbstractCairoTest {
 
@@ -705,6 +709,100 @@ public class TableWriterTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testBlockAppend() throws Exception {
+        testBlockAppend(PartitionBy.DAY);
+    }
+
+    @Test
+    public void testBlockAppendNonPartitioned() throws Exception {
+        testBlockAppend(PartitionBy.NONE);
+    }
+
+    @Test
+    public void testBlockAppendNotEnoughValues() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createBlockTable("x", PartitionBy.DAY);
+            final long ts = DateFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+            final long timestamps = Unsafe.malloc(8 * 10);
+            final long ints = Unsafe.malloc(4 * 9);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                for (int i = 0; i < 10; i++) {
+                    Unsafe.getUnsafe().putLong(timestamps + i * 8, ts + i);
+                }
+
+                try {
+                    writer.newBlock()
+                            .putColumn(0, ints, 4 * 9)
+                            .putColumn(5, timestamps, 8 * 10)
+                            .append(10);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getMessage(), "not enough values in block [column=i");
+                }
+
+                try {
+                    writer.newBlock().putColumn(2, ints, 4 * 9);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getMessage(), "column requires value offsets [column=s");
+                }
+
+                try {
+                    writer.newBlock().putColumn(0, ints, 4 * 9).append(9);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getMessage(), "timestamp column is required");
+                }
+                Assert.assertEquals(0, writer.size());
+            } finally {
+                Unsafe.free(timestamps, 8 * 10);
+                Unsafe.free(ints, 4 * 9);
+            }
+        });
+    }
+
+    @Test
+    public void testBlockAppendOutOfOrder() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createBlockTable("x", PartitionBy.DAY);
+            final long ts = DateFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+            final long timestamps = Unsafe.malloc(8 * 3);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                TableWriter.Row r = writer.newRow(ts);
+                r.putInt(0, 1);
+                r.append();
+                writer.commit();
+
+                Unsafe.getUnsafe().putLong(timestamps, ts + 1);
+                Unsafe.getUnsafe().putLong(timestamps + 8, ts + 3);
+                Unsafe.getUnsafe().putLong(timestamps + 16, ts + 2);
+                try {
+                    writer.newBlock().putColumn(5, timestamps, 8 * 3).append(3);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getMessage(), "block is out of order [row=2");
+                }
+
+                Unsafe.getUnsafe().putLong(timestamps + 16, ts - 1);
+                try {
+                    writer.newBlock().putColumn(5, timestamps + 16, 8).append(1);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getMessage(), "block is out of order [row=0");
+                }
+
+                Assert.assertEquals(1, writer.size());
+                // writer is still usable
+                writer.newBlock().putColumn(5, timestamps, 8 * 2).append(2);
+                writer.commit();
+                Assert.assertEquals(3, writer.size());
+            } finally {
+                Unsafe.free(timestamps, 8 * 3);
+            }
+        });
+    }
+
     @Test
     public void testCachedSymbol() {
         testSymbolCacheFlag(true);
@@ -1470,6 +1568,131 @@ public class TableWriterTest extends AbstractCairoTest {
         }, N);
     }
 
+    @Test
+    public void testCommitModeAsync() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("i", ColumnType.INT)
+                    .col("str", ColumnType.STRING)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            final SyncCountingFacade ff = new SyncCountingFacade(false);
+            final CairoConfiguration configuration = new CommitModeConfiguration(root, ff, CommitMode.ASYNC);
+            final FullFwdDataFrameCursorTest.MyWorkScheduler workScheduler = new FullFwdDataFrameCursorTest.MyWorkScheduler();
+            final FileSyncJob job = new FileSyncJob(workScheduler, ff);
+            long ts = DateFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+
+            try (TableWriter writer = new TableWriter(configuration, "x", workScheduler)) {
+                Assert.assertEquals(CommitMode.ASYNC, writer.getCommitMode());
+                for (int i = 0; i < 2; i++) {
+                    TableWriter.Row r = writer.newRow(ts + i);
+                    r.putInt(0, i);
+                    r.putStr(1, "abc");
+                    r.append();
+                    // second commit finds first batch in flight and does not publish
+                    writer.commit();
+                }
+
+                Assert.assertEquals(0, ff.fsyncCount);
+                Assert.assertTrue(ff.asyncMsyncCount > 0);
+                Assert.assertEquals(0, ff.syncMsyncCount);
+
+                //noinspection StatementWithEmptyBody
+                while (job.run()) ;
+                // four column files and transaction file
+                Assert.assertEquals(5, ff.fsyncCount);
+                Assert.assertEquals(5, ff.dupCount);
+
+                TableWriter.Row r = writer.newRow(ts + 2);
+                r.putInt(0, 2);
+                r.append();
+                writer.commit();
+
+                //noinspection StatementWithEmptyBody
+                while (job.run()) ;
+                Assert.assertEquals(10, ff.fsyncCount);
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                Assert.assertEquals(3, reader.size());
+            }
+        });
+    }
+
+    @Test
+    public void testCommitModeSync() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("i", ColumnType.INT)
+                    .col("str", ColumnType.STRING)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            final SyncCountingFacade ff = new SyncCountingFacade(false);
+            final CairoConfiguration configuration = new CommitModeConfiguration(root, ff, CommitMode.NOSYNC);
+            long ts = DateFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                TableWriter.Row r = writer.newRow(ts);
+                r.putInt(0, 1);
+                r.append();
+                writer.commit();
+                Assert.assertEquals(0, ff.fsyncCount + ff.asyncMsyncCount + ff.syncMsyncCount);
+
+                writer.setCommitMode(CommitMode.SYNC);
+                r = writer.newRow(ts + 1);
+                r.putInt(0, 2);
+                r.append();
+                // next day
+                r = writer.newRow(ts + Timestamps.DAY_MICROS);
+                r.putInt(0, 3);
+                r.append();
+                writer.commit();
+
+                // four column files of closed partition, archive file and four column files of active partition
+                Assert.assertEquals(9, ff.fsyncCount);
+                Assert.assertTrue(ff.syncMsyncCount > 0);
+                Assert.assertEquals(0, ff.asyncMsyncCount);
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                Assert.assertEquals(3, reader.size());
+            }
+        });
+    }
+
+    @Test
+    public void testCommitModeSyncFailure() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.NONE)
+                    .col("i", ColumnType.INT)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            final CairoConfiguration configuration = new CommitModeConfiguration(root, new SyncCountingFacade(true), CommitMode.SYNC);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                TableWriter.Row r = writer.newRow(0);
+                r.putInt(0, 1);
+                r.append();
+                try {
+                    writer.commit();
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getMessage(), "Could not fsync");
+                }
+            }
+
+            // transaction must not be visible when column data did not make it to disk
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                Assert.assertEquals(0, reader.size());
+            }
+        });
+    }
+
     @Test
     public void testConstructorTruncatedTodo() throws Exception {
         FilesFacade ff = new FilesFacadeImpl() {
@@ -1758,6 +1981,133 @@ public class TableWriterTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testOutOfOrderMergeCancelRow() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("i", ColumnType.INT)
+                    .col("str", ColumnType.STRING)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            final CairoConfiguration configuration = new O3Configuration(root);
+            long ts = DateFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                TableWriter.Row r = writer.newRow(ts);
+                r.putInt(0, 1);
+                r.putStr(1, "abc");
+                r.append();
+
+                r = writer.newRow(ts - 1000);
+                r.putInt(0, 2);
+                r.putStr(1, "cancelled");
+                r.cancel();
+
+                r = writer.newRow(ts - 2000);
+                r.putInt(0, 3);
+                r.append();
+
+                Assert.assertEquals(2, writer.size());
+                writer.commit();
+                Assert.assertEquals(2, writer.size());
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                RecordCursor cursor = reader.getCursor();
+                Record record = cursor.getRecord();
+                Assert.assertTrue(cursor.hasNext());
+                Assert.assertEquals(3, record.getInt(0));
+                Assert.assertNull(record.getStr(1));
+                Assert.assertEquals(ts - 2000, record.getTimestamp(2));
+                Assert.assertTrue(cursor.hasNext());
+                Assert.assertEquals(1, record.getInt(0));
+                TestUtils.assertEquals("abc", record.getStr(1));
+                Assert.assertFalse(cursor.hasNext());
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrderMergeCompressedPartition() throws Exception {
+        // Zip allocates its gzip header when class is loaded, make sure this does not count as leak
+        Assert.assertNotEquals(0, Zip.gzipHeader);
+        TestUtils.assertMemoryLeak(() -> {
+            create(FF, PartitionBy.DAY, 1000);
+            final CairoConfiguration configuration = new O3Configuration(root);
+            final long ts0 = DateFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+            Rnd rnd = new Rnd();
+            try (TableWriter writer = new TableWriter(configuration, PRODUCT)) {
+                long ts = populateProducts(writer, rnd, ts0, 1000, 5 * 60000 * 1000L);
+                writer.commit();
+
+                Assert.assertTrue(writer.compressPartition(ts0));
+                try (Path path = new Path()) {
+                    path.of(root).concat(PRODUCT).concat("2013-03-04");
+                    Assert.assertTrue(FF.exists(TableUtils.dzFile(path, "productId")));
+                }
+
+                populateProducts(writer, rnd, ts0 + 1000, 100, 60000 * 1000L);
+                writer.commit();
+                Assert.assertEquals(1100, writer.size());
+
+                try (Path path = new Path()) {
+                    path.of(root).concat(PRODUCT).concat("2013-03-04");
+                    final int plen = path.length();
+                    Assert.assertFalse(FF.exists(TableUtils.dzFile(path, "productId")));
+                    Assert.assertTrue(FF.exists(TableUtils.dFile(path.trimTo(plen), "productId")));
+                }
+            }
+
+            try (TableReader reader = new TableReader(configuration, PRODUCT)) {
+                Assert.assertEquals(1100, reader.size());
+                RecordCursor cursor = reader.getCursor();
+                Record record = cursor.getRecord();
+                final int timestampIndex = reader.getMetadata().getTimestampIndex();
+                long prev = Long.MIN_VALUE;
+                while (cursor.hasNext()) {
+                    long timestamp = record.getTimestamp(timestampIndex);
+                    Assert.assertTrue(timestamp >= prev);
+                    prev = timestamp;
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrderMergeDayPartitioned() throws Exception {
+        testOutOfOrderMerge(PartitionBy.DAY);
+    }
+
+    @Test
+    public void testOutOfOrderMergeNonPartitioned() throws Exception {
+        testOutOfOrderMerge(PartitionBy.NONE);
+    }
+
+    @Test
+    public void testOutOfOrderMergeRollback() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            create(FF, PartitionBy.DAY, 1000);
+            final CairoConfiguration configuration = new O3Configuration(root);
+            long ts = DateFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+            Rnd rnd = new Rnd();
+            try (TableWriter writer = new TableWriter(configuration, PRODUCT)) {
+                ts = populateProducts(writer, rnd, ts, 1000, 60000 * 1000L);
+                writer.commit();
+
+                populateProducts(writer, rnd, ts - 48 * 60 * 60000 * 1000L, 100, 60000 * 1000L);
+                Assert.assertEquals(1100, writer.size());
+                writer.rollback();
+                Assert.assertEquals(1000, writer.size());
+                writer.commit();
+            }
+
+            try (TableReader reader = new TableReader(configuration, PRODUCT)) {
+                Assert.assertEquals(1000, reader.size());
+            }
+        });
+    }
+
     @Test
     public void testRemoveColumnAfterTimestamp() throws Exception {
         try (TableModel model = new TableModel(configuration, "ABC", PartitionBy.DAY)
@@ -2407,6 +2757,176 @@ public class TableWriterTest extends AbstractCairoTest {
         }
     }
 
+    private void createBlockTable(String name, int partitionBy) {
+        try (TableModel model = new TableModel(configuration, name, partitionBy)
+                .col("i", ColumnType.INT)
+                .col("d", ColumnType.DOUBLE)
+                .col("s", ColumnType.SYMBOL).indexed(true, 256)
+                .col("str", ColumnType.STRING)
+                .col("bin", ColumnType.BINARY)
+                .timestamp()
+                .col("l", ColumnType.LONG)) {
+            CairoTestUtils.create(model);
+        }
+    }
+
+    private void testBlockAppend(int partitionBy) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createBlockTable("rows", partitionBy);
+            createBlockTable("blocks", partitionBy);
+
+            final int N = 2000;
+            final long ts = DateFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+            final long increment = 3 * 60000 * 1000L;
+
+            final long ints = Unsafe.malloc(4 * N);
+            final long doubles = Unsafe.malloc(8 * N);
+            final long timestamps = Unsafe.malloc(8 * N);
+            final long symOffsets = Unsafe.malloc(8 * N);
+            final long strOffsets = Unsafe.malloc(8 * N);
+            final long binOffsets = Unsafe.malloc(8 * N);
+            try (
+                    VirtualMemory syms = new VirtualMemory(1024 * 1024);
+                    VirtualMemory strs = new VirtualMemory(1024 * 1024);
+                    VirtualMemory bins = new VirtualMemory(1024 * 1024);
+                    TableWriter rowWriter = new TableWriter(configuration, "rows");
+                    TableWriter blockWriter = new TableWriter(configuration, "blocks")
+            ) {
+                final Rnd rnd = new Rnd();
+                final long bin = Unsafe.malloc(16);
+                try {
+                    for (int i = 0; i < N; i++) {
+                        final long t = ts + i * increment;
+                        final int iv = rnd.nextInt();
+                        final double dv = rnd.nextDouble();
+                        final CharSequence sym = rnd.nextBoolean() ? null : rnd.nextChars(3);
+                        final String sv = sym == null ? null : sym.toString();
+                        final CharSequence str = rnd.nextPositiveInt() % 10 == 0 ? null : rnd.nextChars(rnd.nextPositiveInt() % 20);
+                        final String strv = str == null ? null : str.toString();
+                        final int binLen = rnd.nextPositiveInt() % 10 == 0 ? -1 : rnd.nextPositiveInt() % 16;
+                        for (int k = 0; k < binLen; k++) {
+                            Unsafe.getUnsafe().putByte(bin + k, rnd.nextByte());
+                        }
+
+                        TableWriter.Row r = rowWriter.newRow(t);
+                        r.putInt(0, iv);
+                        r.putDouble(1, dv);
+                        r.putSym(2, sv);
+                        r.putStr(3, strv);
+                        if (binLen > -1) {
+                            r.putBin(4, bin, binLen);
+                        }
+                        // column "l" is left null
+                        r.append();
+
+                        Unsafe.getUnsafe().putInt(ints + i * 4L, iv);
+                        Unsafe.getUnsafe().putDouble(doubles + i * 8L, dv);
+                        Unsafe.getUnsafe().putLong(timestamps + i * 8L, t);
+                        Unsafe.getUnsafe().putLong(symOffsets + i * 8L, syms.putStr(sv));
+                        Unsafe.getUnsafe().putLong(strOffsets + i * 8L, strs.putStr(strv));
+                        Unsafe.getUnsafe().putLong(binOffsets + i * 8L, binLen > -1 ? bins.putBin(bin, binLen) : bins.putNullBin());
+                    }
+                } finally {
+                    Unsafe.free(bin, 16);
+                }
+                rowWriter.commit();
+
+                // memory is single page
+                final long symAddress = syms.addressOf(0);
+                final long strAddress = strs.addressOf(0);
+                final long binAddress = bins.addressOf(0);
+
+                // two blocks, each committed separately, make sure second block continues where first left off
+                final int n1 = N / 3;
+                final int n2 = N - n1;
+                appendBlock(blockWriter, ints, doubles, timestamps, symOffsets, symAddress, syms.getAppendOffset(), strOffsets, strAddress, strs.getAppendOffset(), binOffsets, binAddress, bins.getAppendOffset(), n1, 0);
+                blockWriter.commit();
+                appendBlock(blockWriter, ints, doubles, timestamps, symOffsets, symAddress, syms.getAppendOffset(), strOffsets, strAddress, strs.getAppendOffset(), binOffsets, binAddress, bins.getAppendOffset(), n2, n1);
+                blockWriter.commit();
+
+                Assert.assertEquals(N, blockWriter.size());
+            } finally {
+                Unsafe.free(ints, 4 * N);
+                Unsafe.free(doubles, 8 * N);
+                Unsafe.free(timestamps, 8 * N);
+                Unsafe.free(symOffsets, 8 * N);
+                Unsafe.free(strOffsets, 8 * N);
+                Unsafe.free(binOffsets, 8 * N);
+            }
+
+            try (
+                    TableReader rowReader = new TableReader(configuration, "rows");
+                    TableReader blockReader = new TableReader(configuration, "blocks")
+            ) {
+                Assert.assertEquals(N, blockReader.size());
+                sink.clear();
+                printer.print(rowReader.getCursor(), rowReader.getMetadata(), true);
+                final String expected = sink.toString();
+                sink.clear();
+                printer.print(blockReader.getCursor(), blockReader.getMetadata(), true);
+                TestUtils.assertEquals(expected, sink);
+
+                // symbol index is built for block rows too
+                for (int key = 0; key < 3; key++) {
+                    Assert.assertEquals(countIndexedRows(rowReader, key), countIndexedRows(blockReader, key));
+                }
+            }
+
+            // block values are followed by values of later rows in the same buffer, they must not be copied
+            Assert.assertEquals(getColumnFileSize("rows", "str.d"), getColumnFileSize("blocks", "str.d"));
+            Assert.assertEquals(getColumnFileSize("rows", "bin.d"), getColumnFileSize("blocks", "bin.d"));
+        });
+    }
+
+    private static long getColumnFileSize(String tableName, String fileName) throws IOException {
+        try (Stream<java.nio.file.Path> files = java.nio.file.Files.walk(Paths.get(root.toString(), tableName))) {
+            return files.filter(f -> f.getFileName().toString().equals(fileName)).mapToLong(f -> f.toFile().length()).sum();
+        }
+    }
+
+    private static long countIndexedRows(TableReader reader, int key) {
+        long count = 0;
+        for (int i = 0, n = reader.getPartitionCount(); i < n; i++) {
+            final long size = reader.openPartition(i);
+            if (size > 0) {
+                final BitmapIndexReader indexReader = reader.getBitmapIndexReader(reader.getColumnBase(i), 2, BitmapIndexReader.DIR_FORWARD);
+                final RowCursor cursor = indexReader.getCursor(true, key, 0, size - 1);
+                while (cursor.hasNext()) {
+                    cursor.next();
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void appendBlock(
+            TableWriter writer,
+            long ints,
+            long doubles,
+            long timestamps,
+            long symOffsets,
+            long symAddress,
+            long symSize,
+            long strOffsets,
+            long strAddress,
+            long strSize,
+            long binOffsets,
+            long binAddress,
+            long binSize,
+            int n,
+            int lo
+    ) {
+        writer.newBlock()
+                .putColumn(0, ints + lo * 4L, n * 4L)
+                .putColumn(1, doubles + lo * 8L, n * 8L)
+                .putVarColumn(2, symAddress, symSize, symOffsets + lo * 8L)
+                .putVarColumn(3, strAddress, strSize, strOffsets + lo * 8L)
+                .putVarColumn(4, binAddress, binSize, binOffsets + lo * 8L)
+                .putColumn(5, timestamps + lo * 8L, n * 8L)
+                .append(n);
+    }
+
     private void create(FilesFacade ff, int partitionBy, int N) {
         try (TableModel model = new TableModel(new DefaultCairoConfiguration(root) {
             @Override
@@ -2811,6 +3331,107 @@ public class TableWriterTest extends AbstractCairoTest {
         });
     }
 
+    private void testOutOfOrderMerge(int partitionBy) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", partitionBy)
+                    .col("i", ColumnType.INT)
+                    .col("str", ColumnType.STRING)
+                    .col("sym", ColumnType.SYMBOL).indexed(true, 256)
+                    .timestamp()
+                    .col("d", ColumnType.DOUBLE)) {
+                CairoTestUtils.create(model);
+            }
+
+            final CairoConfiguration configuration = new O3Configuration(root);
+            final String[] symbols = {"AB", "CD", "EF", "GH", null};
+            final int batchSize = 3000;
+            final int batchCount = 4;
+            final long start = DateFormatUtils.parseDateTime("2013-03-04T00:00:00.000Z");
+            final long minute = 60000 * 1000L;
+            final long[] timestamps = new long[batchSize * batchCount];
+            final String[] strings = new String[timestamps.length];
+            final String[] syms = new String[timestamps.length];
+            final Rnd rnd = new Rnd();
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                int n = 0;
+                for (int batch = 0; batch < batchCount; batch++) {
+                    // writer is re-opened for every batch to verify it restores append position
+                    try (TableWriter writer = new TableWriter(configuration, "x")) {
+                        for (int k = 0; k < batchSize; k++) {
+                            final long ts;
+                            if (batch == 0) {
+                                ts = start + k * minute;
+                            } else {
+                                // rows land before, into and after existing partitions
+                                ts = start + (rnd.nextPositiveInt() % (batchSize * 4) - batchSize) * minute;
+                            }
+                            timestamps[n] = ts;
+                            strings[n] = rnd.nextInt() % 10 == 0 ? null : rnd.nextChars(rnd.nextPositiveInt() % 16).toString();
+                            syms[n] = symbols[rnd.nextPositiveInt() % symbols.length];
+
+                            TableWriter.Row r = writer.newRow(ts);
+                            r.putInt(0, n);
+                            r.putStr(1, strings[n]);
+                            r.putSym(2, syms[n]);
+                            if (n % 7 != 0) {
+                                r.putDouble(4, n * 0.5);
+                            }
+                            r.append();
+                            n++;
+                        }
+                        writer.commit();
+                        Assert.assertEquals(n, writer.size());
+                    }
+
+                    Assert.assertTrue(reader.reload());
+                    Assert.assertEquals(n, reader.size());
+
+                    // rows are expected in timestamp order, ties are resolved in order rows were added
+                    final ObjList<Long> order = new ObjList<>();
+                    for (int k = 0; k < n; k++) {
+                        order.add((long) k);
+                    }
+                    order.sort((a, b) -> {
+                        int c = Long.compare(timestamps[a.intValue()], timestamps[b.intValue()]);
+                        return c != 0 ? c : Long.compare(a, b);
+                    });
+
+                    RecordCursor cursor = reader.getCursor();
+                    Record record = cursor.getRecord();
+                    int k = 0;
+                    while (cursor.hasNext()) {
+                        final int id = order.getQuick(k++).intValue();
+                        Assert.assertEquals(id, record.getInt(0));
+                        Assert.assertEquals(timestamps[id], record.getTimestamp(3));
+                        if (strings[id] == null) {
+                            Assert.assertNull(record.getStr(1));
+                        } else {
+                            TestUtils.assertEquals(strings[id], record.getStr(1));
+                        }
+                        if (syms[id] == null) {
+                            Assert.assertNull(record.getSym(2));
+                        } else {
+                            TestUtils.assertEquals(syms[id], record.getSym(2));
+                        }
+                        if (id % 7 != 0) {
+                            Assert.assertEquals(id * 0.5, record.getDouble(4), 0.0000001);
+                        } else {
+                            Assert.assertTrue(Double.isNaN(record.getDouble(4)));
+                        }
+                    }
+                    Assert.assertEquals(n, k);
+
+                    FullFwdDataFrameCursor frameCursor = new FullFwdDataFrameCursor();
+                    TableReaderRecord frameRecord = new TableReaderRecord();
+                    frameCursor.of(reader);
+                    frameRecord.of(reader);
+                    FullFwdDataFrameCursorTest.assertIndexRowsMatchSymbol(frameCursor, frameRecord, 2, n);
+                }
+            }
+        });
+    }
+
     private void testOutOfOrderRecords(int N) throws Exception {
         TestUtils.assertMemoryLeak(() -> {
             try (TableWriter writer = new TableWriter(configuration, PRODUCT)) {
@@ -3307,4 +3928,79 @@ public class TableWriterTest extends AbstractCairoTest {
     static class CountingFilesFacade extends FilesFacadeImpl {
         long count = Long.MAX_VALUE;
     }
-}
\ No newline at end of file
+
+    private static class O3Configuration extends DefaultCairoConfiguration {
+        public O3Configuration(CharSequence root) {
+            super(root);
+        }
+
+        @Override
+        public long getO3StagingPageSize() {
+            // small pages make values span page boundaries
+            return 4096;
+        }
+
+        @Override
+        public boolean isO3Enabled() {
+            return true;
+        }
+    }
+
+    private static class CommitModeConfiguration extends DefaultCairoConfiguration {
+        private final FilesFacade ff;
+        private final int commitMode;
+
+        public CommitModeConfiguration(CharSequence root, FilesFacade ff, int commitMode) {
+            super(root);
+            this.ff = ff;
+            this.commitMode = commitMode;
+        }
+
+        @Override
+        public int getCommitMode() {
+            return commitMode;
+        }
+
+        @Override
+        public FilesFacade getFilesFacade() {
+            return ff;
+        }
+    }
+
+    private static class SyncCountingFacade extends FilesFacadeImpl {
+        private final boolean failFsync;
+        int fsyncCount = 0;
+        int dupCount = 0;
+        int asyncMsyncCount = 0;
+        int syncMsyncCount = 0;
+
+        SyncCountingFacade(boolean failFsync) {
+            this.failFsync = failFsync;
+        }
+
+        @Override
+        public long dup(long fd) {
+            dupCount++;
+            return super.dup(fd);
+        }
+
+        @Override
+        public int fsync(long fd) {
+            if (failFsync) {
+                return -1;
+            }
+            fsyncCount++;
+            return super.fsync(fd);
+        }
+
+        @Override
+        public int msync(long address, long size, boolean async) {
+            if (async) {
+                asyncMsyncCount++;
+            } else {
+                syncMsyncCount++;
+            }
+            return super.msync(address, size, async);
+        }
+    }
+}
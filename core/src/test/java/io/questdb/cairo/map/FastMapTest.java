@@ -479,6 +479,44 @@ public class FastMapTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testRestoreInitialCapacity() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            Rnd rnd = new Rnd();
+            int N = 10000;
+            try (FastMap map = new FastMap(
+                    1024,
+                    new SingleColumnType(ColumnType.STRING),
+                    new SingleColumnType(ColumnType.LONG),
+                    16, 0.5f)) {
+                final long initialMemorySize = map.getMemorySize();
+                for (int j = 0; j < 2; j++) {
+                    rnd.reset();
+                    for (int i = 0; i < N; i++) {
+                        MapKey key = map.withKey();
+                        key.putStr(rnd.nextChars(10));
+                        key.createValue().putLong(0, i);
+                    }
+                    Assert.assertEquals(N, map.size());
+                    Assert.assertTrue(map.getMemorySize() > initialMemorySize);
+
+                    rnd.reset();
+                    for (int i = 0; i < N; i++) {
+                        MapKey key = map.withKey();
+                        key.putStr(rnd.nextChars(10));
+                        MapValue value = key.findValue();
+                        Assert.assertNotNull(value);
+                        Assert.assertEquals(i, value.getLong(0));
+                    }
+
+                    map.restoreInitialCapacity();
+                    Assert.assertEquals(0, map.size());
+                    Assert.assertEquals(initialMemorySize, map.getMemorySize());
+                }
+            }
+        });
+    }
+
     @Test
     public void testRowIdAccess() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
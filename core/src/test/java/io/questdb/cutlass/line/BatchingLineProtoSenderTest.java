@@ -0,0 +1,316 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Unsafe;
+import io.questdb.std.time.MillisecondClock;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class BatchingLineProtoSenderTest {
+    private static final Log LOG = LogFactory.getLog(BatchingLineProtoSenderTest.class);
+
+    @Test
+    public void testBackPressure() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final TestChannel channel = new TestChannel(Integer.MAX_VALUE);
+            channel.connectable = false;
+            final StringBuilder expected = new StringBuilder();
+            try (BatchingLineProtoSender sender = new BatchingLineProtoSender(new TestConfiguration(256, 1, false), channel)) {
+                // buffer fills up before channel connects
+                final Thread thread = new Thread(() -> {
+                    LockSupport.parkNanos(50_000_000);
+                    channel.connectable = true;
+                });
+                thread.start();
+                for (int i = 0; i < 100; i++) {
+                    sender.metric("x").field("v", i).$(i);
+                    expected.append("x v=").append(i).append("i ").append(i).append('\n');
+                }
+                thread.join();
+                sender.flush();
+                channel.await(expected.length());
+                LOG.info().$("back pressure [count=").$(sender.getBackPressureCount()).$(']').$();
+                Assert.assertTrue(sender.getBackPressureCount() > 0);
+                Assert.assertEquals(0, sender.getDroppedRowCount());
+            }
+            TestUtils.assertEquals(expected, channel.received());
+        });
+    }
+
+    @Test
+    public void testBatchSize() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final TestChannel channel = new TestChannel(Integer.MAX_VALUE);
+            try (BatchingLineProtoSender sender = new BatchingLineProtoSender(new TestConfiguration(1024, 64, false), channel)) {
+                // 20 bytes
+                sender.metric("weather").field("temp", 12).$(1);
+                sender.metric("weather").field("temp", 13).$(2);
+                LockSupport.parkNanos(20_000_000);
+                Assert.assertEquals(0, channel.received().length());
+
+                sender.metric("weather").field("temp", 14).$(3);
+                sender.metric("weather").field("temp", 15).$(4);
+                channel.await(76);
+                TestUtils.assertEquals(
+                        "weather temp=12i 1\n" +
+                                "weather temp=13i 2\n" +
+                                "weather temp=14i 3\n" +
+                                "weather temp=15i 4\n",
+                        channel.received()
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testDatagramsKeepLinesIntact() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final TestChannel channel = new TestChannel(64);
+            final StringBuilder expected = new StringBuilder();
+            try (BatchingLineProtoSender sender = new BatchingLineProtoSender(new TestConfiguration(256, 1, false), channel)) {
+                for (int i = 0; i < 1000; i++) {
+                    sender.metric("m").tag("t", i % 2 == 0 ? "a" : "bbbbbbbbbbbbbbbb").field("v", i).$(i);
+                    expected.append("m,t=").append(i % 2 == 0 ? "a" : "bbbbbbbbbbbbbbbb").append(" v=").append(i).append("i ").append(i).append('\n');
+                }
+                sender.flush();
+                channel.await(expected.length());
+            }
+            TestUtils.assertEquals(expected, channel.received());
+            Assert.assertFalse(channel.splitLine);
+        });
+    }
+
+    @Test
+    public void testDropOnFull() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final TestChannel channel = new TestChannel(Integer.MAX_VALUE);
+            channel.connectable = false;
+            final StringBuilder expected = new StringBuilder();
+            try (BatchingLineProtoSender sender = new BatchingLineProtoSender(new TestConfiguration(256, 1, true), channel)) {
+                // rows are 12 and 13 bytes long, buffer takes 20 of them
+                for (int i = 0; i < 100; i++) {
+                    sender.metric("x").field("v", i).$(1000 + i);
+                    if (i < 20) {
+                        expected.append("x v=").append(i).append("i ").append(1000 + i).append('\n');
+                    }
+                }
+                Assert.assertEquals(80, sender.getDroppedRowCount());
+                Assert.assertEquals(0, sender.getBackPressureCount());
+
+                channel.connectable = true;
+                sender.flush();
+                channel.await(expected.length());
+
+                sender.metric("x").field("v", 100).$(1100);
+                expected.append("x v=100i 1100\n");
+                sender.flush();
+                channel.await(expected.length());
+            }
+            TestUtils.assertEquals(expected, channel.received());
+        });
+    }
+
+    @Test
+    public void testFlushInterval() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final TestChannel channel = new TestChannel(Integer.MAX_VALUE);
+            final TestConfiguration configuration = new TestConfiguration(1024, 1024, false);
+            try (BatchingLineProtoSender sender = new BatchingLineProtoSender(configuration, channel)) {
+                sender.metric("weather").field("temp", 12).$(1);
+                LockSupport.parkNanos(20_000_000);
+                Assert.assertEquals(0, channel.received().length());
+
+                configuration.millis = 100;
+                channel.await(19);
+                TestUtils.assertEquals("weather temp=12i 1\n", channel.received());
+            }
+        });
+    }
+
+    @Test
+    public void testLineTooLong() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final TestChannel channel = new TestChannel(32);
+            try (BatchingLineProtoSender sender = new BatchingLineProtoSender(new TestConfiguration(256, 1, false), channel)) {
+                try {
+                    sender.metric("weather").field("note", "does not fit in a datagram").$(1);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "line too long");
+                }
+                sender.metric("weather").field("temp", 12).$(2);
+                sender.flush();
+                channel.await(19);
+            }
+            TestUtils.assertEquals("weather temp=12i 2\n", channel.received());
+        });
+    }
+
+    @Test
+    public void testReconnect() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final TestChannel channel = new TestChannel(Integer.MAX_VALUE);
+            // first connection breaks in the middle of the second line
+            channel.failAt = 25;
+            try (BatchingLineProtoSender sender = new BatchingLineProtoSender(new TestConfiguration(1024, 1024, false), channel)) {
+                sender.metric("weather").field("temp", 12).$(1);
+                sender.metric("weather").field("temp", 13).$(2);
+                sender.metric("weather").field("temp", 14).$(3);
+                sender.flush();
+                channel.await(64);
+                Assert.assertEquals(1, sender.getReconnectCount());
+                Assert.assertEquals(1, sender.getSendErrorCount());
+            }
+            // line that did not make it through in full is sent again
+            TestUtils.assertEquals(
+                    "weather temp=12i 1\n" +
+                            "weathe\n" +
+                            "weather temp=13i 2\n" +
+                            "weather temp=14i 3\n",
+                    channel.received()
+            );
+        });
+    }
+
+    private static class TestChannel implements LineProtoChannel {
+        private final int maxSendSize;
+        private final StringBuilder received = new StringBuilder();
+        private volatile boolean connectable = true;
+        private volatile boolean splitLine = false;
+        private boolean connected = false;
+        private boolean broken = false;
+        private int failAt = -1;
+
+        private TestChannel(int maxSendSize) {
+            this.maxSendSize = maxSendSize;
+        }
+
+        @Override
+        public void close() {
+            connected = false;
+        }
+
+        @Override
+        public boolean connect() {
+            connected = connectable;
+            return connected;
+        }
+
+        @Override
+        public int getMaxSendSize() {
+            return maxSendSize;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public synchronized int send(long lo, int len) {
+            Assert.assertTrue(len <= maxSendSize);
+            if (Unsafe.getUnsafe().getByte(lo + len - 1) != '\n') {
+                splitLine = true;
+            }
+
+            if (broken) {
+                // separates what first connection has received
+                received.append('\n');
+                broken = false;
+                connected = false;
+                return -1;
+            }
+
+            int n = len;
+            if (failAt > -1 && received.length() + len > failAt) {
+                n = failAt - received.length();
+                failAt = -1;
+                broken = true;
+            }
+
+            for (int i = 0; i < n; i++) {
+                received.append((char) Unsafe.getUnsafe().getByte(lo + i));
+            }
+            return n;
+        }
+
+        private void await(int len) {
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (received().length() < len) {
+                Assert.assertTrue(System.currentTimeMillis() < deadline);
+                LockSupport.parkNanos(1_000_000);
+            }
+        }
+
+        private synchronized CharSequence received() {
+            return received.toString();
+        }
+    }
+
+    private static class TestConfiguration extends DefaultLineProtoSenderConfiguration {
+        private final int bufferCapacity;
+        private final int batchSize;
+        private final boolean dropOnFull;
+        private volatile long millis = 0;
+
+        private TestConfiguration(int bufferCapacity, int batchSize, boolean dropOnFull) {
+            this.bufferCapacity = bufferCapacity;
+            this.batchSize = batchSize;
+            this.dropOnFull = dropOnFull;
+        }
+
+        @Override
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        @Override
+        public int getBufferCapacity() {
+            return bufferCapacity;
+        }
+
+        @Override
+        public MillisecondClock getMillisecondClock() {
+            return () -> millis;
+        }
+
+        @Override
+        public long getReconnectInterval() {
+            return 0;
+        }
+
+        @Override
+        public boolean isDropOnFull() {
+            return dropOnFull;
+        }
+    }
+}
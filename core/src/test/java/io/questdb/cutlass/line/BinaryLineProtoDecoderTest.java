@@ -0,0 +1,347 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+public class BinaryLineProtoDecoderTest {
+
+    private final BinaryLineProtoDecoder decoder = new BinaryLineProtoDecoder();
+    private final StringSink sink = new StringSink();
+    private final LineProtoRowParser printer = row -> {
+        print(row);
+        return true;
+    };
+    private ByteBuffer buf;
+    private int rowStart;
+    private int columnCountPosition;
+
+    @Before
+    public void setUp() {
+        decoder.clear();
+        sink.clear();
+        buf = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Test
+    public void testBadMagic() {
+        row(1, "x").column("a", BinaryLineProtoDecoder.TYPE_INT).putInt(1).endRow();
+        buf.put(0, (byte) 'x');
+        assertMalformed();
+    }
+
+    @Test
+    public void testClearForgetsNames() {
+        row(1, "x").column("a", BinaryLineProtoDecoder.TYPE_INT).putInt(1).endRow();
+        assertDecoded("x 1 a=1i\n");
+
+        decoder.clear();
+        sink.clear();
+        buf.clear();
+        row(2, 0).column(1, BinaryLineProtoDecoder.TYPE_INT).putInt(2).endRow();
+        assertMalformed();
+    }
+
+    @Test
+    public void testIncompleteRow() {
+        row(1, "x").column("a", BinaryLineProtoDecoder.TYPE_INT).putInt(1).endRow();
+        final int first = buf.position();
+        row(2, 0).column(1, BinaryLineProtoDecoder.TYPE_INT).putInt(2).endRow();
+
+        final long mem = copy();
+        try {
+            for (int len = 0; len < first; len++) {
+                Assert.assertEquals(mem, decoder.decode(mem, mem + len, printer));
+            }
+            Assert.assertEquals(mem + first, decoder.decode(mem, mem + buf.position() - 1, printer));
+            TestUtils.assertEquals("x 1 a=1i\n", sink);
+        } finally {
+            Unsafe.free(mem, buf.position());
+        }
+    }
+
+    @Test
+    public void testNameReferences() {
+        row(1000, "weather")
+                .column("location", BinaryLineProtoDecoder.TYPE_TAG).putName("london")
+                .column("temp", BinaryLineProtoDecoder.TYPE_DOUBLE).putDouble(12.5)
+                .column("on", BinaryLineProtoDecoder.TYPE_BOOLEAN).putByte(1)
+                .endRow();
+        // weather=0, location=1, london=2, temp=3, on=4
+        row(Numbers.LONG_NaN, 0)
+                .column(1, BinaryLineProtoDecoder.TYPE_TAG).putName(2)
+                .column("city", BinaryLineProtoDecoder.TYPE_TAG).putName(2)
+                .column(3, BinaryLineProtoDecoder.TYPE_INT).putInt(-7)
+                .column(4, BinaryLineProtoDecoder.TYPE_BOOLEAN).putByte(0)
+                .column("note", BinaryLineProtoDecoder.TYPE_STRING).putStr("привет")
+                .endRow();
+        row(3000, "température").endRow();
+
+        assertDecoded("weather 1000 location=london temp=12.5 on=true\n" +
+                "weather - location=london city=london temp=-7i on=false note=\"привет\"\n" +
+                "température 3000\n");
+    }
+
+    @Test
+    public void testParserStops() {
+        row(1, "x").column("a", BinaryLineProtoDecoder.TYPE_INT).putInt(1).endRow();
+        final int first = buf.position();
+        row(2, 0).column(1, BinaryLineProtoDecoder.TYPE_INT).putInt(2).endRow();
+
+        final long mem = copy();
+        try {
+            final long hi = mem + buf.position();
+            final LineProtoRowParser stopper = row -> {
+                print(row);
+                return false;
+            };
+            Assert.assertEquals(mem + first, decoder.decode(mem, hi, stopper));
+            Assert.assertEquals(hi, decoder.decode(mem + first, hi, stopper));
+            TestUtils.assertEquals("x 1 a=1i\nx 2 a=2i\n", sink);
+        } finally {
+            Unsafe.free(mem, buf.position());
+        }
+    }
+
+    @Test
+    public void testResetScope() {
+        row(1, "x").column("a", BinaryLineProtoDecoder.TYPE_INT).putInt(1).endRow();
+        resetScope();
+        // ids start over, "b" takes id of "x"
+        row(2, "b").column(0, BinaryLineProtoDecoder.TYPE_INT).putInt(2).endRow();
+        row(3, 0).column("c", BinaryLineProtoDecoder.TYPE_INT).putInt(3).endRow();
+        assertDecoded("x 1 a=1i\nb 2 b=2i\nb 3 c=3i\n");
+
+        buf.clear();
+        row(4, "x").endRow();
+        resetScope();
+        row(5, 0).endRow();
+        assertMalformed();
+    }
+
+    @Test
+    public void testRowSizeMismatch() {
+        row(1, "x").column("a", BinaryLineProtoDecoder.TYPE_INT).putInt(1).endRow();
+        buf.putInt(1, buf.position() + 1);
+        buf.put((byte) 0);
+        assertMalformed();
+    }
+
+    @Test
+    public void testTooManyNames() {
+        buf = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        row(1, "x").endRow();
+        // every row adds one name to "x"
+        for (int i = 1; i < BinaryLineProtoDecoder.MAX_NAME_COUNT; i++) {
+            row(1, 0).column("c" + i, BinaryLineProtoDecoder.TYPE_INT).putInt(i).endRow();
+            if (buf.remaining() < 64) {
+                assertDecodedRows();
+            }
+        }
+        assertDecodedRows();
+
+        row(2, 0).column(BinaryLineProtoDecoder.MAX_NAME_COUNT - 1, BinaryLineProtoDecoder.TYPE_INT).putInt(2).endRow();
+        assertDecodedRows();
+        TestUtils.assertEquals("x 2 c32767=2i\n", sink);
+
+        row(3, 0).column("y", BinaryLineProtoDecoder.TYPE_INT).putInt(3).endRow();
+        assertMalformed();
+
+        // sender that has run out of ids starts over
+        sink.clear();
+        buf.clear();
+        resetScope();
+        row(3, "x").column("y", BinaryLineProtoDecoder.TYPE_INT).putInt(3).endRow();
+        assertDecoded("x 3 y=3i\n");
+    }
+
+    @Test
+    public void testUnknownReference() {
+        row(1, "x").column(1, BinaryLineProtoDecoder.TYPE_INT).putInt(1).endRow();
+        assertMalformed();
+    }
+
+    @Test
+    public void testUnknownType() {
+        row(1, "x").column("a", (byte) 100).putInt(1).endRow();
+        assertMalformed();
+    }
+
+    private void assertDecoded(String expected) {
+        final long mem = copy();
+        try {
+            final long hi = mem + buf.position();
+            Assert.assertEquals(hi, decoder.decode(mem, hi, printer));
+            TestUtils.assertEquals(expected, sink);
+        } finally {
+            Unsafe.free(mem, buf.position());
+        }
+    }
+
+    private void assertDecodedRows() {
+        final long mem = copy();
+        try {
+            sink.clear();
+            final long hi = mem + buf.position();
+            Assert.assertEquals(hi, decoder.decode(mem, hi, printer));
+        } finally {
+            Unsafe.free(mem, buf.position());
+        }
+        buf.clear();
+    }
+
+    private void assertMalformed() {
+        final long mem = copy();
+        try {
+            Assert.assertEquals(-1, decoder.decode(mem, mem + buf.position(), printer));
+        } finally {
+            Unsafe.free(mem, buf.position());
+        }
+    }
+
+    private BinaryLineProtoDecoderTest column(CharSequence name, byte type) {
+        putName(name);
+        buf.put(type);
+        buf.putShort(columnCountPosition, (short) (buf.getShort(columnCountPosition) + 1));
+        return this;
+    }
+
+    private BinaryLineProtoDecoderTest column(int id, byte type) {
+        putName(id);
+        buf.put(type);
+        buf.putShort(columnCountPosition, (short) (buf.getShort(columnCountPosition) + 1));
+        return this;
+    }
+
+    private long copy() {
+        final int len = buf.position();
+        final long mem = Unsafe.malloc(len);
+        for (int i = 0; i < len; i++) {
+            Unsafe.getUnsafe().putByte(mem + i, buf.get(i));
+        }
+        return mem;
+    }
+
+    private void endRow() {
+        buf.putInt(rowStart + 1, buf.position() - rowStart);
+    }
+
+    private void print(LineProtoRow row) {
+        sink.put(row.getTableName()).put(' ');
+        if (row.getTimestamp() == Numbers.LONG_NaN) {
+            sink.put('-');
+        } else {
+            sink.put(row.getTimestamp());
+        }
+        for (int i = 0, n = row.getColumnCount(); i < n; i++) {
+            sink.put(' ').put(row.getColumnName(i)).put('=');
+            switch (row.getColumnType(i)) {
+                case ColumnType.BOOLEAN:
+                    sink.put(row.getBool(i));
+                    break;
+                case ColumnType.INT:
+                    sink.put(row.getInt(i)).put('i');
+                    break;
+                case ColumnType.DOUBLE:
+                    sink.put(row.getDouble(i), 1);
+                    break;
+                case ColumnType.STRING:
+                    sink.put('"').put(row.getStr(i)).put('"');
+                    break;
+                default:
+                    sink.put(row.getStr(i));
+                    break;
+            }
+        }
+        sink.put('\n');
+    }
+
+    private BinaryLineProtoDecoderTest putByte(int value) {
+        buf.put((byte) value);
+        return this;
+    }
+
+    private BinaryLineProtoDecoderTest putDouble(double value) {
+        buf.putDouble(value);
+        return this;
+    }
+
+    private BinaryLineProtoDecoderTest putInt(int value) {
+        buf.putInt(value);
+        return this;
+    }
+
+    private BinaryLineProtoDecoderTest putName(CharSequence name) {
+        final byte[] bytes = name.toString().getBytes(StandardCharsets.UTF_8);
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+        return this;
+    }
+
+    private BinaryLineProtoDecoderTest putName(int id) {
+        buf.putShort((short) (-id - 1));
+        return this;
+    }
+
+    private BinaryLineProtoDecoderTest putStr(CharSequence value) {
+        final byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        buf.putInt(bytes.length);
+        buf.put(bytes);
+        return this;
+    }
+
+    private void resetScope() {
+        buf.put(BinaryLineProtoDecoder.MAGIC).putInt(BinaryLineProtoDecoder.RESET_SCOPE_SIZE);
+    }
+
+    private BinaryLineProtoDecoderTest row(long timestamp, CharSequence tableName) {
+        rowStart = buf.position();
+        buf.put(BinaryLineProtoDecoder.MAGIC).putInt(0).putLong(timestamp);
+        putName(tableName);
+        columnCountPosition = buf.position();
+        buf.putShort((short) 0);
+        return this;
+    }
+
+    private BinaryLineProtoDecoderTest row(long timestamp, int tableNameId) {
+        rowStart = buf.position();
+        buf.put(BinaryLineProtoDecoder.MAGIC).putInt(0).putLong(timestamp);
+        putName(tableNameId);
+        columnCountPosition = buf.position();
+        buf.putShort((short) 0);
+        return this;
+    }
+}
@@ -31,6 +31,7 @@ import io.questdb.std.microtime.DateFormatUtils;
 import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.Path;
+import io.questdb.std.time.MillisecondClock;
 import io.questdb.test.tools.TestMicroClock;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
@@ -217,6 +218,52 @@ public class CairoLineProtoParserTest extends AbstractCairoTest {
         assertMultiTable(expected1, expected2, lines);
     }
 
+    @Test
+    public void testBinaryRows() throws Exception {
+        final String expected = "sym\ti\td\tb\ts\ttimestamp\textra\n" +
+                "a\t1\t1.500000000000\ttrue\tx\t1970-01-01T00:00:01.000000Z\tNaN\n" +
+                "b\t2\t2.500000000000\tfalse\ty\t1970-01-01T00:00:02.000000Z\tNaN\n" +
+                "c\t3\tNaN\tfalse\t\t1970-01-01T00:00:03.000000Z\t7\n" +
+                "d\tNaN\t4.500000000000\tfalse\t\t1970-01-01T00:00:05.000000Z\tNaN\n";
+
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    CairoEngine engine = new CairoEngine(configuration, null);
+                    CairoLineProtoParser parser = new CairoLineProtoParser(engine, AllowAllCairoSecurityContext.INSTANCE)
+            ) {
+                final TestLineProtoRow row = new TestLineProtoRow();
+
+                // typed row creates table
+                Assert.assertTrue(parser.onRow(row.of("bin", 1000000)
+                        .col("sym", ColumnType.SYMBOL, "a")
+                        .col("i", ColumnType.INT, 1)
+                        .col("d", ColumnType.DOUBLE, 1.5)
+                        .col("b", ColumnType.BOOLEAN, true)
+                        .col("s", ColumnType.STRING, "x")));
+
+                // text and binary rows go to the same writer
+                parse(parser, "bin,sym=b i=2i,d=2.5,b=false,s=\"y\" 2000000\n");
+
+                Assert.assertTrue(parser.onRow(row.of("bin", 3000000)
+                        .col("sym", ColumnType.SYMBOL, "c")
+                        .col("i", ColumnType.INT, 3)
+                        .col("extra", ColumnType.INT, 7)));
+
+                // type mismatch, row is skipped
+                Assert.assertTrue(parser.onRow(row.of("bin", 4000000)
+                        .col("sym", ColumnType.SYMBOL, "x")
+                        .col("i", ColumnType.DOUBLE, 4.0)));
+
+                Assert.assertTrue(parser.onRow(row.of("bin", 5000000)
+                        .col("sym", ColumnType.SYMBOL, "d")
+                        .col("d", ColumnType.DOUBLE, 4.5)));
+
+                parser.commitAll();
+            }
+            assertTable(expected, "bin");
+        });
+    }
+
     @Test
     public void testBusyTable() throws Exception {
         final String expected = "double\tint\tbool\tsym1\tsym2\tstr\ttimestamp\n";
@@ -305,6 +352,92 @@ public class CairoLineProtoParserTest extends AbstractCairoTest {
         }
     }
 
+    @Test
+    public void testCommitInterval() throws Exception {
+        final long[] millis = {0};
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public MillisecondClock getMillisecondClock() {
+                return () -> millis[0];
+            }
+        };
+
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    CairoEngine engine = new CairoEngine(configuration, null);
+                    CairoLineProtoParser parser = new CairoLineProtoParser(engine, AllowAllCairoSecurityContext.INSTANCE, Integer.MAX_VALUE, Long.MAX_VALUE, 100)
+            ) {
+                parse(parser, "x v=1i 1000000\nx v=2i 2000000\n");
+                parser.commitDue();
+                assertRowCount("x", 0);
+
+                millis[0] = 50;
+                parse(parser, "y v=1i 1000000\n");
+                parser.commitDue();
+                assertRowCount("x", 0);
+                assertRowCount("y", 0);
+
+                // first row of "x" is 100ms old, "y" is only 50ms old
+                millis[0] = 100;
+                parser.commitDue();
+                assertRowCount("x", 2);
+                assertRowCount("y", 0);
+
+                millis[0] = 150;
+                parser.commitDue();
+                assertRowCount("y", 1);
+
+                // interval is measured from the first uncommitted row
+                parse(parser, "x v=3i 3000000\n");
+                millis[0] = 249;
+                parser.commitDue();
+                assertRowCount("x", 2);
+
+                millis[0] = 250;
+                parser.commitDue();
+                assertRowCount("x", 3);
+            }
+        });
+    }
+
+    @Test
+    public void testCommitRate() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    CairoEngine engine = new CairoEngine(configuration, null);
+                    CairoLineProtoParser parser = new CairoLineProtoParser(engine, AllowAllCairoSecurityContext.INSTANCE, 2, Long.MAX_VALUE, Long.MAX_VALUE)
+            ) {
+                parse(parser, "x v=1i 1000000\ny v=1i 1000000\nx v=2i 2000000\nx v=3i 3000000\n");
+                parser.commitDue();
+                assertRowCount("x", 2);
+                assertRowCount("y", 0);
+
+                parser.commitAll();
+                assertRowCount("x", 3);
+                assertRowCount("y", 1);
+            }
+        });
+    }
+
+    @Test
+    public void testCommitSize() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    CairoEngine engine = new CairoEngine(configuration, null);
+                    // each line is 15 bytes
+                    CairoLineProtoParser parser = new CairoLineProtoParser(engine, AllowAllCairoSecurityContext.INSTANCE, Integer.MAX_VALUE, 30, Long.MAX_VALUE)
+            ) {
+                parse(parser, "x v=1i 1000000\ny v=1i 1000000\nx v=2i 2000000\nx v=3i 3000000\n");
+                assertRowCount("x", 2);
+                assertRowCount("y", 0);
+
+                parser.commitAll();
+                assertRowCount("x", 3);
+                assertRowCount("y", 1);
+            }
+        });
+    }
+
     @Test
     public void testCreateAndAppend() throws Exception {
         final String expected = "tag\ttag2\tfield\tf4\tfield2\tfx\ttimestamp\n" +
@@ -497,6 +630,30 @@ public class CairoLineProtoParserTest extends AbstractCairoTest {
         assertTable(expected2, "y");
     }
 
+    private static void parse(CairoLineProtoParser parser, String lines) {
+        byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+        int len = bytes.length;
+        long mem = Unsafe.malloc(len);
+        try {
+            for (int i = 0; i < len; i++) {
+                Unsafe.getUnsafe().putByte(mem + i, bytes[i]);
+            }
+            try (LineProtoLexer lexer = new LineProtoLexer(4096)) {
+                lexer.withParser(parser);
+                lexer.parse(mem, mem + len);
+                lexer.parseLast();
+            }
+        } finally {
+            Unsafe.free(mem, len);
+        }
+    }
+
+    private void assertRowCount(CharSequence tableName, long expected) {
+        try (TableReader reader = new TableReader(configuration, tableName)) {
+            Assert.assertEquals(expected, reader.size());
+        }
+    }
+
     private void assertTable(CharSequence expected, CharSequence tableName) {
         try (TableReader reader = new TableReader(configuration, tableName)) {
             assertThat(expected, reader.getCursor(), reader.getMetadata(), true);
@@ -532,4 +689,78 @@ public class CairoLineProtoParserTest extends AbstractCairoTest {
     private void assertThat(String expected, String lines, CharSequence tableName) throws Exception {
         assertThat(expected, lines, tableName, configuration);
     }
-}
\ No newline at end of file
+
+    private static class TestLineProtoRow implements LineProtoRow {
+        private final ObjList<CharSequence> names = new ObjList<>();
+        private final IntList types = new IntList();
+        private final ObjList<Object> values = new ObjList<>();
+        private CharSequence tableName;
+        private long timestamp;
+
+        @Override
+        public boolean getBool(int index) {
+            return (Boolean) values.getQuick(index);
+        }
+
+        @Override
+        public int getColumnCount() {
+            return names.size();
+        }
+
+        @Override
+        public CharSequence getColumnName(int index) {
+            return names.getQuick(index);
+        }
+
+        @Override
+        public int getColumnType(int index) {
+            return types.getQuick(index);
+        }
+
+        @Override
+        public double getDouble(int index) {
+            return (Double) values.getQuick(index);
+        }
+
+        @Override
+        public int getInt(int index) {
+            return (Integer) values.getQuick(index);
+        }
+
+        @Override
+        public int getSize() {
+            return 1;
+        }
+
+        @Override
+        public CharSequence getStr(int index) {
+            return (CharSequence) values.getQuick(index);
+        }
+
+        @Override
+        public CharSequence getTableName() {
+            return tableName;
+        }
+
+        @Override
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        TestLineProtoRow col(CharSequence name, int type, Object value) {
+            names.add(name);
+            types.add(type);
+            values.add(value);
+            return this;
+        }
+
+        TestLineProtoRow of(CharSequence tableName, long timestamp) {
+            this.tableName = tableName;
+            this.timestamp = timestamp;
+            names.clear();
+            types.clear();
+            values.clear();
+            return this;
+        }
+    }
+}
@@ -232,6 +232,46 @@ public class LineProtoLexerTest {
         assertError("measurement, 100000\n", LineProtoParser.EVT_TAG_NAME, LineProtoParser.ERROR_EXPECTED, 12);
     }
 
+    @Test
+    public void testPause() {
+        final String lines = "m1,tag=a f=1i 100\n" +
+                "m2,tag=b\\\nc f=2i 200\r\n" +
+                "m3 f=3i\n";
+        final byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+        final long mem = Unsafe.malloc(bytes.length);
+        try {
+            for (int i = 0; i < bytes.length; i++) {
+                Unsafe.getUnsafe().putByte(mem + i, bytes[i]);
+            }
+
+            final TestLineProtoParser pausingParser = new TestLineProtoParser() {
+                @Override
+                public void onLineEnd(CharSequenceCache cache) {
+                    super.onLineEnd(cache);
+                    lexer.pause();
+                }
+            };
+            pausingParser.clear();
+            lexer.withParser(pausingParser);
+
+            final long hi = mem + bytes.length;
+            long p = lexer.parse(mem, hi);
+            Assert.assertEquals(mem + 18, p);
+            TestUtils.assertEquals("m1,tag=a f=1i 100\n", sink);
+
+            p = lexer.parse(p, hi);
+            Assert.assertEquals(mem + 39, p);
+            TestUtils.assertEquals("m1,tag=a f=1i 100\nm2,tag=b\nc f=2i 200\n", sink);
+
+            // '\n' of "\r\n" is an empty line, which does not end anything
+            p = lexer.parse(p, hi);
+            Assert.assertEquals(hi, p);
+            TestUtils.assertEquals("m1,tag=a f=1i 100\nm2,tag=b\nc f=2i 200\nm3 f=3i\n", sink);
+        } finally {
+            Unsafe.free(mem, bytes.length);
+        }
+    }
+
     @Test
     public void testSimpleParse() {
         assertThat("measurement,tag=value,tag2=value field=10000i,field2=\"str\" 100000\n", "measurement,tag=value,tag2=value field=10000i,field2=\"str\" 100000\n");
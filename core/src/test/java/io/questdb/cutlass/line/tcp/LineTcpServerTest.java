@@ -0,0 +1,472 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.*;
+import io.questdb.cutlass.line.BatchingLineProtoSender;
+import io.questdb.cutlass.line.BinaryLineProtoDecoder;
+import io.questdb.cutlass.line.DefaultLineProtoSenderConfiguration;
+import io.questdb.cutlass.line.LineProtoSenderConfiguration;
+import io.questdb.cutlass.line.udp.BinaryLineProtoSender;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
+import io.questdb.network.DefaultIODispatcherConfiguration;
+import io.questdb.network.IODispatcherConfiguration;
+import io.questdb.network.Net;
+import io.questdb.network.NetworkFacade;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.Chars;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.microtime.DateFormatUtils;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.LockSupport;
+
+public class LineTcpServerTest extends AbstractCairoTest {
+    private static final Log LOG = LogFactory.getLog(LineTcpServerTest.class);
+    private static final int PORT = 9019;
+
+    @Test
+    public void testBatchingSender() throws Exception {
+        final StringBuilder expected = new StringBuilder("host\tload\ttimestamp\n");
+        for (int i = 0; i < 1000; i++) {
+            expected.append('h').append(i % 3).append('\t').append(i).append(".500000000000\t1970-01-01T00:00:0").append(i / 1000).append('.').append(pad(i % 1000)).append("Z\n");
+        }
+
+        assertReceive(
+                new TestLineTcpReceiverConfiguration(),
+                fd -> {
+                    final LineProtoSenderConfiguration senderConfiguration = new DefaultLineProtoSenderConfiguration() {
+                        @Override
+                        public int getBatchSize() {
+                            return 512;
+                        }
+
+                        @Override
+                        public int getBufferCapacity() {
+                            return 2048;
+                        }
+                    };
+                    // rows go over sender's own connection, buffer wraps many times
+                    try (BatchingLineProtoSender sender = new BatchingLineProtoSender(
+                            senderConfiguration,
+                            new TcpLineProtoChannel(NetworkFacadeImpl.INSTANCE, Net.parseIPv4("127.0.0.1"), PORT)
+                    )) {
+                        for (int i = 0; i < 1000; i++) {
+                            sender.metric("cpu").tag("host", "h" + i % 3).field("load", i + 0.5, 1).$(i * 1000L);
+                        }
+                    }
+                },
+                new TableModel(configuration, "cpu", PartitionBy.NONE)
+                        .col("host", ColumnType.SYMBOL)
+                        .col("load", ColumnType.DOUBLE)
+                        .timestamp(),
+                1000,
+                expected
+        );
+    }
+
+    @Test
+    public void testBinaryRowsSplitAcrossSends() throws Exception {
+        // rows are encoded the way UDP sender does and then replayed in small chunks
+        final ObjList<byte[]> datagrams = new ObjList<>();
+        final NetworkFacade nf = new NetworkFacadeImpl() {
+            @Override
+            public int sendTo(long fd, long ptr, int len, long socketAddress) {
+                final byte[] bytes = new byte[len];
+                for (int i = 0; i < len; i++) {
+                    bytes[i] = Unsafe.getUnsafe().getByte(ptr + i);
+                }
+                datagrams.add(bytes);
+                return len;
+            }
+        };
+
+        try (BinaryLineProtoSender sender = new BinaryLineProtoSender(nf, 0, Net.parseIPv4("127.0.0.1"), PORT, 1400)) {
+            sender.metric("weather").tag("city", "London Central").field("temp", 11.5, 1).field("wind", 3).$(1000000);
+            sender.metric("weather").tag("city", "Paris").field("temp", 14.0, 1).field("wind", 2).$(2000000);
+            sender.metric("weather").tag("city", "Oslo").field("temp", -1.5, 1).field("wind", 7).$(3000000);
+            sender.flush();
+        }
+        Assert.assertEquals(1, datagrams.size());
+        final byte[] bytes = datagrams.getQuick(0);
+
+        assertReceive(
+                new TestLineTcpReceiverConfiguration() {
+                    @Override
+                    public int getMsgBufferSize() {
+                        return 128;
+                    }
+                },
+                fd -> {
+                    final long buf = Unsafe.malloc(bytes.length);
+                    try {
+                        for (int i = 0; i < bytes.length; i++) {
+                            Unsafe.getUnsafe().putByte(buf + i, bytes[i]);
+                        }
+                        for (int i = 0; i < bytes.length; i += 13) {
+                            send(fd, buf + i, Math.min(13, bytes.length - i));
+                            LockSupport.parkNanos(100_000);
+                        }
+                    } finally {
+                        Unsafe.free(buf, bytes.length);
+                    }
+                },
+                new TableModel(configuration, "weather", PartitionBy.NONE)
+                        .col("city", ColumnType.SYMBOL)
+                        .col("temp", ColumnType.DOUBLE)
+                        .col("wind", ColumnType.INT)
+                        .timestamp(),
+                3,
+                "city\ttemp\twind\ttimestamp\n" +
+                        "London Central\t11.500000000000\t3\t1970-01-01T00:00:01.000000Z\n" +
+                        "Paris\t14.000000000000\t2\t1970-01-01T00:00:02.000000Z\n" +
+                        "Oslo\t-1.500000000000\t7\t1970-01-01T00:00:03.000000Z\n"
+        );
+    }
+
+    @Test
+    public void testBinaryNameScopeReset() throws Exception {
+        // every row sends tag value in full, which takes a name id for the rest of the scope even when value repeats
+        final int rowCount = BinaryLineProtoDecoder.MAX_NAME_COUNT + 10_000;
+        final ByteBuffer buf = ByteBuffer.allocate(rowCount * 32).order(ByteOrder.LITTLE_ENDIAN);
+        final StringSink expected = new StringSink();
+        expected.put("tag\ttimestamp\n");
+        int nameCount = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if (nameCount == BinaryLineProtoDecoder.MAX_NAME_COUNT) {
+                buf.put(BinaryLineProtoDecoder.MAGIC).putInt(BinaryLineProtoDecoder.RESET_SCOPE_SIZE);
+                nameCount = 0;
+            }
+
+            final int rowStart = buf.position();
+            final long timestamp = i * 1000L;
+            buf.put(BinaryLineProtoDecoder.MAGIC).putInt(0).putLong(timestamp);
+            if (nameCount == 0) {
+                putName(buf, "tags");
+                buf.putShort((short) 1);
+                putName(buf, "tag");
+                nameCount += 2;
+            } else {
+                buf.putShort((short) -1);
+                buf.putShort((short) 1);
+                buf.putShort((short) -2);
+            }
+            buf.put(BinaryLineProtoDecoder.TYPE_TAG);
+            putName(buf, "v" + (i % 64));
+            nameCount++;
+            buf.putInt(rowStart + 1, buf.position() - rowStart);
+
+            expected.put('v').put(i % 64).put('\t');
+            DateFormatUtils.appendDateTimeUSec(expected, timestamp);
+            expected.put('\n');
+        }
+
+        assertReceive(
+                new TestLineTcpReceiverConfiguration(),
+                fd -> {
+                    final int len = buf.position();
+                    final long mem = Unsafe.malloc(len);
+                    try {
+                        for (int i = 0; i < len; i++) {
+                            Unsafe.getUnsafe().putByte(mem + i, buf.get(i));
+                        }
+                        send(fd, mem, len);
+                    } finally {
+                        Unsafe.free(mem, len);
+                    }
+                },
+                new TableModel(configuration, "tags", PartitionBy.NONE)
+                        .col("tag", ColumnType.SYMBOL)
+                        .timestamp(),
+                rowCount,
+                expected
+        );
+    }
+
+    @Test
+    public void testDedicatedWorkerPool() throws Exception {
+        final StringBuilder lines = new StringBuilder();
+        final StringBuilder expected = new StringBuilder("host\tload\ttimestamp\n");
+        for (int i = 0; i < 100; i++) {
+            lines.append("cpu,host=h").append(i % 3).append(" load=").append(i).append(".5 ").append(i * 1000L).append('\n');
+            expected.append('h').append(i % 3).append('\t').append(i).append(".500000000000\t1970-01-01T00:00:00.").append(pad(i)).append("Z\n");
+        }
+
+        try (TableModel model = new TableModel(configuration, "cpu", PartitionBy.NONE)
+                .col("host", ColumnType.SYMBOL)
+                .col("load", ColumnType.DOUBLE)
+                .timestamp()) {
+            CairoTestUtils.create(model);
+        }
+
+        final LineTcpReceiverConfiguration receiverConfiguration = new TestLineTcpReceiverConfiguration() {
+            @Override
+            public int[] getWorkerAffinity() {
+                return new int[]{-1, -1};
+            }
+
+            @Override
+            public int getWorkerCount() {
+                return 2;
+            }
+        };
+
+        TestUtils.assertMemoryLeak(() -> {
+            try (CairoEngine engine = new CairoEngine(configuration, null)) {
+                // server starts its own pool and must stop it before writers are released
+                try (LineTcpServer server = LineTcpServer.create(receiverConfiguration, null, LOG, engine)) {
+                    Assert.assertNotNull(server);
+                    assertClient(fd -> send(fd, lines), "cpu", 100, expected);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testFullWriterQueue() throws Exception {
+        final StringBuilder lines = new StringBuilder();
+        final StringBuilder expected = new StringBuilder("host\tload\ttimestamp\n");
+        for (int i = 0; i < 500; i++) {
+            lines.append("cpu,host=h").append(i % 3).append(" load=").append(i).append(".5 ").append(i * 1000L).append('\n');
+            expected.append('h').append(i % 3).append('\t').append(i).append(".500000000000\t1970-01-01T00:00:00.").append(pad(i)).append("Z\n");
+        }
+
+        assertReceive(
+                new TestLineTcpReceiverConfiguration() {
+                    @Override
+                    public int getCommitRate() {
+                        return 1;
+                    }
+
+                    @Override
+                    public int getWriterQueueCapacity() {
+                        return 2;
+                    }
+                },
+                fd -> send(fd, lines),
+                new TableModel(configuration, "cpu", PartitionBy.NONE)
+                        .col("host", ColumnType.SYMBOL)
+                        .col("load", ColumnType.DOUBLE)
+                        .timestamp(),
+                500,
+                expected
+        );
+    }
+
+    @Test
+    public void testLinesSplitAcrossSends() throws Exception {
+        assertReceive(
+                new TestLineTcpReceiverConfiguration() {
+                    @Override
+                    public int getMsgBufferSize() {
+                        return 16;
+                    }
+                },
+                fd -> {
+                    send(fd, "weather,city=Lon");
+                    send(fd, "don\\ Central temp=11.5,wind=");
+                    send(fd, "3 1000000\nweather,city=Paris temp=14.0,wind=2 2000000\r\nweath");
+                    send(fd, "er,city=Oslo temp=");
+                    send(fd, "-1.5,wind=7 3000000\n");
+                },
+                new TableModel(configuration, "weather", PartitionBy.NONE)
+                        .col("city", ColumnType.SYMBOL)
+                        .col("temp", ColumnType.DOUBLE)
+                        .col("wind", ColumnType.DOUBLE)
+                        .timestamp(),
+                3,
+                "city\ttemp\twind\ttimestamp\n" +
+                        "London Central\t11.500000000000\t3.000000000000\t1970-01-01T00:00:01.000000Z\n" +
+                        "Paris\t14.000000000000\t2.000000000000\t1970-01-01T00:00:02.000000Z\n" +
+                        "Oslo\t-1.500000000000\t7.000000000000\t1970-01-01T00:00:03.000000Z\n"
+        );
+    }
+
+    @Test
+    public void testMultipleTables() throws Exception {
+        final StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            lines.append("t").append(i % 3).append(",tag=x v=").append(i).append(' ').append((i + 1) * 1000000L).append('\n');
+        }
+
+        assertReceive(
+                new TestLineTcpReceiverConfiguration(),
+                fd -> send(fd, lines),
+                // t0 and t2 are created by writers
+                new TableModel(configuration, "t1", PartitionBy.NONE)
+                        .col("tag", ColumnType.SYMBOL)
+                        .col("v", ColumnType.DOUBLE)
+                        .timestamp(),
+                10,
+                "tag\tv\ttimestamp\n" +
+                        "x\t1.000000000000\t1970-01-01T00:00:02.000000Z\n" +
+                        "x\t4.000000000000\t1970-01-01T00:00:05.000000Z\n" +
+                        "x\t7.000000000000\t1970-01-01T00:00:08.000000Z\n" +
+                        "x\t10.000000000000\t1970-01-01T00:00:11.000000Z\n" +
+                        "x\t13.000000000000\t1970-01-01T00:00:14.000000Z\n" +
+                        "x\t16.000000000000\t1970-01-01T00:00:17.000000Z\n" +
+                        "x\t19.000000000000\t1970-01-01T00:00:20.000000Z\n" +
+                        "x\t22.000000000000\t1970-01-01T00:00:23.000000Z\n" +
+                        "x\t25.000000000000\t1970-01-01T00:00:26.000000Z\n" +
+                        "x\t28.000000000000\t1970-01-01T00:00:29.000000Z\n"
+        );
+    }
+
+    private static String pad(int millis) {
+        final String s = Integer.toString(millis);
+        return "000".substring(s.length()) + s + "000";
+    }
+
+    private static void putName(ByteBuffer buf, CharSequence name) {
+        final byte[] bytes = name.toString().getBytes(StandardCharsets.UTF_8);
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+    }
+
+    private static void send(long fd, CharSequence value) {
+        final int len = value.length();
+        final long buf = Unsafe.malloc(len);
+        try {
+            Chars.strcpy(value, len, buf);
+            send(fd, buf, len);
+        } finally {
+            Unsafe.free(buf, len);
+        }
+    }
+
+    private static void send(long fd, long buf, int len) {
+        int sent = 0;
+        while (sent < len) {
+            final int n = Net.send(fd, buf + sent, len - sent);
+            Assert.assertTrue(n > -1);
+            sent += n;
+        }
+    }
+
+    private void assertReceive(
+            LineTcpReceiverConfiguration receiverConfiguration,
+            ClientCode code,
+            TableModel model,
+            int rowCount,
+            CharSequence expected
+    ) throws Exception {
+        // table is created upfront, reader must not race writer creating it
+        try {
+            CairoTestUtils.create(model);
+        } finally {
+            model.close();
+        }
+
+        TestUtils.assertMemoryLeak(() -> {
+            final WorkerPool workerPool = new WorkerPool(new WorkerPoolConfiguration() {
+                @Override
+                public int[] getWorkerAffinity() {
+                    return new int[]{-1, -1};
+                }
+
+                @Override
+                public int getWorkerCount() {
+                    return 2;
+                }
+
+                @Override
+                public boolean haltOnError() {
+                    return false;
+                }
+            });
+
+            try (CairoEngine engine = new CairoEngine(configuration, null)) {
+                final LineTcpServer server = new LineTcpServer(receiverConfiguration, engine, workerPool, false);
+                try {
+                    workerPool.start(LOG);
+                    try {
+                        assertClient(code, model.getName(), rowCount, expected);
+                    } finally {
+                        workerPool.halt();
+                    }
+                } finally {
+                    server.close();
+                }
+            }
+        });
+    }
+
+    private void assertClient(ClientCode code, CharSequence tableName, int rowCount, CharSequence expected) {
+        final long fd = Net.socketTcp(true);
+        final long sockAddr = Net.sockaddr(Net.parseIPv4("127.0.0.1"), PORT);
+        try {
+            Assert.assertEquals(0, Net.connect(fd, sockAddr));
+            code.run(fd);
+            assertTable(tableName, rowCount, expected);
+        } finally {
+            Net.freeSockAddr(sockAddr);
+            Net.close(fd);
+        }
+    }
+
+    private void assertTable(CharSequence tableName, int rowCount, CharSequence expected) {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            try (TableReader reader = new TableReader(configuration, tableName)) {
+                if (reader.size() >= rowCount) {
+                    assertThat(expected, reader.getCursor(), reader.getMetadata(), true);
+                    return;
+                }
+            }
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ClientCode {
+        void run(long fd);
+    }
+
+    private static class TestLineTcpReceiverConfiguration extends DefaultLineTcpReceiverConfiguration {
+        private final IODispatcherConfiguration dispatcherConfiguration = new DefaultIODispatcherConfiguration() {
+            @Override
+            public int getBindPort() {
+                return PORT;
+            }
+        };
+
+        @Override
+        public IODispatcherConfiguration getDispatcherConfiguration() {
+            return dispatcherConfiguration;
+        }
+    }
+}
@@ -24,12 +24,124 @@
 
 package io.questdb.cutlass.line.udp;
 
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cutlass.line.BinaryLineProtoDecoder;
 import io.questdb.network.Net;
+import io.questdb.network.NetworkFacade;
 import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class LineProtoSenderTest {
 
+    @Test
+    public void testBinary() {
+        final ObjList<byte[]> datagrams = new ObjList<>();
+        final NetworkFacade nf = new NetworkFacadeImpl() {
+            @Override
+            public int sendTo(long fd, long ptr, int len, long socketAddress) {
+                final byte[] bytes = new byte[len];
+                for (int i = 0; i < len; i++) {
+                    bytes[i] = Unsafe.getUnsafe().getByte(ptr + i);
+                }
+                datagrams.add(bytes);
+                return len;
+            }
+        };
+
+        // capacity fits two rows with "weather" names in full, then references
+        try (BinaryLineProtoSender sender = new BinaryLineProtoSender(nf, 0, Net.parseIPv4("234.5.6.7"), 4567, 160)) {
+            for (int i = 0; i < 5; i++) {
+                sender.metric("weather")
+                        .tag("location", "london")
+                        .tag("by", "quest")
+                        .field("temp", 3400 + i)
+                        .field("wind", 2.5 + i, 1)
+                        .field("note", "ok ✓")
+                        .$(1000L * i);
+            }
+            sender.metric("température").tag("by", "quest").field("v", -1).$();
+            sender.flush();
+        }
+
+        Assert.assertEquals(3, datagrams.size());
+
+        final String expected = "weather 0 location=london by=quest temp=3400i wind=2.5 note=\"ok ✓\"\n" +
+                "weather 1000 location=london by=quest temp=3401i wind=3.5 note=\"ok ✓\"\n" +
+                "--\n" +
+                "weather 2000 location=london by=quest temp=3402i wind=4.5 note=\"ok ✓\"\n" +
+                "weather 3000 location=london by=quest temp=3403i wind=5.5 note=\"ok ✓\"\n" +
+                "--\n" +
+                "weather 4000 location=london by=quest temp=3404i wind=6.5 note=\"ok ✓\"\n" +
+                "température - by=quest v=-1i\n" +
+                "--\n";
+
+        final StringSink sink = new StringSink();
+        final BinaryLineProtoDecoder decoder = new BinaryLineProtoDecoder();
+        final long mem = Unsafe.malloc(160);
+        try {
+            for (int i = 0, n = datagrams.size(); i < n; i++) {
+                final byte[] bytes = datagrams.getQuick(i);
+                for (int j = 0; j < bytes.length; j++) {
+                    Unsafe.getUnsafe().putByte(mem + j, bytes[j]);
+                }
+                decoder.clear();
+                Assert.assertEquals(mem + bytes.length, decoder.decode(mem, mem + bytes.length, row -> {
+                    sink.put(row.getTableName()).put(' ');
+                    if (row.getTimestamp() == Numbers.LONG_NaN) {
+                        sink.put('-');
+                    } else {
+                        sink.put(row.getTimestamp());
+                    }
+                    for (int k = 0, m = row.getColumnCount(); k < m; k++) {
+                        sink.put(' ').put(row.getColumnName(k)).put('=');
+                        switch (row.getColumnType(k)) {
+                            case ColumnType.INT:
+                                sink.put(row.getInt(k)).put('i');
+                                break;
+                            case ColumnType.DOUBLE:
+                                sink.put(row.getDouble(k), 1);
+                                break;
+                            case ColumnType.STRING:
+                                sink.put('"').put(row.getStr(k)).put('"');
+                                break;
+                            default:
+                                sink.put(row.getStr(k));
+                                break;
+                        }
+                    }
+                    sink.put('\n');
+                    return true;
+                }));
+                sink.put("--\n");
+            }
+        } finally {
+            Unsafe.free(mem, 160);
+        }
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    @Test
+    public void testBinaryLineTooLong() {
+        try (BinaryLineProtoSender sender = new BinaryLineProtoSender(NetworkFacadeImpl.INSTANCE, 0, Net.parseIPv4("234.5.6.7"), 4567, 64)) {
+            sender.metric("weather").tag("location", "london").field("temp", 3400).$(1);
+            try {
+                sender.metric("weather").field("note", "fits the row buffer but not a whole datagram").$(2);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "line too long");
+            }
+            sender.metric("weather").tag("location", "paris").field("temp", 3500).$(3);
+            sender.flush();
+        }
+    }
+
     @Test
     public void testSimple() {
         try (LineProtoSender sender = new LineProtoSender(NetworkFacadeImpl.INSTANCE, 0, Net.parseIPv4("234.5.6.7"), 4567, 110)) {
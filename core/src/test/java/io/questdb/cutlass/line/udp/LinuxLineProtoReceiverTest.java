@@ -26,9 +26,12 @@ package io.questdb.cutlass.line.udp;
 
 import io.questdb.cairo.*;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cutlass.line.LineMeasurementScheduler;
 import io.questdb.mp.Job;
 import io.questdb.mp.SOCountDownLatch;
 import io.questdb.mp.Worker;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
 import io.questdb.network.Net;
 import io.questdb.network.NetworkFacade;
 import io.questdb.network.NetworkFacadeImpl;
@@ -47,6 +50,16 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
     private final static ReceiverFactory LINUX_FACTORY = LinuxLineProtoReceiver::new;
     private final static ReceiverFactory GENERIC_FACTORY = GenericLineProtoReceiver::new;
 
+    @Test
+    public void testGenericBackPressure() throws Exception {
+        assertBackPressure(GenericLineProtoReceiver::new);
+    }
+
+    @Test
+    public void testGenericBinaryReceive() throws Exception {
+        assertReceive(new TestLineUdpReceiverConfiguration(), GENERIC_FACTORY, true);
+    }
+
     @Test
     public void testGenericCannotBindSocket() throws Exception {
         assertCannotBindSocket(GENERIC_FACTORY);
@@ -67,6 +80,11 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
         assertCannotSetReceiveBuffer(GENERIC_FACTORY);
     }
 
+    @Test
+    public void testGenericCannotSetReusePort() throws Exception {
+        assertCannotSetReusePort(GENERIC_FACTORY);
+    }
+
     @Test
     public void testGenericFrequentCommit() throws Exception {
         assertFrequentCommit(GENERIC_FACTORY);
@@ -77,6 +95,22 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
         assertReceive(new TestLineUdpReceiverConfiguration(), GENERIC_FACTORY);
     }
 
+    @Test
+    public void testLinuxBackPressure() throws Exception {
+        if (Os.type != Os.LINUX_AMD64) {
+            return;
+        }
+        assertBackPressure(LinuxLineProtoReceiver::new);
+    }
+
+    @Test
+    public void testLinuxBinaryReceive() throws Exception {
+        if (Os.type != Os.LINUX_AMD64) {
+            return;
+        }
+        assertReceive(new TestLineUdpReceiverConfiguration(), LINUX_FACTORY, true);
+    }
+
     @Test
     public void testLinuxCannotBindSocket() throws Exception {
         if (Os.type != Os.LINUX_AMD64) {
@@ -109,6 +143,14 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
         assertCannotSetReceiveBuffer(LINUX_FACTORY);
     }
 
+    @Test
+    public void testLinuxCannotSetReusePort() throws Exception {
+        if (Os.type != Os.LINUX_AMD64) {
+            return;
+        }
+        assertCannotSetReusePort(LINUX_FACTORY);
+    }
+
     @Test
     public void testLinuxFrequentCommit() throws Exception {
         if (Os.type != Os.LINUX_AMD64) {
@@ -125,6 +167,138 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
         assertReceive(new TestLineUdpReceiverConfiguration(), LINUX_FACTORY);
     }
 
+    @Test
+    public void testServerMultipleReceivers() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final LineUdpReceiverConfiguration receiverCfg = new TestLineUdpReceiverConfiguration() {
+                @Override
+                public int getReceiverCount() {
+                    return 3;
+                }
+            };
+
+            final WorkerPool workerPool = new WorkerPool(new WorkerPoolConfiguration() {
+                @Override
+                public int[] getWorkerAffinity() {
+                    return new int[]{-1, -1};
+                }
+
+                @Override
+                public int getWorkerCount() {
+                    return 2;
+                }
+
+                @Override
+                public boolean haltOnError() {
+                    return false;
+                }
+            });
+
+            try (CairoEngine engine = new CairoEngine(new DefaultCairoConfiguration(root), null)) {
+                try (LineUdpServer server = new LineUdpServer(receiverCfg, engine, workerPool)) {
+                    Assert.assertEquals(3, server.getReceiverCount());
+                    workerPool.start(null);
+                    try {
+                        try (LineProtoSender sender = new LineProtoSender(NetworkFacadeImpl.INSTANCE, 0, receiverCfg.getBindIPv4Address(), receiverCfg.getPort(), 1400)) {
+                            for (int i = 0; i < 100; i++) {
+                                sender.metric("tab").tag("colour", "blue").field("size", i, 0).$(100000000);
+                                // one line per datagram to let kernel spread them
+                                sender.flush();
+                            }
+                        }
+
+                        final long deadline = System.currentTimeMillis() + 10_000;
+                        while (true) {
+                            long lineCount = 0;
+                            for (int i = 0; i < server.getReceiverCount(); i++) {
+                                lineCount += server.getReceiver(i).getLineCount();
+                            }
+                            if (lineCount == 100) {
+                                break;
+                            }
+                            Assert.assertTrue(System.currentTimeMillis() < deadline);
+                            LockSupport.parkNanos(1_000_000);
+                        }
+                    } finally {
+                        workerPool.halt();
+                    }
+
+                    long packetCount = 0;
+                    for (int i = 0; i < server.getReceiverCount(); i++) {
+                        packetCount += server.getReceiver(i).getPacketCount();
+                        Assert.assertEquals(0, server.getReceiver(i).getDroppedLineCount());
+                    }
+                    Assert.assertEquals(100, packetCount);
+                }
+
+                try (TableReader reader = new TableReader(new DefaultCairoConfiguration(root), "tab")) {
+                    Assert.assertEquals(100, reader.size());
+                }
+            }
+        });
+    }
+
+    private void assertBackPressure(ScheduledReceiverFactory factory) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final LineUdpReceiverConfiguration receiverCfg = new TestLineUdpReceiverConfiguration();
+
+            // receiver and writer share the only worker, receiver has to stop
+            // each time it fills writer queue to let writer drain it
+            final WorkerPool workerPool = new WorkerPool(new WorkerPoolConfiguration() {
+                @Override
+                public int[] getWorkerAffinity() {
+                    return new int[]{-1};
+                }
+
+                @Override
+                public int getWorkerCount() {
+                    return 1;
+                }
+
+                @Override
+                public boolean haltOnError() {
+                    return false;
+                }
+            });
+
+            try (CairoEngine engine = new CairoEngine(new DefaultCairoConfiguration(root), null)) {
+                try (
+                        LineMeasurementScheduler scheduler = new LineMeasurementScheduler(workerPool, 2, 2048, 1, Long.MAX_VALUE, 0, engine, AllowAllCairoSecurityContext.INSTANCE);
+                        AbstractLineProtoReceiver receiver = factory.createReceiver(receiverCfg, engine, AllowAllCairoSecurityContext.INSTANCE, scheduler)
+                ) {
+                    workerPool.assign(0, (Job) receiver);
+                    workerPool.start(null);
+                    try {
+                        try (LineProtoSender sender = new LineProtoSender(NetworkFacadeImpl.INSTANCE, 0, receiverCfg.getBindIPv4Address(), receiverCfg.getPort(), 1400)) {
+                            for (int i = 0; i < 50; i++) {
+                                sender.metric("tab").tag("colour", "blue").field("size", i, 0).$(100000000);
+                            }
+                            // field without value
+                            sender.put("tab colour").$();
+                            sender.flush();
+                        }
+
+                        final long deadline = System.currentTimeMillis() + 10_000;
+                        while (receiver.getLineCount() < 50 || receiver.getDroppedLineCount() < 1) {
+                            Assert.assertTrue(System.currentTimeMillis() < deadline);
+                            LockSupport.parkNanos(1_000_000);
+                        }
+                    } finally {
+                        workerPool.halt();
+                    }
+
+                    Assert.assertEquals(2, receiver.getPacketCount());
+                    Assert.assertEquals(1, receiver.getDroppedLineCount());
+                    Assert.assertTrue(receiver.getQueueFullCount() > 0);
+                }
+
+                try (TableReader reader = new TableReader(new DefaultCairoConfiguration(root), "tab")) {
+                    Assert.assertEquals(50, reader.size());
+                }
+            }
+        });
+    }
+
     private void assertCannotBindSocket(ReceiverFactory factory) throws Exception {
         TestUtils.assertMemoryLeak(() -> {
             NetworkFacade nf = new NetworkFacadeImpl() {
@@ -203,6 +377,29 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
         assertReceive(configuration, factory);
     }
 
+    private void assertCannotSetReusePort(ReceiverFactory factory) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            NetworkFacade nf = new NetworkFacadeImpl() {
+                @Override
+                public int setReusePort(long fd) {
+                    return -1;
+                }
+            };
+            LineUdpReceiverConfiguration receiverCfg = new TestLineUdpReceiverConfiguration() {
+                @Override
+                public NetworkFacade getNetworkFacade() {
+                    return nf;
+                }
+
+                @Override
+                public int getReceiverCount() {
+                    return 2;
+                }
+            };
+            assertConstructorFail(receiverCfg, factory);
+        });
+    }
+
     private void assertConstructorFail(LineUdpReceiverConfiguration receiverCfg, ReceiverFactory factory) {
         try (CairoEngine engine = new CairoEngine(new DefaultCairoConfiguration(root), null)) {
             try {
@@ -224,6 +421,10 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
     }
 
     private void assertReceive(LineUdpReceiverConfiguration receiverCfg, ReceiverFactory factory) throws Exception {
+        assertReceive(receiverCfg, factory, false);
+    }
+
+    private void assertReceive(LineUdpReceiverConfiguration receiverCfg, ReceiverFactory factory, boolean binary) throws Exception {
         TestUtils.assertMemoryLeak(() -> {
             final String expected = "colour\tshape\tsize\ttimestamp\n" +
                     "blue\tsquare\t3.400000000000\t1970-01-01T00:01:40.000000Z\n" +
@@ -265,7 +466,10 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
                     Worker worker = new Worker(jobs, workerHaltLatch);
                     worker.start();
 
-                    try (LineProtoSender sender = new LineProtoSender(NetworkFacadeImpl.INSTANCE, 0, receiverCfg.getBindIPv4Address(), receiverCfg.getPort(), 1400)) {
+                    try (LineProtoSender sender = binary
+                            ? new BinaryLineProtoSender(NetworkFacadeImpl.INSTANCE, 0, receiverCfg.getBindIPv4Address(), receiverCfg.getPort(), 1400)
+                            : new LineProtoSender(NetworkFacadeImpl.INSTANCE, 0, receiverCfg.getBindIPv4Address(), receiverCfg.getPort(), 1400)
+                    ) {
                         for (int i = 0; i < 10; i++) {
                             sender.metric("tab").tag("colour", "blue").tag("shape", "square").field("size", 3.4, 4).$(100000000);
                         }
@@ -299,6 +503,16 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
         });
     }
 
+    @FunctionalInterface
+    private interface ScheduledReceiverFactory {
+        AbstractLineProtoReceiver createReceiver(
+                LineUdpReceiverConfiguration receiverCfg,
+                CairoEngine engine,
+                CairoSecurityContext cairoSecurityContext,
+                LineMeasurementScheduler scheduler
+        );
+    }
+
     private static class TestLineUdpReceiverConfiguration implements LineUdpReceiverConfiguration {
 
         @Override
@@ -306,11 +520,21 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
             return Net.parseIPv4("127.0.0.1");
         }
 
+        @Override
+        public long getCommitInterval() {
+            return 0;
+        }
+
         @Override
         public int getCommitRate() {
             return 1024 * 1024;
         }
 
+        @Override
+        public long getCommitSize() {
+            return Long.MAX_VALUE;
+        }
+
         @Override
         public int getGroupIPv4Address() {
             return Net.parseIPv4("224.1.1.1");
@@ -340,5 +564,20 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
         public int getReceiveBufferSize() {
             return -1;
         }
+
+        @Override
+        public int getReceiverCount() {
+            return 1;
+        }
+
+        @Override
+        public int getWriterQueueCapacity() {
+            return 64;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Rnd;
+import io.questdb.std.Zip;
+import io.questdb.std.microtime.DateFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static io.questdb.griffin.CompiledQuery.ALTER;
+
+public class AlterTableCompressPartitionTest extends AbstractGriffinTest {
+
+    @BeforeClass
+    public static void setUp4() {
+        // Zip allocates its gzip header when class is loaded, make sure this does not count as leak
+        Assert.assertNotEquals(0, Zip.gzipHeader);
+    }
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testCompressActivePartition() throws Exception {
+        assertFailure("alter table x compress partition '2018-01-04'", 33, "could not compress partition '2018-01-04'");
+    }
+
+    @Test
+    public void testCompressExpectPartitionKeyword() throws Exception {
+        assertFailure("alter table x compress", 22, "'partition' expected");
+    }
+
+    @Test
+    public void testCompressExpectPartitionName() throws Exception {
+        assertFailure("alter table x compress partition", 32, "partition name expected");
+    }
+
+    @Test
+    public void testCompressInvalidPartitionName() throws Exception {
+        assertFailure("alter table x compress partition '2018-01'", 33, "invalid partition name");
+    }
+
+    @Test
+    public void testCompressMissingPartition() throws Exception {
+        assertFailure("alter table x compress partition '2017-12-01'", 33, "could not compress partition '2017-12-01'");
+    }
+
+    @Test
+    public void testCompressNotPartitioned() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try {
+                compiler.compile("create table y as (select x, to_timestamp('2018-01', 'yyyy-MM') + x * 1000000 ts from long_sequence(10)) timestamp(ts)");
+                compiler.compile("alter table y compress partition '2018-01-01'");
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(12, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "table is not partitioned");
+            }
+
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testCompressPartitions() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+
+            final String expected = select("x");
+            final String expectedAgg = select("select sum(amt), sum(j), sum(d), count() from x");
+
+            Assert.assertEquals(ALTER, compiler.compile("alter table x compress partition '2018-01-01', '2018-01-02'").getType());
+
+            assertCompressed("2018-01-01", "amt");
+            assertCompressed("2018-01-01", "timestamp");
+            assertCompressed("2018-01-02", "sym");
+            assertNotCompressed("2018-01-03", "timestamp");
+
+            // strings and binaries are stored as is
+            assertNotCompressed("2018-01-01", "c");
+            assertNotCompressed("2018-01-01", "m");
+
+            TestUtils.assertEquals(expected, select("x"));
+            TestUtils.assertEquals(expectedAgg, select("select sum(amt), sum(j), sum(d), count() from x"));
+
+            // compressed partition cannot be compressed again
+            try {
+                compiler.compile("alter table x compress partition '2018-01-01'");
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "could not compress partition '2018-01-01'");
+            }
+
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+
+            // fresh reader
+            TestUtils.assertEquals(expected, select("x"));
+
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testCompressPartitionsBefore() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+
+            final String expected = select("x");
+
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                final long timestamp = DateFormatUtils.parseTimestamp("2018-01-03T00:00:00.000000Z");
+                // one partition at a time, oldest first
+                Assert.assertTrue(writer.compressPartitionBefore(timestamp));
+                assertCompressed("2018-01-01", "timestamp");
+                assertNotCompressed("2018-01-02", "timestamp");
+
+                Assert.assertTrue(writer.compressPartitionBefore(timestamp));
+                assertCompressed("2018-01-02", "timestamp");
+
+                // 2018-01-03 is not old enough
+                Assert.assertFalse(writer.compressPartitionBefore(timestamp));
+                assertNotCompressed("2018-01-03", "timestamp");
+            }
+
+            TestUtils.assertEquals(expected, select("x"));
+
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testReaderSurvivesCompression() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x", TableUtils.ANY_TABLE_VERSION)) {
+                final long sizeBefore = reader.size();
+                compiler.compile("alter table x compress partition '2018-01-01'");
+                Assert.assertFalse(reader.reload());
+                Assert.assertEquals(sizeBefore, reader.size());
+
+                try (TableReader reader2 = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x", TableUtils.ANY_TABLE_VERSION)) {
+                    Assert.assertNotSame(reader, reader2);
+                    Assert.assertEquals(sizeBefore, reader2.size());
+                }
+            }
+
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private void assertCompressed(String partition, String columnName) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat("x").concat(partition);
+            final int plen = path.length();
+            Assert.assertTrue(ff.exists(path.concat(columnName).put(".dz").$()));
+            Assert.assertFalse(ff.exists(path.trimTo(plen).concat(columnName).put(".d").$()));
+        }
+    }
+
+    private void assertFailure(String sql, int position, String message) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try {
+                createX();
+                compiler.compile(sql);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(position, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private void assertNotCompressed(String partition, String columnName) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat("x").concat(partition);
+            final int plen = path.length();
+            Assert.assertFalse(ff.exists(path.concat(columnName).put(".dz").$()));
+            Assert.assertTrue(ff.exists(path.trimTo(plen).concat(columnName).put(".d").$()));
+        }
+    }
+
+    private void createX() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " to_int(x) i," +
+                        " rnd_symbol('msft','ibm', 'googl') sym," +
+                        " round(rnd_double(0)*100, 3) amt," +
+                        " to_timestamp('2018-01', 'yyyy-MM') + x * 360000000 timestamp," +
+                        " rnd_boolean() b," +
+                        " rnd_str('ABC', 'CDE', null, 'XYZ') c," +
+                        " rnd_double(2) d," +
+                        " rnd_float(2) e," +
+                        " rnd_short(10,1024) f," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) g," +
+                        " rnd_symbol(4,4,4,2) ik," +
+                        " rnd_long() j," +
+                        " timestamp_sequence(to_timestamp(0), 1000000000) k," +
+                        " rnd_byte(2,50) l," +
+                        " rnd_bin(10, 20, 2) m," +
+                        " rnd_str(5,16,2) n" +
+                        " from long_sequence(800)" +
+                        ") timestamp (timestamp) partition by DAY"
+        );
+    }
+
+    private String select(CharSequence sql) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Files;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnStatsTest extends AbstractGriffinTest {
+    // 10000 rows one minute apart, 1360 of them are in the last partition
+    private static final String DDL = "create table x as (" +
+            "select" +
+            " x i," +
+            " rnd_int(0, 100000, 2) l," +
+            " rnd_double(2) d," +
+            " rnd_float(2) f," +
+            " rnd_byte(1, 50) b," +
+            " rnd_short(-100, 100) h," +
+            " rnd_symbol(8, 3, 5, 4) sym," +
+            " rnd_str('a', 'bb', 'ccc', null) s," +
+            " timestamp_sequence(to_timestamp(0), 60000000) ts" +
+            " from long_sequence(10000)" +
+            ") timestamp(ts) partition by DAY";
+    private static final long LAST_PARTITION_ROWS = 1360;
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testAddColumn() throws Exception {
+        assertStats(
+                "alter table x add column z int",
+                "insert into x select * from (" +
+                        "select x + 10000, 1, 1.0, rnd_float(), rnd_byte(1, 2), rnd_short(1, 2), 'AA', 'aa', timestamp_sequence(to_timestamp(604800000000), 60000000) ts, rnd_int(0, 3000, 0) z" +
+                        " from long_sequence(3000)" +
+                        ") timestamp(ts)",
+                "select * from x where z > 1500",
+                "select * from x where z < 10 and i > 12900",
+                "select count() from x where z = NaN"
+        );
+    }
+
+    @Test
+    public void testDropColumn() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (CairoEngine statsEngine = new CairoEngine(newStatsConfiguration()); SqlCompiler statsCompiler = new SqlCompiler(statsEngine)) {
+                try {
+                    statsCompiler.compile(DDL, sqlExecutionContext);
+                    assertStatsFile("1970-01-02", "l", true);
+                    statsCompiler.compile("alter table x drop column l", sqlExecutionContext);
+                    assertStatsFile("1970-01-02", "l", false);
+                    assertStatsFile("1970-01-02", "i", true);
+                } finally {
+                    statsEngine.releaseAllWriters();
+                    statsEngine.releaseAllReaders();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testFilters() throws Exception {
+        assertStats(
+                null,
+                null,
+                "select * from x where i = 4242",
+                "select * from x where i < 100",
+                "select * from x where 100 > i",
+                "select * from x where i > 9900",
+                "select * from x where i = 4242.5",
+                "select * from x where i = 4242 and sym = 'WCPS'",
+                "select * from x where i > 2000 and i < 2100 and d > 0.5",
+                "select * from x where i = 5 or l = 42",
+                "select * from x where l = 42",
+                "select * from x where l > 99900",
+                "select * from x where l < -1",
+                "select count() from x where l = NaN",
+                "select * from x where d > 0.999",
+                "select count() from x where d = NaN",
+                "select * from x where f < 0.001",
+                "select * from x where b = 3",
+                "select * from x where b > 49",
+                "select * from x where h < -99",
+                "select * from x where sym = 'NOPE'",
+                "select count() from x where sym = null",
+                "select * from x where sym = 'WCPS' and s = 'bb'",
+                "select * from x where ts > '1970-01-03T00:00:00.000Z' and i < 4000 and i > 3500",
+                "select sym, count() from x where i > 1000 and i < 3000"
+        );
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (CairoEngine statsEngine = new CairoEngine(newStatsConfiguration()); SqlCompiler statsCompiler = new SqlCompiler(statsEngine)) {
+                try {
+                    statsCompiler.compile(DDL, sqlExecutionContext);
+                    statsCompiler.compile("insert into x select * from (" +
+                            "select x + 100000, 1, 1.0, rnd_float(), rnd_byte(1, 2), rnd_short(1, 2), 'AA', 'aa', timestamp_sequence(to_timestamp(86400000001), 60000000) ts" +
+                            " from long_sequence(10)" +
+                            ") timestamp(ts)", sqlExecutionContext);
+
+                    // merged partition has statistics of its new rows
+                    final ColumnStatsFilter filter = new ColumnStatsFilter();
+                    filter.addNumeric(0, ColumnType.LONG, ColumnStatsFilter.OP_EQ, 100005);
+                    Assert.assertEquals(64 + LAST_PARTITION_ROWS, countScannedRows(statsEngine, filter));
+
+                    assertQueries(
+                            statsCompiler,
+                            "select * from x where i > 100000",
+                            "select * from x where i = 100005",
+                            "select * from x where i = 1500"
+                    );
+                } finally {
+                    statsEngine.releaseAllWriters();
+                    statsEngine.releaseAllReaders();
+                    engine.releaseAllReaders();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testPruning() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (CairoEngine statsEngine = new CairoEngine(newStatsConfiguration()); SqlCompiler statsCompiler = new SqlCompiler(statsEngine)) {
+                try {
+                    statsCompiler.compile(DDL, sqlExecutionContext);
+
+                    assertStatsFile("1970-01-01", "i", true);
+                    assertStatsFile("1970-01-06", "sym", true);
+                    // last partition is still open for append
+                    assertStatsFile("1970-01-07", "i", false);
+                    // strings have no statistics
+                    assertStatsFile("1970-01-01", "s", false);
+
+                    ColumnStatsFilter filter = new ColumnStatsFilter();
+                    filter.addNumeric(0, ColumnType.LONG, ColumnStatsFilter.OP_EQ, 4242);
+                    // one block of 64 rows and the whole of last partition
+                    Assert.assertEquals(64 + LAST_PARTITION_ROWS, countScannedRows(statsEngine, filter));
+
+                    filter = new ColumnStatsFilter();
+                    filter.addNumeric(0, ColumnType.LONG, ColumnStatsFilter.OP_LT, 1);
+                    Assert.assertEquals(LAST_PARTITION_ROWS, countScannedRows(statsEngine, filter));
+
+                    filter = new ColumnStatsFilter();
+                    filter.addNumeric(1, ColumnType.INT, ColumnStatsFilter.OP_GT, 100000);
+                    Assert.assertEquals(LAST_PARTITION_ROWS, countScannedRows(statsEngine, filter));
+
+                    filter = new ColumnStatsFilter();
+                    filter.addSymbol(6, "NOPE");
+                    Assert.assertEquals(LAST_PARTITION_ROWS, countScannedRows(statsEngine, filter));
+
+                    filter = new ColumnStatsFilter();
+                    filter.addNumeric(2, ColumnType.DOUBLE, ColumnStatsFilter.OP_GT, 2.0);
+                    Assert.assertEquals(LAST_PARTITION_ROWS, countScannedRows(statsEngine, filter));
+
+                    // column nulls read as NaN, which nothing compares to
+                    filter = new ColumnStatsFilter();
+                    filter.addNumeric(2, ColumnType.DOUBLE, ColumnStatsFilter.OP_LT, 2.0);
+                    Assert.assertEquals(10000, countScannedRows(statsEngine, filter));
+                } finally {
+                    statsEngine.releaseAllWriters();
+                    statsEngine.releaseAllReaders();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testRollback() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (CairoEngine statsEngine = new CairoEngine(newStatsConfiguration()); SqlCompiler statsCompiler = new SqlCompiler(statsEngine)) {
+                try {
+                    statsCompiler.compile(DDL, sqlExecutionContext);
+
+                    try (TableWriter writer = statsEngine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                        final long ts = 7 * 24 * 3600 * 1000000L;
+                        for (int k = 0; k < 3; k++) {
+                            TableWriter.Row row = writer.newRow(ts + k * 24 * 3600 * 1000000L);
+                            row.putLong(0, 100000 + k);
+                            row.append();
+                        }
+                        // partitions are closed, uncommitted rows are in their statistics
+                        assertStatsFile("1970-01-07", "i", true);
+                        assertStatsFile("1970-01-08", "i", true);
+                        writer.rollback();
+                        // partition is open for append again
+                        assertStatsFile("1970-01-07", "i", false);
+                    }
+
+                    assertQueries(statsCompiler, "select * from x where i > 9990");
+                } finally {
+                    statsEngine.releaseAllWriters();
+                    statsEngine.releaseAllReaders();
+                    engine.releaseAllReaders();
+                }
+            }
+        });
+    }
+
+    private static void assertQueries(SqlCompiler statsCompiler, String... queries) throws SqlException {
+        for (String query : queries) {
+            // default engine has statistics disabled
+            final String expected;
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                expected = print(factory);
+            }
+            Assert.assertTrue(query, expected.length() > 0);
+            try (RecordCursorFactory factory = statsCompiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                TestUtils.assertEquals(expected, print(factory));
+                // cursor can be re-opened
+                TestUtils.assertEquals(expected, print(factory));
+            }
+        }
+    }
+
+    private static void assertStats(String ddl, String insert, String... queries) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (CairoEngine statsEngine = new CairoEngine(newStatsConfiguration()); SqlCompiler statsCompiler = new SqlCompiler(statsEngine)) {
+                try {
+                    statsCompiler.compile(DDL, sqlExecutionContext);
+                    if (ddl != null) {
+                        statsCompiler.compile(ddl, sqlExecutionContext);
+                    }
+                    if (insert != null) {
+                        statsCompiler.compile(insert, sqlExecutionContext);
+                    }
+
+                    assertQueries(statsCompiler, queries);
+                } finally {
+                    statsEngine.releaseAllWriters();
+                    statsEngine.releaseAllReaders();
+                    engine.releaseAllReaders();
+                }
+            }
+        });
+    }
+
+    private static void assertStatsFile(String partition, String column, boolean exists) {
+        try (Path path = new Path()) {
+            Assert.assertEquals(exists, Files.exists(path.of(root).concat("x").concat(partition).concat(column).put(".st").$()));
+        }
+    }
+
+    private static long countScannedRows(CairoEngine engine, ColumnStatsFilter filter) {
+        final ColumnStatsDataFrameCursorFactory factory = new ColumnStatsDataFrameCursorFactory(
+                new FullFwdDataFrameCursorFactory(engine, "x", TableUtils.ANY_TABLE_VERSION),
+                filter
+        );
+        long rows = 0;
+        try (DataFrameCursor cursor = factory.getCursor(AllowAllCairoSecurityContext.INSTANCE, -1)) {
+            while (cursor.hasNext()) {
+                final DataFrame frame = cursor.next();
+                rows += frame.getRowHi() - frame.getRowLo();
+            }
+        }
+        return rows;
+    }
+
+    private static CairoConfiguration newStatsConfiguration() {
+        return new DefaultCairoConfiguration(root) {
+            @Override
+            public int getPartitionStatsBlockRowCount() {
+                return 64;
+            }
+
+            @Override
+            public int getPartitionStatsBloomMaxSize() {
+                return 1024;
+            }
+
+            @Override
+            public boolean isO3Enabled() {
+                return true;
+            }
+
+            @Override
+            public boolean isPartitionStatsEnabled() {
+                return true;
+            }
+        };
+    }
+
+    private static String print(RecordCursorFactory factory) {
+        sink.clear();
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            printer.print(cursor, factory.getMetadata(), true);
+        }
+        return sink.toString();
+    }
+}
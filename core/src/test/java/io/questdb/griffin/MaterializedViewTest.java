@@ -0,0 +1,223 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MaterializedViewTest extends AbstractGriffinTest {
+    private static final String DDL = "create table x as (" +
+            "select" +
+            " x i," +
+            " x % 3 k," +
+            " x * 0.5 d," +
+            " timestamp_sequence(to_timestamp(0), 1800000000) ts" +
+            " from long_sequence(20)" +
+            ") timestamp(ts) partition by DAY";
+    private static final String VIEW_QUERY = "select ts, k, sum(d) s, count() c from x sample by 1h";
+
+    @Test
+    public void testCreatePopulatesClosedIntervals() throws Exception {
+        assertWithBaseTable((viewEngine, viewCompiler) -> {
+            viewCompiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+            // last row is at 09:30, its interval is still open
+            assertView(viewCompiler, VIEW_QUERY, "1970-01-01T09:00:00.000Z");
+            assertSql(viewCompiler, "select count() from v", "count\n18\n");
+
+            try (MaterializedViewRefreshJob job = new MaterializedViewRefreshJob(viewEngine)) {
+                // view is up to date
+                Assert.assertTrue(job.refresh("v"));
+                Assert.assertFalse(job.refresh("v"));
+            }
+            assertView(viewCompiler, VIEW_QUERY, "1970-01-01T09:00:00.000Z");
+        });
+    }
+
+    @Test
+    public void testEmptyBaseTable() throws Exception {
+        assertWithBaseTable((viewEngine, viewCompiler) -> {
+            viewCompiler.compile("truncate table x", sqlExecutionContext);
+            viewCompiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+            assertSql(viewCompiler, "select count() from v", "count\n0\n");
+
+            insert(viewCompiler, 20, 0);
+            try (MaterializedViewRefreshJob job = new MaterializedViewRefreshJob(viewEngine)) {
+                Assert.assertTrue(job.refresh("v"));
+            }
+            assertView(viewCompiler, VIEW_QUERY, "1970-01-01T09:00:00.000Z");
+        });
+    }
+
+    @Test
+    public void testFailureFill() throws Exception {
+        assertFailure("create materialized view v as (select ts, k, sum(d) s from x sample by 1h fill(prev))", DDL, 79, "fill is not supported");
+    }
+
+    @Test
+    public void testFailureJoin() throws Exception {
+        assertFailure("create materialized view v as (select x.ts, sum(x.d) s from x join x y on (i) sample by 1h)", DDL, 67, "join is not supported");
+    }
+
+    @Test
+    public void testFailureNoSampleBy() throws Exception {
+        assertFailure("create materialized view v as (select k, sum(d) s from x)", DDL, 56, "must have 'sample by'");
+    }
+
+    @Test
+    public void testFailureNoTimestamp() throws Exception {
+        assertFailure("create materialized view v as (select k, sum(d) s from x sample by 1h)", DDL, 25, "must select sample by timestamp");
+    }
+
+    @Test
+    public void testFailureNotTable() throws Exception {
+        assertFailure("create materialized view v as (select ts, sum(d) s from (x) sample by 1h)", DDL, 31, "must select from table");
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        assertWithBaseTable((viewEngine, viewCompiler) -> {
+            viewCompiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+
+            try (MaterializedViewRefreshJob job = new MaterializedViewRefreshJob(viewEngine)) {
+                // rows from 10:00 to 14:30
+                insert(viewCompiler, 10, 36000000000L);
+                // first run of job scans for views
+                Assert.assertTrue(job.run());
+                assertView(viewCompiler, VIEW_QUERY, "1970-01-01T14:00:00.000Z");
+
+                // append to open interval, which is not yet in view
+                insert(viewCompiler, 1, 52800000000L);
+                Assert.assertTrue(job.refresh("v"));
+                assertView(viewCompiler, VIEW_QUERY, "1970-01-01T14:00:00.000Z");
+
+                insert(viewCompiler, 1, 54000000000L);
+                Assert.assertTrue(job.refresh("v"));
+                assertView(viewCompiler, VIEW_QUERY, "1970-01-01T15:00:00.000Z");
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrderInsertRebuildsView() throws Exception {
+        assertWithBaseTable((viewEngine, viewCompiler) -> {
+            viewCompiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+            try (MaterializedViewRefreshJob job = new MaterializedViewRefreshJob(viewEngine)) {
+                Assert.assertTrue(job.refresh("v"));
+                // 02:15, which is in interval that view already has
+                insert(viewCompiler, 1, 8100000000L);
+                Assert.assertTrue(job.refresh("v"));
+                assertView(viewCompiler, VIEW_QUERY, "1970-01-01T09:00:00.000Z");
+                assertSql(viewCompiler, "select c from v where ts = '1970-01-01T02:00:00.000Z' and k = 1", "c\n1\n");
+
+                viewCompiler.compile("truncate table x", sqlExecutionContext);
+                Assert.assertTrue(job.refresh("v"));
+                assertSql(viewCompiler, "select count() from v", "count\n0\n");
+            }
+        });
+    }
+
+    @Test
+    public void testPartitionAndFilter() throws Exception {
+        final String query = "select a.ts, sum(a.d) s, max(i) m from x a where a.k = 1 sample by 2h";
+        assertWithBaseTable((viewEngine, viewCompiler) -> {
+            viewCompiler.compile("create materialized view v as (" + query + ") partition by NONE", sqlExecutionContext);
+            assertView(viewCompiler, query, "1970-01-01T08:00:00.000Z");
+
+            try (MaterializedViewRefreshJob job = new MaterializedViewRefreshJob(viewEngine)) {
+                insert(viewCompiler, 10, 36000000000L);
+                Assert.assertTrue(job.refresh("v"));
+                assertView(viewCompiler, query, "1970-01-01T14:00:00.000Z");
+            }
+        });
+    }
+
+    private static void assertSql(SqlCompiler viewCompiler, String query, String expected) throws SqlException {
+        try (RecordCursorFactory factory = viewCompiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            TestUtils.assertEquals(expected, print(factory));
+        }
+    }
+
+    private static void assertView(SqlCompiler viewCompiler, String query, String hi) throws SqlException {
+        // reference is the view query over rows before open interval
+        final String expected;
+        try (RecordCursorFactory factory = viewCompiler.compile(
+                query.replace(" from x", " from (select * from x where ts >= '1970-01-01T00:00:00.000Z' and ts < '" + hi + "')"),
+                sqlExecutionContext
+        ).getRecordCursorFactory()) {
+            expected = print(factory);
+        }
+        try (RecordCursorFactory factory = viewCompiler.compile("v", sqlExecutionContext).getRecordCursorFactory()) {
+            TestUtils.assertEquals(expected, print(factory));
+        }
+    }
+
+    private static void assertWithBaseTable(ViewCode code) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    CairoEngine viewEngine = new CairoEngine(new DefaultCairoConfiguration(root) {
+                        @Override
+                        public boolean isO3Enabled() {
+                            return true;
+                        }
+                    });
+                    SqlCompiler viewCompiler = new SqlCompiler(viewEngine)
+            ) {
+                try {
+                    viewCompiler.compile(DDL, sqlExecutionContext);
+                    code.run(viewEngine, viewCompiler);
+                } finally {
+                    viewEngine.releaseAllWriters();
+                    viewEngine.releaseAllReaders();
+                }
+            }
+        });
+    }
+
+    private static void insert(SqlCompiler viewCompiler, int count, long timestamp) throws SqlException {
+        viewCompiler.compile("insert into x select * from (" +
+                "select x + 100 i, x % 3 k, x * 0.5 d, timestamp_sequence(to_timestamp(" + timestamp + "), 1800000000) ts" +
+                " from long_sequence(" + count + ")" +
+                ") timestamp(ts)", sqlExecutionContext);
+    }
+
+    private static String print(RecordCursorFactory factory) {
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            sink.clear();
+            printer.print(cursor, factory.getMetadata(), true);
+            return sink.toString();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ViewCode {
+        void run(CairoEngine viewEngine, SqlCompiler viewCompiler) throws Exception;
+    }
+}
@@ -0,0 +1,299 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.engine.QueryResultCache;
+import io.questdb.griffin.engine.QueryResultCacheRecordCursorFactory;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Chars;
+import io.questdb.std.Rnd;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryResultCacheTest extends AbstractGriffinTest {
+    private static final String DDL = "create table x as (" +
+            "select" +
+            " x i," +
+            " rnd_symbol('AA', 'BB', 'CC') sym," +
+            " rnd_str('a', 'bb', null) s," +
+            " rnd_double(2) d," +
+            " timestamp_sequence(to_timestamp(0), 3600000000) ts" +
+            " from long_sequence(20)" +
+            ") timestamp(ts) partition by DAY";
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testBindVariables() throws Exception {
+        assertCache(1024 * 1024, (cacheCompiler, cache) -> {
+            bindVariableService.setLong(0, 15);
+            final String expected15 = assertQuery(cacheCompiler, "select * from x where i > $1", -1);
+            bindVariableService.setLong(0, 17);
+            final String expected17 = assertQuery(cacheCompiler, "select * from x where i > $1", -1);
+            Assert.assertNotEquals(expected15, expected17);
+            Assert.assertEquals(2, cache.getEntryCount());
+
+            bindVariableService.setLong(0, 15);
+            assertQuery(cacheCompiler, "select * from x where i > $1", 5);
+            bindVariableService.setLong(0, 17);
+            assertQuery(cacheCompiler, "select * from x where i > $1", 3);
+        });
+    }
+
+    @Test
+    public void testCommitInvalidatesEntry() throws Exception {
+        assertCache(1024 * 1024, (cacheCompiler, cache) -> {
+            assertQuery(cacheCompiler, "select sym, count() c, sum(d) s from x where i > 3", -1);
+            assertQuery(cacheCompiler, "select sym, count() c, sum(d) s from x where i > 3", 3);
+
+            cacheCompiler.compile("insert into x select * from (" +
+                    "select x + 20, rnd_symbol('AA', 'DD'), 'cc', 0.5, timestamp_sequence(to_timestamp(72000000000), 3600000000) ts" +
+                    " from long_sequence(10)" +
+                    ") timestamp(ts)", sqlExecutionContext);
+
+            // stale entry is dropped, new rows are visible
+            assertQuery(cacheCompiler, "select sym, count() c, sum(d) s from x where i > 3", -1);
+            assertQuery(cacheCompiler, "select sym, count() c, sum(d) s from x where i > 3", 4);
+            Assert.assertEquals(1, cache.getEntryCount());
+
+            cacheCompiler.compile("truncate table x", sqlExecutionContext);
+            assertQuery(cacheCompiler, "select sym, count() c, sum(d) s from x where i > 3", -1);
+        });
+    }
+
+    @Test
+    public void testDropTableClearsCache() throws Exception {
+        assertCache(1024 * 1024, (cacheCompiler, cache) -> {
+            assertQuery(cacheCompiler, "select * from x where i < 5", -1);
+            Assert.assertEquals(1, cache.getEntryCount());
+            engine.releaseAllReaders();
+            cacheCompiler.compile("drop table x", sqlExecutionContext);
+            Assert.assertEquals(0, cache.getEntryCount());
+            Assert.assertEquals(0, cache.getSize());
+            // re-create table of the same name, at the same transaction
+            cacheCompiler.compile(DDL, sqlExecutionContext);
+            engine.releaseAllReaders();
+            assertQuery(cacheCompiler, "select * from x where i < 5", -1);
+        });
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        // room for one small result, its page and symbol values
+        assertCache(1536, (cacheCompiler, cache) -> {
+            assertQuery(cacheCompiler, "select * from x where i < 10", -1);
+            assertQuery(cacheCompiler, "select * from x where i < 10", 9);
+            assertQuery(cacheCompiler, "select * from x where i > 10", -1);
+            assertQuery(cacheCompiler, "select * from x where i > 10", 10);
+            // least recently used entry made room for the new one
+            Assert.assertEquals(1, cache.getEntryCount());
+            Assert.assertTrue(cache.getSize() <= 1536);
+            assertQuery(cacheCompiler, "select * from x where i < 10", -1);
+
+            // result that does not fit the budget is not cached and does not evict
+            assertQuery(cacheCompiler, "select i, sym, s, d, ts, d * 2 d2, d * 3 d3 from x where i > 0", -1);
+            assertQuery(cacheCompiler, "select i, sym, s, d, ts, d * 2 d2, d * 3 d3 from x where i > 0", -1);
+            Assert.assertEquals(1, cache.getEntryCount());
+            assertQuery(cacheCompiler, "select * from x where i < 10", 9);
+        });
+    }
+
+    @Test
+    public void testNonDeterministicQueryNotCached() throws Exception {
+        assertCache(1024 * 1024, (cacheCompiler, cache) -> {
+            try (RecordCursorFactory factory = cacheCompiler.compile("select i, rnd_int() r from x", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof QueryResultCacheRecordCursorFactory);
+            }
+            try (RecordCursorFactory factory = cacheCompiler.compile("select * from long_sequence(10)", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof QueryResultCacheRecordCursorFactory);
+            }
+            Assert.assertEquals(0, cache.getEntryCount());
+        });
+    }
+
+    @Test
+    public void testRepeatedQueryServedFromCache() throws Exception {
+        assertCache(1024 * 1024, (cacheCompiler, cache) -> {
+            assertQuery(cacheCompiler, "select * from x where i > 12", -1);
+            assertQuery(cacheCompiler, "select * from x where i > 12", 8);
+            // whitespace and comments do not matter
+            assertQuery(cacheCompiler, "select *\n  from x -- tail\n where i > 12", 8);
+            Assert.assertEquals(1, cache.getEntryCount());
+
+            // partially read result is not offered to cache
+            try (RecordCursorFactory factory = cacheCompiler.compile("select * from x where i > 1", sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    Assert.assertTrue(cursor.hasNext());
+                }
+            }
+            Assert.assertEquals(1, cache.getEntryCount());
+
+            // cached cursor can be re-read
+            try (RecordCursorFactory factory = cacheCompiler.compile("select * from x where i > 12", sqlExecutionContext).getRecordCursorFactory()) {
+                final String expected = print(factory);
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true);
+                    cursor.toTop();
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true);
+                    TestUtils.assertEquals(expected, sink);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testSizeCountsAllocatedPages() throws Exception {
+        assertCache(1024 * 1024, (cacheCompiler, cache) -> {
+            // even tiny and empty results hold a page each
+            assertQuery(cacheCompiler, "select i, s, d, ts from x where i = 3", -1);
+            Assert.assertEquals(1024, cache.getSize());
+            assertQuery(cacheCompiler, "select i, s, d, ts from x where i < 0", -1);
+            Assert.assertEquals(2 * 1024, cache.getSize());
+            assertQuery(cacheCompiler, "select i, s, d, ts, d * 2 d2, d * 3 d3 from x", 20);
+            Assert.assertEquals(3, cache.getEntryCount());
+            Assert.assertTrue(cache.getSize() > 3 * 1024);
+            Assert.assertEquals(0, cache.getSize() % 1024);
+
+            // symbol values are accounted for on top of pages
+            assertQuery(cacheCompiler, "select sym from x where i = 3", -1);
+            Assert.assertTrue(cache.getSize() % 1024 > 0);
+        });
+    }
+
+    @Test
+    public void testSymbolNulls() throws Exception {
+        assertCache(1024 * 1024, (cacheCompiler, cache) -> {
+            cacheCompiler.compile("create table y as (select rnd_symbol(3, 4, 4, 2) sym, x i from long_sequence(30))", sqlExecutionContext);
+            assertQuery(cacheCompiler, "select * from y where i > 5", -1);
+            assertQuery(cacheCompiler, "select * from y where i > 5", 25);
+            assertQuery(cacheCompiler, "select sym, count() from y where i > 5", -1);
+            assertQuery(cacheCompiler, "select sym, count() from y where i > 5", 4);
+        });
+    }
+
+    @Test
+    public void testSymbolTableOfCachedResult() throws Exception {
+        assertCache(1024 * 1024, (cacheCompiler, cache) -> {
+            final String query = "select sym, s from x where i > 12";
+            for (int i = 0; i < 2; i++) {
+                try (RecordCursorFactory factory = cacheCompiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                    // cache does not change result types
+                    Assert.assertEquals(ColumnType.SYMBOL, factory.getMetadata().getColumnType(0));
+                    try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                        final SymbolTable symbolTable = cursor.getSymbolTable(0);
+                        final Record record = cursor.getRecord();
+                        int count = 0;
+                        while (cursor.hasNext()) {
+                            final CharSequence value = record.getSym(0);
+                            Assert.assertTrue(Chars.equals("AA", value) || Chars.equals("BB", value) || Chars.equals("CC", value));
+                            TestUtils.assertEquals(value, symbolTable.value(record.getInt(0)));
+                            Assert.assertEquals(record.getInt(0), symbolTable.getQuick(value));
+                            count++;
+                        }
+                        Assert.assertEquals(8, count);
+                    }
+                }
+                Assert.assertEquals(1, cache.getEntryCount());
+            }
+            assertQuery(cacheCompiler, query, 8);
+        });
+    }
+
+    private static void assertCache(long maxSize, CacheCode code) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (CairoEngine cacheEngine = new CairoEngine(newCacheConfiguration(maxSize)); SqlCompiler cacheCompiler = new SqlCompiler(cacheEngine)) {
+                try {
+                    cacheCompiler.compile(DDL, sqlExecutionContext);
+                    code.run(cacheCompiler, cacheEngine.getQueryResultCache());
+                } finally {
+                    cacheEngine.releaseAllWriters();
+                    cacheEngine.releaseAllReaders();
+                    engine.releaseAllReaders();
+                }
+            }
+        });
+    }
+
+    private static String assertQuery(SqlCompiler cacheCompiler, String query, long expectedSize) throws SqlException {
+        // default engine has no result cache
+        final String expected;
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            expected = print(factory);
+        }
+        try (RecordCursorFactory factory = cacheCompiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof QueryResultCacheRecordCursorFactory);
+            sink.clear();
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                // filtered table cursor does not know its size, cached one does
+                Assert.assertEquals(query, expectedSize, cursor.size());
+                printer.print(cursor, factory.getMetadata(), true);
+            }
+            TestUtils.assertEquals(expected, sink);
+        }
+        return expected;
+    }
+
+    private static CairoConfiguration newCacheConfiguration(long maxSize) {
+        return new DefaultCairoConfiguration(root) {
+            @Override
+            public long getSqlResultCacheMaxSize() {
+                return maxSize;
+            }
+
+            @Override
+            public int getSqlResultCachePageSize() {
+                return 1024;
+            }
+        };
+    }
+
+    private static String print(RecordCursorFactory factory) {
+        sink.clear();
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            printer.print(cursor, factory.getMetadata(), true);
+        }
+        return sink.toString();
+    }
+
+    @FunctionalInterface
+    private interface CacheCode {
+        void run(SqlCompiler compiler, QueryResultCache cache) throws SqlException;
+    }
+}
@@ -77,6 +77,7 @@ public class SqlParserTest extends AbstractGriffinTest {
                         .col("x", ColumnType.INT)
                         .col("y", ColumnType.INT)
                         .col("z", ColumnType.INT)
+                        .col("ts", ColumnType.TIMESTAMP)
         );
     }
 
@@ -85,7 +86,53 @@ public class SqlParserTest extends AbstractGriffinTest {
         assertQuery(
                 "select-analytic a, b, f(c) my over (partition by b, a order by ts), d(c) d over () from (xyz)",
                 "select a,b, f(c) my over (partition by b, a order by ts), d(c) over() from xyz",
-                modelOf("xyz").col("c", ColumnType.INT).col("b", ColumnType.INT).col("a", ColumnType.INT)
+                modelOf("xyz").col("c", ColumnType.INT).col("b", ColumnType.INT).col("a", ColumnType.INT).col("ts", ColumnType.TIMESTAMP)
+        );
+    }
+
+    @Test
+    public void testAnalyticPartitionColumnRenamed() throws Exception {
+        assertQuery(
+                "select-analytic k, row_number() row_number over (partition by b order by ts) from (select-choose a k, b, ts from (xyz))",
+                "select a k, row_number() over (partition by b order by ts) from xyz",
+                modelOf("xyz").col("a", ColumnType.INT).col("b", ColumnType.INT).col("ts", ColumnType.TIMESTAMP)
+        );
+    }
+
+    @Test
+    public void testAnalyticRangeFrame() throws Exception {
+        assertQuery(
+                "select-analytic a, avg(c) avg over (partition by b order by ts range between 10m preceding and current row) from (xyz)",
+                "select a, avg(c) over (partition by b order by ts range between 10m preceding and current row) from xyz",
+                modelOf("xyz").col("a", ColumnType.INT).col("b", ColumnType.INT).col("c", ColumnType.INT).col("ts", ColumnType.TIMESTAMP)
+        );
+    }
+
+    @Test
+    public void testAnalyticRowsFrame() throws Exception {
+        assertQuery(
+                "select-analytic a, sum(c) sum over (order by ts rows between 3 preceding and current row) from (xyz)",
+                "select a, sum(c) over (order by ts rows between 3 preceding and current row) from xyz",
+                modelOf("xyz").col("a", ColumnType.INT).col("c", ColumnType.INT).col("ts", ColumnType.TIMESTAMP)
+        );
+    }
+
+    @Test
+    public void testAnalyticRowsFrameUnbounded() throws Exception {
+        assertQuery(
+                "select-analytic a, sum(c) sum over (order by ts) from (xyz)",
+                "select a, sum(c) over (order by ts rows between unbounded preceding and current row) from xyz",
+                modelOf("xyz").col("a", ColumnType.INT).col("c", ColumnType.INT).col("ts", ColumnType.TIMESTAMP)
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameIncomplete() {
+        assertSyntaxError(
+                "select a, sum(c) over (order by ts rows between 3 preceding) from xyz",
+                59,
+                "'and' expected",
+                modelOf("xyz").col("a", ColumnType.INT).col("c", ColumnType.INT).col("ts", ColumnType.TIMESTAMP)
         );
     }
 
@@ -1041,7 +1088,7 @@ public class SqlParserTest extends AbstractGriffinTest {
                         "timestamp(t) " +
                         "partition by EPOCH",
                 128,
-                "'NONE', 'DAY', 'MONTH' or 'YEAR' expected"
+                "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected"
         );
     }
 
@@ -3234,6 +3281,7 @@ public class SqlParserTest extends AbstractGriffinTest {
                         .col("a", ColumnType.INT)
                         .col("b", ColumnType.INT)
                         .col("c", ColumnType.INT)
+                        .col("ts", ColumnType.TIMESTAMP)
         );
     }
 
@@ -3246,6 +3294,7 @@ public class SqlParserTest extends AbstractGriffinTest {
                         .col("a", ColumnType.INT)
                         .col("b", ColumnType.INT)
                         .col("c", ColumnType.INT)
+                        .col("ts", ColumnType.TIMESTAMP)
         );
     }
 
@@ -4859,7 +4908,7 @@ public class SqlParserTest extends AbstractGriffinTest {
         assertQuery(
                 "select-analytic a, b, f(c) my over (partition by b order by ts), d(c) d over () from (xyz)",
                 "select a,b, f(c) my over (partition by b order by ts), d(c) over() from xyz",
-                modelOf("xyz").col("c", ColumnType.INT).col("b", ColumnType.INT).col("a", ColumnType.INT)
+                modelOf("xyz").col("c", ColumnType.INT).col("b", ColumnType.INT).col("a", ColumnType.INT).col("ts", ColumnType.TIMESTAMP)
         );
     }
 
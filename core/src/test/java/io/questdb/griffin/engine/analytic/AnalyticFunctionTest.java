@@ -0,0 +1,261 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import org.junit.Test;
+
+public class AnalyticFunctionTest extends AbstractGriffinTest {
+
+    private static final String DDL = "create table x as (" +
+            "select" +
+            " x i," +
+            " x % 3 k," +
+            " x % 4 * 1.5 d," +
+            " timestamp_sequence(to_timestamp(0), 60000000) ts" +
+            " from long_sequence(9)" +
+            ") timestamp(ts) partition by DAY";
+
+    @Test
+    public void testDifferentOrderNotSupported() throws Exception {
+        assertFailure(
+                "select i, row_number() rn over (order by ts), rank() r over (order by k) from x",
+                DDL,
+                46,
+                "analytic functions with different 'order by' are not supported"
+        );
+    }
+
+    @Test
+    public void testLagLead() throws Exception {
+        assertQuery(
+                "i\tk\tlag_i\tlead_d\tprev_ts\n" +
+                        "1\t1\tNaN\t4.500000000000\t\n" +
+                        "2\t2\tNaN\t0.000000000000\t1970-01-01T00:00:00.000000Z\n" +
+                        "3\t0\tNaN\t1.500000000000\t1970-01-01T00:01:00.000000Z\n" +
+                        "4\t1\t1\t-1.000000000000\t1970-01-01T00:02:00.000000Z\n" +
+                        "5\t2\t2\t-1.000000000000\t1970-01-01T00:03:00.000000Z\n" +
+                        "6\t0\t3\t-1.000000000000\t1970-01-01T00:04:00.000000Z\n" +
+                        "7\t1\t4\t-1.000000000000\t1970-01-01T00:05:00.000000Z\n" +
+                        "8\t2\t5\t-1.000000000000\t1970-01-01T00:06:00.000000Z\n" +
+                        "9\t0\t6\t-1.000000000000\t1970-01-01T00:07:00.000000Z\n",
+                "select i, k, lag(i) lag_i over (partition by k order by ts), lead(d, 2, -1) lead_d over (partition by k order by ts), lag(ts) prev_ts over (order by ts) from x",
+                DDL,
+                null,
+                false
+        );
+    }
+
+    @Test
+    public void testNotAnalyticFunction() throws Exception {
+        assertFailure(
+                "select i, abs(i) a over (order by ts) from x",
+                DDL,
+                10,
+                "analytic function expected"
+        );
+    }
+
+    @Test
+    public void testPartitionSum() throws Exception {
+        assertQuery(
+                "i\tk\ts\ta\trn\n" +
+                        "1\t1\t6.000000000000\t2.166666666667\t1\n" +
+                        "2\t2\t4.500000000000\t2.166666666667\t2\n" +
+                        "3\t0\t9.000000000000\t2.166666666667\t3\n" +
+                        "4\t1\t6.000000000000\t2.166666666667\t4\n" +
+                        "5\t2\t4.500000000000\t2.166666666667\t5\n" +
+                        "6\t0\t9.000000000000\t2.166666666667\t6\n" +
+                        "7\t1\t6.000000000000\t2.166666666667\t7\n" +
+                        "8\t2\t4.500000000000\t2.166666666667\t8\n" +
+                        "9\t0\t9.000000000000\t2.166666666667\t9\n",
+                "select i, k, sum(d) s over (partition by k), avg(d) a over (), row_number() rn over () from x",
+                DDL,
+                null,
+                false
+        );
+    }
+
+    @Test
+    public void testRangeFrame() throws Exception {
+        assertQuery(
+                "i\tts\ts\ta\n" +
+                        "1\t1970-01-01T00:00:00.000000Z\t1.000000000000\t1.500000000000\n" +
+                        "2\t1970-01-01T00:01:00.000000Z\t3.000000000000\t3.000000000000\n" +
+                        "3\t1970-01-01T00:02:00.000000Z\t6.000000000000\t4.500000000000\n" +
+                        "4\t1970-01-01T00:03:00.000000Z\t9.000000000000\t0.750000000000\n" +
+                        "5\t1970-01-01T00:04:00.000000Z\t12.000000000000\t2.250000000000\n" +
+                        "6\t1970-01-01T00:05:00.000000Z\t15.000000000000\t3.750000000000\n" +
+                        "7\t1970-01-01T00:06:00.000000Z\t18.000000000000\t2.250000000000\n" +
+                        "8\t1970-01-01T00:07:00.000000Z\t21.000000000000\t0.750000000000\n" +
+                        "9\t1970-01-01T00:08:00.000000Z\t24.000000000000\t2.250000000000\n",
+                "select i, ts, sum(i) s over (order by ts range between 2m preceding and current row), avg(d) a over (partition by k order by ts range between 3m preceding and current row) from x",
+                DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testRangeFrameExceedsStorePage() throws Exception {
+        // a day of rows one second apart does not fit single page of the store
+        assertQuery(
+                "k\tts\ts\n" +
+                        "0\t1970-01-02T03:46:38.500000Z\t86401.000000000000\n" +
+                        "1\t1970-01-02T03:46:39.000000Z\t86401.000000000000\n" +
+                        "0\t1970-01-02T03:46:39.500000Z\t86401.000000000000\n",
+                "select k, ts, sum(d) s over (partition by k order by ts range between 1d preceding and current row) from y limit -3",
+                "create table y as (" +
+                        "select" +
+                        " x % 2 k," +
+                        " 1.0 d," +
+                        " timestamp_sequence(to_timestamp(0), 500000) ts" +
+                        " from long_sequence(200000)" +
+                        ") timestamp(ts) partition by DAY",
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testRangeFrameQuotedInterval() throws Exception {
+        assertQuery(
+                "i\tts\ts\n" +
+                        "1\t1970-01-01T00:00:00.000000Z\t1.000000000000\n" +
+                        "2\t1970-01-01T00:01:00.000000Z\t3.000000000000\n" +
+                        "3\t1970-01-01T00:02:00.000000Z\t6.000000000000\n" +
+                        "4\t1970-01-01T00:03:00.000000Z\t9.000000000000\n" +
+                        "5\t1970-01-01T00:04:00.000000Z\t12.000000000000\n" +
+                        "6\t1970-01-01T00:05:00.000000Z\t15.000000000000\n" +
+                        "7\t1970-01-01T00:06:00.000000Z\t18.000000000000\n" +
+                        "8\t1970-01-01T00:07:00.000000Z\t21.000000000000\n" +
+                        "9\t1970-01-01T00:08:00.000000Z\t24.000000000000\n",
+                "select i, ts, sum(i) s over (order by ts range between '2m' preceding and current row) from x",
+                DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testRangeFrameRequiresTimestampOrder() throws Exception {
+        assertFailure(
+                "select i, sum(d) s over (order by k range between 2m preceding and current row) from x",
+                DDL,
+                50,
+                "range frame requires ascending order by timestamp column"
+        );
+    }
+
+    @Test
+    public void testRankAndDenseRank() throws Exception {
+        assertQuery(
+                "i\tk\td\tr\tdr\trd\n" +
+                        "9\t0\t1.500000000000\t1\t1\t1\n" +
+                        "6\t0\t3.000000000000\t1\t1\t1\n" +
+                        "3\t0\t4.500000000000\t1\t1\t1\n" +
+                        "7\t1\t4.500000000000\t4\t2\t2\n" +
+                        "4\t1\t0.000000000000\t4\t2\t1\n" +
+                        "1\t1\t1.500000000000\t4\t2\t2\n" +
+                        "8\t2\t0.000000000000\t7\t3\t2\n" +
+                        "5\t2\t1.500000000000\t7\t3\t3\n" +
+                        "2\t2\t3.000000000000\t7\t3\t2\n",
+                "select i, k, d, rank() r over (order by k), dense_rank() dr over (order by k), rank() rd over (partition by d order by k) from x",
+                DDL,
+                null,
+                false
+        );
+    }
+
+    @Test
+    public void testRowNumber() throws Exception {
+        assertQuery(
+                "i\tk\tts\trn\n" +
+                        "1\t1\t1970-01-01T00:00:00.000000Z\t1\n" +
+                        "2\t2\t1970-01-01T00:01:00.000000Z\t1\n" +
+                        "3\t0\t1970-01-01T00:02:00.000000Z\t1\n" +
+                        "4\t1\t1970-01-01T00:03:00.000000Z\t2\n" +
+                        "5\t2\t1970-01-01T00:04:00.000000Z\t2\n" +
+                        "6\t0\t1970-01-01T00:05:00.000000Z\t2\n" +
+                        "7\t1\t1970-01-01T00:06:00.000000Z\t3\n" +
+                        "8\t2\t1970-01-01T00:07:00.000000Z\t3\n" +
+                        "9\t0\t1970-01-01T00:08:00.000000Z\t3\n",
+                "select i, k, ts, row_number() rn over (partition by k order by ts) from x",
+                DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testRowsFrame() throws Exception {
+        assertQuery(
+                "i\td\ta\ts\n" +
+                        "1\t1.500000000000\t1.500000000000\t1.000000000000\n" +
+                        "2\t3.000000000000\t2.250000000000\t2.000000000000\n" +
+                        "3\t4.500000000000\t3.000000000000\t3.000000000000\n" +
+                        "4\t0.000000000000\t2.500000000000\t5.000000000000\n" +
+                        "5\t1.500000000000\t2.000000000000\t7.000000000000\n" +
+                        "6\t3.000000000000\t1.500000000000\t9.000000000000\n" +
+                        "7\t4.500000000000\t3.000000000000\t11.000000000000\n" +
+                        "8\t0.000000000000\t2.500000000000\t13.000000000000\n" +
+                        "9\t1.500000000000\t2.000000000000\t15.000000000000\n",
+                "select i, d, avg(d) a over (order by ts rows between 2 preceding and current row), sum(i) s over (partition by k order by ts rows between 1 preceding and current row) from x",
+                DDL,
+                null,
+                false
+        );
+    }
+
+    @Test
+    public void testRowsFrameNotSupported() throws Exception {
+        assertFailure(
+                "select i, row_number() rn over (order by ts rows between 2 preceding and current row) from x",
+                DDL,
+                57,
+                "frame is not supported by this function"
+        );
+    }
+
+    @Test
+    public void testRunningSumAndAvg() throws Exception {
+        assertQuery(
+                "i\tk\ts\ta\n" +
+                        "1\t1\t1.500000000000\t1.000000000000\n" +
+                        "2\t2\t3.000000000000\t1.500000000000\n" +
+                        "3\t0\t4.500000000000\t2.000000000000\n" +
+                        "4\t1\t1.500000000000\t2.500000000000\n" +
+                        "5\t2\t4.500000000000\t3.000000000000\n" +
+                        "6\t0\t7.500000000000\t3.500000000000\n" +
+                        "7\t1\t6.000000000000\t4.000000000000\n" +
+                        "8\t2\t4.500000000000\t4.500000000000\n" +
+                        "9\t0\t9.000000000000\t5.000000000000\n",
+                "select i, k, sum(d) s over (partition by k order by ts), avg(i) a over (order by ts) from x",
+                DDL,
+                null,
+                false
+        );
+    }
+}
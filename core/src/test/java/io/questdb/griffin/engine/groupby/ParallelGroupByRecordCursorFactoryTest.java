@@ -0,0 +1,162 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
+import io.questdb.std.Rnd;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class ParallelGroupByRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        assertParallel(0, "select c, count() from x", true);
+    }
+
+    @Test
+    public void testFunctionWithoutMerge() throws Exception {
+        assertParallel(5000, "select c, isOrdered(l) from x", false);
+    }
+
+    @Test
+    public void testIntervalScan() throws Exception {
+        assertParallel(20000, "select c, count(), sum(i), max(d) from x where k > '1970-01-02T10:00:00.000Z' and k < '1970-01-05T00:00:00.000Z'", true);
+    }
+
+    @Test
+    public void testMultipleKeys() throws Exception {
+        assertParallel(20000, "select c, s, count(), sum(l), min(l), min(i) from x", true);
+    }
+
+    @Test
+    public void testSymbolKey() throws Exception {
+        assertParallel(20000, "select c, count(), sum(i), min(i), min(d), max(d), avg(h), sum(h) from x", true);
+    }
+
+    private static void assertParallel(int count, String query, boolean parallel) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public long getSqlParallelGroupByFrameRowCount() {
+                    // small sub-frames make sure partitions are split between workers
+                    return 333;
+                }
+            };
+            final WorkerPool workerPool = new WorkerPool(new WorkerPoolConfiguration() {
+                @Override
+                public int[] getWorkerAffinity() {
+                    return new int[]{-1, -1, -1};
+                }
+
+                @Override
+                public int getWorkerCount() {
+                    return 3;
+                }
+
+                @Override
+                public boolean haltOnError() {
+                    return false;
+                }
+            });
+
+            try (
+                    CairoEngine engine = new CairoEngine(configuration, new CairoWorkSchedulerImpl(configuration, workerPool));
+                    SqlCompiler serialCompiler = new SqlCompiler(engine, null);
+                    SqlCompiler parallelCompiler = new SqlCompiler(engine)
+            ) {
+                workerPool.start(null);
+                try {
+                    serialCompiler.compile("create table x as (" +
+                            "select" +
+                            " rnd_double(2) d," +
+                            " rnd_int(0, 100, 0) * 0.25 h," +
+                            " rnd_int(0, 1000, 2) i," +
+                            " rnd_long(0, 100000, 2) l," +
+                            " rnd_str('a', 'bb', 'ccc', null) s," +
+                            " rnd_symbol('A', 'BB', 'CCC', 'DDDD', 'EEEEE') c," +
+                            " timestamp_sequence(to_timestamp(0), 60000000) k" +
+                            " from long_sequence(" + count + ")" +
+                            ") timestamp(k) partition by DAY", sqlExecutionContext);
+
+                    final String expected;
+                    try (RecordCursorFactory factory = serialCompiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                        Assert.assertFalse(factory instanceof ParallelGroupByRecordCursorFactory);
+                        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                            expected = printSorted(cursor, factory);
+                        }
+                    }
+
+                    try (RecordCursorFactory factory = parallelCompiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                        Assert.assertEquals(parallel, factory instanceof ParallelGroupByRecordCursorFactory);
+                        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                            // worker readers are released once rows are aggregated
+                            Assert.assertEquals(1, engine.getBusyReaderCount());
+                            TestUtils.assertEquals(expected, printSorted(cursor, factory));
+
+                            cursor.toTop();
+                            TestUtils.assertEquals(expected, printSorted(cursor, factory));
+                        }
+
+                        // cursor can be re-opened
+                        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                            TestUtils.assertEquals(expected, printSorted(cursor, factory));
+                        }
+                    }
+                    Assert.assertEquals(0, engine.getBusyReaderCount());
+                } finally {
+                    workerPool.halt();
+                    engine.releaseAllWriters();
+                    engine.releaseAllReaders();
+                }
+            }
+        });
+    }
+
+    private static String printSorted(RecordCursor cursor, RecordCursorFactory factory) {
+        // order of map keys depends on the order threads aggregated rows in
+        sink.clear();
+        printer.print(cursor, factory.getMetadata(), true);
+        final String[] lines = sink.toString().split("\n");
+        Arrays.sort(lines);
+        return String.join("\n", lines);
+    }
+}
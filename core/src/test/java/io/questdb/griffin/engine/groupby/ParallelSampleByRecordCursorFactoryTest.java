@@ -0,0 +1,193 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
+import io.questdb.std.Rnd;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelSampleByRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        assertParallel(0, "select c, count() from x sample by 1h", true);
+    }
+
+    @Test
+    public void testFillLinear() throws Exception {
+        assertParallel(20000, "select sum(i), avg(h), max(l) from x sample by 30s fill(linear)", true);
+    }
+
+    @Test
+    public void testFillLinearKeyed() throws Exception {
+        assertParallel(20000, "select c, sum(h), min(l) from x sample by 3m fill(linear)", true);
+    }
+
+    @Test
+    public void testFillNone() throws Exception {
+        assertParallel(20000, "select count(), sum(h), max(i), min(d) from x sample by 1h", true);
+    }
+
+    @Test
+    public void testFillNoneKeyed() throws Exception {
+        assertParallel(20000, "select c, s, count(), sum(i), min(d), max(l), avg(h) from x sample by 1h", true);
+    }
+
+    @Test
+    public void testFillNull() throws Exception {
+        assertParallel(20000, "select c, count(), sum(l), max(d) from x sample by 3m fill(null)", true);
+    }
+
+    @Test
+    public void testFillPrev() throws Exception {
+        assertParallel(20000, "select c, sum(i), min(h), avg(h) from x sample by 3m fill(prev)", true);
+    }
+
+    @Test
+    public void testFillValue() throws Exception {
+        assertParallel(20000, "select c, sum(i), max(l), sum(h) from x sample by 3m fill(20, 30, 40.5)", true);
+    }
+
+    @Test
+    public void testFunctionWithoutMerge() throws Exception {
+        assertParallel(5000, "select c, isOrdered(l) from x sample by 1h", false);
+    }
+
+    @Test
+    public void testIntervalScan() throws Exception {
+        assertParallel(20000, "select c, count(), sum(i), max(d) from x where k > '1970-01-02T10:00:00.000Z' and k < '1970-01-05T00:00:00.000Z' sample by 2h", true);
+    }
+
+    @Test
+    public void testMonthSampler() throws Exception {
+        assertParallel(20000, "select c, count(), sum(h) from x sample by 1M", true);
+    }
+
+    private static void assertParallel(int count, String query, boolean parallel) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public long getSqlParallelGroupByFrameRowCount() {
+                    // small sub-frames make sure samples straddle tasks and batches
+                    return 333;
+                }
+            };
+            final WorkerPool workerPool = new WorkerPool(new WorkerPoolConfiguration() {
+                @Override
+                public int[] getWorkerAffinity() {
+                    return new int[]{-1, -1, -1};
+                }
+
+                @Override
+                public int getWorkerCount() {
+                    return 3;
+                }
+
+                @Override
+                public boolean haltOnError() {
+                    return false;
+                }
+            });
+
+            try (
+                    CairoEngine engine = new CairoEngine(configuration, new CairoWorkSchedulerImpl(configuration, workerPool));
+                    SqlCompiler serialCompiler = new SqlCompiler(engine, null);
+                    SqlCompiler parallelCompiler = new SqlCompiler(engine)
+            ) {
+                workerPool.start(null);
+                try {
+                    serialCompiler.compile("create table x as (" +
+                            "select" +
+                            " rnd_double(2) d," +
+                            " rnd_int(0, 100, 0) * 0.25 h," +
+                            " rnd_int(0, 1000, 2) i," +
+                            " rnd_long(0, 100000, 2) l," +
+                            " rnd_str('a', 'bb', 'ccc', null) s," +
+                            " rnd_symbol('A', 'BB', 'CCC', 'DDDD', 'EEEEE') c," +
+                            " timestamp_sequence(to_timestamp(0), 60000000) k" +
+                            " from long_sequence(" + count + ")" +
+                            ") timestamp(k) partition by DAY", sqlExecutionContext);
+
+                    final String expected;
+                    try (RecordCursorFactory factory = serialCompiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                        Assert.assertFalse(isParallel(factory));
+                        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                            expected = print(cursor, factory);
+                        }
+                    }
+
+                    try (RecordCursorFactory factory = parallelCompiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                        Assert.assertEquals(parallel, isParallel(factory));
+                        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                            // worker readers are released once rows are aggregated,
+                            // sample by closes base cursor straight away when table is empty
+                            Assert.assertEquals(count > 0 ? 1 : 0, engine.getBusyReaderCount());
+                            TestUtils.assertEquals(expected, print(cursor, factory));
+                        }
+
+                        // cursor can be re-opened
+                        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                            TestUtils.assertEquals(expected, print(cursor, factory));
+                        }
+                    }
+                    Assert.assertEquals(0, engine.getBusyReaderCount());
+                } finally {
+                    workerPool.halt();
+                    engine.releaseAllWriters();
+                    engine.releaseAllReaders();
+                }
+            }
+        });
+    }
+
+    private static boolean isParallel(RecordCursorFactory factory) {
+        if (factory instanceof AbstractSampleByRecordCursorFactory) {
+            return ((AbstractSampleByRecordCursorFactory) factory).base instanceof ParallelSampleByRecordCursorFactory;
+        }
+        return factory instanceof SampleByInterpolateRecordCursorFactory
+                && ((SampleByInterpolateRecordCursorFactory) factory).base instanceof ParallelSampleByRecordCursorFactory;
+    }
+
+    private static String print(RecordCursor cursor, RecordCursorFactory factory) {
+        sink.clear();
+        printer.print(cursor, factory.getMetadata(), true);
+        return sink.toString();
+    }
+}
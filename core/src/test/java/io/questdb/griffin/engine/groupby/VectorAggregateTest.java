@@ -0,0 +1,162 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.groupby.vect.GroupByNotKeyedVectorRecordCursorFactory;
+import io.questdb.std.Rnd;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VectorAggregateTest extends AbstractGriffinTest {
+
+    private static final String FUNCTIONS = "sum(d), avg(d), min(d), max(d), sum(i), min(i), sum(l), min(l), count()";
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testAllNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (" +
+                    "select" +
+                    " timestamp_sequence(to_timestamp(0), 1000000) k" +
+                    " from long_sequence(2)" +
+                    ") timestamp(k) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x add column d double", sqlExecutionContext);
+            compiler.compile("alter table x add column i int", sqlExecutionContext);
+            compiler.compile("alter table x add column l long", sqlExecutionContext);
+            Assert.assertEquals("sum\tavg\tmin\tmax\tsum1\tmin1\tsum2\tmin2\tcount\n" +
+                            "NaN\tNaN\tNaN\tNaN\t0\tNaN\t0\tNaN\t2\n",
+                    print("select " + FUNCTIONS + " from x", true)
+            );
+            assertVectorized("select " + FUNCTIONS + " from x");
+        });
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(5000);
+            compiler.compile("alter table x add column z double", sqlExecutionContext);
+            compiler.compile("insert into x select * from (" +
+                    "select" +
+                    " rnd_double(2) d," +
+                    " rnd_int(0, 1000, 2) i," +
+                    " rnd_long(0, 100000, 2) l," +
+                    " to_timestamp('1970-01-05', 'yyyy-MM-dd') + x * 60000000 k," +
+                    " rnd_double(0) z" +
+                    " from long_sequence(3000)" +
+                    ") timestamp(k)", sqlExecutionContext);
+            // rows above column top turn sum into NaN, same as row-by-row sum does
+            assertVectorized("select min(z), max(z), sum(z), count() from x");
+            assertVectorized("select min(z), max(z), sum(z), count() from x where k > '1970-01-04T12:00:00.000Z'");
+            assertVectorized("select " + FUNCTIONS + " from x");
+        });
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(0);
+            assertVectorized("select " + FUNCTIONS + " from x");
+        });
+    }
+
+    @Test
+    public void testIntervalScan() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(20000);
+            assertVectorized("select " + FUNCTIONS + " from x where k > '1970-01-02T10:00:00.000Z' and k < '1970-01-05T00:00:00.000Z'");
+        });
+    }
+
+    @Test
+    public void testKeyedIsNotVectorized() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(10);
+            try (RecordCursorFactory factory = compiler.compile("select i, sum(d) from x", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof GroupByNotKeyedVectorRecordCursorFactory);
+            }
+            try (RecordCursorFactory factory = compiler.compile("select sum(d) from x where i > 10", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof GroupByNotKeyedVectorRecordCursorFactory);
+            }
+        });
+    }
+
+    @Test
+    public void testMultiplePartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(20000);
+            assertVectorized("select " + FUNCTIONS + " from x");
+        });
+    }
+
+    private static void assertMemoryLeak(TestUtils.LeakProneCode code) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try {
+                code.run();
+            } finally {
+                engine.releaseAllWriters();
+                engine.releaseAllReaders();
+            }
+        });
+    }
+
+    private static void assertVectorized(String query) throws SqlException {
+        final String expected = print(query.replace(" from x", " from (x limit 1000000)"), false);
+        Assert.assertEquals(expected, print(query, true));
+    }
+
+    private static void createTable(int count) throws SqlException {
+        compiler.compile("create table x as (" +
+                "select" +
+                " rnd_double(2) d," +
+                " rnd_int(0, 1000, 2) i," +
+                " rnd_long(0, 100000, 2) l," +
+                " timestamp_sequence(to_timestamp(0), 60000000) k" +
+                " from long_sequence(" + count + ")" +
+                ") timestamp(k) partition by DAY", sqlExecutionContext);
+    }
+
+    private static String print(String query, boolean vectorized) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(vectorized, factory instanceof GroupByNotKeyedVectorRecordCursorFactory);
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HashJoinLightRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testPartitionedIntKey() throws Exception {
+        assertPartitioned("select x.id, x.i, y.id, y.s from x join y on (i) order by x.id, y.id");
+    }
+
+    @Test
+    public void testPartitionedMasterWithoutRandomAccess() throws Exception {
+        // master is scanned once per partition
+        assertPartitioned("select a.id, a.i, y.id from (x union all x) a join y on (i) order by a.id, y.id");
+    }
+
+    @Test
+    public void testPartitionedMultipleKeys() throws Exception {
+        assertPartitioned("select x.id, y.id from x join y on (i, s) order by x.id, y.id");
+    }
+
+    @Test
+    public void testPartitionedStringKey() throws Exception {
+        assertPartitioned("select x.id, x.s, y.id from x join y on (s) order by x.id, y.id");
+    }
+
+    @Test
+    public void testPartitionedSymbolKey() throws Exception {
+        assertPartitioned("select x.id, x.sym, y.id from x join y on (sym) order by x.id, y.id");
+    }
+
+    @Test
+    public void testPartitionedSingleKeyExceedsBudget() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile("create table a as (select x id, 1 k from long_sequence(100))", sqlExecutionContext);
+            compiler.compile("create table b as (select x id, 1 k from long_sequence(2000))", sqlExecutionContext);
+            try (
+                    CairoEngine engine = new CairoEngine(new SpillingConfiguration(), null);
+                    SqlCompiler compiler = new SqlCompiler(engine)
+            ) {
+                try {
+                    print(compiler, "select a.id, b.id from a join b on (k)");
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "hash join partition exceeds memory budget [partition=");
+                    TestUtils.assertContains(e.getFlyweightMessage(), "keys=1");
+                }
+            }
+            assertNoSpillFiles();
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testPartitionedToTop() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTables();
+            try (
+                    CairoEngine engine = new CairoEngine(new SpillingConfiguration(), null);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    RecordCursorFactory factory = compiler.compile("select x.id, y.id from x join y on (i)", sqlExecutionContext).getRecordCursorFactory();
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                final String expected = sink.toString();
+                Assert.assertTrue(expected.length() > 100);
+
+                cursor.toTop();
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                TestUtils.assertEquals(expected, sink);
+            }
+            assertNoSpillFiles();
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private static void assertNoSpillFiles() {
+        final NativeLPSZ fileName = new NativeLPSZ();
+        try (Path path = new Path()) {
+            FilesFacadeImpl.INSTANCE.iterateDir(path.of(root).$(), (name, type) -> {
+                if (type != Files.DT_DIR) {
+                    Assert.assertFalse(Chars.startsWith(fileName.of(name), "join-"));
+                }
+            });
+        }
+    }
+
+    private static void assertPartitioned(String query) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTables();
+            final String expected = print(compiler, query);
+            Assert.assertTrue(expected.length() > 100);
+            try (
+                    CairoEngine engine = new CairoEngine(new SpillingConfiguration(), null);
+                    SqlCompiler compiler = new SqlCompiler(engine)
+            ) {
+                TestUtils.assertEquals(expected, print(compiler, query));
+            }
+            assertNoSpillFiles();
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private static void createTables() throws SqlException {
+        compiler.compile("create table x as (" +
+                "select" +
+                " x id," +
+                " rnd_int(0, 200, 2) i," +
+                " rnd_str('AB', 'CD', 'EF', 'GH', 'IJ', 'KL', 'MN', 'OP', null) s," +
+                " rnd_symbol(30, 2, 3, 2) sym" +
+                " from long_sequence(2000)" +
+                ")", sqlExecutionContext);
+        compiler.compile("create table y as (" +
+                "select" +
+                " x id," +
+                " rnd_int(0, 200, 2) i," +
+                " rnd_str('AB', 'CD', 'EF', 'GH', 'IJ', 'KL', 'MN', 'OP', null) s," +
+                " rnd_symbol(30, 2, 3, 2) sym" +
+                " from long_sequence(1500)" +
+                ")", sqlExecutionContext);
+    }
+
+    private static String print(SqlCompiler compiler, String query) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+
+    private static class SpillingConfiguration extends DefaultCairoConfiguration {
+        public SpillingConfiguration() {
+            super(root);
+        }
+
+        @Override
+        public long getSqlHashJoinSpillThreshold() {
+            // some partitions do not fit and are split further
+            return 14 * 1024;
+        }
+
+        @Override
+        public int getSqlMapPageSize() {
+            return 4096;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LimitedSizeSortedLightRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testLimitExceedsRowCount() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            TestUtils.assertEquals(print("x order by i"), print("x order by i limit 2000"));
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testLimitLoHi() throws Exception {
+        assertTopK("x order by d desc", 5, 15);
+    }
+
+    @Test
+    public void testMultipleColumns() throws Exception {
+        assertTopK("x order by i, s desc", 0, 20);
+    }
+
+    @Test
+    public void testSingleRow() throws Exception {
+        assertTopK("x order by d", 0, 1);
+    }
+
+    @Test
+    public void testTies() throws Exception {
+        // many rows share the same key, order of ties must match full sort
+        assertTopK("x order by i desc", 0, 50);
+    }
+
+    @Test
+    public void testVariableLimit() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            bindVariableService.setLong("lim", 7);
+            final String expected = head(print("x order by d desc"), 0, 7);
+            TestUtils.assertEquals(expected, print("x order by d desc limit :lim"));
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private static void assertTopK(String query, int lo, int hi) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            final String expected = head(print(query), lo, hi);
+            final String limit = lo == 0 ? " limit " + hi : " limit " + lo + "," + hi;
+            try (RecordCursorFactory factory = compiler.compile(query + limit, sqlExecutionContext).getRecordCursorFactory()) {
+                assertCursor(expected, factory, true);
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private static void createTable() throws SqlException {
+        compiler.compile("create table x as (" +
+                "select" +
+                " rnd_int(0, 20, 2) i," +
+                " rnd_double(2) d," +
+                " rnd_str(2, 4, 2) s," +
+                " timestamp_sequence(to_timestamp(0), 60000000) k" +
+                " from long_sequence(1000)" +
+                ") timestamp(k) partition by DAY", sqlExecutionContext);
+    }
+
+    private static String head(String text, int lo, int hi) {
+        // header line is followed by rows
+        final String[] lines = text.split("\n");
+        final StringBuilder b = new StringBuilder();
+        b.append(lines[0]).append('\n');
+        for (int i = lo + 1; i < Math.min(hi + 1, lines.length); i++) {
+            b.append(lines[i]).append('\n');
+        }
+        return b.toString();
+    }
+
+    private static String print(String query) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
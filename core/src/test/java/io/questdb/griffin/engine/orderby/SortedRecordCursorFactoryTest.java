@@ -0,0 +1,176 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SortedRecordCursorFactoryTest extends AbstractGriffinTest {
+    // union does not support random access, which makes "order by" copy rows
+    private static final String QUERY = "select * from (x union all x) order by ";
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testSpillDescending() throws Exception {
+        assertSpill("d desc");
+    }
+
+    @Test
+    public void testSpillMultipleColumns() throws Exception {
+        assertSpill("i, s desc");
+    }
+
+    @Test
+    public void testSpillString() throws Exception {
+        assertSpill("s");
+    }
+
+    @Test
+    public void testSpillSymbol() throws Exception {
+        assertSpill("sym, k desc");
+    }
+
+    @Test
+    public void testSpillTies() throws Exception {
+        // many rows share the same key, order of ties must match in-memory sort
+        assertSpill("i");
+    }
+
+    @Test
+    public void testSpillToTop() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            try (
+                    CairoEngine engine = new CairoEngine(new SpillingConfiguration(), null);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    RecordCursorFactory factory = compiler.compile(QUERY + "d", sqlExecutionContext).getRecordCursorFactory();
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                final String expected = sink.toString();
+
+                cursor.toTop();
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                TestUtils.assertEquals(expected, sink);
+            }
+            assertNoSpillFiles();
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private static void assertNoSpillFiles() {
+        final NativeLPSZ fileName = new NativeLPSZ();
+        try (Path path = new Path()) {
+            FilesFacadeImpl.INSTANCE.iterateDir(path.of(root).$(), (name, type) -> {
+                if (type != Files.DT_DIR) {
+                    Assert.assertFalse(Chars.startsWith(fileName.of(name), "sort-"));
+                }
+            });
+        }
+    }
+
+    private static void assertSpill(String orderBy) throws Exception {
+        final String query = QUERY + orderBy;
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            final String expected = print(query);
+            try (
+                    CairoEngine engine = new CairoEngine(new SpillingConfiguration(), null);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()
+            ) {
+                assertCursor(expected, factory, true);
+            }
+            assertNoSpillFiles();
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private static void createTable() throws SqlException {
+        compiler.compile("create table x as (" +
+                "select" +
+                " rnd_int(0, 20, 2) i," +
+                " rnd_double(0) d," +
+                " rnd_str(2, 4, 2) s," +
+                " rnd_symbol(5, 4, 6, 2) sym," +
+                " rnd_bin(2, 10, 2) b," +
+                " rnd_long256() l," +
+                " timestamp_sequence(to_timestamp(0), 60000000) k" +
+                " from long_sequence(1000)" +
+                ") timestamp(k) partition by DAY", sqlExecutionContext);
+    }
+
+    private static String print(String query) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+
+    private static class SpillingConfiguration extends DefaultCairoConfiguration {
+        public SpillingConfiguration() {
+            super(root);
+        }
+
+        @Override
+        public long getSqlSortSpillThreshold() {
+            // few dozen rows per run
+            return 4096;
+        }
+
+        @Override
+        public int getSqlSortValuePageSize() {
+            // small pages make records straddle page boundaries in run file
+            return 4096;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.*;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Rnd;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ServiceLoader;
+
+public class FilterCompilerTest extends BaseFunctionFactoryTest {
+
+    private static final String[] SUPPORTED = {
+            "i > 500",
+            "d < 0.5",
+            "0.5 < d",
+            "i < 500 and d > 0.5",
+            "i = 10 or l = 42",
+            "i + 10 = 30",
+            "i - 5 < 100",
+            "i * s > 1000",
+            "l + i > 0",
+            "l - 7 = 35",
+            "l * 2 > 100",
+            "l / 3 = 7",
+            "d / 2 < 0.1",
+            "d * 2 - 1 > 0",
+            "d + 1.5 > i / 100.0",
+            "f > 0.5",
+            "b > 10",
+            "t",
+            "t and i > 100",
+            "t or d > 0.9",
+            "i = NaN",
+            "l = NaN",
+            "f = NaN",
+            "d = NaN",
+            "i = 2147483 or i > 990",
+            "l = 100000000000 or i > -40000"
+    };
+
+    private static final String[] UNSUPPORTED = {
+            "str = 'abc'",
+            "i > 10 and str ~= 'A.*'",
+            "abs(i) > 10",
+            "1 < 2"
+    };
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testCompiledFilterMatchesFunction() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            final FunctionParser functionParser = new FunctionParser(configuration, ServiceLoader.load(FunctionFactory.class));
+            final FilterCompiler filterCompiler = new FilterCompiler(new BytecodeAssembler());
+            try (RecordCursorFactory factory = compiler.compile("x", sqlExecutionContext).getRecordCursorFactory()) {
+                for (int i = 0, n = SUPPORTED.length; i < n; i++) {
+                    final String expression = SUPPORTED[i];
+                    final Function function = functionParser.parseFunction(expr(expression), factory.getMetadata(), sqlExecutionContext);
+                    final Function compiled = filterCompiler.compile(function);
+                    Assert.assertNotNull(expression, compiled);
+                    Assert.assertTrue(compiled instanceof CompiledFilter);
+
+                    int matches = 0;
+                    try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                        final Record record = cursor.getRecord();
+                        while (cursor.hasNext()) {
+                            final boolean expected = function.getBool(record);
+                            Assert.assertEquals(expression, expected, compiled.getBool(record));
+                            if (expected) {
+                                matches++;
+                            }
+                        }
+                    }
+                    Assert.assertTrue(expression, matches > 0);
+                    function.close();
+                }
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            final String expected;
+            try (
+                    CairoEngine engine = new CairoEngine(new DefaultCairoConfiguration(root) {
+                        @Override
+                        public boolean isSqlFilterCompilerEnabled() {
+                            return false;
+                        }
+                    }, null);
+                    SqlCompiler compiler = new SqlCompiler(engine)
+            ) {
+                expected = printQuery(compiler, "x where i < 500 and d > 0.5 or l * 2 = 42");
+            }
+            Assert.assertTrue(expected.length() > 0);
+            TestUtils.assertEquals(expected, printQuery(compiler, "x where i < 500 and d > 0.5 or l * 2 = 42"));
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testUnsupportedFunction() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable();
+            final FunctionParser functionParser = new FunctionParser(configuration, ServiceLoader.load(FunctionFactory.class));
+            final FilterCompiler filterCompiler = new FilterCompiler(new BytecodeAssembler());
+            try (RecordCursorFactory factory = compiler.compile("x", sqlExecutionContext).getRecordCursorFactory()) {
+                for (int i = 0, n = UNSUPPORTED.length; i < n; i++) {
+                    final String expression = UNSUPPORTED[i];
+                    try (Function function = functionParser.parseFunction(expr(expression), factory.getMetadata(), sqlExecutionContext)) {
+                        Assert.assertNull(expression, filterCompiler.compile(function));
+                    }
+                }
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private static void createTable() throws SqlException {
+        compiler.compile("create table x as (" +
+                "select" +
+                " rnd_byte(0, 100) b," +
+                " rnd_short(0, 100) s," +
+                " rnd_int(0, 1000, 5) i," +
+                " rnd_long(0, 100, 5) l," +
+                " rnd_float(5) f," +
+                " rnd_double(5) d," +
+                " rnd_boolean() t," +
+                " rnd_str(3, 5, 2) str," +
+                " timestamp_sequence(to_timestamp(0), 60000000) k" +
+                " from long_sequence(5000)" +
+                ") timestamp(k) partition by DAY", sqlExecutionContext);
+    }
+
+    private static String printQuery(SqlCompiler compiler, String query) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
+import io.questdb.std.Rnd;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        assertParallel(0, "x where i > 10");
+    }
+
+    @Test
+    public void testIntervalScan() throws Exception {
+        assertParallel(20000, "x where k > '1970-01-02T10:00:00.000Z' and k < '1970-01-05T00:00:00.000Z' and d > 0.5");
+    }
+
+    @Test
+    public void testMultiplePartitions() throws Exception {
+        assertParallel(20000, "x where i > 500 and d < 0.3");
+    }
+
+    @Test
+    public void testNoMatch() throws Exception {
+        assertParallel(5000, "x where i > 1000");
+    }
+
+    @Test
+    public void testStringFilter() throws Exception {
+        assertParallel(10000, "x where s ~= 'A.*'");
+    }
+
+    @Test
+    public void testSymbolFilter() throws Exception {
+        assertParallel(10000, "x where c = 'BB' or c = 'CCC'");
+    }
+
+    private static void assertParallel(int count, String query) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public long getSqlParallelFilterFrameRowCount() {
+                    // small sub-frames make sure partitions are split between workers
+                    return 333;
+                }
+            };
+            final WorkerPool workerPool = new WorkerPool(new WorkerPoolConfiguration() {
+                @Override
+                public int[] getWorkerAffinity() {
+                    return new int[]{-1, -1, -1};
+                }
+
+                @Override
+                public int getWorkerCount() {
+                    return 3;
+                }
+
+                @Override
+                public boolean haltOnError() {
+                    return false;
+                }
+            });
+
+            try (
+                    CairoEngine engine = new CairoEngine(configuration, new CairoWorkSchedulerImpl(configuration, workerPool));
+                    SqlCompiler serialCompiler = new SqlCompiler(engine, null);
+                    SqlCompiler parallelCompiler = new SqlCompiler(engine)
+            ) {
+                workerPool.start(null);
+                try {
+                    serialCompiler.compile("create table x as (" +
+                            "select" +
+                            " rnd_double(2) d," +
+                            " rnd_int(0, 1000, 2) i," +
+                            " rnd_str(3, 5, 2) s," +
+                            " rnd_symbol('A', 'BB', 'CCC') c," +
+                            " timestamp_sequence(to_timestamp(0), 60000000) k" +
+                            " from long_sequence(" + count + ")" +
+                            ") timestamp(k) partition by DAY", sqlExecutionContext);
+
+                    final String expected;
+                    try (RecordCursorFactory factory = serialCompiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                            Assert.assertEquals(1, engine.getBusyReaderCount());
+                            sink.clear();
+                            printer.print(cursor, factory.getMetadata(), true);
+                            expected = sink.toString();
+                        }
+                    }
+
+                    try (RecordCursorFactory factory = parallelCompiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                            // each worker reads table via its own reader
+                            Assert.assertEquals(4, engine.getBusyReaderCount());
+                            sink.clear();
+                            printer.print(cursor, factory.getMetadata(), true);
+                            TestUtils.assertEquals(expected, sink);
+
+                            cursor.toTop();
+                            sink.clear();
+                            printer.print(cursor, factory.getMetadata(), true);
+                            TestUtils.assertEquals(expected, sink);
+                        }
+                        // cursor can be re-opened
+                        assertCursor(expected, factory, true);
+                    }
+                    Assert.assertEquals(0, engine.getBusyReaderCount());
+                } finally {
+                    workerPool.halt();
+                    engine.releaseAllWriters();
+                    engine.releaseAllReaders();
+                }
+            }
+        });
+    }
+}
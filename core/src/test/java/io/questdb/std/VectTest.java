@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VectTest {
+    private static final int N = 1037;
+
+    @Test
+    public void testDouble() {
+        final Rnd rnd = new Rnd();
+        final long address = Unsafe.malloc(N * 8L);
+        try {
+            double min = Double.NaN;
+            double max = Double.NaN;
+            for (int i = 0; i < N; i++) {
+                final double v = i % 7 == 0 ? Double.NaN : rnd.nextDouble() * 1000 - 500;
+                Unsafe.getUnsafe().putDouble(address + i * 8L, v);
+                if (v < min || Double.isNaN(min)) {
+                    min = v;
+                }
+                if (v > max || Double.isNaN(max)) {
+                    max = v;
+                }
+            }
+            Assert.assertEquals(min, Vect.minDouble(address, N), 0);
+            Assert.assertEquals(max, Vect.maxDouble(address, N), 0);
+            Assert.assertTrue(Double.isNaN(Vect.sumDouble(address, N)));
+            // first value is NaN, the rest are not
+            double sum = 0;
+            for (int i = 1; i < 7; i++) {
+                sum += Unsafe.getUnsafe().getDouble(address + i * 8L);
+            }
+            Assert.assertEquals(sum, Vect.sumDouble(address + 8, 6), 0.0000001);
+            Assert.assertEquals(0, Vect.sumDouble(address, 0), 0);
+            Assert.assertTrue(Double.isNaN(Vect.minDouble(address, 1)));
+            Assert.assertTrue(Double.isNaN(Vect.maxDouble(address, 0)));
+        } finally {
+            Unsafe.free(address, N * 8L);
+        }
+    }
+
+    @Test
+    public void testInt() {
+        final Rnd rnd = new Rnd();
+        final long address = Unsafe.malloc(N * 4L);
+        try {
+            int sum = 0;
+            int min = Numbers.INT_NaN;
+            for (int i = 0; i < N; i++) {
+                final int v = i % 5 == 0 ? Numbers.INT_NaN : rnd.nextInt();
+                Unsafe.getUnsafe().putInt(address + i * 4L, v);
+                sum += v;
+                if (v != Numbers.INT_NaN && (v < min || min == Numbers.INT_NaN)) {
+                    min = v;
+                }
+            }
+            Assert.assertEquals(sum, Vect.sumInt(address, N));
+            Assert.assertEquals(min, Vect.minInt(address, N));
+            Assert.assertEquals(Numbers.INT_NaN, Vect.minInt(address, 1));
+            Assert.assertEquals(0, Vect.sumInt(address, 0));
+        } finally {
+            Unsafe.free(address, N * 4L);
+        }
+    }
+
+    @Test
+    public void testLong() {
+        final Rnd rnd = new Rnd();
+        final long address = Unsafe.malloc(N * 8L);
+        try {
+            long sum = 0;
+            long min = Numbers.LONG_NaN;
+            for (int i = 0; i < N; i++) {
+                final long v = i % 5 == 0 ? Numbers.LONG_NaN : rnd.nextLong();
+                Unsafe.getUnsafe().putLong(address + i * 8L, v);
+                sum += v;
+                if (v != Numbers.LONG_NaN && (v < min || min == Numbers.LONG_NaN)) {
+                    min = v;
+                }
+            }
+            Assert.assertEquals(sum, Vect.sumLong(address, N));
+            Assert.assertEquals(min, Vect.minLong(address, N));
+            Assert.assertEquals(Numbers.LONG_NaN, Vect.minLong(address, 1));
+            Assert.assertEquals(0, Vect.sumLong(address, 0));
+        } finally {
+            Unsafe.free(address, N * 8L);
+        }
+    }
+}
@@ -157,6 +157,13 @@ public class TimestampsTest {
         TestUtils.assertEquals("2008-05-12T23:00:00.000Z", sink);
     }
 
+    @Test
+    public void testFloorHHPrevEpoch() throws Exception {
+        long millis = DateFormatUtils.parseDateTime("1969-12-31T23:45:51.045Z");
+        DateFormatUtils.appendDateTime(sink, Timestamps.floorHH(millis));
+        TestUtils.assertEquals("1969-12-31T23:00:00.000Z", sink);
+    }
+
     @Test
     public void testFloorMM() throws Exception {
         long millis = DateFormatUtils.parseDateTime("2008-05-12T23:45:51.045Z");
@@ -164,6 +171,20 @@ public class TimestampsTest {
         TestUtils.assertEquals("2008-05-01T00:00:00.000Z", sink);
     }
 
+    @Test
+    public void testFloorWW() throws Exception {
+        long millis = DateFormatUtils.parseDateTime("2008-05-15T23:45:51.045Z");
+        DateFormatUtils.appendDateTime(sink, Timestamps.floorWW(millis));
+        TestUtils.assertEquals("2008-05-12T00:00:00.000Z", sink);
+    }
+
+    @Test
+    public void testFloorWWMonday() throws Exception {
+        long millis = DateFormatUtils.parseDateTime("2008-05-12T00:00:00.000Z");
+        DateFormatUtils.appendDateTime(sink, Timestamps.floorWW(millis));
+        TestUtils.assertEquals("2008-05-12T00:00:00.000Z", sink);
+    }
+
     @Test
     public void testFloorYYYY() throws Exception {
         long millis = DateFormatUtils.parseDateTime("2008-05-12T23:45:51.045Z");